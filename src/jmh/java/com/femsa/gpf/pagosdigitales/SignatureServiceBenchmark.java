@@ -0,0 +1,84 @@
+package com.femsa.gpf.pagosdigitales;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.femsa.gpf.pagosdigitales.domain.service.SignatureService;
+import com.femsa.gpf.pagosdigitales.domain.service.SignatureService.SignatureMode;
+
+/**
+ * Compara la firma de confirmaciones SafetyPay con digest y Mac por hilo contra
+ * la implementacion anterior, que creaba el digest en cada llamada y armaba el
+ * hexadecimal con {@code String.format}. Se ejecuta con
+ * {@code mvn -P benchmark test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class SignatureServiceBenchmark {
+
+    private static final String SECRET = "b2f5c1d7e9a34c6f8e0d1a2b3c4d5e6f";
+    private static final String[] FIELDS = {
+        "2020-10-20T12:27:27", "Prueba1", "Ref-0001", "2020-10-20T12:20:00", "50.00", "USD", "606973", "102"
+    };
+    private static final String BASE_TEXT = String.join("", FIELDS) + SECRET;
+
+    private final SignatureService signatureService = new SignatureService();
+
+    @Benchmark
+    public String sha256HexReusedDigest() {
+        return signatureService.sha256Hex(BASE_TEXT);
+    }
+
+    @Benchmark
+    public String sha256HexPerCallDigest() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = digest.digest(BASE_TEXT.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(String.format("%02X", b));
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String signSha256() {
+        return signatureService.sign(SignatureMode.SHA256, SECRET, FIELDS);
+    }
+
+    @Benchmark
+    public String signHmacSha256() {
+        return signatureService.sign(SignatureMode.HMAC_SHA256, SECRET, FIELDS);
+    }
+
+    @Benchmark
+    public String hmacSha256PerCallMac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] hash = mac.doFinal(String.join("", FIELDS).getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            sb.append(String.format("%02X", b));
+        }
+        return sb.toString();
+    }
+}
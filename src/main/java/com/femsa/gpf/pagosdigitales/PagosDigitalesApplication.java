@@ -5,13 +5,16 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
 import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.GatewayConfigRefreshProperties;
 
 /**
  * Punto de entrada de la aplicacion Pagos Digitales.
  */
 @SpringBootApplication
-@EnableConfigurationProperties(ExternalServiceHttpProperties.class)
+@EnableConfigurationProperties({ExternalServiceHttpProperties.class, DatabaseExecutionProperties.class,
+		GatewayConfigRefreshProperties.class})
 @EnableScheduling
 public class PagosDigitalesApplication {
 
@@ -4,8 +4,6 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.apache.camel.CamelExecutionException;
 import org.apache.camel.ProducerTemplate;
@@ -23,18 +21,22 @@ import com.femsa.gpf.pagosdigitales.api.dto.BanksResponse;
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInfo;
 import com.femsa.gpf.pagosdigitales.api.dto.ProviderItem;
 import com.femsa.gpf.pagosdigitales.application.mapper.BanksMap;
-import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshot;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.ProviderBanksCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService.AllowedBanks;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ApiErrorUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.AppUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ChannelPosUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalCallTimer;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalServiceExceptionUtils;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.JsonPayloadUtils;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch.Stage;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -49,43 +51,35 @@ public class BanksController {
     private static final String WS_KEY = "getbanks";
 
     private final ProducerTemplate camel;
-    private final ProvidersPayService providersPayService;
+    private final GatewayConfigSnapshotService gatewayConfigSnapshotService;
+    private final ProviderBanksCache providerBanksCache;
     private final BanksMap banksMap;
     private final ObjectMapper objectMapper;
-    private final ServiceMappingConfigService serviceMappingConfigService;
-    private final ErrorMappingCatalogService errorMappingCatalogService;
     private final IntegrationLogService integrationLogService;
-    private final BanksCatalogService banksCatalogService;
-    private final GatewayWebServiceConfigService gatewayWebServiceConfigService;
+    private final GatewayMetrics gatewayMetrics;
 
     /**
      * Crea el controlador de bancos con sus dependencias.
      *
      * @param camel motor de envio a rutas Camel
-     * @param providersPayService servicio de proveedores habilitados
+     * @param gatewayConfigSnapshotService servicio de configuracion versionada de pasarela
+     * @param providerBanksCache cache de respuestas getbanks por proveedor y pais
      * @param banksMap mapeador de respuestas de bancos
      * @param objectMapper serializador de payloads
-     * @param serviceMappingConfigService servicio de mapeo por BD
-     * @param errorMappingCatalogService servicio de catalogo de mapeo de errores
      * @param integrationLogService servicio de auditoria de logs
-     * @param banksCatalogService servicio de catalogo de bancos por cadena
-     * @param gatewayWebServiceConfigService servicio de configuracion de endpoints por BD
+     * @param gatewayMetrics metricas de proveedores y errores
      */
     public BanksController(ProducerTemplate camel,
-            ProvidersPayService providersPayService, BanksMap banksMap, ObjectMapper objectMapper,
-            ServiceMappingConfigService serviceMappingConfigService, IntegrationLogService integrationLogService,
-            ErrorMappingCatalogService errorMappingCatalogService,
-            BanksCatalogService banksCatalogService,
-            GatewayWebServiceConfigService gatewayWebServiceConfigService) {
+            GatewayConfigSnapshotService gatewayConfigSnapshotService, ProviderBanksCache providerBanksCache,
+            BanksMap banksMap, ObjectMapper objectMapper, IntegrationLogService integrationLogService,
+            GatewayMetrics gatewayMetrics) {
         this.camel = camel;
-        this.providersPayService = providersPayService;
+        this.gatewayConfigSnapshotService = gatewayConfigSnapshotService;
+        this.providerBanksCache = providerBanksCache;
         this.banksMap = banksMap;
         this.objectMapper = objectMapper;
-        this.serviceMappingConfigService = serviceMappingConfigService;
-        this.errorMappingCatalogService = errorMappingCatalogService;
         this.integrationLogService = integrationLogService;
-        this.banksCatalogService = banksCatalogService;
-        this.gatewayWebServiceConfigService = gatewayWebServiceConfigService;
+        this.gatewayMetrics = gatewayMetrics;
     }
 
     /**
@@ -100,23 +94,29 @@ public class BanksController {
     public ResponseEntity<?> getBanks(@RequestBody BanksRequest req) {
         log.info("Request recibido banks: {}", req);
         req.setChannel_POS(ChannelPosUtils.normalize(req.getChannel_POS()));
+        long configStartedAt = RequestStopwatch.mark();
+        GatewayConfigSnapshot config = gatewayConfigSnapshotService.current();
         String proveedorSeleccionado = null;
+        RoutePlan planSeleccionado = null;
         Map<String, Object> headersProveedor = null;
         Integer externalElapsedMs = null;
         Object externalResponse = null;
+        boolean servedFromCache = false;
 
         try {
             if (req.getPayment_provider_code() != null) {
 
                 log.info("ID Proveedor: {}", req.getPayment_provider_code());
 
-                String proveedor = providersPayService.getProviderNameByCode(req.getPayment_provider_code());
+                String proveedor = config.providers().getProviderNameByCode(req.getPayment_provider_code());
                 proveedorSeleccionado = proveedor;
 
                 log.info("Nombre Proveedor: {}", proveedor);
 
-                if (proveedor.equals("without-provider")
-                        || !gatewayWebServiceConfigService.isActive(req.getPayment_provider_code(), WS_KEY)) {
+                RoutePlan plan = config.routePlans().find(req.getPayment_provider_code(), WS_KEY);
+                planSeleccionado = plan;
+                RequestStopwatch.record(Stage.CONFIG, configStartedAt);
+                if (plan == null) {
                     throw new IllegalArgumentException("Proveedor no configurado");
                 }
 
@@ -124,12 +124,15 @@ public class BanksController {
                 headersProveedor = camelHeaders;
 
                 log.info(camelHeaders);
+                Map<String, Object> providerHeaders = plan.attachTo(camelHeaders);
 
-                ExternalCallTimer.TimedExecution<Object> timedExecution = ExternalCallTimer.execute(
-                        () -> camel.requestBodyAndHeaders(
-                                "direct:getbanks",
-                                null,
-                                camelHeaders));
+                ProviderBanksCache.Lookup lookup = providerBanksCache.get(
+                        req.getPayment_provider_code(),
+                        req.getCountry_code(),
+                        () -> camel.requestBodyAndHeaders("direct:getbanks", null, providerHeaders, String.class),
+                        raw -> isCacheable(plan, raw));
+                servedFromCache = !lookup.providerCalled();
+                ExternalCallTimer.TimedExecution<Object> timedExecution = lookup.execution();
                 externalElapsedMs = timedExecution.elapsedMs();
                 if (timedExecution.exception() != null) {
                     throw timedExecution.exception();
@@ -137,38 +140,45 @@ public class BanksController {
                 Object rawResp = timedExecution.value();
                 externalResponse = rawResp;
 
-                log.info("Response recibido de proveedor {}: {}", proveedor,
-                        AppUtils.formatPayload(rawResp, objectMapper));
+                log.info("Response recibido de {} {}: {}", servedFromCache ? "cache de proveedor" : "proveedor",
+                        proveedor, AppUtils.formatPayload(rawResp, objectMapper));
 
-                String errorPath = serviceMappingConfigService.getErrorPath(
-                        req.getPayment_provider_code(),
-                        WS_KEY,
-                        proveedor);
-                ErrorInfo providerError = ApiErrorUtils.extractProviderError(rawResp, objectMapper, errorPath);
+                long errorMappingStartedAt = RequestStopwatch.mark();
+                ErrorInfo providerError = ApiErrorUtils.extractProviderError(rawResp, objectMapper,
+                        plan.errorPath());
+                if (providerError != null) {
+                    providerError = config.errors().mapProviderError(providerError);
+                }
+                RequestStopwatch.record(Stage.ERROR_MAPPING, errorMappingStartedAt);
                 if (providerError != null) {
-                    providerError = errorMappingCatalogService.mapProviderError(providerError);
                     int httpCode = providerError.getHttp_code() == null ? 400 : providerError.getHttp_code();
                     Object errorBody = ApiErrorUtils.buildResponse(req.getChain(), req.getStore(), req.getStore_name(),
                             req.getPos(), req.getChannel_POS(), req.getPayment_provider_code(), providerError);
-                    logExternal(req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor, httpCode,
-                            "ERROR_PROVEEDOR",
-                            externalElapsedMs);
+                    if (!servedFromCache) {
+                        logExternal(plan, req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor,
+                                httpCode, "ERROR_PROVEEDOR", externalElapsedMs);
+                    }
                     logInternal(req, errorBody, httpCode, "ERROR_PROVEEDOR");
                     return ResponseEntity.status(httpCode).body(errorBody);
                 }
 
-                BanksResponse response = banksMap.mapBanksByProviderResponse(req, rawResp, proveedor);
-                applyBanksFilter(response, req.getChain(), req.getChannel_POS());
+                long responseMappingStartedAt = RequestStopwatch.mark();
+                BanksResponse response = banksMap.mapBanksByProviderResponse(plan, req, rawResp);
+                applyBanksFilter(config, response, req.getChain(), req.getChannel_POS());
+                RequestStopwatch.record(Stage.RESPONSE_MAPPING, responseMappingStartedAt);
                 log.info("Response enviado al cliente banks: {}", response);
-                logExternal(req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor, 200, "OK",
-                        externalElapsedMs);
+                if (!servedFromCache) {
+                    logExternal(plan, req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor, 200,
+                            "OK", externalElapsedMs);
+                }
                 logInternal(req, response, 200, "OK");
                 return ResponseEntity.ok(response);
 
             } else {
                 log.info("No se proporciono payment_provider_code; se ejecuta consulta multi-proveedor.");
 
-                Map<String, Integer> listProveedores = providersPayService.getAllProviders();
+                Map<String, Integer> listProveedores = config.providers().getAllProviders();
+                RequestStopwatch.record(Stage.CONFIG, configStartedAt);
                 List<ProviderItem> listProvidersData = new ArrayList<>();
                 boolean attemptedProvider = false;
                 boolean timeoutDetected = false;
@@ -182,14 +192,15 @@ public class BanksController {
                     String proveedor = entryProveedor.getKey();
                     Integer codProveedor = entryProveedor.getValue();
 
-                    if (!gatewayWebServiceConfigService.isActive(codProveedor, WS_KEY)) {
+                    RoutePlan plan = config.routePlans().find(codProveedor, WS_KEY);
+                    if (plan == null) {
                         log.warn("Proveedor no configurado: {}", proveedor);
                     } else {
                         attemptedProvider = true;
 
                         log.info("Proveedor configurado: {} - Codigo: {}", proveedor, codProveedor);
 
-                        ProviderFetchResult providerFetchResult = fetchProviderBanks(req, entryProveedor);
+                        ProviderFetchResult providerFetchResult = fetchProviderBanks(plan, req, entryProveedor);
                         if (providerFetchResult.timeout()) {
                             timeoutDetected = true;
                         }
@@ -217,8 +228,10 @@ public class BanksController {
                     return ResponseEntity.status(500).body(errorBody);
                 }
 
-                BanksResponse response = banksMap.mapAllBanksResponse(req, listProvidersData);
-                applyBanksFilter(response, req.getChain(), req.getChannel_POS());
+                long responseMappingStartedAt = RequestStopwatch.mark();
+                BanksResponse response = banksMap.mapAllBanksResponse(config, req, listProvidersData);
+                applyBanksFilter(config, response, req.getChain(), req.getChannel_POS());
+                RequestStopwatch.record(Stage.RESPONSE_MAPPING, responseMappingStartedAt);
                 log.info("Response enviado al cliente banks: {}", response);
                 logInternal(req, response, 200, "OK_MULTI_PROVIDER");
                 return ResponseEntity.ok(response);
@@ -240,8 +253,9 @@ public class BanksController {
             ErrorInfo error = timeout ? ApiErrorUtils.gatewayTimeout(message) : ApiErrorUtils.genericError(500, message);
             Object errorBody = ApiErrorUtils.buildResponse(req.getChain(), req.getStore(), req.getStore_name(),
                     req.getPos(), req.getChannel_POS(), req.getPayment_provider_code(), error);
-            if (proveedorSeleccionado != null) {
-                logExternal(req, headersProveedor, externalResponse == null ? errorBody : externalResponse,
+            if (proveedorSeleccionado != null && !servedFromCache) {
+                logExternal(planSeleccionado, req, headersProveedor,
+                        externalResponse == null ? errorBody : externalResponse,
                         req.getPayment_provider_code(), proveedorSeleccionado, httpCode,
                         logMessage,
                         externalElapsedMs);
@@ -252,6 +266,7 @@ public class BanksController {
     }
 
     private void logInternal(BanksRequest req, Object response, int status, String message) {
+        gatewayMetrics.recordResponse("banks", message, status);
         integrationLogService.logInternal(IntegrationLogRecord.builder()
                 .requestPayload(req)
                 .responsePayload(response)
@@ -270,12 +285,13 @@ public class BanksController {
                 .cpVar1("banks")
                 .cpVar2(message)
                 .cpNumber1(status)
+                .serverTiming(RequestStopwatch.auditValue())
                 .build());
     }
 
-    private void logExternal(BanksRequest req, Object outboundBody, Object response, Integer providerCode,
-            String providerName, int status, String message, Integer externalElapsedMs) {
-        var providerConfig = gatewayWebServiceConfigService.getActiveConfig(providerCode, WS_KEY).orElse(null);
+    private void logExternal(RoutePlan plan, BanksRequest req, Object outboundBody, Object response,
+            Integer providerCode, String providerName, int status, String message, Integer externalElapsedMs) {
+        gatewayMetrics.recordProviderCall(providerName, WS_KEY, message, externalElapsedMs);
         integrationLogService.logExternal(IntegrationLogRecord.builder()
                 .requestPayload(outboundBody)
                 .responsePayload(response)
@@ -289,8 +305,8 @@ public class BanksController {
                 .farmacia(req.getStore())
                 .cadena(req.getChain())
                 .pos(req.getPos())
-                .url(providerConfig == null ? null : providerConfig.uri())
-                .metodo(providerConfig == null ? null : providerConfig.method())
+                .url(plan == null ? null : plan.uri())
+                .metodo(plan == null ? null : plan.method())
                 .cpVar1("banks")
                 .cpVar2(message)
                 .cpVar3(providerName)
@@ -299,20 +315,23 @@ public class BanksController {
                 .build());
     }
 
-    private void applyBanksFilter(BanksResponse response, Integer chain, String channelPos) {
+    private void applyBanksFilter(GatewayConfigSnapshot config, BanksResponse response, Integer chain,
+            String channelPos) {
         if (response == null || response.getPayment_providers() == null) {
             return;
         }
         response.getPayment_providers().forEach(provider -> {
             Integer providerCode = provider.getPayment_provider_code();
-            Set<String> allowedBankCodes = banksCatalogService.findAllowedBankCodes(providerCode, chain, channelPos);
             if (provider.getBanks() == null || provider.getBanks().isEmpty()) {
                 return;
             }
-            List<BankItem> filtered = provider.getBanks().stream()
-                    .filter(bank -> bank != null && bank.getBank_id() != null)
-                    .filter(bank -> allowedBankCodes.contains(bank.getBank_id().trim()))
-                    .collect(Collectors.toList());
+            AllowedBanks allowedBanks = config.banks().findAllowedBanks(providerCode, chain, channelPos);
+            List<BankItem> filtered = new ArrayList<>(provider.getBanks().size());
+            for (BankItem bank : provider.getBanks()) {
+                if (bank != null && allowedBanks.contains(bank.getBank_id())) {
+                    filtered.add(bank);
+                }
+            }
             provider.setBanks(filtered);
         });
     }
@@ -337,25 +356,36 @@ public class BanksController {
     /**
      * Consulta bancos para un proveedor individual en flujo multi-proveedor.
      *
+     * @param plan plan de llamada del proveedor
      * @param req request original
      * @param providerEntry entrada proveedor->código
      * @return item de proveedor con respuesta cruda o null si la consulta falla
      */
-    private ProviderFetchResult fetchProviderBanks(BanksRequest req, Map.Entry<String, Integer> providerEntry) {
+    private ProviderFetchResult fetchProviderBanks(RoutePlan plan, BanksRequest req,
+            Map.Entry<String, Integer> providerEntry) {
         String providerName = providerEntry.getKey();
         Integer providerCode = providerEntry.getValue();
         Map<String, Object> camelHeaders = buildCamelHeaders(req, providerName, providerCode);
 
+        Map<String, Object> providerHeaders = plan.attachTo(camelHeaders);
+        boolean providerCalled = true;
+        Integer providerElapsedMs = null;
+
         try {
-            ExternalCallTimer.TimedExecution<Object> timedExecution = ExternalCallTimer.execute(
-                    () -> camel.requestBodyAndHeaders("direct:getbanks", null, camelHeaders));
-            Integer providerElapsedMs = timedExecution.elapsedMs();
+            ProviderBanksCache.Lookup lookup = providerBanksCache.get(providerCode, req.getCountry_code(),
+                    () -> camel.requestBodyAndHeaders("direct:getbanks", null, providerHeaders, String.class),
+                    raw -> isCacheable(plan, raw));
+            providerCalled = lookup.providerCalled();
+            ExternalCallTimer.TimedExecution<Object> timedExecution = lookup.execution();
+            providerElapsedMs = timedExecution.elapsedMs();
             if (timedExecution.exception() != null) {
                 if (timedExecution.exception() instanceof CamelExecutionException e) {
                     log.error("Error consultando proveedor {} ({}). Continuando con el siguiente. Error: {}",
                             providerName, providerCode, e.getMessage());
-                    logExternal(req, null, "Error consultando proveedor: " + e.getMessage(),
-                            providerCode, providerName, 500, "ERROR_CAMEL", providerElapsedMs);
+                    if (providerCalled) {
+                        logExternal(plan, req, null, "Error consultando proveedor: " + e.getMessage(),
+                                providerCode, providerName, 500, "ERROR_CAMEL", providerElapsedMs);
+                    }
                     return new ProviderFetchResult(null, false);
                 }
                 throw timedExecution.exception();
@@ -365,13 +395,16 @@ public class BanksController {
             if (rawResp == null) {
                 log.error("Error consultando proveedor {} ({}). Continuando con el siguiente. Error: {}",
                         providerName, providerCode, "Respuesta vacia de proveedor");
-                logExternal(req, null, "Error consultando proveedor: respuesta vacia", providerCode,
+                logExternal(plan, req, null, "Error consultando proveedor: respuesta vacia", providerCode,
                         providerName, 500, "ERROR_CAMEL", providerElapsedMs);
                 return new ProviderFetchResult(null, false);
             }
-            log.info("Response recibido de proveedor {}: {}", providerName,
-                    AppUtils.formatPayload(rawResp, objectMapper));
-            logExternal(req, camelHeaders, rawResp, providerCode, providerName, 200, "OK", providerElapsedMs);
+            log.info("Response recibido de {} {}: {}", providerCalled ? "proveedor" : "cache de proveedor",
+                    providerName, AppUtils.formatPayload(rawResp, objectMapper));
+            if (providerCalled) {
+                logExternal(plan, req, camelHeaders, rawResp, providerCode, providerName, 200, "OK",
+                        providerElapsedMs);
+            }
 
             ProviderItem providerItem = new ProviderItem();
             providerItem.setPayment_provider(providerEntry);
@@ -382,12 +415,31 @@ public class BanksController {
             String logMessage = status == 504 ? "ERROR_TIMEOUT" : "ERROR_CAMEL";
             log.error("Error consultando proveedor {} ({}). Continuando con el siguiente. Error: {}",
                     providerName, providerCode, e.getMessage());
-            logExternal(req, null, "Error consultando proveedor: " + e.getMessage(), providerCode,
-                    providerName, status, logMessage, null);
+            if (providerCalled) {
+                logExternal(plan, req, null, "Error consultando proveedor: " + e.getMessage(), providerCode,
+                        providerName, status, logMessage, providerElapsedMs);
+            }
             return new ProviderFetchResult(null, status == 504);
         }
     }
 
+    /**
+     * Indica si una respuesta de getbanks puede guardarse en cache: debe ser un
+     * JSON valido y no contener error de proveedor.
+     *
+     * @param plan plan de llamada del proveedor
+     * @param raw respuesta cruda del proveedor
+     * @return true cuando la respuesta es reutilizable
+     */
+    private boolean isCacheable(RoutePlan plan, Object raw) {
+        try {
+            JsonPayloadUtils.toMap(raw, objectMapper, "Respuesta de bancos invalida");
+        } catch (RuntimeException e) {
+            return false;
+        }
+        return ApiErrorUtils.extractProviderError(raw, objectMapper, plan.errorPath()) == null;
+    }
+
     private record ProviderFetchResult(ProviderItem providerItem, boolean timeout) {
     }
 }
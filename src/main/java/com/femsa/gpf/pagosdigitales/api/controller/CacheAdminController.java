@@ -0,0 +1,190 @@
+package com.femsa.gpf.pagosdigitales.api.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.femsa.gpf.pagosdigitales.api.dto.CacheRefreshResponse;
+import com.femsa.gpf.pagosdigitales.api.dto.CacheStatusItem;
+import com.femsa.gpf.pagosdigitales.api.dto.CacheStatusResponse;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.CacheStats;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RefreshableCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
+import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Controller administrativo para consultar y recargar los catalogos de
+ * configuracion en memoria. Deshabilitado responde 404; habilitado exige el
+ * header {@value #ADMIN_KEY_HEADER} con la llave configurada.
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/v1/admin/caches")
+public class CacheAdminController {
+
+    /**
+     * Header con la llave administrativa.
+     */
+    public static final String ADMIN_KEY_HEADER = "X-Admin-Key";
+
+    private static final String URL = "/api/v1/admin/caches";
+
+    private final List<RefreshableCache> caches;
+    private final IntegrationLogService integrationLogService;
+    private final boolean enabled;
+    private final byte[] adminKey;
+
+    /**
+     * Crea el controller con sus dependencias.
+     *
+     * @param caches caches recargables registradas
+     * @param integrationLogService servicio de auditoria de logs
+     * @param enabled true para exponer los endpoints
+     * @param adminKey llave que debe enviarse en {@value #ADMIN_KEY_HEADER}; obligatoria si esta habilitado
+     */
+    public CacheAdminController(List<RefreshableCache> caches, IntegrationLogService integrationLogService,
+            @Value("${cache.admin.enabled:false}") boolean enabled,
+            @Value("${cache.admin.api-key:}") String adminKey) {
+        if (enabled && (adminKey == null || adminKey.isBlank())) {
+            throw new IllegalArgumentException("cache.admin.api-key es obligatorio cuando cache.admin.enabled=true");
+        }
+        this.caches = caches;
+        this.integrationLogService = integrationLogService;
+        this.enabled = enabled;
+        this.adminKey = enabled ? adminKey.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    /**
+     * Devuelve las estadisticas de todos los catalogos.
+     *
+     * @param key llave administrativa
+     * @return estadisticas por catalogo
+     */
+    @GetMapping
+    public ResponseEntity<CacheStatusResponse> status(
+            @RequestHeader(name = ADMIN_KEY_HEADER, required = false) String key) {
+        if (!enabled) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!authorized(key)) {
+            log.warn("Consulta de caches rechazada: {} no reconocida", ADMIN_KEY_HEADER);
+            CacheStatusResponse response = new CacheStatusResponse();
+            response.setError(ADMIN_KEY_HEADER + " no reconocida");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        List<CacheStatusItem> items = new ArrayList<>();
+        for (RefreshableCache cache : caches) {
+            for (CacheStats stats : cache.cacheStats()) {
+                items.add(toItem(stats));
+            }
+        }
+        CacheStatusResponse response = new CacheStatusResponse();
+        response.setCaches(items);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Recarga de inmediato un catalogo y mide la duracion de la recarga.
+     *
+     * @param name nombre del catalogo
+     * @param key llave administrativa
+     * @return resultado de la recarga con las estadisticas actualizadas
+     */
+    @PostMapping("/{name}/refresh")
+    public ResponseEntity<CacheRefreshResponse> refresh(@PathVariable("name") String name,
+            @RequestHeader(name = ADMIN_KEY_HEADER, required = false) String key) {
+        if (!enabled) {
+            return ResponseEntity.notFound().build();
+        }
+        CacheRefreshResponse response = new CacheRefreshResponse();
+        response.setName(name);
+        if (!authorized(key)) {
+            response.setError(ADMIN_KEY_HEADER + " no reconocida");
+            logInternal(name, response, "ADMIN_KEY_INVALIDA", HttpStatus.UNAUTHORIZED.value());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        RefreshableCache owner = findOwner(name);
+        if (owner == null) {
+            response.setError("Cache no reconocida");
+            logInternal(name, response, "CACHE_NO_RECONOCIDA", HttpStatus.NOT_FOUND.value());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        long startedAt = System.nanoTime();
+        boolean refreshed = owner.refreshCatalog(name);
+        response.setElapsed_ms(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        response.setRefreshed(refreshed);
+        owner.cacheStats().stream()
+                .filter(stats -> stats.name().equals(name))
+                .findFirst()
+                .map(CacheAdminController::toItem)
+                .ifPresent(response::setCache);
+        log.info("Recarga manual de cache {}. Publicada: {} Tiempo: {} ms", name, refreshed,
+                response.getElapsed_ms());
+        if (!refreshed) {
+            response.setError("No fue posible recargar la cache; se conserva la version anterior");
+            logInternal(name, response, "ERROR_RECARGA", HttpStatus.SERVICE_UNAVAILABLE.value());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+        logInternal(name, response, "OK", HttpStatus.OK.value());
+        return ResponseEntity.ok(response);
+    }
+
+    private boolean authorized(String key) {
+        return key != null && MessageDigest.isEqual(adminKey, key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private RefreshableCache findOwner(String name) {
+        for (RefreshableCache cache : caches) {
+            for (CacheStats stats : cache.cacheStats()) {
+                if (stats.name().equals(name)) {
+                    return cache;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static CacheStatusItem toItem(CacheStats stats) {
+        CacheStatusItem item = new CacheStatusItem();
+        item.setName(stats.name());
+        item.setEntries(stats.entries());
+        item.setApprox_bytes(stats.approxBytes());
+        item.setLast_refresh_at(stats.lastRefreshAt() == null ? null : stats.lastRefreshAt().toString());
+        item.setLast_refresh_ms(stats.lastRefreshMs());
+        item.setRefreshes(stats.refreshes());
+        item.setRefresh_failures(stats.refreshFailures());
+        item.setLookup_misses(stats.lookupMisses());
+        return item;
+    }
+
+    private void logInternal(String name, CacheRefreshResponse response, String message, int status) {
+        integrationLogService.logInternal(IntegrationLogRecord.builder()
+                .requestPayload(name)
+                .responsePayload(response)
+                .usuario("SYSTEM")
+                .mensaje(message)
+                .origen("WS_INTERNO")
+                .url(URL + "/" + name + "/refresh")
+                .metodo("POST")
+                .cpVar1("cache-refresh")
+                .cpVar2(message)
+                .cpNumber1(status)
+                .serverTiming(RequestStopwatch.auditValue())
+                .build());
+    }
+}
@@ -19,18 +19,19 @@ import com.femsa.gpf.pagosdigitales.api.dto.DirectOnlinePaymentRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.DirectOnlinePaymentResponse;
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInfo;
 import com.femsa.gpf.pagosdigitales.application.mapper.DirectOnlinePaymentMap;
-import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshot;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ApiErrorUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.AppUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ChannelPosUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalCallTimer;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalServiceExceptionUtils;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch.Stage;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -47,46 +48,34 @@ public class DirectOnlinePaymentRequestsController {
     private static final long MAXIMUM_EXCEEDED_ERROR_CODE = 1005L;
 
     private final ProducerTemplate camel;
-    private final ProvidersPayService providersPayService;
+    private final GatewayConfigSnapshotService gatewayConfigSnapshotService;
     private final DirectOnlinePaymentMap directOnlinePaymentMap;
     private final ObjectMapper objectMapper;
-    private final ServiceMappingConfigService serviceMappingConfigService;
-    private final ErrorMappingCatalogService errorMappingCatalogService;
     private final IntegrationLogService integrationLogService;
-    private final GatewayWebServiceConfigService gatewayWebServiceConfigService;
-    private final BanksCatalogService banksCatalogService;
+    private final GatewayMetrics gatewayMetrics;
 
     /**
      * Crea el controlador de pagos en linea con sus dependencias.
      *
      * @param camel motor de envio a rutas Camel
-     * @param providersPayService servicio de proveedores habilitados
+     * @param gatewayConfigSnapshotService servicio de configuracion versionada de pasarela
      * @param directOnlinePaymentMap mapeador de solicitudes y respuestas
      * @param objectMapper serializador de payloads
-     * @param serviceMappingConfigService servicio de mapeo por BD
-     * @param errorMappingCatalogService servicio de catalogo de mapeo de errores
      * @param integrationLogService servicio de auditoria de logs
-     * @param gatewayWebServiceConfigService servicio de configuracion de endpoints por BD
-     * @param banksCatalogService catalogo de bancos, minimos y maximos
+     * @param gatewayMetrics metricas de proveedores y errores
      */
     public DirectOnlinePaymentRequestsController(ProducerTemplate camel,
-            ProvidersPayService providersPayService,
+            GatewayConfigSnapshotService gatewayConfigSnapshotService,
             DirectOnlinePaymentMap directOnlinePaymentMap,
             ObjectMapper objectMapper,
-            ServiceMappingConfigService serviceMappingConfigService,
-            ErrorMappingCatalogService errorMappingCatalogService,
             IntegrationLogService integrationLogService,
-            GatewayWebServiceConfigService gatewayWebServiceConfigService,
-            BanksCatalogService banksCatalogService) {
+            GatewayMetrics gatewayMetrics) {
         this.camel = camel;
-        this.providersPayService = providersPayService;
+        this.gatewayConfigSnapshotService = gatewayConfigSnapshotService;
         this.directOnlinePaymentMap = directOnlinePaymentMap;
         this.objectMapper = objectMapper;
-        this.serviceMappingConfigService = serviceMappingConfigService;
-        this.errorMappingCatalogService = errorMappingCatalogService;
         this.integrationLogService = integrationLogService;
-        this.gatewayWebServiceConfigService = gatewayWebServiceConfigService;
-        this.banksCatalogService = banksCatalogService;
+        this.gatewayMetrics = gatewayMetrics;
     }
 
     /**
@@ -101,37 +90,43 @@ public class DirectOnlinePaymentRequestsController {
     public ResponseEntity<?> directOnlinePaymentRequests(@Valid @RequestBody DirectOnlinePaymentRequest req) {
         log.info("Request recibido direct-online-payment-requests: {}", req);
         req.setChannel_POS(ChannelPosUtils.normalize(req.getChannel_POS()));
+        long configStartedAt = RequestStopwatch.mark();
+        GatewayConfigSnapshot config = gatewayConfigSnapshotService.current();
         String proveedor = null;
+        RoutePlan plan = null;
         Map<String, Object> outboundBody = null;
         Integer externalElapsedMs = null;
         Object externalResponse = null;
         try {
-            proveedor = providersPayService.getProviderNameByCode(req.getPayment_provider_code());
+            proveedor = config.providers().getProviderNameByCode(req.getPayment_provider_code());
             log.info("Nombre Proveedor: {}", proveedor);
 
-            if (proveedor.equals("without-provider")
-                    || !gatewayWebServiceConfigService.isActive(req.getPayment_provider_code(), WS_KEY)) {
+            plan = config.routePlans().find(req.getPayment_provider_code(), WS_KEY);
+            RequestStopwatch.record(Stage.CONFIG, configStartedAt);
+            if (plan == null) {
                 throw new IllegalArgumentException("Proveedor no configurado");
             }
 
-            ResponseEntity<?> minimumValidationError = validateConfiguredMinimum(req);
-            if (minimumValidationError != null) {
-                return minimumValidationError;
+            long validationStartedAt = RequestStopwatch.mark();
+            ResponseEntity<?> validationError = validateConfiguredMinimum(config, req);
+            if (validationError == null) {
+                validationError = validateConfiguredMaximum(config, req);
             }
-
-            ResponseEntity<?> maximumValidationError = validateConfiguredMaximum(req);
-            if (maximumValidationError != null) {
-                return maximumValidationError;
+            RequestStopwatch.record(Stage.VALIDATION, validationStartedAt);
+            if (validationError != null) {
+                return validationError;
             }
 
-            outboundBody = directOnlinePaymentMap.mapProviderRequest(req, proveedor);
+            long mappingStartedAt = RequestStopwatch.mark();
+            outboundBody = directOnlinePaymentMap.mapProviderRequest(plan, req);
+            RequestStopwatch.record(Stage.REQUEST_MAPPING, mappingStartedAt);
             log.info("Request enviado a proveedor {}: {}", proveedor,
                     AppUtils.formatPayload(outboundBody, objectMapper));
 
-            Map<String, Object> headers = Map.of(
+            Map<String, Object> headers = plan.attachTo(Map.of(
                     "direct-online-payment-requests", proveedor,
                     "payment_provider_code", req.getPayment_provider_code()
-            );
+            ));
             final Map<String, Object> outboundBodyForProvider = outboundBody;
 
             ExternalCallTimer.TimedExecution<Object> timedExecution = ExternalCallTimer.execute(
@@ -149,25 +144,27 @@ public class DirectOnlinePaymentRequestsController {
             log.info("Response recibido de proveedor {}: {}", proveedor,
                     AppUtils.formatPayload(rawResp, objectMapper));
 
-            String errorPath = serviceMappingConfigService.getErrorPath(
-                    req.getPayment_provider_code(),
-                    WS_KEY,
-                    proveedor);
-            ErrorInfo providerError = ApiErrorUtils.extractProviderError(rawResp, objectMapper, errorPath);
+            long errorMappingStartedAt = RequestStopwatch.mark();
+            ErrorInfo providerError = ApiErrorUtils.extractProviderError(rawResp, objectMapper, plan.errorPath());
+            if (providerError != null) {
+                providerError = config.errors().mapProviderError(providerError);
+            }
+            RequestStopwatch.record(Stage.ERROR_MAPPING, errorMappingStartedAt);
             if (providerError != null) {
-                providerError = errorMappingCatalogService.mapProviderError(providerError);
                 int httpCode = providerError.getHttp_code() == null ? 400 : providerError.getHttp_code();
                 Object errorBody = ApiErrorUtils.buildResponse(req.getChain(), req.getStore(), req.getStore_name(),
                         req.getPos(), req.getChannel_POS(), req.getPayment_provider_code(), providerError);
-                logExternal(req, outboundBody, rawResp, req.getPayment_provider_code(), proveedor, httpCode,
+                logExternal(plan, req, outboundBody, rawResp, req.getPayment_provider_code(), proveedor, httpCode,
                         "ERROR_PROVEEDOR", externalElapsedMs);
                 logInternal(req, errorBody, httpCode, "ERROR_PROVEEDOR");
                 return ResponseEntity.status(httpCode).body(errorBody);
             }
 
-            DirectOnlinePaymentResponse response = directOnlinePaymentMap.mapProviderResponse(req, rawResp, proveedor);
+            long responseMappingStartedAt = RequestStopwatch.mark();
+            DirectOnlinePaymentResponse response = directOnlinePaymentMap.mapProviderResponse(plan, req, rawResp);
+            RequestStopwatch.record(Stage.RESPONSE_MAPPING, responseMappingStartedAt);
             log.info("Response enviado al cliente direct-online-payment-requests: {}", response);
-            logExternal(req, outboundBody, rawResp, req.getPayment_provider_code(), proveedor, 200, "OK",
+            logExternal(plan, req, outboundBody, rawResp, req.getPayment_provider_code(), proveedor, 200, "OK",
                     externalElapsedMs);
             logInternal(req, response, 200, "OK");
             return ResponseEntity.ok(response);
@@ -189,7 +186,7 @@ public class DirectOnlinePaymentRequestsController {
             Object errorBody = ApiErrorUtils.buildResponse(req.getChain(), req.getStore(), req.getStore_name(),
                     req.getPos(), req.getChannel_POS(), req.getPayment_provider_code(), error);
             if (proveedor != null) {
-                logExternal(req, outboundBody, externalResponse == null ? errorBody : externalResponse,
+                logExternal(plan, req, outboundBody, externalResponse == null ? errorBody : externalResponse,
                         req.getPayment_provider_code(), proveedor, httpCode,
                         logMessage, externalElapsedMs);
             }
@@ -198,33 +195,33 @@ public class DirectOnlinePaymentRequestsController {
         }
     }
 
-    private ResponseEntity<?> validateConfiguredMinimum(DirectOnlinePaymentRequest req) {
+    private ResponseEntity<?> validateConfiguredMinimum(GatewayConfigSnapshot config, DirectOnlinePaymentRequest req) {
         BigDecimal salesAmount = readSalesAmount(req);
         if (salesAmount == null) {
             return null;
         }
 
-        return banksCatalogService.findMinimum(req.getPayment_provider_code(), req.getBank_id())
+        return config.banks().findMinimum(req.getPayment_provider_code(), req.getBank_id())
                 .filter(configuredMinimum -> salesAmount.compareTo(configuredMinimum) < 0)
-                .map(configuredMinimum -> buildMinimumValidationError(req, configuredMinimum, salesAmount))
+                .map(configuredMinimum -> buildMinimumValidationError(config, req, configuredMinimum, salesAmount))
                 .orElse(null);
     }
 
-    private ResponseEntity<?> validateConfiguredMaximum(DirectOnlinePaymentRequest req) {
+    private ResponseEntity<?> validateConfiguredMaximum(GatewayConfigSnapshot config, DirectOnlinePaymentRequest req) {
         BigDecimal salesAmount = readSalesAmount(req);
         if (salesAmount == null) {
             return null;
         }
 
-        return banksCatalogService.findMaximum(req.getPayment_provider_code(), req.getBank_id())
+        return config.banks().findMaximum(req.getPayment_provider_code(), req.getBank_id())
                 .filter(configuredMaximum -> salesAmount.compareTo(configuredMaximum) > 0)
-                .map(configuredMaximum -> buildMaximumValidationError(req, configuredMaximum, salesAmount))
+                .map(configuredMaximum -> buildMaximumValidationError(config, req, configuredMaximum, salesAmount))
                 .orElse(null);
     }
 
-    private ResponseEntity<ApiErrorResponse> buildMinimumValidationError(DirectOnlinePaymentRequest req,
-            BigDecimal configuredMinimum, BigDecimal salesAmount) {
-        ErrorInfo error = errorMappingCatalogService.buildErrorByCurrentCode(MINIMUM_NOT_MET_ERROR_CODE);
+    private ResponseEntity<ApiErrorResponse> buildMinimumValidationError(GatewayConfigSnapshot config,
+            DirectOnlinePaymentRequest req, BigDecimal configuredMinimum, BigDecimal salesAmount) {
+        ErrorInfo error = config.errors().buildErrorByCurrentCode(MINIMUM_NOT_MET_ERROR_CODE);
         if (error == null) {
             error = ApiErrorUtils.invalidRequest("El monto no cumple el minimo configurado.", null, null, null);
         }
@@ -246,9 +243,9 @@ public class DirectOnlinePaymentRequestsController {
         return ResponseEntity.status(error.getHttp_code() == null ? 400 : error.getHttp_code()).body(errorBody);
     }
 
-    private ResponseEntity<ApiErrorResponse> buildMaximumValidationError(DirectOnlinePaymentRequest req,
-            BigDecimal configuredMaximum, BigDecimal salesAmount) {
-        ErrorInfo error = errorMappingCatalogService.buildErrorByCurrentCode(MAXIMUM_EXCEEDED_ERROR_CODE);
+    private ResponseEntity<ApiErrorResponse> buildMaximumValidationError(GatewayConfigSnapshot config,
+            DirectOnlinePaymentRequest req, BigDecimal configuredMaximum, BigDecimal salesAmount) {
+        ErrorInfo error = config.errors().buildErrorByCurrentCode(MAXIMUM_EXCEEDED_ERROR_CODE);
         if (error == null) {
             error = ApiErrorUtils.invalidRequest("El monto excede el maximo configurado.", null, null, null);
         }
@@ -278,6 +275,7 @@ public class DirectOnlinePaymentRequestsController {
     }
 
     private void logInternal(DirectOnlinePaymentRequest req, Object response, int status, String message) {
+        gatewayMetrics.recordResponse("direct-online-payment-requests", message, status);
         integrationLogService.logInternal(IntegrationLogRecord.builder()
                 .requestPayload(req)
                 .responsePayload(response)
@@ -297,12 +295,14 @@ public class DirectOnlinePaymentRequestsController {
                 .cpVar1("direct-online-payment-requests")
                 .cpVar2(message)
                 .cpNumber1(status)
+                .serverTiming(RequestStopwatch.auditValue())
                 .build());
     }
 
-    private void logExternal(DirectOnlinePaymentRequest req, Object outboundBody, Object response, Integer providerCode,
-            String providerName, int status, String message, Integer externalElapsedMs) {
-        var providerConfig = gatewayWebServiceConfigService.getActiveConfig(providerCode, WS_KEY).orElse(null);
+    private void logExternal(RoutePlan plan, DirectOnlinePaymentRequest req, Object outboundBody,
+            Object response, Integer providerCode, String providerName, int status, String message,
+            Integer externalElapsedMs) {
+        gatewayMetrics.recordProviderCall(providerName, WS_KEY, message, externalElapsedMs);
         integrationLogService.logExternal(IntegrationLogRecord.builder()
                 .requestPayload(outboundBody)
                 .responsePayload(response)
@@ -317,8 +317,8 @@ public class DirectOnlinePaymentRequestsController {
                 .farmacia(req.getStore())
                 .cadena(req.getChain())
                 .pos(req.getPos())
-                .url(providerConfig == null ? null : providerConfig.uri())
-                .metodo(providerConfig == null ? null : providerConfig.method())
+                .url(plan == null ? null : plan.uri())
+                .metodo(plan == null ? null : plan.method())
                 .cpVar1("direct-online-payment-requests")
                 .cpVar2(message)
                 .cpVar3(providerName)
@@ -16,12 +16,15 @@ import org.springframework.web.bind.annotation.RestController;
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInfo;
 import com.femsa.gpf.pagosdigitales.api.dto.MerchantEventsRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.MerchantEventsResponse;
-import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ApiErrorUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ChannelPosUtils;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch.Stage;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -38,21 +41,25 @@ public class MerchantEventsController {
 
     private final IntegrationLogService integrationLogService;
     private final PaymentRegistryService paymentRegistryService;
-    private final ProvidersPayService providersPayService;
+    private final GatewayConfigSnapshotService gatewayConfigSnapshotService;
+    private final GatewayMetrics gatewayMetrics;
 
     /**
      * Crea el controlador de eventos de comercio con sus dependencias.
      *
      * @param integrationLogService servicio de auditoria de logs
      * @param paymentRegistryService servicio de registro de pagos
-     * @param providersPayService servicio de proveedores habilitados
+     * @param gatewayConfigSnapshotService servicio de configuracion versionada de pasarela
+     * @param gatewayMetrics metricas de proveedores y errores
      */
     public MerchantEventsController(IntegrationLogService integrationLogService,
             PaymentRegistryService paymentRegistryService,
-            ProvidersPayService providersPayService) {
+            GatewayConfigSnapshotService gatewayConfigSnapshotService,
+            GatewayMetrics gatewayMetrics) {
         this.integrationLogService = integrationLogService;
         this.paymentRegistryService = paymentRegistryService;
-        this.providersPayService = providersPayService;
+        this.gatewayConfigSnapshotService = gatewayConfigSnapshotService;
+        this.gatewayMetrics = gatewayMetrics;
     }
 
     /**
@@ -67,7 +74,10 @@ public class MerchantEventsController {
         log.info("Request recibido merchant-events: {}", req);
         req.setChannel_POS(ChannelPosUtils.normalize(req.getChannel_POS()));
         try {
-            String proveedor = providersPayService.getProviderNameByCode(req.getPayment_provider_code());
+            long configStartedAt = RequestStopwatch.mark();
+            String proveedor = gatewayConfigSnapshotService.current().providers()
+                    .getProviderNameByCode(req.getPayment_provider_code());
+            RequestStopwatch.record(Stage.CONFIG, configStartedAt);
             if ("without-provider".equals(proveedor)) {
                 throw new IllegalArgumentException("Proveedor no configurado");
             }
@@ -79,11 +89,15 @@ public class MerchantEventsController {
                 return ResponseEntity.ok(response);
             }
 
+            long validationStartedAt = RequestStopwatch.mark();
             String folioConflict = paymentRegistryService.validateFolioUniqueness(req);
+            String conflictMessage = folioConflict == null
+                    ? paymentRegistryService.validateOperationIdOwnership(req)
+                    : null;
+            RequestStopwatch.record(Stage.VALIDATION, validationStartedAt);
             if (folioConflict != null) {
                 throw new IllegalArgumentException(folioConflict);
             }
-            String conflictMessage = paymentRegistryService.validateOperationIdOwnership(req);
             if (conflictMessage != null) {
                 throw new IllegalArgumentException(conflictMessage);
             }
@@ -122,6 +136,7 @@ public class MerchantEventsController {
     }
 
     private void logInternal(MerchantEventsRequest req, Object response, int status, String message) {
+        gatewayMetrics.recordResponse("merchant-events", message, status);
         String folio = req.getMerchant_events() == null || req.getMerchant_events().isEmpty()
                 ? null
                 : req.getMerchant_events().get(0).getMerchant_sales_id();
@@ -143,6 +158,7 @@ public class MerchantEventsController {
                 .cpVar1("merchant-events")
                 .cpVar2(message)
                 .cpNumber1(status)
+                .serverTiming(RequestStopwatch.auditValue())
                 .build());
     }
 }
@@ -7,6 +7,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -49,6 +50,7 @@ public class PagosDigitalesController {
                 .metodo("GET")
                 .cpVar1("health-check")
                 .cpNumber1(200)
+                .serverTiming(RequestStopwatch.auditValue())
                 .build());
         return ResponseEntity.ok(response);
     }
@@ -3,6 +3,7 @@ package com.femsa.gpf.pagosdigitales.api.controller;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.Optional;
 
 import jakarta.validation.Valid;
 
@@ -19,17 +20,20 @@ import com.femsa.gpf.pagosdigitales.api.dto.ErrorInfo;
 import com.femsa.gpf.pagosdigitales.api.dto.PaymentsRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.PaymentsResponse;
 import com.femsa.gpf.pagosdigitales.application.mapper.PaymentsMap;
-import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshot;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.PaymentsStatusCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ApiErrorUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.AppUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ChannelPosUtils;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalCallTimer;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalServiceExceptionUtils;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch.Stage;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -46,42 +50,38 @@ public class PaymentsController {
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
     private final ProducerTemplate camel;
-    private final ProvidersPayService providersPayService;
+    private final GatewayConfigSnapshotService gatewayConfigSnapshotService;
+    private final PaymentsStatusCache paymentsStatusCache;
     private final PaymentsMap paymentsMap;
     private final ObjectMapper objectMapper;
-    private final ServiceMappingConfigService serviceMappingConfigService;
-    private final ErrorMappingCatalogService errorMappingCatalogService;
     private final IntegrationLogService integrationLogService;
-    private final GatewayWebServiceConfigService gatewayWebServiceConfigService;
+    private final GatewayMetrics gatewayMetrics;
 
     /**
      * Crea el controlador de pagos con sus dependencias.
      *
      * @param camel motor de envio a rutas Camel
-     * @param providersPayService servicio de proveedores habilitados
+     * @param gatewayConfigSnapshotService servicio de configuracion versionada de pasarela
+     * @param paymentsStatusCache cache de respuestas de pagos por operacion
      * @param paymentsMap mapeador de respuestas de pagos
      * @param objectMapper serializador de payloads
-     * @param serviceMappingConfigService servicio de mapeo por BD
-     * @param errorMappingCatalogService servicio de catalogo de mapeo de errores
      * @param integrationLogService servicio de auditoria de logs
-     * @param gatewayWebServiceConfigService servicio de configuracion de endpoints por BD
+     * @param gatewayMetrics metricas de proveedores y errores
      */
     public PaymentsController(ProducerTemplate camel,
-            ProvidersPayService providersPayService,
+            GatewayConfigSnapshotService gatewayConfigSnapshotService,
+            PaymentsStatusCache paymentsStatusCache,
             PaymentsMap paymentsMap,
             ObjectMapper objectMapper,
-            ServiceMappingConfigService serviceMappingConfigService,
-            ErrorMappingCatalogService errorMappingCatalogService,
             IntegrationLogService integrationLogService,
-            GatewayWebServiceConfigService gatewayWebServiceConfigService) {
+            GatewayMetrics gatewayMetrics) {
         this.camel = camel;
-        this.providersPayService = providersPayService;
+        this.gatewayConfigSnapshotService = gatewayConfigSnapshotService;
+        this.paymentsStatusCache = paymentsStatusCache;
         this.paymentsMap = paymentsMap;
         this.objectMapper = objectMapper;
-        this.serviceMappingConfigService = serviceMappingConfigService;
-        this.errorMappingCatalogService = errorMappingCatalogService;
         this.integrationLogService = integrationLogService;
-        this.gatewayWebServiceConfigService = gatewayWebServiceConfigService;
+        this.gatewayMetrics = gatewayMetrics;
     }
 
     /**
@@ -96,19 +96,32 @@ public class PaymentsController {
     public ResponseEntity<?> getPayments(@Valid @RequestBody PaymentsRequest req) {
         log.info("Request recibido payments: {}", req);
         req.setChannel_POS(ChannelPosUtils.normalize(req.getChannel_POS()));
+        long configStartedAt = RequestStopwatch.mark();
+        GatewayConfigSnapshot config = gatewayConfigSnapshotService.current();
         String proveedor = null;
+        RoutePlan plan = null;
         Map<String, Object> camelHeaders = null;
         Integer externalElapsedMs = null;
         Object externalResponse = null;
+        boolean sharedCall = false;
         try {
-            proveedor = providersPayService.getProviderNameByCode(req.getPayment_provider_code());
+            proveedor = config.providers().getProviderNameByCode(req.getPayment_provider_code());
             log.info("Nombre Proveedor: {}", proveedor);
 
-            if (proveedor.equals("without-provider")
-                    || !gatewayWebServiceConfigService.isActive(req.getPayment_provider_code(), WS_KEY)) {
+            plan = config.routePlans().find(req.getPayment_provider_code(), WS_KEY);
+            RequestStopwatch.record(Stage.CONFIG, configStartedAt);
+            if (plan == null) {
                 throw new IllegalArgumentException("Proveedor no configurado");
             }
 
+            Optional<PaymentsResponse> cachedResponse = paymentsStatusCache.find(
+                    req.getPayment_provider_code(), req.getOperation_id(), req);
+            if (cachedResponse.isPresent()) {
+                log.info("Response enviado al cliente payments desde cache: {}", cachedResponse.get());
+                logInternal(req, cachedResponse.get(), 200, "OK_CACHE");
+                return ResponseEntity.ok(cachedResponse.get());
+            }
+
             String requestDatetime = req.getRequest_datetime();
             if (requestDatetime == null || requestDatetime.isBlank()) {
                 requestDatetime = LocalDateTime.now().format(REQUEST_DATETIME_FORMAT);
@@ -120,13 +133,14 @@ public class PaymentsController {
                     "request_datetime", requestDatetime,
                     "payment_provider_code", req.getPayment_provider_code()
             );
-            final Map<String, Object> headersForProvider = camelHeaders;
+            final Map<String, Object> headersForProvider = plan.attachTo(camelHeaders);
 
-            ExternalCallTimer.TimedExecution<Object> timedExecution = ExternalCallTimer.execute(
-                    () -> camel.requestBodyAndHeaders(
-                            "direct:payments",
-                            null,
-                            headersForProvider));
+            PaymentsStatusCache.Lookup lookup = paymentsStatusCache.load(
+                    req.getPayment_provider_code(),
+                    req.getOperation_id(),
+                    () -> camel.requestBodyAndHeaders("direct:payments", null, headersForProvider, String.class));
+            sharedCall = !lookup.providerCalled();
+            ExternalCallTimer.TimedExecution<Object> timedExecution = lookup.execution();
             externalElapsedMs = timedExecution.elapsedMs();
             if (timedExecution.exception() != null) {
                 throw timedExecution.exception();
@@ -137,26 +151,33 @@ public class PaymentsController {
             log.info("Response recibido de proveedor {}: {}", proveedor,
                     AppUtils.formatPayload(rawResp, objectMapper));
 
-            String errorPath = serviceMappingConfigService.getErrorPath(
-                    req.getPayment_provider_code(),
-                    WS_KEY,
-                    proveedor);
-            ErrorInfo providerError = ApiErrorUtils.extractProviderError(rawResp, objectMapper, errorPath);
+            long errorMappingStartedAt = RequestStopwatch.mark();
+            ErrorInfo providerError = ApiErrorUtils.extractProviderError(rawResp, objectMapper, plan.errorPath());
+            if (providerError != null) {
+                providerError = config.errors().mapProviderError(providerError);
+            }
+            RequestStopwatch.record(Stage.ERROR_MAPPING, errorMappingStartedAt);
             if (providerError != null) {
-                providerError = errorMappingCatalogService.mapProviderError(providerError);
                 int httpCode = providerError.getHttp_code() == null ? 400 : providerError.getHttp_code();
                 Object errorBody = ApiErrorUtils.buildResponse(req.getChain(), req.getStore(), req.getStore_name(),
                         req.getPos(), req.getChannel_POS(), req.getPayment_provider_code(), providerError);
-                logExternal(req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor, httpCode,
-                        "ERROR_PROVEEDOR", externalElapsedMs);
+                if (!sharedCall) {
+                    logExternal(plan, req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor,
+                            httpCode, "ERROR_PROVEEDOR", externalElapsedMs);
+                }
                 logInternal(req, errorBody, httpCode, "ERROR_PROVEEDOR");
                 return ResponseEntity.status(httpCode).body(errorBody);
             }
 
-            PaymentsResponse response = paymentsMap.mapProviderResponse(req, rawResp, proveedor);
+            long responseMappingStartedAt = RequestStopwatch.mark();
+            PaymentsResponse response = paymentsMap.mapProviderResponse(plan, req, rawResp);
+            RequestStopwatch.record(Stage.RESPONSE_MAPPING, responseMappingStartedAt);
+            paymentsStatusCache.put(req.getPayment_provider_code(), req.getOperation_id(), response);
             log.info("Response enviado al cliente payments: {}", response);
-            logExternal(req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor, 200, "OK",
-                    externalElapsedMs);
+            if (!sharedCall) {
+                logExternal(plan, req, camelHeaders, rawResp, req.getPayment_provider_code(), proveedor, 200, "OK",
+                        externalElapsedMs);
+            }
             logInternal(req, response, 200, "OK");
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
@@ -176,8 +197,8 @@ public class PaymentsController {
             ErrorInfo error = timeout ? ApiErrorUtils.gatewayTimeout(message) : ApiErrorUtils.genericError(500, message);
             Object errorBody = ApiErrorUtils.buildResponse(req.getChain(), req.getStore(), req.getStore_name(),
                     req.getPos(), req.getChannel_POS(), req.getPayment_provider_code(), error);
-            if (proveedor != null) {
-                logExternal(req, camelHeaders, externalResponse == null ? errorBody : externalResponse,
+            if (proveedor != null && !sharedCall) {
+                logExternal(plan, req, camelHeaders, externalResponse == null ? errorBody : externalResponse,
                         req.getPayment_provider_code(), proveedor, httpCode,
                         logMessage, externalElapsedMs);
             }
@@ -187,6 +208,7 @@ public class PaymentsController {
     }
 
     private void logInternal(PaymentsRequest req, Object response, int status, String message) {
+        gatewayMetrics.recordResponse("payments", message, status);
         integrationLogService.logInternal(IntegrationLogRecord.builder()
                 .requestPayload(req)
                 .responsePayload(response)
@@ -205,12 +227,13 @@ public class PaymentsController {
                 .cpVar1("payments")
                 .cpVar2(message)
                 .cpNumber1(status)
+                .serverTiming(RequestStopwatch.auditValue())
                 .build());
     }
 
-    private void logExternal(PaymentsRequest req, Object outboundBody, Object response, Integer providerCode,
-            String providerName, int status, String message, Integer externalElapsedMs) {
-        var providerConfig = gatewayWebServiceConfigService.getActiveConfig(providerCode, WS_KEY).orElse(null);
+    private void logExternal(RoutePlan plan, PaymentsRequest req, Object outboundBody, Object response,
+            Integer providerCode, String providerName, int status, String message, Integer externalElapsedMs) {
+        gatewayMetrics.recordProviderCall(providerName, WS_KEY, message, externalElapsedMs);
         integrationLogService.logExternal(IntegrationLogRecord.builder()
                 .requestPayload(outboundBody)
                 .responsePayload(response)
@@ -224,8 +247,8 @@ public class PaymentsController {
                 .farmacia(req.getStore())
                 .cadena(req.getChain())
                 .pos(req.getPos())
-                .url(providerConfig == null ? null : providerConfig.uri())
-                .metodo(providerConfig == null ? null : providerConfig.method())
+                .url(plan == null ? null : plan.uri())
+                .metodo(plan == null ? null : plan.method())
                 .cpVar1("payments")
                 .cpVar2(message)
                 .cpVar3(providerName)
@@ -12,10 +12,14 @@ import org.springframework.web.bind.annotation.RestController;
 import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationResponse;
 import com.femsa.gpf.pagosdigitales.application.service.SafetypayConfirmationService;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayConfirmationService.Acknowledgement;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationJournal;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.ChannelPosUtils;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -30,6 +34,8 @@ public class SafetypayConfirmationController {
     private final SafetypayConfirmationService confirmationService;
     private final IntegrationLogService integrationLogService;
     private final PaymentRegistryService paymentRegistryService;
+    private final SafetypayConfirmationJournal confirmationJournal;
+    private final GatewayMetrics gatewayMetrics;
 
     /**
      * Crea el controller con sus dependencias.
@@ -37,13 +43,19 @@ public class SafetypayConfirmationController {
      * @param confirmationService servicio de confirmaciones
      * @param integrationLogService servicio de auditoria de logs
      * @param paymentRegistryService servicio de registro de pagos
+     * @param confirmationJournal bitacora de actualizaciones pendientes en modo fast-ack
+     * @param gatewayMetrics metricas de proveedores y errores
      */
     public SafetypayConfirmationController(SafetypayConfirmationService confirmationService,
             IntegrationLogService integrationLogService,
-            PaymentRegistryService paymentRegistryService) {
+            PaymentRegistryService paymentRegistryService,
+            SafetypayConfirmationJournal confirmationJournal,
+            GatewayMetrics gatewayMetrics) {
         this.confirmationService = confirmationService;
         this.integrationLogService = integrationLogService;
         this.paymentRegistryService = paymentRegistryService;
+        this.confirmationJournal = confirmationJournal;
+        this.gatewayMetrics = gatewayMetrics;
     }
 
     /**
@@ -91,6 +103,9 @@ public class SafetypayConfirmationController {
         req.setPaymentReferenceNo(paymentReferenceNo);
         req.setStatus(status);
         req.setSignature(signature);
+        if (confirmationJournal.isAvailable()) {
+            return confirmFastAck(req, httpRequest.getRemoteAddr());
+        }
         boolean updatedPaymentRegistry = paymentRegistryService.existsConfirmationTarget(req);
         if (!updatedPaymentRegistry) {
             SafetypayConfirmationResponse response = confirmationService.errorResponse(req, 3);
@@ -116,7 +131,52 @@ public class SafetypayConfirmationController {
         }
     }
 
+    /**
+     * Responde con fast-ack usando solo validaciones en memoria y la escritura
+     * en la bitacora. La existencia del registro se resuelve con el indice de
+     * pagos recientes y, si es incierta, al aplicar la actualizacion; la
+     * idempotencia en BD la registra quien aplica la bitacora. Las
+     * confirmaciones no autenticadas no modifican IN_REGISTRO_PAGOS. Solo si la
+     * bitacora se llena o deja de estar disponible se actualiza en linea.
+     */
+    private ResponseEntity<String> confirmFastAck(SafetypayConfirmationRequest req, String remoteAddr) {
+        if (paymentRegistryService.isConfirmationTargetAbsent(req)) {
+            SafetypayConfirmationResponse response = confirmationService.errorResponse(req, 3);
+            logInternal(req, response.toCsvLine(), "REGISTRO_NO_ENCONTRADO", 200);
+            return ResponseEntity.ok(response.toCsvLine());
+        }
+        try {
+            Acknowledgement acknowledgement = confirmationService.acknowledge(req, remoteAddr);
+            SafetypayConfirmationResponse response = acknowledgement.response();
+            String message = "OK";
+            if (response.getErrorNumber() == 0) {
+                String invalid = paymentRegistryService.validateConfirmationUpdate(req);
+                if (invalid != null) {
+                    log.warn("Confirmation no aplicable. MerchantSalesID={} Motivo={}", req.getMerchantSalesId(),
+                            invalid);
+                    response = confirmationService.errorResponse(req, 3);
+                    message = "CONFIRMACION_NO_APLICABLE";
+                } else if (confirmationJournal.append(req, acknowledgement.notification())) {
+                    confirmationService.remember(acknowledgement.notification());
+                } else {
+                    confirmationService.register(acknowledgement.notification());
+                    paymentRegistryService.updateFromSafetypayConfirmation(req, 0);
+                }
+            }
+            log.info("Confirmation procesada con fast-ack. MerchantSalesID={} ErrorNumber={}",
+                    req.getMerchantSalesId(), response.getErrorNumber());
+            logInternal(req, response.toCsvLine(), message, 200);
+            return ResponseEntity.ok(response.toCsvLine());
+        } catch (Exception e) {
+            log.error("Error procesando confirmation. MerchantSalesID={}", req.getMerchantSalesId(), e);
+            SafetypayConfirmationResponse response = confirmationService.errorResponse(req, 3);
+            logInternal(req, response.toCsvLine(), "ERROR_CONFIRMATION", 200);
+            return ResponseEntity.ok(response.toCsvLine());
+        }
+    }
+
     private void logInternal(SafetypayConfirmationRequest req, String responseCsv, String message, int status) {
+        gatewayMetrics.recordResponse("safetypay-confirmation", message, status);
         integrationLogService.logInternal(IntegrationLogRecord.builder()
                 .requestPayload(req)
                 .responsePayload(responseCsv)
@@ -131,6 +191,7 @@ public class SafetypayConfirmationController {
                 .cpVar1("safetypay-confirmation")
                 .cpVar2(message)
                 .cpNumber1(status)
+                .serverTiming(RequestStopwatch.auditValue())
                 .build());
     }
 }
@@ -0,0 +1,110 @@
+package com.femsa.gpf.pagosdigitales.api.controller;
+
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.femsa.gpf.pagosdigitales.api.dto.SafetypayReconciliationResponse;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayReconciliationService;
+import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
+import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService.ProviderConfig;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Controller para importar archivos de conciliacion de SafetyPay.
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/v1/safetypay")
+public class SafetypayReconciliationController {
+
+    private static final String URL = "/api/v1/safetypay/reconciliation";
+
+    private final SafetypayReconciliationService reconciliationService;
+    private final IntegrationLogService integrationLogService;
+    private final GatewayMetrics gatewayMetrics;
+
+    /**
+     * Crea el controller con sus dependencias.
+     *
+     * @param reconciliationService servicio de conciliacion
+     * @param integrationLogService servicio de auditoria de logs
+     * @param gatewayMetrics metricas de proveedores y errores
+     */
+    public SafetypayReconciliationController(SafetypayReconciliationService reconciliationService,
+            IntegrationLogService integrationLogService, GatewayMetrics gatewayMetrics) {
+        this.reconciliationService = reconciliationService;
+        this.integrationLogService = integrationLogService;
+        this.gatewayMetrics = gatewayMetrics;
+    }
+
+    /**
+     * Recibe el archivo CSV en el cuerpo del request y lo procesa mientras se lee.
+     *
+     * @param apiKey api key del proveedor cuyo secreto firma las filas
+     * @param httpRequest request HTTP con el archivo
+     * @return resumen de la importacion
+     * @throws IOException cuando el cuerpo no se puede leer
+     */
+    @PostMapping(value = "/reconciliation",
+            consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<SafetypayReconciliationResponse> reconcile(
+            @RequestHeader(name = "ApiKey", required = false) String apiKey,
+            HttpServletRequest httpRequest) throws IOException {
+        ProviderConfig provider = reconciliationService.resolveProvider(apiKey);
+        if (provider == null) {
+            SafetypayReconciliationResponse response = new SafetypayReconciliationResponse();
+            response.setError("ApiKey no reconocida");
+            logInternal(response, "API_KEY_INVALIDA", HttpStatus.UNAUTHORIZED.value());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        }
+        if (!reconciliationService.isIpAllowed(provider, httpRequest.getRemoteAddr())) {
+            SafetypayReconciliationResponse response = new SafetypayReconciliationResponse();
+            response.setError("IP no permitida");
+            log.warn("Conciliacion SafetyPay rechazada para proveedor {} desde IP {}", provider.providerName(),
+                    httpRequest.getRemoteAddr());
+            logInternal(response, "IP_NO_PERMITIDA", HttpStatus.FORBIDDEN.value());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        log.info("Conciliacion SafetyPay recibida para proveedor {}", provider.providerName());
+        SafetypayReconciliationResponse response = reconciliationService.importFile(provider,
+                httpRequest.getInputStream());
+        if (response.getError() != null && response.getRows() == 0) {
+            logInternal(response, "ARCHIVO_INVALIDO", HttpStatus.BAD_REQUEST.value());
+            return ResponseEntity.badRequest().body(response);
+        }
+        String message = response.getError() == null ? "OK" : "ERROR_CONCILIACION";
+        logInternal(response, message, HttpStatus.OK.value());
+        return ResponseEntity.ok(response);
+    }
+
+    private void logInternal(SafetypayReconciliationResponse response, String message, int status) {
+        gatewayMetrics.recordResponse("safetypay-reconciliation", message, status);
+        integrationLogService.logInternal(IntegrationLogRecord.builder()
+                .requestPayload("archivo de conciliacion")
+                .responsePayload(response)
+                .usuario("SYSTEM")
+                .mensaje(message)
+                .origen("WS_INTERNO")
+                .url(URL)
+                .metodo("POST")
+                .cpVar1("safetypay-reconciliation")
+                .cpVar2(message)
+                .cpNumber1(status)
+                .serverTiming(RequestStopwatch.auditValue())
+                .build());
+    }
+}
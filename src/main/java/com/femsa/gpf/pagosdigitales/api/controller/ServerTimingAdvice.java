@@ -0,0 +1,35 @@
+package com.femsa.gpf.pagosdigitales.api.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+
+/**
+ * Agrega el header {@code Server-Timing} a las respuestas de la API, incluidas
+ * las de error, justo antes de escribir el body.
+ */
+@RestControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        String value = RequestStopwatch.headerValue();
+        if (value != null) {
+            response.getHeaders().set(RequestStopwatch.HEADER, value);
+        }
+        return body;
+    }
+}
@@ -0,0 +1,16 @@
+package com.femsa.gpf.pagosdigitales.api.dto;
+
+import lombok.Data;
+
+/**
+ * Resultado de la recarga inmediata de un catalogo.
+ */
+@Data
+public class CacheRefreshResponse {
+
+    private String name;
+    private boolean refreshed;
+    private long elapsed_ms;
+    private CacheStatusItem cache;
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.femsa.gpf.pagosdigitales.api.dto;
+
+import lombok.Data;
+
+/**
+ * Estadisticas de un catalogo de configuracion en memoria.
+ */
+@Data
+public class CacheStatusItem {
+
+    private String name;
+    private int entries;
+    private long approx_bytes;
+    private String last_refresh_at;
+    private long last_refresh_ms;
+    private long refreshes;
+    private long refresh_failures;
+    private long lookup_misses;
+}
@@ -0,0 +1,15 @@
+package com.femsa.gpf.pagosdigitales.api.dto;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Estadisticas de todos los catalogos de configuracion en memoria.
+ */
+@Data
+public class CacheStatusResponse {
+
+    private List<CacheStatusItem> caches;
+    private String error;
+}
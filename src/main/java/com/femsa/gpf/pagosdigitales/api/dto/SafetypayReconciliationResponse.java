@@ -0,0 +1,20 @@
+package com.femsa.gpf.pagosdigitales.api.dto;
+
+import lombok.Data;
+
+/**
+ * Resumen de una importacion de conciliacion de SafetyPay.
+ */
+@Data
+public class SafetypayReconciliationResponse {
+
+    private String provider;
+    private long rows;
+    private long applied;
+    private long updated;
+    private long invalid_signature;
+    private long malformed;
+    private int chunks;
+    private long elapsed_ms;
+    private String error;
+}
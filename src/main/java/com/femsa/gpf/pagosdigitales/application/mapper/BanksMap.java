@@ -14,9 +14,13 @@ import com.femsa.gpf.pagosdigitales.api.dto.BanksRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.BanksResponse;
 import com.femsa.gpf.pagosdigitales.api.dto.PaymentProviderResponse;
 import com.femsa.gpf.pagosdigitales.api.dto.ProviderItem;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshot;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayObservations;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.JsonPayloadUtils;
 
+import io.micrometer.observation.ObservationRegistry;
+
 /**
  * Mapper para normalizar respuestas de bancos por proveedor.
  */
@@ -25,34 +29,37 @@ public class BanksMap {
 
     private static final String WS_KEY = "getbanks";
     private final ObjectMapper mapper;
-    private final ServiceMappingConfigService serviceMappingConfigService;
+    private final ObservationRegistry observationRegistry;
 
     /**
-     * Crea el mapper con la configuracion de mapeo.
+     * Crea el mapper con el serializador JSON y el registro de observaciones.
      *
      * @param mapper serializador JSON
-     * @param serviceMappingConfigService servicio de mapeo por BD
+     * @param observationRegistry registro de observaciones para trazas
      */
-    public BanksMap(ObjectMapper mapper, ServiceMappingConfigService serviceMappingConfigService) {
+    public BanksMap(ObjectMapper mapper, ObservationRegistry observationRegistry) {
         this.mapper = mapper;
-        this.serviceMappingConfigService = serviceMappingConfigService;
+        this.observationRegistry = observationRegistry;
     }
 
     /**
      * Convierte la respuesta de un proveedor al formato interno.
      *
+     * @param plan plan de llamada del proveedor
      * @param req solicitud original
      * @param raw respuesta cruda del proveedor
-     * @param providerName nombre del proveedor
      * @return respuesta de bancos normalizada
      */
-    public BanksResponse mapBanksByProviderResponse(BanksRequest req, Object raw, String providerName) {
+    public BanksResponse mapBanksByProviderResponse(RoutePlan plan, BanksRequest req, Object raw) {
+        return GatewayObservations.mapping(observationRegistry, "banks-response", plan.providerName())
+                .observe(() -> buildBanksByProviderResponse(plan, req, raw));
+    }
+
+    private BanksResponse buildBanksByProviderResponse(RoutePlan plan, BanksRequest req, Object raw) {
 
         Map<String, Object> map = toMap(raw);
-        Map<String, String> responseMapping = serviceMappingConfigService.getResponseBodyMappings(
-                req.getPayment_provider_code(),
-                WS_KEY,
-                providerName);
+        String providerName = plan.providerName();
+        Map<String, String> responseMapping = plan.responseBodyMappings();
         Map<String, String> bankFieldMapping = extractPrefixedMappings(responseMapping, "bank.");
 
         BanksResponse resp = new BanksResponse();
@@ -79,11 +86,19 @@ public class BanksMap {
     /**
      * Convierte multiples respuestas de proveedores en una respuesta unificada.
      *
+     * @param config configuracion de pasarela del request
      * @param req solicitud original
      * @param listaProviderItems lista de proveedores con sus respuestas
      * @return respuesta consolidada de bancos
      */
-    public BanksResponse mapAllBanksResponse(BanksRequest req, List<ProviderItem> listaProviderItems) {
+    public BanksResponse mapAllBanksResponse(GatewayConfigSnapshot config, BanksRequest req,
+            List<ProviderItem> listaProviderItems) {
+        return GatewayObservations.mapping(observationRegistry, "banks-all-response", "all")
+                .observe(() -> buildAllBanksResponse(config, req, listaProviderItems));
+    }
+
+    private BanksResponse buildAllBanksResponse(GatewayConfigSnapshot config, BanksRequest req,
+            List<ProviderItem> listaProviderItems) {
 
         BanksResponse resp = new BanksResponse();
         resp.setChain(req.getChain());
@@ -97,10 +112,8 @@ public class BanksMap {
 
         if (!providerMaps.isEmpty()) {
             ProviderItem firstItem = listaProviderItems.get(0);
-            Map<String, String> firstResponseMapping = serviceMappingConfigService.getResponseBodyMappings(
-                    firstItem.getPayment_provider().getValue(),
-                    WS_KEY,
-                    firstItem.getPayment_provider().getKey());
+            Map<String, String> firstResponseMapping = responseMappings(config,
+                    firstItem.getPayment_provider().getValue());
 
             Map<String, Object> first = providerMaps.get(0);
             resp.setRequest_id(getValue(first, firstResponseMapping.get("requestId"), String.class));
@@ -114,10 +127,7 @@ public class BanksMap {
 
             String providerName = item.getPayment_provider().getKey();
             Integer providerCode = item.getPayment_provider().getValue();
-            Map<String, String> responseMapping = serviceMappingConfigService.getResponseBodyMappings(
-                    providerCode,
-                    WS_KEY,
-                    providerName);
+            Map<String, String> responseMapping = responseMappings(config, providerCode);
             Map<String, String> bankFieldMapping = extractPrefixedMappings(responseMapping, "bank.");
 
             PaymentProviderResponse provider = new PaymentProviderResponse();
@@ -133,6 +143,11 @@ public class BanksMap {
         return resp;
     }
 
+    private Map<String, String> responseMappings(GatewayConfigSnapshot config, Integer providerCode) {
+        RoutePlan plan = config.routePlans().find(providerCode, WS_KEY);
+        return plan == null ? Map.of() : plan.responseBodyMappings();
+    }
+
     private List<BankItem> buildBankItems(Map<String, Object> providerMap, String banksPath,
             Map<String, String> fieldMapping) {
 
@@ -12,10 +12,12 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.femsa.gpf.pagosdigitales.api.dto.DirectOnlinePaymentRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.DirectOnlinePaymentResponse;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayObservations;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.JsonPayloadUtils;
 
+import io.micrometer.observation.ObservationRegistry;
+
 /**
  * Mapper para solicitudes y respuestas de pago en linea.
  */
@@ -26,42 +28,38 @@ public class DirectOnlinePaymentMap {
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
     private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
     private static final TypeReference<List<Map<String, Object>>> LIST_MAP_TYPE = new TypeReference<>() {};
-    private static final String WS_KEY = "direct-online-payment-requests";
 
     private final ObjectMapper mapper;
-    private final GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService;
-    private final ServiceMappingConfigService serviceMappingConfigService;
+    private final ObservationRegistry observationRegistry;
 
     /**
-     * Crea el mapper con dependencias de mapeo y configuracion.
+     * Crea el mapper con el serializador de JSON y el registro de observaciones.
      *
      * @param mapper serializador de JSON
-     * @param gatewayWebServiceDefinitionService servicio de definiciones por BD
-     * @param serviceMappingConfigService servicio de mapeo por BD
+     * @param observationRegistry registro de observaciones para trazas
      */
-    public DirectOnlinePaymentMap(ObjectMapper mapper,
-            GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService,
-            ServiceMappingConfigService serviceMappingConfigService) {
+    public DirectOnlinePaymentMap(ObjectMapper mapper, ObservationRegistry observationRegistry) {
         this.mapper = mapper;
-        this.gatewayWebServiceDefinitionService = gatewayWebServiceDefinitionService;
-        this.serviceMappingConfigService = serviceMappingConfigService;
+        this.observationRegistry = observationRegistry;
     }
 
     /**
      * Construye el request para el proveedor usando los mapeos configurados.
      *
+     * @param plan plan de llamada del proveedor
      * @param req solicitud de pago entrante
-     * @param providerName nombre del proveedor
      * @return cuerpo de la solicitud para el proveedor
      */
-    public Map<String, Object> mapProviderRequest(DirectOnlinePaymentRequest req, String providerName) {
+    public Map<String, Object> mapProviderRequest(RoutePlan plan, DirectOnlinePaymentRequest req) {
+        return GatewayObservations.mapping(observationRegistry, "direct-online-request", plan.providerName())
+                .observe(() -> buildProviderRequest(plan, req));
+    }
+
+    private Map<String, Object> buildProviderRequest(RoutePlan plan, DirectOnlinePaymentRequest req) {
         Map<String, Object> body = new LinkedHashMap<>();
         Map<String, Object> reqMap = mapper.convertValue(req, MAP_TYPE);
 
-        var mapping = serviceMappingConfigService.getRequestBodyMappings(
-                req.getPayment_provider_code(),
-                WS_KEY,
-                providerName);
+        var mapping = plan.requestBodyMappings();
         if (mapping != null) {
             mapping.forEach((targetPath, sourcePath) -> {
                 Object value = getValueByPath(reqMap, sourcePath);
@@ -71,10 +69,7 @@ public class DirectOnlinePaymentMap {
             });
         }
 
-        var defaults = gatewayWebServiceDefinitionService.getDefaults(
-                req.getPayment_provider_code(),
-                WS_KEY,
-                Map.of("now", LocalDateTime.now().format(REQUEST_DATETIME_FORMAT)));
+        var defaults = plan.resolveDefaults(Map.of("now", LocalDateTime.now().format(REQUEST_DATETIME_FORMAT)));
         if (!defaults.isEmpty()) {
             defaults.forEach((targetPath, value) -> {
                 if (value != null) {
@@ -91,17 +86,21 @@ public class DirectOnlinePaymentMap {
     /**
      * Normaliza la respuesta del proveedor al DTO interno.
      *
+     * @param plan plan de llamada del proveedor
      * @param req solicitud original
      * @param raw respuesta cruda del proveedor
-     * @param providerName nombre del proveedor
      * @return respuesta de pago en linea normalizada
      */
-    public DirectOnlinePaymentResponse mapProviderResponse(DirectOnlinePaymentRequest req, Object raw, String providerName) {
+    public DirectOnlinePaymentResponse mapProviderResponse(RoutePlan plan, DirectOnlinePaymentRequest req,
+            Object raw) {
+        return GatewayObservations.mapping(observationRegistry, "direct-online-response", plan.providerName())
+                .observe(() -> buildProviderResponse(plan, req, raw));
+    }
+
+    private DirectOnlinePaymentResponse buildProviderResponse(RoutePlan plan, DirectOnlinePaymentRequest req,
+            Object raw) {
         Map<String, Object> map = JsonPayloadUtils.toMap(raw, mapper, "Error parseando respuesta de proveedor");
-        Map<String, String> responseMapping = serviceMappingConfigService.getResponseBodyMappings(
-                req.getPayment_provider_code(),
-                WS_KEY,
-                providerName);
+        Map<String, String> responseMapping = plan.responseBodyMappings();
 
         DirectOnlinePaymentResponse resp = new DirectOnlinePaymentResponse();
         resp.setChain(req.getChain());
@@ -9,7 +9,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.femsa.gpf.pagosdigitales.api.dto.MerchantEventsRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.MerchantEventsResponse;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.JsonPayloadUtils;
 
 /**
@@ -19,31 +19,25 @@ import com.femsa.gpf.pagosdigitales.infrastructure.util.JsonPayloadUtils;
 public class MerchantEventsMap {
 
     private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
-    private static final String WS_KEY = "merchant-events";
 
     private final ObjectMapper mapper;
-    private final ServiceMappingConfigService serviceMappingConfigService;
 
-    public MerchantEventsMap(ObjectMapper mapper, ServiceMappingConfigService serviceMappingConfigService) {
+    public MerchantEventsMap(ObjectMapper mapper) {
         this.mapper = mapper;
-        this.serviceMappingConfigService = serviceMappingConfigService;
     }
 
     /**
      * Construye el body hacia el proveedor segun el mapping configurado.
      *
+     * @param plan plan de llamada del proveedor
      * @param req request generico
-     * @param providerName proveedor seleccionado
      * @return body a enviar al proveedor
      */
-    public Map<String, Object> mapProviderRequest(MerchantEventsRequest req, String providerName) {
+    public Map<String, Object> mapProviderRequest(RoutePlan plan, MerchantEventsRequest req) {
         Map<String, Object> body = new LinkedHashMap<>();
         Map<String, Object> reqMap = mapper.convertValue(req, MAP_TYPE);
 
-        var mapping = serviceMappingConfigService.getRequestBodyMappings(
-                req.getPayment_provider_code(),
-                WS_KEY,
-                providerName);
+        var mapping = plan.requestBodyMappings();
         if (mapping != null) {
             mapping.forEach((targetPath, sourcePath) -> {
                 Object value = getValueByPath(reqMap, sourcePath);
@@ -59,17 +53,14 @@ public class MerchantEventsMap {
     /**
      * Mapea la respuesta del proveedor al response generico.
      *
+     * @param plan plan de llamada del proveedor
      * @param req request generico
      * @param raw respuesta cruda del proveedor
-     * @param providerName proveedor seleccionado
      * @return response generico
      */
-    public MerchantEventsResponse mapProviderResponse(MerchantEventsRequest req, Object raw, String providerName) {
+    public MerchantEventsResponse mapProviderResponse(RoutePlan plan, MerchantEventsRequest req, Object raw) {
         Map<String, Object> map = JsonPayloadUtils.toMap(raw, mapper, "Error parseando respuesta de proveedor");
-        Map<String, String> responseMapping = serviceMappingConfigService.getResponseBodyMappings(
-                req.getPayment_provider_code(),
-                WS_KEY,
-                providerName);
+        Map<String, String> responseMapping = plan.responseBodyMappings();
 
         MerchantEventsResponse resp = new MerchantEventsResponse();
         resp.setChain(req.getChain());
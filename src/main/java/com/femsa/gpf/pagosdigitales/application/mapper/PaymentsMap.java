@@ -9,7 +9,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.femsa.gpf.pagosdigitales.api.dto.PaymentOperation;
 import com.femsa.gpf.pagosdigitales.api.dto.PaymentsRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.PaymentsResponse;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.JsonPayloadUtils;
 
 /**
@@ -20,36 +20,29 @@ public class PaymentsMap {
 
     private static final TypeReference<java.util.List<PaymentOperation>> OPERATIONS_TYPE =
             new TypeReference<>() {};
-    private static final String WS_KEY = "payments";
 
     private final ObjectMapper mapper;
-    private final ServiceMappingConfigService serviceMappingConfigService;
 
     /**
      * Crea el mapper con el serializador y las propiedades.
      *
      * @param mapper serializador de JSON
-     * @param serviceMappingConfigService servicio de mapeo por BD
      */
-    public PaymentsMap(ObjectMapper mapper, ServiceMappingConfigService serviceMappingConfigService) {
+    public PaymentsMap(ObjectMapper mapper) {
         this.mapper = mapper;
-        this.serviceMappingConfigService = serviceMappingConfigService;
     }
 
     /**
      * Mapea la respuesta del proveedor al response generico.
      *
+     * @param plan plan de llamada del proveedor
      * @param req request generico
      * @param raw respuesta cruda del proveedor
-     * @param providerName proveedor seleccionado
      * @return response generico
      */
-    public PaymentsResponse mapProviderResponse(PaymentsRequest req, Object raw, String providerName) {
+    public PaymentsResponse mapProviderResponse(RoutePlan plan, PaymentsRequest req, Object raw) {
         Map<String, Object> map = JsonPayloadUtils.toMap(raw, mapper, "Error parseando respuesta de proveedor");
-        Map<String, String> responseMapping = serviceMappingConfigService.getResponseBodyMappings(
-                req.getPayment_provider_code(),
-                WS_KEY,
-                providerName);
+        Map<String, String> responseMapping = plan.responseBodyMappings();
 
         PaymentsResponse resp = new PaymentsResponse();
         resp.setChain(req.getChain());
@@ -0,0 +1,184 @@
+package com.femsa.gpf.pagosdigitales.application.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Implementacion en memoria acotada para idempotencia de notificaciones.
+ * Guarda solo la llave natural, el estado y una huella del payload; descarta
+ * las entradas mas antiguas al superar el maximo o el TTL.
+ */
+@Log4j2
+@Component
+public class BoundedSafetypayNotificationStore implements SafetypayNotificationStore {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<NotificationKey, Entry> entries = new LinkedHashMap<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * Crea el store con sus limites.
+     *
+     * @param maxEntries maximo de notificaciones en memoria
+     * @param ttlHours horas que se recuerda una notificacion
+     */
+    public BoundedSafetypayNotificationStore(
+            @Value("${safetypay.notifications.store.max-entries:100000}") int maxEntries,
+            @Value("${safetypay.notifications.store.ttl-hours:72}") long ttlHours) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("safetypay.notifications.store.max-entries debe ser mayor a 0");
+        }
+        if (ttlHours <= 0) {
+            throw new IllegalArgumentException("safetypay.notifications.store.ttl-hours debe ser mayor a 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = Duration.ofHours(ttlHours).toMillis();
+    }
+
+    /**
+     * Busca una notificacion previamente almacenada. El registro devuelto solo
+     * contiene la llave natural, el estado y la fecha de recepcion.
+     *
+     * @param merchantSalesId id de venta del comercio
+     * @param referenceNo referencia del comercio
+     * @param paymentReferenceNo referencia de pago
+     * @return registro si existe y no vencio
+     */
+    @Override
+    public synchronized Optional<SafetypayNotificationRecord> find(String merchantSalesId, String referenceNo,
+            String paymentReferenceNo) {
+        purgeExpired(System.currentTimeMillis());
+        NotificationKey key = new NotificationKey(merchantSalesId, referenceNo, paymentReferenceNo);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+        hits++;
+        return Optional.of(toRecord(key, entry));
+    }
+
+    /**
+     * Guarda una notificacion para idempotencia. Si la llave ya existe se
+     * conserva la primera recepcion.
+     *
+     * @param record registro de notificacion
+     */
+    @Override
+    public void save(SafetypayNotificationRecord record) {
+        saveIfAbsent(record);
+    }
+
+    /**
+     * Guarda la notificacion si su llave no existe.
+     *
+     * @param record registro de notificacion
+     * @return true cuando la notificacion se guardo
+     */
+    @Override
+    public synchronized boolean saveIfAbsent(SafetypayNotificationRecord record) {
+        long now = System.currentTimeMillis();
+        purgeExpired(now);
+        NotificationKey key = new NotificationKey(record.getMerchantSalesId(), record.getReferenceNo(),
+                record.getPaymentReferenceNo());
+        long fingerprint = fingerprint(record.getRawPayload());
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            if (existing.payloadFingerprint() != fingerprint) {
+                log.warn("Notificacion SafetyPay repetida con payload distinto: {} {} {}", key.merchantSalesId(),
+                        key.referenceNo(), key.paymentReferenceNo());
+            }
+            return false;
+        }
+        entries.put(key, new Entry(record.getStatus(), fingerprint, now));
+        Iterator<Map.Entry<NotificationKey, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve las estadisticas acumuladas del store.
+     *
+     * @return tamano, aciertos, fallos y descartes
+     */
+    public synchronized Stats stats() {
+        return new Stats(entries.size(), hits, misses, evictions, expirations);
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().storedAtMs() < ttlMillis) {
+                return;
+            }
+            iterator.remove();
+            expirations++;
+        }
+    }
+
+    private static SafetypayNotificationRecord toRecord(NotificationKey key, Entry entry) {
+        SafetypayNotificationRecord record = new SafetypayNotificationRecord();
+        record.setMerchantSalesId(key.merchantSalesId());
+        record.setReferenceNo(key.referenceNo());
+        record.setPaymentReferenceNo(key.paymentReferenceNo());
+        record.setOrderNo(key.merchantSalesId());
+        record.setStatus(entry.status());
+        record.setReceivedAt(Instant.ofEpochMilli(entry.storedAtMs()).atOffset(ZoneOffset.UTC));
+        return record;
+    }
+
+    /**
+     * Huella FNV-1a de 64 bits del payload original.
+     */
+    private static long fingerprint(String payload) {
+        long hash = FNV_OFFSET_BASIS;
+        if (payload == null) {
+            return hash;
+        }
+        for (byte value : payload.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= value & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Estadisticas del store.
+     *
+     * @param size notificaciones en memoria
+     * @param hits busquedas con notificacion existente
+     * @param misses busquedas sin notificacion
+     * @param evictions descartes por tamano maximo
+     * @param expirations descartes por TTL
+     */
+    public record Stats(int size, long hits, long misses, long evictions, long expirations) {
+    }
+
+    private record NotificationKey(String merchantSalesId, String referenceNo, String paymentReferenceNo) {
+    }
+
+    private record Entry(String status, long payloadFingerprint, long storedAtMs) {
+    }
+}
@@ -12,6 +12,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationResponse;
 import com.femsa.gpf.pagosdigitales.domain.service.SignatureService;
+import com.femsa.gpf.pagosdigitales.domain.service.SignatureService.SignatureMode;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService.ProviderConfig;
 import com.femsa.gpf.pagosdigitales.infrastructure.util.AppUtils;
@@ -59,51 +60,91 @@ public class SafetypayConfirmationService {
      * @return response de confirmacion
      */
     public SafetypayConfirmationResponse handleConfirmation(SafetypayConfirmationRequest req, String remoteAddr) {
+        Acknowledgement acknowledgement = validate(req, remoteAddr, false);
+        register(acknowledgement.notification());
+        return acknowledgement.response();
+    }
+
+    /**
+     * Valida la confirmacion solo con datos en memoria para responder en modo
+     * fast-ack. La idempotencia se consulta en la cache cercana y la
+     * notificacion nueva se devuelve para guardarla al aplicar la bitacora.
+     *
+     * @param req request de confirmacion
+     * @param remoteAddr IP remota del request
+     * @return response firmado y notificacion por registrar, si es nueva
+     */
+    public Acknowledgement acknowledge(SafetypayConfirmationRequest req, String remoteAddr) {
+        return validate(req, remoteAddr, true);
+    }
+
+    /**
+     * Registra una notificacion nueva en el store de idempotencia.
+     *
+     * @param record notificacion; null no registra nada
+     */
+    public void register(SafetypayNotificationRecord record) {
+        if (record != null && notificationStore.saveIfAbsent(record)) {
+            log.info("Notificacion SafetyPay registrada: {}", AppUtils.formatPayload(record, objectMapper));
+        }
+    }
+
+    /**
+     * Recuerda en memoria una notificacion cuyo registro quedo en la bitacora,
+     * para responder sus reintentos como duplicados.
+     *
+     * @param record notificacion; null no registra nada
+     */
+    public void remember(SafetypayNotificationRecord record) {
+        if (record != null) {
+            notificationStore.saveCached(record);
+        }
+    }
+
+    private Acknowledgement validate(SafetypayConfirmationRequest req, String remoteAddr, boolean inMemoryOnly) {
         SafetypayConfirmationResponse response = baseResponse(req);
 
         if (!configService.isEnabled()) {
-            return signResponse(response, 3, null);
+            return new Acknowledgement(signResponse(response, 3, null), null);
         }
 
         ResolvedProvider resolvedProvider = resolveProvider(req.getApiKey());
         if (resolvedProvider == null) {
-            return signResponse(response, 3, null);
+            return new Acknowledgement(signResponse(response, 3, null), null);
         }
         ProviderConfig providerConfig = resolvedProvider.config();
 
         if (!hasRequiredFields(req)) {
-            return signResponse(response, 3, providerConfig);
+            return new Acknowledgement(signResponse(response, 3, providerConfig), null);
         }
 
         if (!isIpAllowed(providerConfig, remoteAddr)) {
-            return signResponse(response, 3, providerConfig);
+            return new Acknowledgement(signResponse(response, 3, providerConfig), null);
         }
 
         if (isBlank(providerConfig.secret())) {
-            return signResponse(response, 3, providerConfig);
+            return new Acknowledgement(signResponse(response, 3, providerConfig), null);
         }
 
         if (!isApiKeyValid(providerConfig, req.getApiKey())) {
-            return signResponse(response, 1, providerConfig);
+            return new Acknowledgement(signResponse(response, 1, providerConfig), null);
         }
 
         if (!isSignatureValid(providerConfig, req)) {
-            return signResponse(response, 2, providerConfig);
+            return new Acknowledgement(signResponse(response, 2, providerConfig), null);
         }
 
-        Optional<SafetypayNotificationRecord> existing = notificationStore.find(
-                req.getMerchantSalesId(),
-                req.getReferenceNo(),
-                req.getPaymentReferenceNo());
+        Optional<SafetypayNotificationRecord> existing = inMemoryOnly
+                ? notificationStore.findCached(req.getMerchantSalesId(), req.getReferenceNo(),
+                        req.getPaymentReferenceNo())
+                : notificationStore.find(req.getMerchantSalesId(), req.getReferenceNo(),
+                        req.getPaymentReferenceNo());
         if (existing.isPresent()) {
-            return signResponse(response, 0, providerConfig);
+            return new Acknowledgement(signResponse(response, 0, providerConfig), null);
         }
 
         SafetypayNotificationRecord record = buildRecord(req, req.getMerchantSalesId(), resolvedProvider.name());
-        notificationStore.save(record);
-        log.info("Notificacion SafetyPay registrada: {}", AppUtils.formatPayload(record, objectMapper));
-
-        return signResponse(response, 0, providerConfig);
+        return new Acknowledgement(signResponse(response, 0, providerConfig), record);
     }
 
     /**
@@ -121,26 +162,6 @@ public class SafetypayConfirmationService {
         return signResponse(baseResponse(req), errorNumber, resolvedProvider.config());
     }
 
-    /**
-     * Construye el texto base de firma para requests/response usando el orden definido.
-     *
-     * @param requestDateTime fecha de request o response
-     * @param req request de confirmacion
-     * @param secret secreto de firma del proveedor
-     * @return texto base a firmar
-     */
-    public String buildSignatureBase(String requestDateTime, SafetypayConfirmationRequest req, String secret) {
-        return nullSafe(requestDateTime)
-                + nullSafe(req.getMerchantSalesId())
-                + nullSafe(req.getReferenceNo())
-                + nullSafe(req.getCreationDateTime())
-                + nullSafe(req.getAmount())
-                + nullSafe(req.getCurrencyId())
-                + nullSafe(req.getPaymentReferenceNo())
-                + nullSafe(req.getStatus())
-                + nullSafe(secret);
-    }
-
     private ResolvedProvider resolveProvider(String apiKey) {
         return configService.resolveProvider(apiKey)
                 .map(provider -> new ResolvedProvider(provider.providerName(), provider))
@@ -154,9 +175,23 @@ public class SafetypayConfirmationService {
         return config.apiKey().equals(apiKey);
     }
 
-    private boolean isSignatureValid(ProviderConfig config, SafetypayConfirmationRequest req) {
-        String base = buildSignatureBase(req.getRequestDateTime(), req, config.secret());
-        String expected = signatureService.sha256Hex(base);
+    /**
+     * Valida la firma del request con el secreto y modo de firma del proveedor.
+     *
+     * @param config configuracion del proveedor
+     * @param req request de confirmacion
+     * @return true si la firma recibida coincide
+     */
+    public boolean isSignatureValid(ProviderConfig config, SafetypayConfirmationRequest req) {
+        String expected = signatureService.sign(signatureMode(config), config.secret(),
+                req.getRequestDateTime(),
+                req.getMerchantSalesId(),
+                req.getReferenceNo(),
+                req.getCreationDateTime(),
+                req.getAmount(),
+                req.getCurrencyId(),
+                req.getPaymentReferenceNo(),
+                req.getStatus());
         return signatureService.isValid(expected, req.getSignature());
     }
 
@@ -178,20 +213,26 @@ public class SafetypayConfirmationService {
     private SafetypayConfirmationResponse signResponse(SafetypayConfirmationResponse response, int errorNumber,
             ProviderConfig config) {
         response.setErrorNumber(errorNumber);
-        String base = nullSafe(response.getResponseDateTime())
-                + nullSafe(response.getMerchantSalesId())
-                + nullSafe(response.getReferenceNo())
-                + nullSafe(response.getCreationDateTime())
-                + nullSafe(response.getAmount())
-                + nullSafe(response.getCurrencyId())
-                + nullSafe(response.getPaymentReferenceNo())
-                + nullSafe(response.getStatus())
-                + nullSafe(response.getOrderNo())
-                + nullSafe(config == null ? null : config.secret());
-        response.setSignature(signatureService.sha256Hex(base));
+        response.setSignature(signatureService.sign(
+                config == null ? SignatureMode.SHA256 : signatureMode(config),
+                config == null ? null : config.secret(),
+                response.getResponseDateTime(),
+                response.getMerchantSalesId(),
+                response.getReferenceNo(),
+                response.getCreationDateTime(),
+                response.getAmount(),
+                response.getCurrencyId(),
+                response.getPaymentReferenceNo(),
+                response.getStatus(),
+                response.getOrderNo()));
         return response;
     }
 
+    private SignatureMode signatureMode(ProviderConfig config) {
+        SignatureMode mode = SignatureMode.parse(config.signatureMode());
+        return mode == null ? SignatureMode.SHA256 : mode;
+    }
+
     private SafetypayNotificationRecord buildRecord(SafetypayConfirmationRequest req, String orderNo, String providerName) {
         SafetypayNotificationRecord record = new SafetypayNotificationRecord();
         record.setPaymentProviderCode(null);
@@ -236,24 +277,37 @@ public class SafetypayConfirmationService {
         return payload;
     }
 
-    private String nullSafe(String value) {
-        return value == null ? "" : value;
-    }
-
     private boolean isBlank(String value) {
         return value == null || value.isBlank();
     }
 
-    private boolean isIpAllowed(ProviderConfig config, String remoteAddr) {
+    /**
+     * Valida la IP remota contra ALLOWED_IPS del proveedor. Sin lista se permite
+     * cualquier IP.
+     *
+     * @param config configuracion del proveedor
+     * @param remoteAddr IP remota del request
+     * @return true si la IP esta permitida
+     */
+    public boolean isIpAllowed(ProviderConfig config, String remoteAddr) {
         if (config.allowedIps() == null || config.allowedIps().isEmpty()) {
             return true;
         }
         if (isBlank(remoteAddr)) {
             return false;
         }
-        return config.allowedIps().contains(remoteAddr);
+        return config.allowedIpMatcher().allows(remoteAddr);
     }
 
     private record ResolvedProvider(String name, ProviderConfig config) {
     }
+
+    /**
+     * Resultado de validar una confirmacion.
+     *
+     * @param response response firmado
+     * @param notification notificacion nueva por registrar o null si no aplica
+     */
+    public record Acknowledgement(SafetypayConfirmationResponse response, SafetypayNotificationRecord notification) {
+    }
 }
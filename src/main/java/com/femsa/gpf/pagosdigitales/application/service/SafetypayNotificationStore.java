@@ -17,10 +17,48 @@ public interface SafetypayNotificationStore {
      */
     Optional<SafetypayNotificationRecord> find(String merchantSalesId, String referenceNo, String paymentReferenceNo);
 
+    /**
+     * Busca un registro solo en memoria, sin consultar BD. Por defecto equivale
+     * a {@link #find(String, String, String)}.
+     *
+     * @param merchantSalesId id de venta del comercio
+     * @param referenceNo referencia del comercio
+     * @param paymentReferenceNo referencia de pago
+     * @return registro si existe en memoria
+     */
+    default Optional<SafetypayNotificationRecord> findCached(String merchantSalesId, String referenceNo,
+            String paymentReferenceNo) {
+        return find(merchantSalesId, referenceNo, paymentReferenceNo);
+    }
+
+    /**
+     * Recuerda un registro solo en memoria mientras se guarda en segundo plano.
+     * Por defecto lo guarda.
+     *
+     * @param record registro a recordar
+     */
+    default void saveCached(SafetypayNotificationRecord record) {
+        save(record);
+    }
+
     /**
      * Guarda un registro de notificacion.
      *
      * @param record registro a guardar
      */
     void save(SafetypayNotificationRecord record);
+
+    /**
+     * Guarda el registro solo si su llave natural no existe.
+     *
+     * @param record registro a guardar
+     * @return true cuando el registro se guardo; false si ya existia
+     */
+    default boolean saveIfAbsent(SafetypayNotificationRecord record) {
+        if (find(record.getMerchantSalesId(), record.getReferenceNo(), record.getPaymentReferenceNo()).isPresent()) {
+            return false;
+        }
+        save(record);
+        return true;
+    }
 }
@@ -0,0 +1,399 @@
+package com.femsa.gpf.pagosdigitales.application.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationRequest;
+import com.femsa.gpf.pagosdigitales.api.dto.SafetypayReconciliationResponse;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService.ConfirmationUpdate;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService.ProviderConfig;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Importa archivos CSV de conciliacion de SafetyPay leyendo fila a fila. Las
+ * filas se agrupan en bloques de tamano fijo; en cada bloque las firmas se
+ * validan en paralelo y las confirmaciones validas se aplican en un batch JDBC,
+ * por lo que la memoria usada no depende del tamano del archivo.
+ */
+@Log4j2
+@Service
+public class SafetypayReconciliationService {
+
+    private static final String[] COLUMNS = {
+        "RequestDateTime", "MerchantSalesID", "ReferenceNo", "CreationDateTime", "Amount", "CurrencyID",
+        "PaymentReferenceNo", "Status", "Signature"
+    };
+
+    private final SafetypayConfirmationConfigService configService;
+    private final SafetypayConfirmationService confirmationService;
+    private final PaymentRegistryService paymentRegistryService;
+    private final int chunkSize;
+    private final int verifyThreads;
+    private final int maxLineLength;
+    private final ExecutorService verifyExecutor;
+
+    /**
+     * Crea el servicio con su configuracion.
+     *
+     * @param configService configuracion de SafetyPay desde BD
+     * @param confirmationService servicio de confirmaciones para validar firmas
+     * @param paymentRegistryService servicio de registro de pagos
+     * @param chunkSize filas por bloque y por batch JDBC
+     * @param verifyThreads hilos para validar firmas
+     * @param maxLineLength maximo de caracteres por fila; filas mayores se descartan
+     */
+    public SafetypayReconciliationService(SafetypayConfirmationConfigService configService,
+            SafetypayConfirmationService confirmationService,
+            PaymentRegistryService paymentRegistryService,
+            @Value("${safetypay.reconciliation.chunk-size:1000}") int chunkSize,
+            @Value("${safetypay.reconciliation.verify-threads:4}") int verifyThreads,
+            @Value("${safetypay.reconciliation.max-line-length:8192}") int maxLineLength) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("safetypay.reconciliation.chunk-size debe ser mayor a 0");
+        }
+        if (verifyThreads <= 0) {
+            throw new IllegalArgumentException("safetypay.reconciliation.verify-threads debe ser mayor a 0");
+        }
+        if (maxLineLength <= 0) {
+            throw new IllegalArgumentException("safetypay.reconciliation.max-line-length debe ser mayor a 0");
+        }
+        this.configService = configService;
+        this.confirmationService = confirmationService;
+        this.paymentRegistryService = paymentRegistryService;
+        this.chunkSize = chunkSize;
+        this.verifyThreads = verifyThreads;
+        this.maxLineLength = maxLineLength;
+        this.verifyExecutor = Executors.newFixedThreadPool(verifyThreads, runnable -> {
+            Thread thread = new Thread(runnable, "safetypay-reconciliation-verify");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Resuelve el proveedor activo con secreto de firma cuya api key coincide.
+     *
+     * @param apiKey api key del proveedor
+     * @return proveedor resuelto o null si no es valido
+     */
+    public ProviderConfig resolveProvider(String apiKey) {
+        if (apiKey == null || apiKey.isBlank()) {
+            return null;
+        }
+        return configService.resolveProvider(apiKey)
+                .filter(provider -> provider.enabled() && apiKey.equals(provider.apiKey()))
+                .filter(provider -> provider.secret() != null && !provider.secret().isBlank())
+                .orElse(null);
+    }
+
+    /**
+     * Valida la IP remota contra ALLOWED_IPS del proveedor, igual que el webhook
+     * de confirmacion.
+     *
+     * @param provider proveedor resuelto
+     * @param remoteAddr IP remota del request
+     * @return true si la IP esta permitida
+     */
+    public boolean isIpAllowed(ProviderConfig provider, String remoteAddr) {
+        return confirmationService.isIpAllowed(provider, remoteAddr);
+    }
+
+    /**
+     * Importa el archivo. La primera fila es el encabezado con los nombres de
+     * campo del webhook en cualquier orden. Solo se aplican filas con firma
+     * valida, con ErrorNumber 0; los bloques ya aplicados se conservan si un
+     * bloque posterior falla y reimportar el archivo es idempotente.
+     *
+     * @param provider proveedor resuelto
+     * @param csv contenido del archivo en UTF-8
+     * @return resumen de la importacion
+     * @throws IOException cuando el archivo no se puede leer
+     */
+    public SafetypayReconciliationResponse importFile(ProviderConfig provider, InputStream csv) throws IOException {
+        long startedAt = System.nanoTime();
+        Progress progress = new Progress(provider.providerName(), startedAt);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        int[] indexes;
+        try {
+            indexes = readHeader(reader);
+        } catch (IllegalArgumentException e) {
+            return progress.toResponse(e.getMessage());
+        }
+        String error = null;
+        long lineNumber = 1;
+        try {
+            String[] fields = new String[maxIndex(indexes) + 1];
+            List<SafetypayConfirmationRequest> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                progress.rows++;
+                SafetypayConfirmationRequest req = line.length() > maxLineLength
+                        ? null
+                        : parseRow(line, fields, indexes);
+                if (req == null) {
+                    progress.malformed++;
+                    log.debug("Fila {} de conciliacion SafetyPay descartada por formato", lineNumber);
+                    continue;
+                }
+                chunk.add(req);
+                if (chunk.size() == chunkSize) {
+                    applyChunk(provider, chunk, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                applyChunk(provider, chunk, progress);
+            }
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Conciliacion SafetyPay detenida en la fila {}", lineNumber, e);
+            error = "No fue posible aplicar el bloque que termina en la fila " + lineNumber + ": " + e.getMessage();
+        }
+        SafetypayReconciliationResponse summary = progress.toResponse(error);
+        log.info("Conciliacion SafetyPay {} terminada: {} filas, {} aplicadas, {} actualizadas, "
+                + "{} firmas invalidas, {} descartadas en {} ms", summary.getProvider(), summary.getRows(),
+                summary.getApplied(), summary.getUpdated(), summary.getInvalid_signature(), summary.getMalformed(),
+                summary.getElapsed_ms());
+        return summary;
+    }
+
+    /**
+     * Detiene los hilos de validacion de firmas.
+     */
+    @PreDestroy
+    public void shutdown() {
+        verifyExecutor.shutdownNow();
+    }
+
+    private void applyChunk(ProviderConfig provider, List<SafetypayConfirmationRequest> chunk, Progress progress)
+            throws Exception {
+        boolean[] valid = verify(provider, chunk);
+        List<ConfirmationUpdate> updates = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (valid[i]) {
+                updates.add(new ConfirmationUpdate(chunk.get(i), 0));
+            }
+        }
+        progress.updated += paymentRegistryService.applySafetypayConfirmations(updates);
+        progress.chunks++;
+        progress.applied += updates.size();
+        progress.invalidSignature += chunk.size() - updates.size();
+        log.info("Conciliacion SafetyPay {} bloque {}: {} filas leidas, {} aplicadas, {} actualizadas, "
+                + "{} firmas invalidas, {} ms", progress.provider, progress.chunks, progress.rows, progress.applied,
+                progress.updated, progress.invalidSignature, progress.elapsedMs());
+    }
+
+    /**
+     * Valida las firmas del bloque repartiendo tramos contiguos entre los hilos.
+     */
+    private boolean[] verify(ProviderConfig provider, List<SafetypayConfirmationRequest> chunk) throws Exception {
+        boolean[] valid = new boolean[chunk.size()];
+        int slices = Math.min(verifyThreads, chunk.size());
+        if (slices <= 1) {
+            verifyRange(provider, chunk, valid, 0, chunk.size());
+            return valid;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(slices);
+        int sliceSize = (chunk.size() + slices - 1) / slices;
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            int start = from;
+            int end = Math.min(chunk.size(), from + sliceSize);
+            tasks.add(() -> {
+                verifyRange(provider, chunk, valid, start, end);
+                return null;
+            });
+        }
+        for (Future<Void> future : verifyExecutor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        return valid;
+    }
+
+    private void verifyRange(ProviderConfig provider, List<SafetypayConfirmationRequest> chunk, boolean[] valid,
+            int from, int to) {
+        for (int i = from; i < to; i++) {
+            valid[i] = confirmationService.isSignatureValid(provider, chunk.get(i));
+        }
+    }
+
+    private int[] readHeader(BufferedReader reader) throws IOException {
+        String header = reader.readLine();
+        if (header == null || header.length() > maxLineLength) {
+            throw new IllegalArgumentException("Archivo sin encabezado");
+        }
+        if (!header.isEmpty() && header.charAt(0) == '\uFEFF') {
+            header = header.substring(1);
+        }
+        String[] names = new String[header.length() + 1];
+        int count = splitCsv(header, names);
+        int[] indexes = new int[COLUMNS.length];
+        for (int column = 0; column < COLUMNS.length; column++) {
+            indexes[column] = -1;
+            for (int i = 0; i < count; i++) {
+                if (COLUMNS[column].toLowerCase(Locale.ROOT).equals(names[i].trim().toLowerCase(Locale.ROOT))) {
+                    indexes[column] = i;
+                    break;
+                }
+            }
+            if (indexes[column] < 0) {
+                throw new IllegalArgumentException("Encabezado sin columna " + COLUMNS[column]);
+            }
+        }
+        return indexes;
+    }
+
+    private static SafetypayConfirmationRequest parseRow(String line, String[] fields, int[] indexes) {
+        int count = splitCsv(line, fields);
+        if (count < fields.length) {
+            return null;
+        }
+        SafetypayConfirmationRequest req = new SafetypayConfirmationRequest();
+        req.setRequestDateTime(fields[indexes[0]].trim());
+        req.setMerchantSalesId(fields[indexes[1]].trim());
+        req.setReferenceNo(fields[indexes[2]].trim());
+        req.setCreationDateTime(fields[indexes[3]].trim());
+        req.setAmount(fields[indexes[4]].trim());
+        req.setCurrencyId(fields[indexes[5]].trim());
+        req.setPaymentReferenceNo(fields[indexes[6]].trim());
+        req.setStatus(fields[indexes[7]].trim());
+        req.setSignature(fields[indexes[8]].trim());
+        for (int index : indexes) {
+            if (fields[index].isBlank()) {
+                return null;
+            }
+        }
+        try {
+            new BigDecimal(req.getAmount());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return req;
+    }
+
+    /**
+     * Separa una fila CSV con comillas dobles opcionales ("" escapa una comilla).
+     * Guarda hasta {@code target.length} campos y devuelve cuantos se leyeron, o
+     * -1 si una comilla no cierra.
+     */
+    private static int splitCsv(String line, String[] target) {
+        int count = 0;
+        int position = 0;
+        int length = line.length();
+        StringBuilder quoted = null;
+        while (position <= length) {
+            String value;
+            if (position < length && line.charAt(position) == '"') {
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                }
+                quoted.setLength(0);
+                position++;
+                while (true) {
+                    if (position >= length) {
+                        return -1;
+                    }
+                    char c = line.charAt(position++);
+                    if (c == '"') {
+                        if (position < length && line.charAt(position) == '"') {
+                            quoted.append('"');
+                            position++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+                value = quoted.toString();
+                int comma = line.indexOf(',', position);
+                position = comma < 0 ? length + 1 : comma + 1;
+            } else {
+                int comma = line.indexOf(',', position);
+                int end = comma < 0 ? length : comma;
+                value = line.substring(position, end);
+                position = end + 1;
+            }
+            if (count < target.length) {
+                target[count] = value;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static int maxIndex(int[] indexes) {
+        int max = 0;
+        for (int index : indexes) {
+            max = Math.max(max, index);
+        }
+        return max;
+    }
+
+    /**
+     * Contadores de una importacion en curso.
+     */
+    private static final class Progress {
+
+        private final String provider;
+        private final long startedAt;
+        private long rows;
+        private long applied;
+        private long updated;
+        private long invalidSignature;
+        private long malformed;
+        private int chunks;
+
+        private Progress(String provider, long startedAt) {
+            this.provider = provider;
+            this.startedAt = startedAt;
+        }
+
+        private long elapsedMs() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        }
+
+        private SafetypayReconciliationResponse toResponse(String error) {
+            SafetypayReconciliationResponse response = new SafetypayReconciliationResponse();
+            response.setProvider(provider);
+            response.setRows(rows);
+            response.setApplied(applied);
+            response.setUpdated(updated);
+            response.setInvalid_signature(invalidSignature);
+            response.setMalformed(malformed);
+            response.setChunks(chunks);
+            response.setElapsed_ms(elapsedMs());
+            response.setError(error);
+            return response;
+        }
+    }
+}
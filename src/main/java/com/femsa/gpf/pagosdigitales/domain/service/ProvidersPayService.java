@@ -1,14 +1,10 @@
 package com.femsa.gpf.pagosdigitales.domain.service;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.Serializable;
 import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 
-import jakarta.annotation.PostConstruct;
-
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
@@ -22,13 +18,13 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class ProvidersPayService {
 
-    private static final String SELECT_ACTIVE_WALLETS = "SELECT CODIGO, NOMBRE_BILLETERA_DIGITAL "
-            + "FROM TUKUNAFUNC.AD_BILLETERAS_DIGITALES "
-            + "WHERE ACTIVA = 'S'";
+    private static final DatabaseExecutor.NamedQuery SELECT_ACTIVE_WALLETS = DatabaseExecutor.NamedQuery.of(
+            "active-wallets",
+            "SELECT CODIGO, NOMBRE_BILLETERA_DIGITAL "
+                    + "FROM TUKUNAFUNC.AD_BILLETERAS_DIGITALES "
+                    + "WHERE ACTIVA = 'S'");
 
     private final DatabaseExecutor databaseExecutor;
-    private volatile Map<String, Integer> providersByName = Map.of();
-    private volatile Map<Integer, String> providersByCode = Map.of();
 
     /**
      * Crea el servicio con configuracion de conexion.
@@ -40,91 +36,37 @@ public class ProvidersPayService {
     }
 
     /**
-     * Inicializa la cache de proveedores al arranque.
-     */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
-    }
-
-    /**
-     * Refresca la cache de proveedores cada 6 horas.
-     */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
-        try {
-            Map<String, Integer> refreshedByName = loadActiveProvidersFromDb();
-            Map<Integer, String> refreshedByCode = new LinkedHashMap<>();
-            refreshedByName.forEach((name, code) -> refreshedByCode.put(code, name));
-            this.providersByName = Map.copyOf(refreshedByName);
-            this.providersByCode = Map.copyOf(refreshedByCode);
-            log.info("Cache de proveedores actualizada. Total activos: {}", refreshedByName.size());
-        } catch (Exception e) {
-            log.error("No fue posible refrescar cache AD_BILLETERAS_DIGITALES. Se conserva cache anterior.", e);
-        }
-    }
-
-    /**
-     * Busca el nombre del proveedor por su codigo.
-     *
-     * @param code codigo del proveedor
-     * @return nombre del proveedor o "without-provider" si no existe
-     */
-    public String getProviderNameByCode(Integer code) {
-        if (code == null) {
-            return "without-provider";
-        }
-        return providersByCode.getOrDefault(code, "without-provider");
-    }
-
-    /**
-     * Busca el codigo del proveedor por su nombre.
-     *
-     * @param name nombre del proveedor
-     * @return codigo del proveedor o 0 si no existe
-     */
-    public Integer getProviderCodeByName(String name) {
-        if (name == null || name.isBlank()) {
-            return 0;
-        }
-        String normalized = normalizeProviderKey(name);
-        return providersByName.getOrDefault(normalized, 0);
-    }
-
-    /**
-     * Obtiene el mapa completo de proveedores configurados.
+     * Carga el catalogo de proveedores activos desde BD.
      *
-     * @return mapa de proveedor a codigo
+     * @return catalogo inmutable de proveedores
+     * @throws Exception si falla la consulta
      */
-    public Map<String, Integer> getAllProviders() {
-        return providersByName;
+    public ProviderCatalog loadCatalog() throws Exception {
+        ProviderCatalog catalog = ProviderCatalog.of(loadActiveProvidersFromDb());
+        log.info("Catalogo AD_BILLETERAS_DIGITALES cargado. Total activos: {}", catalog.getAllProviders().size());
+        return catalog;
     }
 
     private Map<String, Integer> loadActiveProvidersFromDb() throws Exception {
         Map<String, Integer> providers = new LinkedHashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_WALLETS);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String providerName = normalizeProviderKey(rs.getString("NOMBRE_BILLETERA_DIGITAL"));
-                    Integer providerCode = rs.getInt("CODIGO");
-                    if (!providerName.isBlank()) {
-                        providers.put(providerName, providerCode);
-                    }
-                }
+        databaseExecutor.forEachRow(SELECT_ACTIVE_WALLETS, rs -> {
+            String providerName = normalizeProviderKey(rs.getString("NOMBRE_BILLETERA_DIGITAL"));
+            Integer providerCode = rs.getInt("CODIGO");
+            if (!providerName.isBlank()) {
+                providers.put(providerName, providerCode);
             }
         });
         return providers;
     }
 
-    private String normalizeProviderName(String providerName) {
+    private static String normalizeProviderName(String providerName) {
         if (providerName == null) {
             return "";
         }
         return providerName.trim().toLowerCase(Locale.ROOT);
     }
 
-    private String normalizeProviderKey(String providerName) {
+    private static String normalizeProviderKey(String providerName) {
         String normalized = normalizeProviderName(providerName).replaceAll("[^a-z0-9]", "");
         if (normalized.contains("paysafe") || normalized.contains("safetypay")) {
             return "paysafe";
@@ -135,4 +77,84 @@ public class ProvidersPayService {
         return normalized;
     }
 
+    /**
+     * Catalogo inmutable de proveedores activos por nombre y codigo.
+     */
+    public static final class ProviderCatalog implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, Integer> providersByName;
+        private final Map<Integer, String> providersByCode;
+
+        private ProviderCatalog(Map<String, Integer> providersByName, Map<Integer, String> providersByCode) {
+            this.providersByName = providersByName;
+            this.providersByCode = providersByCode;
+        }
+
+        /**
+         * Crea un catalogo sin proveedores.
+         *
+         * @return catalogo vacio
+         */
+        public static ProviderCatalog empty() {
+            return new ProviderCatalog(Map.of(), Map.of());
+        }
+
+        /**
+         * Cantidad de registros del catalogo.
+         *
+         * @return registros cargados
+         */
+        public int size() {
+            return providersByCode.size();
+        }
+
+        /**
+         * Crea el catalogo a partir de proveedores normalizados.
+         *
+         * @param providers mapa de proveedor normalizado a codigo
+         * @return catalogo inmutable
+         */
+        public static ProviderCatalog of(Map<String, Integer> providers) {
+            Map<Integer, String> byCode = new LinkedHashMap<>();
+            providers.forEach((name, code) -> byCode.put(code, name));
+            return new ProviderCatalog(Map.copyOf(providers), Map.copyOf(byCode));
+        }
+
+        /**
+         * Busca el nombre del proveedor por su codigo.
+         *
+         * @param code codigo del proveedor
+         * @return nombre del proveedor o "without-provider" si no existe
+         */
+        public String getProviderNameByCode(Integer code) {
+            if (code == null) {
+                return "without-provider";
+            }
+            return providersByCode.getOrDefault(code, "without-provider");
+        }
+
+        /**
+         * Busca el codigo del proveedor por su nombre.
+         *
+         * @param name nombre del proveedor
+         * @return codigo del proveedor o 0 si no existe
+         */
+        public Integer getProviderCodeByName(String name) {
+            if (name == null || name.isBlank()) {
+                return 0;
+            }
+            return providersByName.getOrDefault(normalizeProviderKey(name), 0);
+        }
+
+        /**
+         * Obtiene el mapa completo de proveedores configurados.
+         *
+         * @return mapa de proveedor a codigo
+         */
+        public Map<String, Integer> getAllProviders() {
+            return providersByName;
+        }
+    }
 }
@@ -1,17 +1,28 @@
 package com.femsa.gpf.pagosdigitales.domain.service;
 
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 import org.springframework.stereotype.Service;
 
 /**
- * Servicio para calcular y validar firmas SHA-256 de SafetyPay.
+ * Servicio para calcular y validar firmas SHA-256 de SafetyPay. Cada hilo
+ * reutiliza su digest, su Mac y su buffer UTF-8, por lo que firmar solo crea
+ * el texto hexadecimal resultante.
  */
 @Service
 public class SignatureService {
 
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int DIGEST_LENGTH = 32;
+    private static final int MAX_BUFFER_BYTES = 16 * 1024;
+    private static final ThreadLocal<Engine> ENGINES = ThreadLocal.withInitial(Engine::new);
+
     /**
      * Calcula la firma SHA-256 sobre el texto base.
      *
@@ -19,17 +30,35 @@ public class SignatureService {
      * @return firma en hexadecimal mayuscula
      */
     public String sha256Hex(String baseText) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(baseText.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder(hash.length * 2);
-            for (byte b : hash) {
-                sb.append(String.format("%02X", b));
+        Engine engine = ENGINES.get();
+        engine.update(engine.sha256, baseText);
+        return engine.finish(engine.sha256);
+    }
+
+    /**
+     * Firma los campos en orden sin concatenarlos. En modo SHA256 el secreto se
+     * agrega como ultimo campo; en modo HMAC_SHA256 es la llave del HMAC. Un
+     * campo nulo equivale a texto vacio.
+     *
+     * @param mode modo de firma del proveedor
+     * @param secret secreto de firma; si esta vacio se usa SHA-256 sin llave
+     * @param fields campos a firmar en el orden de la especificacion
+     * @return firma en hexadecimal mayuscula
+     */
+    public String sign(SignatureMode mode, String secret, String... fields) {
+        Engine engine = ENGINES.get();
+        if (mode == SignatureMode.HMAC_SHA256 && secret != null && !secret.isEmpty()) {
+            Mac mac = engine.hmac(secret);
+            for (String field : fields) {
+                engine.update(mac, field);
             }
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new IllegalStateException("SHA-256 no disponible", e);
+            return engine.finish(mac);
+        }
+        for (String field : fields) {
+            engine.update(engine.sha256, field);
         }
+        engine.update(engine.sha256, secret);
+        return engine.finish(engine.sha256);
     }
 
     /**
@@ -45,4 +74,156 @@ public class SignatureService {
         }
         return expected.equalsIgnoreCase(received.trim());
     }
+
+    /**
+     * Modo de firma configurado en SIGNATURE_MODE.
+     */
+    public enum SignatureMode {
+        SHA256,
+        HMAC_SHA256;
+
+        /**
+         * Resuelve el modo desde el valor configurado. Acepta separadores y
+         * mayusculas/minusculas indistintas.
+         *
+         * @param value valor configurado
+         * @return modo resuelto o null si no se reconoce
+         */
+        public static SignatureMode parse(String value) {
+            if (value == null || value.isBlank() || "SHA256".equalsIgnoreCase(value)) {
+                return SHA256;
+            }
+            if ("HMAC_SHA256".equalsIgnoreCase(value)) {
+                return HMAC_SHA256;
+            }
+            String normalized = value.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "");
+            return switch (normalized) {
+                case "SHA256" -> SHA256;
+                case "HMACSHA256" -> HMAC_SHA256;
+                default -> null;
+            };
+        }
+    }
+
+    /**
+     * Digest, Mac y buffers reutilizables de un hilo.
+     */
+    private static final class Engine {
+
+        private final MessageDigest sha256;
+        private final Mac mac;
+        private final byte[] hash = new byte[DIGEST_LENGTH];
+        private final char[] hex = new char[DIGEST_LENGTH * 2];
+        private byte[] buffer = new byte[256];
+        private String macSecret;
+
+        private Engine() {
+            try {
+                this.sha256 = MessageDigest.getInstance("SHA-256");
+                this.mac = Mac.getInstance("HmacSHA256");
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("SHA-256 no disponible", e);
+            }
+        }
+
+        private Mac hmac(String secret) {
+            if (!secret.equals(macSecret)) {
+                try {
+                    mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+                } catch (GeneralSecurityException e) {
+                    throw new IllegalStateException("HmacSHA256 no disponible", e);
+                }
+                macSecret = secret;
+            }
+            return mac;
+        }
+
+        private void update(MessageDigest digest, String value) {
+            if (value != null && value.length() * 3 > MAX_BUFFER_BYTES) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            int length = encode(value);
+            if (length > 0) {
+                digest.update(buffer, 0, length);
+            }
+        }
+
+        private void update(Mac target, String value) {
+            if (value != null && value.length() * 3 > MAX_BUFFER_BYTES) {
+                target.update(value.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            int length = encode(value);
+            if (length > 0) {
+                target.update(buffer, 0, length);
+            }
+        }
+
+        private String finish(MessageDigest digest) {
+            try {
+                digest.digest(hash, 0, DIGEST_LENGTH);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("No fue posible calcular SHA-256", e);
+            }
+            return toHex();
+        }
+
+        private String finish(Mac target) {
+            try {
+                target.doFinal(hash, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("No fue posible calcular HmacSHA256", e);
+            }
+            return toHex();
+        }
+
+        private String toHex() {
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                int value = hash[i] & 0xff;
+                hex[i * 2] = HEX[value >>> 4];
+                hex[i * 2 + 1] = HEX[value & 0x0f];
+            }
+            return new String(hex);
+        }
+
+        /**
+         * Codifica el texto en UTF-8 sobre el buffer del hilo. Un surrogate sin
+         * pareja se reemplaza por '?', igual que String.getBytes. Los textos
+         * mayores al buffer maximo se codifican con String.getBytes.
+         */
+        private int encode(String value) {
+            if (value == null || value.isEmpty()) {
+                return 0;
+            }
+            int required = value.length() * 3;
+            if (buffer.length < required) {
+                buffer = new byte[Math.min(MAX_BUFFER_BYTES, Math.max(required, buffer.length * 2))];
+            }
+            int position = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xc0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3f));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[position++] = (byte) '?';
+                } else {
+                    buffer[position++] = (byte) (0xe0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3f));
+                }
+            }
+            return position;
+        }
+    }
 }
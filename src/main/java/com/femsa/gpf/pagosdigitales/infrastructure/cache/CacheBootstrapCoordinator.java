@@ -0,0 +1,115 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Precarga en paralelo todas las caches de configuracion al arranque.
+ * La aplicacion no atiende trafico hasta que termina la precarga.
+ */
+@Log4j2
+@Component
+public class CacheBootstrapCoordinator implements SmartInitializingSingleton {
+
+    private final Map<String, RefreshableCache> caches;
+    private final int parallelism;
+    private final long timeoutSeconds;
+    private volatile Map<String, Long> loadTimesMs = Map.of();
+
+    /**
+     * Crea el coordinador con las caches registradas en el contexto.
+     *
+     * @param caches caches por nombre de bean
+     * @param parallelism maximo de cargas simultaneas
+     * @param timeoutSeconds tiempo maximo de espera de la precarga
+     */
+    public CacheBootstrapCoordinator(Map<String, RefreshableCache> caches,
+            @Value("${cache.bootstrap.parallelism:4}") int parallelism,
+            @Value("${cache.bootstrap.timeout-seconds:120}") long timeoutSeconds) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("cache.bootstrap.parallelism debe ser mayor a 0");
+        }
+        if (timeoutSeconds <= 0) {
+            throw new IllegalArgumentException("cache.bootstrap.timeout-seconds debe ser mayor a 0");
+        }
+        this.caches = caches;
+        this.parallelism = parallelism;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Ejecuta la precarga una vez creados todos los singletons.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    /**
+     * Carga todas las caches en un pool acotado y espera a que terminen.
+     */
+    public void warmUp() {
+        if (caches.isEmpty()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        Map<String, Long> loadTimes = new ConcurrentHashMap<>();
+        List<String> names = new ArrayList<>(caches.keySet());
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (String name : names) {
+            RefreshableCache cache = caches.get(name);
+            tasks.add(() -> {
+                long cacheStartedAt = System.nanoTime();
+                cache.warmUp();
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - cacheStartedAt);
+                loadTimes.put(name, elapsedMs);
+                log.info("Cache {} precargada en {} ms", name, elapsedMs);
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()),
+                new CacheThreadFactory("cache-bootstrap"));
+        try {
+            List<Future<Void>> futures = executor.invokeAll(tasks, timeoutSeconds, TimeUnit.SECONDS);
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i).isCancelled()) {
+                    log.warn("Precarga de cache {} no termino en {} s", names.get(i), timeoutSeconds);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Precarga de caches interrumpida");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        this.loadTimesMs = Collections.unmodifiableMap(new TreeMap<>(loadTimes));
+        log.info("Precarga de caches finalizada. Caches: {} Tiempo total: {} ms Detalle ms: {}",
+                loadTimesMs.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), loadTimesMs);
+    }
+
+    /**
+     * Obtiene el tiempo de la ultima precarga por cache.
+     *
+     * @return tiempo en ms por nombre de cache
+     */
+    public Map<String, Long> getLoadTimesMs() {
+        return loadTimesMs;
+    }
+}
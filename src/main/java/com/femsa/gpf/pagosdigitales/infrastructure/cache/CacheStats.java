@@ -0,0 +1,19 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.time.Instant;
+
+/**
+ * Estadisticas de un catalogo de configuracion en memoria.
+ *
+ * @param name nombre del catalogo
+ * @param entries registros cargados
+ * @param approxBytes tamano serializado aproximado en bytes; -1 si no se pudo calcular
+ * @param lastRefreshAt instante de la ultima carga publicada; null si no se ha cargado
+ * @param lastRefreshMs duracion de la ultima carga publicada en ms
+ * @param refreshes cargas publicadas
+ * @param refreshFailures cargas fallidas
+ * @param lookupMisses busquedas sin resultado
+ */
+public record CacheStats(String name, int entries, long approxBytes, Instant lastRefreshAt, long lastRefreshMs,
+        long refreshes, long refreshFailures, long lookupMisses) {
+}
@@ -0,0 +1,112 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de carga y busqueda de un catalogo. Las cargas las registra el
+ * hilo de refresco; las busquedas fallidas, los hilos de request.
+ */
+public final class CacheStatsRecorder {
+
+    private final String name;
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Loaded loaded = new Loaded(0, -1L, null, 0L);
+
+    /**
+     * Crea los contadores de un catalogo.
+     *
+     * @param name nombre del catalogo
+     */
+    public CacheStatsRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Nombre del catalogo.
+     *
+     * @return nombre
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Registra una carga publicada.
+     *
+     * @param loadedAt instante de la carga
+     * @param elapsedNanos duracion de la carga
+     * @param entries registros cargados
+     * @param approxBytes tamano aproximado en bytes
+     */
+    public void recordRefresh(Instant loadedAt, long elapsedNanos, int entries, long approxBytes) {
+        loaded = new Loaded(entries, approxBytes, loadedAt, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        refreshes.increment();
+    }
+
+    /**
+     * Registra una carga fallida.
+     */
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * Registra una busqueda sin resultado.
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Devuelve las estadisticas acumuladas.
+     *
+     * @param pendingMisses busquedas sin resultado aun no sumadas al recorder
+     * @return estadisticas del catalogo
+     */
+    public CacheStats stats(long pendingMisses) {
+        Loaded current = loaded;
+        return new CacheStats(name, current.entries(), current.approxBytes(), current.loadedAt(),
+                current.elapsedMs(), refreshes.sum(), failures.sum(), misses.sum() + pendingMisses);
+    }
+
+    /**
+     * Calcula el tamano serializado de un catalogo como aproximacion de su
+     * memoria. Se ejecuta solo al publicar una carga.
+     *
+     * @param catalog catalogo serializable
+     * @return bytes serializados o -1 si no se pudo serializar
+     */
+    public static long approxBytes(Object catalog) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+            out.writeObject(catalog);
+        } catch (Exception e) {
+            return -1L;
+        }
+        return counter.count;
+    }
+
+    private record Loaded(int entries, long approxBytes, Instant loadedAt, long elapsedMs) {
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fabrica de hilos daemon con nombre para cargas de caches.
+ */
+final class CacheThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    /**
+     * Crea la fabrica con el prefijo de nombre de hilo.
+     *
+     * @param prefix prefijo del nombre de hilo
+     */
+    CacheThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + "-" + sequence.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
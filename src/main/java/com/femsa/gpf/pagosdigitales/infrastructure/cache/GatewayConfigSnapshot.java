@@ -0,0 +1,91 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService.ProviderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService.BankCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService.ErrorCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService.WebServiceCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.DefinitionCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService.HeaderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService.MappingCatalog;
+
+/**
+ * Vista inmutable y versionada de toda la configuracion de pasarela.
+ * Cada request la lee una sola vez y la usa de inicio a fin.
+ *
+ * @param version version de la configuracion publicada
+ * @param loadedAt instante de carga
+ * @param providers catalogo de proveedores
+ * @param webServices catalogo de web services
+ * @param headers catalogo de headers por proveedor
+ * @param definitions catalogo de definiciones de request
+ * @param mappings catalogo de mapeos de servicio
+ * @param errors catalogo de mapeo de errores
+ * @param banks catalogo de bancos
+ * @param routePlans planes de llamada derivados de los catalogos
+ */
+public record GatewayConfigSnapshot(
+        long version,
+        Instant loadedAt,
+        ProviderCatalog providers,
+        WebServiceCatalog webServices,
+        HeaderCatalog headers,
+        DefinitionCatalog definitions,
+        MappingCatalog mappings,
+        ErrorCatalog errors,
+        BankCatalog banks,
+        RoutePlanCatalog routePlans) implements Serializable {
+
+    /**
+     * Crea la configuracion y precalcula los planes de llamada por proveedor y ws_key.
+     *
+     * @param version version de la configuracion publicada
+     * @param loadedAt instante de carga
+     * @param providers catalogo de proveedores
+     * @param webServices catalogo de web services
+     * @param headers catalogo de headers por proveedor
+     * @param definitions catalogo de definiciones de request
+     * @param mappings catalogo de mapeos de servicio
+     * @param errors catalogo de mapeo de errores
+     * @param banks catalogo de bancos
+     */
+    public GatewayConfigSnapshot(long version, Instant loadedAt, ProviderCatalog providers,
+            WebServiceCatalog webServices, HeaderCatalog headers, DefinitionCatalog definitions,
+            MappingCatalog mappings, ErrorCatalog errors, BankCatalog banks) {
+        this(version, loadedAt, providers, webServices, headers, definitions, mappings, errors, banks,
+                RoutePlanCatalog.build(providers, webServices, headers, definitions, mappings));
+    }
+
+    /**
+     * Devuelve esta configuracion con los planes contando sus busquedas sin
+     * plan en el contador de la configuracion anterior.
+     *
+     * @param previous configuracion publicada antes
+     * @return configuracion con el contador de busquedas heredado
+     */
+    public GatewayConfigSnapshot withMissesOf(GatewayConfigSnapshot previous) {
+        return new GatewayConfigSnapshot(version, loadedAt, providers, webServices, headers, definitions,
+                mappings, errors, banks, routePlans.withMissesOf(previous.routePlans()));
+    }
+
+    /**
+     * Crea la configuracion vacia previa a la primera carga.
+     *
+     * @return configuracion version 0 sin datos
+     */
+    public static GatewayConfigSnapshot empty() {
+        return new GatewayConfigSnapshot(
+                0L,
+                Instant.EPOCH,
+                ProviderCatalog.empty(),
+                WebServiceCatalog.empty(),
+                HeaderCatalog.empty(),
+                DefinitionCatalog.empty(),
+                MappingCatalog.empty(),
+                ErrorCatalog.empty(),
+                BankCatalog.empty(),
+                RoutePlanCatalog.empty());
+    }
+}
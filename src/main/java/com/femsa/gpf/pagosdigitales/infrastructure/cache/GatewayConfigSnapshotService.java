@@ -0,0 +1,538 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.Exchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService;
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService.ProviderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.GatewayConfigRefreshProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService.BankCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService.ErrorCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayConfigChangeLogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayConfigChangeLogService.ConfigChange;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService.WebServiceCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.DefinitionCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService.HeaderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService.MappingCatalog;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Publica la configuracion de pasarela como una sola vista inmutable.
+ * Los catalogos se cargan en paralelo y se reemplazan con una unica escritura.
+ * Consulta la bitacora de cambios cada pocos segundos y recarga solo los
+ * catalogos de las tablas modificadas; la recarga completa queda como respaldo.
+ * La configuracion de confirmation SafetyPay se refresca con la misma bitacora
+ * y la misma recarga completa, aunque no forma parte de la vista.
+ * Cada carga completa se guarda en disco para arrancar sin depender de la BD.
+ * Lleva estadisticas de carga por catalogo para la consulta administrativa.
+ */
+@Log4j2
+@Service
+public class GatewayConfigSnapshotService implements RefreshableCache {
+
+    /**
+     * Nombre de los planes de llamada, que se derivan de otros catalogos.
+     */
+    static final String ROUTE_PLANS = "route-plans";
+
+    /**
+     * Tabla de la configuracion de confirmation SafetyPay en la bitacora.
+     */
+    static final String SAFETYPAY_CONFIG_TABLE = "IN_SAFETYPAY_CFG";
+
+    /**
+     * Catalogos de la vista con las tablas de las que se cargan.
+     */
+    enum ConfigCatalog {
+        PROVIDERS("providers", "AD_BILLETERAS_DIGITALES"),
+        WEB_SERVICES("web-services", "IN_PASARELA_WS"),
+        HEADERS("headers", "IN_PASARELA_HEADERS"),
+        DEFINITIONS("definitions", "IN_PASARELA_WS_DEFS", "IN_PASARELA_WS"),
+        MAPPINGS("mappings", "AD_MAPEO_SERVICIOS"),
+        ERRORS("errors", "AD_MAPEO_ERRORES"),
+        BANKS("banks", "AD_TIPO_PAGO", "AD_CANAL", "AD_CANAL_TIPO_PAGO");
+
+        private final String statsName;
+        private final Set<String> tables;
+
+        ConfigCatalog(String statsName, String... tables) {
+            this.statsName = statsName;
+            this.tables = Set.of(tables);
+        }
+
+        /**
+         * Resuelve los catalogos a recargar por nombre de estadistica.
+         * Los planes de llamada se recargan con los catalogos de los que derivan.
+         *
+         * @param name nombre del catalogo
+         * @return catalogos a recargar; vacio si el nombre no existe
+         */
+        static Set<ConfigCatalog> byStatsName(String name) {
+            if (ROUTE_PLANS.equals(name)) {
+                return EnumSet.of(PROVIDERS, WEB_SERVICES, HEADERS, DEFINITIONS, MAPPINGS);
+            }
+            for (ConfigCatalog catalog : values()) {
+                if (catalog.statsName.equals(name)) {
+                    return EnumSet.of(catalog);
+                }
+            }
+            return EnumSet.noneOf(ConfigCatalog.class);
+        }
+
+        /**
+         * Resuelve los catalogos que dependen de una tabla.
+         * Una tabla desconocida afecta a todos los catalogos.
+         *
+         * @param table nombre de tabla, con o sin esquema
+         * @return catalogos afectados
+         */
+        static Set<ConfigCatalog> affectedBy(String table) {
+            String normalized = normalizeTable(table);
+            Set<ConfigCatalog> affected = EnumSet.noneOf(ConfigCatalog.class);
+            for (ConfigCatalog catalog : values()) {
+                if (catalog.tables.contains(normalized)) {
+                    affected.add(catalog);
+                }
+            }
+            return affected.isEmpty() ? EnumSet.allOf(ConfigCatalog.class) : affected;
+        }
+    }
+
+    private static String normalizeTable(String table) {
+        String normalized = table == null ? "" : table.trim().toUpperCase(Locale.ROOT);
+        return normalized.substring(normalized.lastIndexOf('.') + 1);
+    }
+
+    private final ProvidersPayService providersPayService;
+    private final GatewayWebServiceConfigService gatewayWebServiceConfigService;
+    private final ProviderHeaderService providerHeaderService;
+    private final GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService;
+    private final ServiceMappingConfigService serviceMappingConfigService;
+    private final ErrorMappingCatalogService errorMappingCatalogService;
+    private final BanksCatalogService banksCatalogService;
+    private final SafetypayConfirmationConfigService safetypayConfigService;
+    private final GatewayConfigChangeLogService changeLogService;
+    private final GatewayConfigRefreshProperties refreshProperties;
+    private final GatewayConfigSnapshotStore snapshotStore;
+    private final int parallelism;
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final Set<ConfigCatalog> pendingCatalogs = EnumSet.noneOf(ConfigCatalog.class);
+    private final Map<ConfigCatalog, CacheStatsRecorder> catalogStats = new EnumMap<>(ConfigCatalog.class);
+    private final CacheStatsRecorder routePlanStats = new CacheStatsRecorder(ROUTE_PLANS);
+    private volatile GatewayConfigSnapshot current = GatewayConfigSnapshot.empty();
+    private long lastChangeId = -1L;
+    private long pendingDueAtMs;
+    private long nextFullRefreshAtMs;
+    private boolean changeLogAvailable = true;
+
+    /**
+     * Crea el servicio con los cargadores de cada catalogo.
+     *
+     * @param providersPayService cargador de proveedores
+     * @param gatewayWebServiceConfigService cargador de web services
+     * @param providerHeaderService cargador de headers
+     * @param gatewayWebServiceDefinitionService cargador de definiciones
+     * @param serviceMappingConfigService cargador de mapeos
+     * @param errorMappingCatalogService cargador de mapeo de errores
+     * @param banksCatalogService cargador de bancos
+     * @param safetypayConfigService configuracion de confirmation SafetyPay
+     * @param changeLogService lector de la bitacora de cambios
+     * @param refreshProperties propiedades de refresco
+     * @param snapshotStore almacen en disco de la ultima configuracion
+     * @param parallelism maximo de catalogos cargados en simultaneo
+     */
+    public GatewayConfigSnapshotService(ProvidersPayService providersPayService,
+            GatewayWebServiceConfigService gatewayWebServiceConfigService,
+            ProviderHeaderService providerHeaderService,
+            GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService,
+            ServiceMappingConfigService serviceMappingConfigService,
+            ErrorMappingCatalogService errorMappingCatalogService,
+            BanksCatalogService banksCatalogService,
+            SafetypayConfirmationConfigService safetypayConfigService,
+            GatewayConfigChangeLogService changeLogService,
+            GatewayConfigRefreshProperties refreshProperties,
+            GatewayConfigSnapshotStore snapshotStore,
+            @Value("${cache.bootstrap.parallelism:4}") int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("cache.bootstrap.parallelism debe ser mayor a 0");
+        }
+        this.providersPayService = providersPayService;
+        this.gatewayWebServiceConfigService = gatewayWebServiceConfigService;
+        this.providerHeaderService = providerHeaderService;
+        this.gatewayWebServiceDefinitionService = gatewayWebServiceDefinitionService;
+        this.serviceMappingConfigService = serviceMappingConfigService;
+        this.errorMappingCatalogService = errorMappingCatalogService;
+        this.banksCatalogService = banksCatalogService;
+        this.safetypayConfigService = safetypayConfigService;
+        this.changeLogService = changeLogService;
+        this.refreshProperties = refreshProperties;
+        this.snapshotStore = snapshotStore;
+        this.parallelism = parallelism;
+        for (ConfigCatalog catalog : ConfigCatalog.values()) {
+            catalogStats.put(catalog, new CacheStatsRecorder(catalog.statsName));
+        }
+    }
+
+    /**
+     * Obtiene la configuracion vigente. Debe leerse una sola vez por request.
+     *
+     * @return configuracion inmutable vigente
+     */
+    public GatewayConfigSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Obtiene el plan adjunto al exchange y lo retira de sus headers.
+     * Si el exchange no trae plan lo busca en la configuracion vigente.
+     *
+     * @param exchange exchange de la ruta Camel
+     * @param wsKey identificador del web service de la ruta
+     * @return plan de llamada del request
+     * @throws IllegalArgumentException cuando no hay configuracion activa
+     */
+    public RoutePlan resolvePlan(Exchange exchange, String wsKey) {
+        RoutePlan attached = exchange.getIn().getHeader(RoutePlan.HEADER, RoutePlan.class);
+        exchange.getIn().removeHeader(RoutePlan.HEADER);
+        if (attached != null) {
+            return attached;
+        }
+        Integer providerCode = exchange.getIn().getHeader("payment_provider_code", Integer.class);
+        RoutePlan plan = current.routePlans().find(providerCode, wsKey);
+        if (plan == null) {
+            throw new IllegalArgumentException("No hay configuracion activa en IN_PASARELA_WS para CODIGO_BILLETERA: "
+                    + providerCode + ", WS_KEY: " + wsKey);
+        }
+        return plan;
+    }
+
+    /**
+     * Publica la ultima configuracion guardada en disco y concilia con BD en
+     * segundo plano. Sin archivo valido carga desde BD antes de atender trafico.
+     */
+    @Override
+    public void warmUp() {
+        long startedAt = System.nanoTime();
+        GatewayConfigSnapshot loaded = snapshotStore.load().orElse(null);
+        if (loaded == null) {
+            refreshCache();
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        GatewayConfigSnapshot restored;
+        synchronized (this) {
+            restored = loaded.withMissesOf(current);
+            versionSequence.set(restored.version());
+            this.current = restored;
+            nextFullRefreshAtMs = Long.MAX_VALUE;
+            for (ConfigCatalog catalog : ConfigCatalog.values()) {
+                recordCatalog(restored, catalog, elapsedNanos);
+            }
+            recordRoutePlans(restored, elapsedNanos);
+        }
+        log.info("Configuracion de pasarela version {} restaurada desde disco. Cargada en BD: {}",
+                restored.version(), restored.loadedAt());
+        new CacheThreadFactory("config-snapshot-reconcile").newThread(this::refreshCache).start();
+    }
+
+    /**
+     * Recarga todos los catalogos y publica una nueva version.
+     * Si algun catalogo falla se conserva la version anterior completa.
+     */
+    @Override
+    public synchronized void refreshCache() {
+        if (refreshProperties.isChangePollEnabled()) {
+            lastChangeId = readLatestChangeId();
+        }
+        long now = System.currentTimeMillis();
+        if (reload(EnumSet.allOf(ConfigCatalog.class))) {
+            pendingCatalogs.clear();
+        } else {
+            pendingCatalogs.addAll(EnumSet.allOf(ConfigCatalog.class));
+            pendingDueAtMs = now + jitterMs();
+        }
+        nextFullRefreshAtMs = now + TimeUnit.MINUTES.toMillis(refreshProperties.getFullRefreshMinutes()) + jitterMs();
+    }
+
+    /**
+     * Recarga de inmediato un catalogo sin esperar la bitacora ni el desfase.
+     *
+     * @param name nombre del catalogo devuelto por {@link #cacheStats()}
+     * @return true cuando la carga se publico
+     * @throws IllegalArgumentException cuando el catalogo no existe
+     */
+    @Override
+    public synchronized boolean refreshCatalog(String name) {
+        Set<ConfigCatalog> catalogs = ConfigCatalog.byStatsName(name);
+        if (catalogs.isEmpty()) {
+            throw new IllegalArgumentException("Catalogo de configuracion no reconocido: " + name);
+        }
+        boolean published = reload(catalogs);
+        if (published) {
+            pendingCatalogs.removeAll(catalogs);
+        }
+        return published;
+    }
+
+    /**
+     * Devuelve las estadisticas de cada catalogo y de los planes de llamada.
+     *
+     * @return estadisticas por catalogo
+     */
+    @Override
+    public List<CacheStats> cacheStats() {
+        List<CacheStats> stats = new ArrayList<>(catalogStats.size() + 1);
+        for (CacheStatsRecorder recorder : catalogStats.values()) {
+            stats.add(recorder.stats(0L));
+        }
+        stats.add(routePlanStats.stats(current.routePlans().misses()));
+        return stats;
+    }
+
+    /**
+     * Consulta la bitacora de cambios y recarga los catalogos afectados o
+     * pendientes una vez cumplido el desfase aleatorio. Ejecuta la recarga
+     * completa, incluida la configuracion SafetyPay, cuando vence.
+     */
+    @Scheduled(fixedDelayString = "${gateway.config.refresh.poll-interval-ms:5000}",
+            initialDelayString = "${gateway.config.refresh.poll-interval-ms:5000}")
+    public synchronized void pollChanges() {
+        long now = System.currentTimeMillis();
+        if (now >= nextFullRefreshAtMs) {
+            refreshCache();
+            safetypayConfigService.refreshCache();
+            return;
+        }
+        if (refreshProperties.isChangePollEnabled()) {
+            collectChanges(now);
+        }
+        if (pendingCatalogs.isEmpty() || now < pendingDueAtMs) {
+            return;
+        }
+        Set<ConfigCatalog> catalogs = EnumSet.copyOf(pendingCatalogs);
+        if (reload(catalogs)) {
+            pendingCatalogs.removeAll(catalogs);
+        } else {
+            pendingDueAtMs = now + jitterMs();
+        }
+    }
+
+    private void collectChanges(long now) {
+        Set<ConfigCatalog> changed = EnumSet.noneOf(ConfigCatalog.class);
+        boolean safetypayChanged = false;
+        try {
+            if (lastChangeId < 0) {
+                lastChangeId = changeLogService.findLatestChangeId();
+                changed.addAll(EnumSet.allOf(ConfigCatalog.class));
+            } else {
+                for (ConfigChange change : changeLogService.findChangesSince(lastChangeId)) {
+                    if (SAFETYPAY_CONFIG_TABLE.equals(normalizeTable(change.table()))) {
+                        safetypayChanged = true;
+                    } else {
+                        changed.addAll(ConfigCatalog.affectedBy(change.table()));
+                    }
+                    lastChangeId = Math.max(lastChangeId, change.id());
+                }
+            }
+            markChangeLogAvailable(true, null);
+        } catch (Exception e) {
+            markChangeLogAvailable(false, e);
+            return;
+        }
+        if (safetypayChanged) {
+            log.info("Cambios de configuracion SafetyPay detectados. Ultimo cambio: {}", lastChangeId);
+            safetypayConfigService.refreshCache();
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        if (pendingCatalogs.isEmpty()) {
+            pendingDueAtMs = now + jitterMs();
+        }
+        pendingCatalogs.addAll(changed);
+        log.info("Cambios de configuracion detectados. Catalogos: {} Ultimo cambio: {}", changed, lastChangeId);
+    }
+
+    private long readLatestChangeId() {
+        try {
+            long latest = changeLogService.findLatestChangeId();
+            markChangeLogAvailable(true, null);
+            return latest;
+        } catch (Exception e) {
+            markChangeLogAvailable(false, e);
+            return -1L;
+        }
+    }
+
+    private void markChangeLogAvailable(boolean available, Exception error) {
+        if (available && !changeLogAvailable) {
+            log.info("Bitacora de cambios IN_PASARELA_CAMBIOS disponible nuevamente");
+        } else if (!available && changeLogAvailable) {
+            log.warn("No fue posible consultar bitacora de cambios IN_PASARELA_CAMBIOS. "
+                    + "Se usa solo la recarga completa: {}", error.getMessage());
+        }
+        changeLogAvailable = available;
+    }
+
+    private long jitterMs() {
+        long jitter = refreshProperties.getJitterMs();
+        return jitter == 0 ? 0L : ThreadLocalRandom.current().nextLong(jitter + 1);
+    }
+
+    private boolean reload(Set<ConfigCatalog> catalogs) {
+        long startedAt = System.nanoTime();
+        GatewayConfigSnapshot previous = current;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, catalogs.size()),
+                new CacheThreadFactory("config-snapshot"));
+        List<ConfigCatalog> failed = new ArrayList<>();
+        Map<ConfigCatalog, Long> loadNanos = new ConcurrentHashMap<>();
+        try {
+            Future<ProviderCatalog> providers = submit(executor, catalogs, ConfigCatalog.PROVIDERS,
+                    providersPayService::loadCatalog, loadNanos);
+            Future<WebServiceCatalog> webServices = submit(executor, catalogs, ConfigCatalog.WEB_SERVICES,
+                    gatewayWebServiceConfigService::loadCatalog, loadNanos);
+            Future<HeaderCatalog> headers = submit(executor, catalogs, ConfigCatalog.HEADERS,
+                    providerHeaderService::loadCatalog, loadNanos);
+            Future<DefinitionCatalog> definitions = submit(executor, catalogs, ConfigCatalog.DEFINITIONS,
+                    gatewayWebServiceDefinitionService::loadCatalog, loadNanos);
+            Future<MappingCatalog> mappings = submit(executor, catalogs, ConfigCatalog.MAPPINGS,
+                    serviceMappingConfigService::loadCatalog, loadNanos);
+            Future<ErrorCatalog> errors = submit(executor, catalogs, ConfigCatalog.ERRORS,
+                    errorMappingCatalogService::loadCatalog, loadNanos);
+            Future<BankCatalog> banks = submit(executor, catalogs, ConfigCatalog.BANKS,
+                    banksCatalogService::loadCatalog, loadNanos);
+
+            ProviderCatalog loadedProviders = await(providers, ConfigCatalog.PROVIDERS, failed);
+            WebServiceCatalog loadedWebServices = await(webServices, ConfigCatalog.WEB_SERVICES, failed);
+            HeaderCatalog loadedHeaders = await(headers, ConfigCatalog.HEADERS, failed);
+            DefinitionCatalog loadedDefinitions = await(definitions, ConfigCatalog.DEFINITIONS, failed);
+            MappingCatalog loadedMappings = await(mappings, ConfigCatalog.MAPPINGS, failed);
+            ErrorCatalog loadedErrors = await(errors, ConfigCatalog.ERRORS, failed);
+            BankCatalog loadedBanks = await(banks, ConfigCatalog.BANKS, failed);
+
+            boolean complete = failed.isEmpty();
+            if (!complete && previous.version() > 0) {
+                log.error("Carga incompleta de configuracion. Fallaron: {} Se conserva version {}",
+                        failed, previous.version());
+                return false;
+            }
+
+            long buildStartedAt = System.nanoTime();
+            GatewayConfigSnapshot loaded = new GatewayConfigSnapshot(
+                    versionSequence.incrementAndGet(),
+                    Instant.now(),
+                    loadedProviders == null ? previous.providers() : loadedProviders,
+                    loadedWebServices == null ? previous.webServices() : loadedWebServices,
+                    loadedHeaders == null ? previous.headers() : loadedHeaders,
+                    loadedDefinitions == null ? previous.definitions() : loadedDefinitions,
+                    loadedMappings == null ? previous.mappings() : loadedMappings,
+                    loadedErrors == null ? previous.errors() : loadedErrors,
+                    loadedBanks == null ? previous.banks() : loadedBanks);
+            GatewayConfigSnapshot next = loaded.withMissesOf(previous);
+            long buildNanos = System.nanoTime() - buildStartedAt;
+            this.current = next;
+            loadNanos.forEach((catalog, nanos) -> recordCatalog(next, catalog, nanos));
+            recordRoutePlans(next, buildNanos);
+            if (complete) {
+                snapshotStore.save(next);
+            }
+            log.info("Configuracion de pasarela publicada. Version: {} Catalogos: {} Completa: {} Tiempo: {} ms",
+                    next.version(), catalogs, complete,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+            return complete;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> Future<T> submit(ExecutorService executor, Set<ConfigCatalog> catalogs,
+            ConfigCatalog catalog, Callable<T> loader, Map<ConfigCatalog, Long> loadNanos) {
+        if (!catalogs.contains(catalog)) {
+            return null;
+        }
+        return executor.submit(() -> {
+            long startedAt = System.nanoTime();
+            T loaded = loader.call();
+            loadNanos.put(catalog, System.nanoTime() - startedAt);
+            return loaded;
+        });
+    }
+
+    private <T> T await(Future<T> future, ConfigCatalog catalog, Collection<ConfigCatalog> failed) {
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Carga de catalogo {} interrumpida", catalog);
+            catalogStats.get(catalog).recordFailure();
+            failed.add(catalog);
+            return null;
+        } catch (ExecutionException e) {
+            log.error("No fue posible cargar catalogo {}", catalog, e.getCause());
+            catalogStats.get(catalog).recordFailure();
+            failed.add(catalog);
+            return null;
+        }
+    }
+
+    private void recordCatalog(GatewayConfigSnapshot snapshot, ConfigCatalog catalog, long elapsedNanos) {
+        Object loaded = switch (catalog) {
+            case PROVIDERS -> snapshot.providers();
+            case WEB_SERVICES -> snapshot.webServices();
+            case HEADERS -> snapshot.headers();
+            case DEFINITIONS -> snapshot.definitions();
+            case MAPPINGS -> snapshot.mappings();
+            case ERRORS -> snapshot.errors();
+            case BANKS -> snapshot.banks();
+        };
+        int entries = switch (catalog) {
+            case PROVIDERS -> snapshot.providers().size();
+            case WEB_SERVICES -> snapshot.webServices().size();
+            case HEADERS -> snapshot.headers().size();
+            case DEFINITIONS -> snapshot.definitions().size();
+            case MAPPINGS -> snapshot.mappings().size();
+            case ERRORS -> snapshot.errors().size();
+            case BANKS -> snapshot.banks().bankCount();
+        };
+        catalogStats.get(catalog).recordRefresh(snapshot.loadedAt(), elapsedNanos, entries,
+                CacheStatsRecorder.approxBytes(loaded));
+    }
+
+    private void recordRoutePlans(GatewayConfigSnapshot snapshot, long elapsedNanos) {
+        RoutePlanCatalog routePlans = snapshot.routePlans();
+        routePlanStats.recordRefresh(snapshot.loadedAt(), elapsedNanos, routePlans.size(),
+                CacheStatsRecorder.approxBytes(routePlans));
+    }
+}
@@ -0,0 +1,189 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Persiste en disco local la ultima configuracion de pasarela cargada completa.
+ * Permite atender trafico al arranque aunque la BD no responda.
+ * <p>
+ * El archivo incluye los valores de headers de proveedor, algunos secretos,
+ * porque sin ellos la configuracion restaurada no puede llamar a proveedores.
+ * Por eso no tiene ruta por defecto y, en sistemas POSIX, el archivo se crea
+ * solo para el dueno ({@code rw-------}) y los directorios nuevos con
+ * {@code rwx------}.
+ */
+@Log4j2
+@Component
+public class GatewayConfigSnapshotStore {
+
+    private static final int MAGIC = 0x47435346;
+    private static final int FORMAT_VERSION = 4;
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=20;com.femsa.gpf.pagosdigitales.**;java.lang.*;java.math.*;java.time.*;java.util.*;!*");
+
+    private static final String FILE_PERMISSIONS = "rw-------";
+    private static final String DIRECTORY_PERMISSIONS = "rwx------";
+
+    private final boolean enabled;
+    private final Path path;
+
+    /**
+     * Crea el almacen con su configuracion. Sin ruta la persistencia queda
+     * deshabilitada.
+     *
+     * @param enabled habilita la persistencia en disco
+     * @param path ruta del archivo de configuracion en un volumen persistente
+     */
+    public GatewayConfigSnapshotStore(
+            @Value("${gateway.config.snapshot-file.enabled:true}") boolean enabled,
+            @Value("${gateway.config.snapshot-file.path:}") String path) {
+        boolean hasPath = path != null && !path.isBlank();
+        if (enabled && !hasPath) {
+            log.info("gateway.config.snapshot-file.path no configurado. Configuracion en disco deshabilitada.");
+        }
+        this.enabled = enabled && hasPath;
+        this.path = this.enabled ? Path.of(path.trim()) : null;
+    }
+
+    /**
+     * Escribe la configuracion en un archivo temporal y lo reemplaza de forma atomica.
+     * Un error de escritura se registra y no afecta la configuracion publicada.
+     *
+     * @param snapshot configuracion cargada completa
+     */
+    public void save(GatewayConfigSnapshot snapshot) {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        Path temp = null;
+        try {
+            Path directory = path.toAbsolutePath().getParent();
+            boolean posix = directory.getFileSystem().supportedFileAttributeViews().contains("posix");
+            Files.createDirectories(directory, permissions(posix, DIRECTORY_PERMISSIONS));
+            temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp",
+                    permissions(posix, FILE_PERMISSIONS));
+            try (OutputStream file = Files.newOutputStream(temp);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                ObjectOutputStream objects = new ObjectOutputStream(out);
+                objects.writeObject(snapshot);
+                objects.flush();
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temp = null;
+            log.info("Configuracion de pasarela version {} guardada en {} ({} bytes) en {} ms",
+                    snapshot.version(), path, Files.size(path),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (Exception e) {
+            log.warn("No fue posible guardar configuracion de pasarela en {}: {}", path, e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (Exception ignored) {
+                    // El temporal huerfano se reemplaza en la siguiente escritura.
+                }
+            }
+        }
+    }
+
+    /**
+     * Lee la ultima configuracion guardada mapeando el archivo en memoria.
+     *
+     * @return configuracion guardada o vacio si no existe o es invalida
+     */
+    public Optional<GatewayConfigSnapshot> load() {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        long startedAt = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+                log.warn("Archivo de configuracion {} no reconocido. Se ignora.", path);
+                return Optional.empty();
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                log.warn("Archivo de configuracion {} con formato {} no soportado. Se ignora.", path, formatVersion);
+                return Optional.empty();
+            }
+            try (ObjectInputStream objects = new ObjectInputStream(new ByteBufferInputStream(buffer))) {
+                objects.setObjectInputFilter(FILTER);
+                GatewayConfigSnapshot snapshot = (GatewayConfigSnapshot) objects.readObject();
+                log.info("Configuracion de pasarela version {} cargada desde {} en {} ms",
+                        snapshot.version(), path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                return Optional.of(snapshot);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible leer configuracion de pasarela desde {}: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static FileAttribute<?>[] permissions(boolean posix, String permissions) {
+        if (!posix) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[] {
+            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))
+        };
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
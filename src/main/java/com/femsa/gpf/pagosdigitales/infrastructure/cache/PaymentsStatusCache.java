@@ -0,0 +1,309 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentAmount;
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentOperation;
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentOperationActivity;
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentsRequest;
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentsResponse;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalCallTimer;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Cache en memoria de respuestas normalizadas de /payments por proveedor y
+ * operation_id. Las operaciones en estado final se guardan por mas tiempo que
+ * las pendientes y las consultas identicas en curso comparten una sola llamada.
+ * La cache guarda su propia copia de las operaciones y entrega otra copia en
+ * cada consulta, de modo que ningun request comparte objetos mutables.
+ */
+@Log4j2
+@Component
+public class PaymentsStatusCache {
+
+    private final boolean enabled;
+    private final long terminalTtlMillis;
+    private final long pendingTtlMillis;
+    private final int maxEntries;
+    private final Set<String> terminalStatuses;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<Key, ExternalCallTimer.TimedExecution<Object>> flights;
+
+    /**
+     * Crea la cache con su configuracion y el timeout de proveedor, que acota
+     * la espera de las consultas agrupadas con una llamada en curso.
+     *
+     * @param enabled habilita la cache
+     * @param terminalTtlSeconds segundos que se guarda una respuesta en estado final
+     * @param pendingTtlSeconds segundos que se guarda una respuesta pendiente; 0 no la guarda
+     * @param maxEntries maximo de operaciones en memoria
+     * @param terminalStatuses status_code finales separados por coma
+     * @param httpProperties timeout de llamadas a proveedor
+     */
+    public PaymentsStatusCache(
+            @Value("${payments.status-cache.enabled:true}") boolean enabled,
+            @Value("${payments.status-cache.terminal-ttl-seconds:86400}") long terminalTtlSeconds,
+            @Value("${payments.status-cache.pending-ttl-seconds:5}") long pendingTtlSeconds,
+            @Value("${payments.status-cache.max-entries:50000}") int maxEntries,
+            @Value("${payments.status-cache.terminal-statuses:102,103,104}") String terminalStatuses,
+            ExternalServiceHttpProperties httpProperties) {
+        if (terminalTtlSeconds <= 0) {
+            throw new IllegalArgumentException("payments.status-cache.terminal-ttl-seconds debe ser mayor a 0");
+        }
+        if (pendingTtlSeconds < 0) {
+            throw new IllegalArgumentException("payments.status-cache.pending-ttl-seconds no puede ser negativo");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("payments.status-cache.max-entries debe ser mayor a 0");
+        }
+        this.enabled = enabled;
+        this.flights = new SingleFlight<>("payments", httpProperties.getTimeout());
+        this.terminalTtlMillis = Duration.ofSeconds(terminalTtlSeconds).toMillis();
+        this.pendingTtlMillis = Duration.ofSeconds(pendingTtlSeconds).toMillis();
+        this.maxEntries = maxEntries;
+        this.terminalStatuses = terminalStatuses == null
+                ? Set.of()
+                : Arrays.stream(terminalStatuses.split(","))
+                        .map(String::trim)
+                        .filter(status -> !status.isEmpty())
+                        .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Busca una respuesta vigente y la adapta a los datos de tienda del request.
+     *
+     * @param providerCode codigo de billetera
+     * @param operationId identificador de operacion
+     * @param req request actual
+     * @return respuesta guardada o vacio si no existe o vencio
+     */
+    public Optional<PaymentsResponse> find(Integer providerCode, String operationId, PaymentsRequest req) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Key key = new Key(providerCode, operationId);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAtMs() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(copyFor(entry.response(), req));
+    }
+
+    /**
+     * Llama al proveedor compartiendo la llamada con consultas identicas en curso,
+     * aun con la cache deshabilitada.
+     *
+     * @param providerCode codigo de billetera
+     * @param operationId identificador de operacion
+     * @param loader llamada al proveedor
+     * @return respuesta cruda medida e indicador de llamada al proveedor en este hilo
+     */
+    public Lookup load(Integer providerCode, String operationId, ExternalCallTimer.CheckedSupplier<Object> loader) {
+        SingleFlight.Flight<ExternalCallTimer.TimedExecution<Object>> flight = flights.execute(
+                new Key(providerCode, operationId), () -> ExternalCallTimer.execute(loader));
+        if (flight.exception() != null) {
+            return new Lookup(new ExternalCallTimer.TimedExecution<>(null, null, flight.exception()), false);
+        }
+        if (flight.leader()) {
+            return new Lookup(flight.value(), true);
+        }
+        ExternalCallTimer.TimedExecution<Object> execution = flight.value();
+        return new Lookup(new ExternalCallTimer.TimedExecution<>(execution.value(), null, execution.exception()),
+                false);
+    }
+
+    /**
+     * Devuelve los contadores de llamadas agrupadas al proveedor.
+     *
+     * @return contadores de payments
+     */
+    public SingleFlight.Stats coalescingStats() {
+        return flights.stats();
+    }
+
+    /**
+     * Guarda una copia de la respuesta normalizada con el TTL de su estado.
+     *
+     * @param providerCode codigo de billetera
+     * @param operationId identificador de operacion
+     * @param response respuesta normalizada
+     */
+    public void put(Integer providerCode, String operationId, PaymentsResponse response) {
+        if (!enabled || response == null || operationId == null) {
+            return;
+        }
+        long ttl = isTerminal(response) ? terminalTtlMillis : pendingTtlMillis;
+        if (ttl == 0) {
+            return;
+        }
+        Key key = new Key(providerCode, operationId);
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            purgeExpired();
+            if (entries.size() >= maxEntries) {
+                log.debug("Cache de pagos llena ({} entradas); no se guarda {}", entries.size(), operationId);
+                return;
+            }
+        }
+        PaymentsResponse stored = new PaymentsResponse();
+        stored.setRequest_id(response.getRequest_id());
+        stored.setResponse_datetime(response.getResponse_datetime());
+        stored.setPayment_operations(copyOperations(response.getPayment_operations()));
+        entries.put(key, new Entry(stored, System.currentTimeMillis() + ttl));
+    }
+
+    /**
+     * Indica si todas las operaciones de la respuesta tienen una actividad en
+     * estado final.
+     *
+     * @param response respuesta normalizada
+     * @return true cuando la respuesta ya no cambiara
+     */
+    public boolean isTerminal(PaymentsResponse response) {
+        List<PaymentOperation> operations = response.getPayment_operations();
+        if (operations == null || operations.isEmpty()) {
+            return false;
+        }
+        return operations.stream().allMatch(operation -> operation != null
+                && operation.getOperation_activities() != null
+                && operation.getOperation_activities().stream()
+                        .anyMatch(activity -> activity != null
+                                && activity.getStatus_code() != null
+                                && terminalStatuses.contains(activity.getStatus_code().trim())));
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(entry -> entry.getValue().expiresAtMs() <= now);
+    }
+
+    private static PaymentsResponse copyFor(PaymentsResponse cached, PaymentsRequest req) {
+        PaymentsResponse resp = new PaymentsResponse();
+        resp.setChain(req.getChain());
+        resp.setStore(req.getStore());
+        resp.setPos(req.getPos());
+        resp.setChannel_POS(req.getChannel_POS());
+        resp.setPayment_provider_code(req.getPayment_provider_code());
+        resp.setRequest_id(cached.getRequest_id());
+        resp.setResponse_datetime(cached.getResponse_datetime());
+        resp.setPayment_operations(copyOperations(cached.getPayment_operations()));
+        return resp;
+    }
+
+    private static List<PaymentOperation> copyOperations(List<PaymentOperation> operations) {
+        if (operations == null) {
+            return null;
+        }
+        List<PaymentOperation> copy = new ArrayList<>(operations.size());
+        for (PaymentOperation operation : operations) {
+            copy.add(copyOperation(operation));
+        }
+        return copy;
+    }
+
+    private static PaymentOperation copyOperation(PaymentOperation operation) {
+        if (operation == null) {
+            return null;
+        }
+        PaymentOperation copy = new PaymentOperation();
+        copy.setRefunds_related(copyJsonList(operation.getRefunds_related()));
+        copy.setCreation_datetime(operation.getCreation_datetime());
+        copy.setOperation_id(operation.getOperation_id());
+        copy.setMerchant_sales_id(operation.getMerchant_sales_id());
+        copy.setMerchant_order_id(operation.getMerchant_order_id());
+        copy.setPayment_amount(copyAmount(operation.getPayment_amount()));
+        copy.setShopper_amount(copyAmount(operation.getShopper_amount()));
+        copy.setShopper_email(operation.getShopper_email());
+        copy.setAdditional_info(copyJson(operation.getAdditional_info()));
+        copy.setPayment_reference_number(operation.getPayment_reference_number());
+        if (operation.getOperation_activities() != null) {
+            List<PaymentOperationActivity> activities = new ArrayList<>(operation.getOperation_activities().size());
+            for (PaymentOperationActivity activity : operation.getOperation_activities()) {
+                activities.add(copyActivity(activity));
+            }
+            copy.setOperation_activities(activities);
+        }
+        return copy;
+    }
+
+    private static PaymentAmount copyAmount(PaymentAmount amount) {
+        if (amount == null) {
+            return null;
+        }
+        PaymentAmount copy = new PaymentAmount();
+        copy.setValue(amount.getValue());
+        copy.setCurrency_code(amount.getCurrency_code());
+        return copy;
+    }
+
+    private static PaymentOperationActivity copyActivity(PaymentOperationActivity activity) {
+        if (activity == null) {
+            return null;
+        }
+        PaymentOperationActivity copy = new PaymentOperationActivity();
+        copy.setCreation_datetime(activity.getCreation_datetime());
+        copy.setStatus_code(activity.getStatus_code());
+        copy.setStatus_description(activity.getStatus_description());
+        return copy;
+    }
+
+    private static List<Object> copyJsonList(List<Object> values) {
+        if (values == null) {
+            return null;
+        }
+        List<Object> copy = new ArrayList<>(values.size());
+        for (Object value : values) {
+            copy.add(copyJson(value));
+        }
+        return copy;
+    }
+
+    /**
+     * Copia los nodos libres que Jackson deja como mapas y listas; los valores
+     * escalares son inmutables.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object copyJson(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            map.forEach((k, v) -> copy.put(k, copyJson(v)));
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            return copyJsonList((List<Object>) list);
+        }
+        return value;
+    }
+
+    /**
+     * Resultado de una llamada compartida.
+     *
+     * @param execution respuesta del proveedor, con tiempo y excepcion si la llamada fue propia
+     * @param providerCalled true cuando este hilo llamo al proveedor
+     */
+    public record Lookup(ExternalCallTimer.TimedExecution<Object> execution, boolean providerCalled) {
+    }
+
+    private record Key(Integer providerCode, String operationId) {
+    }
+
+    private record Entry(PaymentsResponse response, long expiresAtMs) {
+    }
+}
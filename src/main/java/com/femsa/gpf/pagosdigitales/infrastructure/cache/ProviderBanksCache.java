@@ -0,0 +1,272 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SharedBanksCacheService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SharedBanksCacheService.SharedEntry;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalCallTimer;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Cache en memoria de la respuesta cruda de getbanks por proveedor y pais.
+ * Sirve la entrada vigente sin llamar al proveedor, sirve la entrada vencida
+ * mientras la refresca en segundo plano y agrupa los fallos concurrentes de
+ * una misma llave en una sola llamada. Con la cache compartida habilitada, un
+ * fallo local consulta primero la copia en BD y solo el nodo con el lease
+ * llama al proveedor.
+ */
+@Log4j2
+@Component
+public class ProviderBanksCache {
+
+    private final SharedBanksCacheService sharedCache;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final int maxEntries;
+    private final ExecutorService refreshExecutor;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<Key, Lookup> flights;
+
+    /**
+     * Crea la cache con su configuracion y el timeout de proveedor, que acota
+     * la espera de las consultas agrupadas con una llamada en curso.
+     *
+     * @param sharedCache cache compartida entre nodos
+     * @param enabled habilita la cache
+     * @param ttlSeconds segundos en que una respuesta se sirve sin refrescar
+     * @param maxStaleSeconds segundos maximos en que una respuesta vencida se sirve mientras se refresca
+     * @param maxEntries maximo de llaves proveedor/pais en memoria; al llenarse se descartan las que superan
+     *        el maximo vencido y luego las cargadas hace mas tiempo
+     * @param refreshThreads hilos para refrescos en segundo plano
+     * @param httpProperties timeout de llamadas a proveedor
+     */
+    public ProviderBanksCache(SharedBanksCacheService sharedCache,
+            @Value("${banks.cache.enabled:true}") boolean enabled,
+            @Value("${banks.cache.ttl-seconds:900}") long ttlSeconds,
+            @Value("${banks.cache.max-stale-seconds:86400}") long maxStaleSeconds,
+            @Value("${banks.cache.max-entries:1000}") int maxEntries,
+            @Value("${banks.cache.refresh-threads:2}") int refreshThreads,
+            ExternalServiceHttpProperties httpProperties) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("banks.cache.ttl-seconds debe ser mayor a 0");
+        }
+        if (maxStaleSeconds < ttlSeconds) {
+            throw new IllegalArgumentException("banks.cache.max-stale-seconds no puede ser menor a ttl-seconds");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("banks.cache.max-entries debe ser mayor a 0");
+        }
+        if (refreshThreads <= 0) {
+            throw new IllegalArgumentException("banks.cache.refresh-threads debe ser mayor a 0");
+        }
+        this.sharedCache = sharedCache;
+        this.enabled = enabled;
+        this.flights = new SingleFlight<>("banks", httpProperties.getTimeout());
+        this.ttlMillis = Duration.ofSeconds(ttlSeconds).toMillis();
+        this.maxStaleMillis = Duration.ofSeconds(maxStaleSeconds).toMillis();
+        this.maxEntries = maxEntries;
+        this.refreshExecutor = enabled
+                ? Executors.newFixedThreadPool(refreshThreads, new CacheThreadFactory("banks-cache-refresh"))
+                : null;
+    }
+
+    /**
+     * Obtiene la respuesta de getbanks desde cache o llamando al proveedor.
+     * Solo se guardan respuestas aceptadas por {@code cacheable}.
+     *
+     * @param providerCode codigo de billetera
+     * @param countryCode codigo de pais del request
+     * @param loader llamada al proveedor
+     * @param cacheable indica si una respuesta del proveedor puede guardarse
+     * @return resultado medido e indicador de llamada al proveedor en este hilo
+     */
+    public Lookup get(Integer providerCode, String countryCode, ExternalCallTimer.CheckedSupplier<Object> loader,
+            Predicate<Object> cacheable) {
+        Key key = new Key(providerCode, normalizeCountry(countryCode));
+        if (!enabled) {
+            return share(flights.execute(key, () -> new Lookup(ExternalCallTimer.execute(loader), true)));
+        }
+        Entry entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry != null && now - entry.loadedAtMs() < ttlMillis) {
+            return cached(entry.value());
+        }
+        if (entry != null && now - entry.loadedAtMs() < maxStaleMillis) {
+            refreshInBackground(key, loader, cacheable);
+            return cached(entry.value());
+        }
+        return share(flights.execute(key, () -> {
+            Loaded loaded = load(key, loader);
+            complete(key, loaded, cacheable);
+            return loaded.lookup();
+        }));
+    }
+
+    /**
+     * Devuelve los contadores de llamadas agrupadas al proveedor.
+     *
+     * @return contadores de getbanks
+     */
+    public SingleFlight.Stats coalescingStats() {
+        return flights.stats();
+    }
+
+    /**
+     * Descarta todas las respuestas guardadas.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Detiene los refrescos en segundo plano.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    private void refreshInBackground(Key key, ExternalCallTimer.CheckedSupplier<Object> loader,
+            Predicate<Object> cacheable) {
+        flights.executeAsync(key, refreshExecutor, () -> {
+            Loaded loaded = load(key, loader);
+            complete(key, loaded, cacheable);
+            ExternalCallTimer.TimedExecution<Object> execution = loaded.lookup().execution();
+            if (execution.exception() != null) {
+                log.warn("No fue posible refrescar bancos de proveedor {} pais {}. Se conserva la anterior: {}",
+                        key.providerCode(), key.countryCode(), execution.exception().getMessage());
+            } else if (loaded.lookup().providerCalled()) {
+                log.info("Bancos de proveedor {} pais {} refrescados en segundo plano en {} ms",
+                        key.providerCode(), key.countryCode(), execution.elapsedMs());
+            }
+            return loaded.lookup();
+        });
+    }
+
+    /**
+     * Obtiene la respuesta de la cache compartida o del proveedor. Sin lease se
+     * usa la copia compartida mientras no supere el maximo vencido; sin copia se
+     * llama al proveedor para no bloquear el request.
+     */
+    private Loaded load(Key key, ExternalCallTimer.CheckedSupplier<Object> loader) {
+        if (!sharedCache.isEnabled()) {
+            return new Loaded(new Lookup(ExternalCallTimer.execute(loader), true), false);
+        }
+        Optional<SharedEntry> shared = sharedCache.find(key.providerCode(), key.countryCode());
+        if (shared.isPresent() && shared.get().ageMillis() < ttlMillis) {
+            return fromShared(key, shared.get());
+        }
+        boolean leased = sharedCache.tryAcquireLease(key.providerCode(), key.countryCode());
+        if (!leased && shared.isPresent() && shared.get().ageMillis() < maxStaleMillis) {
+            return fromShared(key, shared.get());
+        }
+        return new Loaded(new Lookup(ExternalCallTimer.execute(loader), true), leased);
+    }
+
+    private Loaded fromShared(Key key, SharedEntry shared) {
+        store(key, shared.payload(), System.currentTimeMillis() - shared.ageMillis());
+        return new Loaded(cached(shared.payload()), false);
+    }
+
+    private void complete(Key key, Loaded loaded, Predicate<Object> cacheable) {
+        ExternalCallTimer.TimedExecution<Object> execution = loaded.lookup().execution();
+        Object value = execution.value();
+        boolean accepted = execution.exception() == null && loaded.lookup().providerCalled()
+                && value != null && cacheable.test(value);
+        if (loaded.leased()) {
+            if (accepted && value instanceof String payload) {
+                sharedCache.save(key.providerCode(), key.countryCode(), payload);
+            } else {
+                sharedCache.releaseLease(key.providerCode(), key.countryCode());
+            }
+        }
+        if (accepted) {
+            store(key, value, System.currentTimeMillis());
+        }
+    }
+
+    private void store(Key key, Object value, long loadedAtMs) {
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evictForNewKey();
+        }
+        entries.put(key, new Entry(value, loadedAtMs));
+    }
+
+    /**
+     * Libera espacio para una llave nueva: primero descarta las entradas que ya
+     * no se pueden servir y, si sigue llena, las cargadas hace mas tiempo.
+     */
+    private void evictForNewKey() {
+        long now = System.currentTimeMillis();
+        entries.entrySet().removeIf(entry -> now - entry.getValue().loadedAtMs() >= maxStaleMillis);
+        while (entries.size() >= maxEntries) {
+            entries.entrySet().stream()
+                    .min(Comparator.comparingLong(entry -> entry.getValue().loadedAtMs()))
+                    .ifPresent(oldest -> {
+                        entries.remove(oldest.getKey(), oldest.getValue());
+                        log.debug("Cache de bancos llena; se descarta proveedor {} pais {}",
+                                oldest.getKey().providerCode(), oldest.getKey().countryCode());
+                    });
+        }
+    }
+
+    /**
+     * Adapta el resultado agrupado: quien espero recibe la respuesta sin el
+     * tiempo de la llamada, que ya registra el hilo que la ejecuto.
+     */
+    private static Lookup share(SingleFlight.Flight<Lookup> flight) {
+        if (flight.exception() != null) {
+            return new Lookup(new ExternalCallTimer.TimedExecution<>(null, null, flight.exception()), false);
+        }
+        if (flight.leader()) {
+            return flight.value();
+        }
+        ExternalCallTimer.TimedExecution<Object> execution = flight.value().execution();
+        return new Lookup(new ExternalCallTimer.TimedExecution<>(execution.value(), null, execution.exception()),
+                false);
+    }
+
+    private static Lookup cached(Object value) {
+        return new Lookup(new ExternalCallTimer.TimedExecution<>(value, null, null), false);
+    }
+
+    private static String normalizeCountry(String countryCode) {
+        return countryCode == null ? "" : countryCode.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Resultado de una consulta a la cache.
+     *
+     * @param execution respuesta del proveedor o de cache, con tiempo y excepcion si la llamada fue propia
+     * @param providerCalled true cuando este hilo llamo al proveedor
+     */
+    public record Lookup(ExternalCallTimer.TimedExecution<Object> execution, boolean providerCalled) {
+    }
+
+    private record Key(Integer providerCode, String countryCode) {
+    }
+
+    private record Entry(Object value, long loadedAtMs) {
+    }
+
+    private record Loaded(Lookup lookup, boolean leased) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.io.Serializable;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.WsDefinition;
+
+/**
+ * Plantilla inmutable de query string compilada desde las definiciones QUERY.
+ * Las partes estaticas se codifican al compilar; los valores de sistema se
+ * resuelven y codifican al expandir.
+ */
+public final class QueryTemplate implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final QueryTemplate EMPTY = new QueryTemplate(List.of());
+
+    private final List<Segment> segments;
+
+    private QueryTemplate(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Compila las definiciones QUERY en orden de definicion.
+     *
+     * @param definitions definiciones QUERY
+     * @return plantilla compilada
+     */
+    public static QueryTemplate compile(List<WsDefinition> definitions) {
+        if (definitions == null || definitions.isEmpty()) {
+            return EMPTY;
+        }
+        List<Segment> compiled = new ArrayList<>(definitions.size());
+        for (WsDefinition definition : definitions) {
+            String encodedKey = encode(definition.key());
+            if (definition.systemValue() != null && !definition.systemValue().isBlank()) {
+                compiled.add(new Segment(encodedKey + "=", definition));
+            } else if (definition.defaultValue() != null) {
+                compiled.add(new Segment(encodedKey + "=" + encode(definition.defaultValue().toString()), null));
+            }
+        }
+        return compiled.isEmpty() ? EMPTY : new QueryTemplate(List.copyOf(compiled));
+    }
+
+    /**
+     * Indica si la plantilla no tiene parametros.
+     *
+     * @return true cuando no hay parametros compilados
+     */
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Agrega los parametros a la url, usando "?" o "&amp;" segun la url ya tenga query.
+     *
+     * @param url url base a completar
+     * @param runtimeValues valores del request para placeholders de sistema
+     * @return numero de parametros agregados
+     */
+    public int appendTo(StringBuilder url, Map<String, Object> runtimeValues) {
+        boolean hasQuery = url.indexOf("?") >= 0;
+        int appended = 0;
+        for (Segment segment : segments) {
+            String value = null;
+            if (segment.slot() != null) {
+                Object resolved = segment.slot().resolveValue(runtimeValues);
+                if (resolved == null) {
+                    continue;
+                }
+                value = encode(resolved.toString());
+            }
+            url.append(appended == 0 && !hasQuery ? '?' : '&').append(segment.prefix());
+            if (value != null) {
+                url.append(value);
+            }
+            appended++;
+        }
+        return appended;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * Parte de la plantilla: prefijo codificado y, si aplica, definicion a resolver.
+     */
+    private record Segment(String prefix, WsDefinition slot) implements Serializable {
+    }
+}
@@ -0,0 +1,42 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.util.List;
+
+/**
+ * Cache en memoria cargada desde BD que se precarga al arranque y se refresca
+ * periodicamente.
+ */
+public interface RefreshableCache {
+
+    /**
+     * Recarga la cache desde BD conservando la anterior si la carga falla.
+     */
+    void refreshCache();
+
+    /**
+     * Realiza la carga inicial al arranque. Por defecto recarga desde BD.
+     */
+    default void warmUp() {
+        refreshCache();
+    }
+
+    /**
+     * Devuelve las estadisticas de cada catalogo de la cache.
+     *
+     * @return estadisticas por catalogo
+     */
+    default List<CacheStats> cacheStats() {
+        return List.of();
+    }
+
+    /**
+     * Recarga de inmediato un catalogo de la cache.
+     *
+     * @param name nombre del catalogo devuelto por {@link #cacheStats()}
+     * @return true cuando la carga se publico
+     */
+    default boolean refreshCatalog(String name) {
+        refreshCache();
+        return true;
+    }
+}
@@ -0,0 +1,73 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.WsDefinition;
+
+/**
+ * Plan inmutable de llamada a un proveedor para un ws_key, precalculado al
+ * refrescar la configuracion. Reemplaza las busquedas por catalogo del request.
+ *
+ * @param providerCode codigo de billetera
+ * @param providerName nombre del proveedor
+ * @param wsKey identificador del web service
+ * @param uri url del servicio
+ * @param method metodo HTTP
+ * @param headers headers del proveedor
+ * @param queryTemplate plantilla de query compilada desde las definiciones QUERY
+ * @param defaultDefinitions definiciones DEFAULTS en orden
+ * @param requestBodyMappings mapeo de request atributo externo -> atributo app
+ * @param responseBodyMappings mapeo de response atributo app -> atributo externo
+ * @param errorPath path del objeto de error en la respuesta
+ */
+public record RoutePlan(
+        Integer providerCode,
+        String providerName,
+        String wsKey,
+        String uri,
+        String method,
+        Map<String, String> headers,
+        QueryTemplate queryTemplate,
+        List<WsDefinition> defaultDefinitions,
+        Map<String, String> requestBodyMappings,
+        Map<String, String> responseBodyMappings,
+        String errorPath) implements Serializable {
+
+    /**
+     * Header de exchange Camel con el plan del request.
+     */
+    public static final String HEADER = "CamelGatewayRoutePlan";
+
+    /**
+     * Resuelve los defaults de payload con los valores del request.
+     *
+     * @param runtimeValues valores del request para placeholders de sistema
+     * @return defaults en orden de definicion
+     */
+    public Map<String, Object> resolveDefaults(Map<String, Object> runtimeValues) {
+        Map<String, Object> resolved = new LinkedHashMap<>();
+        for (WsDefinition definition : defaultDefinitions) {
+            Object value = definition.resolveValue(runtimeValues);
+            if (value != null) {
+                resolved.put(definition.key(), value);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Agrega este plan a una copia de los headers de la ruta Camel.
+     *
+     * @param camelHeaders headers del request al proveedor
+     * @return copia de headers con el plan adjunto
+     */
+    public Map<String, Object> attachTo(Map<String, Object> camelHeaders) {
+        Map<String, Object> attached = new HashMap<>(camelHeaders);
+        attached.put(HEADER, this);
+        return attached;
+    }
+}
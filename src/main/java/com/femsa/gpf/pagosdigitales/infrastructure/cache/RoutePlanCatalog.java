@@ -0,0 +1,146 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService.ProviderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService.WebServiceCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService.WebServiceConfig;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.DefinitionCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService.HeaderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService.MappingCatalog;
+
+/**
+ * Catalogo inmutable de planes de llamada por proveedor y ws_key.
+ * Cuenta las busquedas sin plan en un contador que cada version hereda de la
+ * anterior, para que el total no dependa de cual version leyo cada request.
+ */
+public final class RoutePlanCatalog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final String WITHOUT_PROVIDER = "without-provider";
+
+    private final Map<Integer, Map<String, RoutePlan>> plansByProvider;
+    private final transient LongAdder misses;
+
+    private RoutePlanCatalog(Map<Integer, Map<String, RoutePlan>> plansByProvider) {
+        this(plansByProvider, new LongAdder());
+    }
+
+    private RoutePlanCatalog(Map<Integer, Map<String, RoutePlan>> plansByProvider, LongAdder misses) {
+        this.plansByProvider = plansByProvider;
+        this.misses = misses;
+    }
+
+    /**
+     * Crea un catalogo sin planes.
+     *
+     * @return catalogo vacio
+     */
+    public static RoutePlanCatalog empty() {
+        return new RoutePlanCatalog(Map.of());
+    }
+
+    /**
+     * Construye un plan por cada web service activo de un proveedor activo.
+     *
+     * @param providers catalogo de proveedores
+     * @param webServices catalogo de web services
+     * @param headers catalogo de headers
+     * @param definitions catalogo de definiciones
+     * @param mappings catalogo de mapeos
+     * @return catalogo inmutable de planes
+     */
+    public static RoutePlanCatalog build(ProviderCatalog providers, WebServiceCatalog webServices,
+            HeaderCatalog headers, DefinitionCatalog definitions, MappingCatalog mappings) {
+        Map<Integer, Map<String, RoutePlan>> temp = new HashMap<>();
+        for (WebServiceConfig config : webServices.getActiveConfigs()) {
+            Integer providerCode = config.providerCode();
+            String providerName = providers.getProviderNameByCode(providerCode);
+            if (providerName == null || WITHOUT_PROVIDER.equals(providerName)) {
+                continue;
+            }
+            String wsKey = config.wsKey();
+            RoutePlan plan = new RoutePlan(
+                    providerCode,
+                    providerName,
+                    wsKey,
+                    config.uri(),
+                    config.method(),
+                    copyOrEmpty(headers.getHeadersByProviderCode(providerCode)),
+                    QueryTemplate.compile(definitions.getDefinitions(providerCode, wsKey, "QUERY")),
+                    definitions.getDefinitions(providerCode, wsKey, "DEFAULTS"),
+                    copyOrEmpty(mappings.getRequestBodyMappings(providerCode, wsKey, providerName)),
+                    copyOrEmpty(mappings.getResponseBodyMappings(providerCode, wsKey, providerName)),
+                    mappings.getErrorPath(providerCode, wsKey, providerName));
+            temp.computeIfAbsent(providerCode, value -> new HashMap<>()).put(wsKey, plan);
+        }
+        Map<Integer, Map<String, RoutePlan>> immutable = new HashMap<>();
+        temp.forEach((providerCode, byWsKey) -> immutable.put(providerCode, Map.copyOf(byWsKey)));
+        return new RoutePlanCatalog(Map.copyOf(immutable));
+    }
+
+    /**
+     * Busca el plan de un proveedor para un ws_key en minusculas.
+     *
+     * @param providerCode codigo de billetera
+     * @param wsKey identificador del web service
+     * @return plan o null si el proveedor o el servicio no estan activos
+     */
+    public RoutePlan find(Integer providerCode, String wsKey) {
+        if (providerCode == null || wsKey == null) {
+            return null;
+        }
+        Map<String, RoutePlan> byWsKey = plansByProvider.get(providerCode);
+        RoutePlan plan = byWsKey == null ? null : byWsKey.get(wsKey);
+        if (plan == null) {
+            misses.increment();
+        }
+        return plan;
+    }
+
+    /**
+     * Cantidad de planes del catalogo.
+     *
+     * @return planes cargados
+     */
+    public int size() {
+        return plansByProvider.values().stream().mapToInt(Map::size).sum();
+    }
+
+    /**
+     * Busquedas sin plan acumuladas por este catalogo y las versiones de las
+     * que heredo el contador.
+     *
+     * @return busquedas sin resultado
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * Devuelve este catalogo contando sus busquedas sin plan en el contador de
+     * otro, de modo que las que lleguen a la version anterior despues de
+     * publicar esta no se pierdan.
+     *
+     * @param previous catalogo publicado antes
+     * @return catalogo con los mismos planes y el contador de {@code previous}
+     */
+    public RoutePlanCatalog withMissesOf(RoutePlanCatalog previous) {
+        return new RoutePlanCatalog(plansByProvider, previous.misses);
+    }
+
+    private Object readResolve() {
+        return new RoutePlanCatalog(plansByProvider);
+    }
+
+    private static Map<String, String> copyOrEmpty(Map<String, String> source) {
+        return source == null || source.isEmpty()
+                ? Map.of()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(source));
+    }
+}
@@ -0,0 +1,173 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.cache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Agrupa llamadas concurrentes con la misma llave canonica en una sola
+ * ejecucion. El primer hilo ejecuta la llamada y los demas esperan su
+ * resultado como maximo el tiempo de espera configurado; los contadores
+ * indican cuantas llamadas se ejecutaron y cuantas se agruparon.
+ *
+ * @param <K> tipo de llave canonica
+ * @param <V> tipo de resultado
+ */
+@Log4j2
+public final class SingleFlight<K, V> {
+
+    private final String name;
+    private final long maxWaitMillis;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Crea el agrupador sin limite de espera para las llamadas agrupadas.
+     *
+     * @param name nombre para logs y metricas
+     */
+    public SingleFlight(String name) {
+        this(name, 0L);
+    }
+
+    /**
+     * Crea el agrupador con limite de espera para las llamadas agrupadas.
+     *
+     * @param name nombre para logs y metricas
+     * @param maxWaitMillis espera maxima de quien se agrupa; 0 espera sin limite
+     */
+    public SingleFlight(String name, long maxWaitMillis) {
+        if (maxWaitMillis < 0) {
+            throw new IllegalArgumentException("maxWaitMillis no puede ser negativo");
+        }
+        this.name = name;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Ejecuta la llamada o espera la que ya esta en curso para la misma llave.
+     * Si la llamada en curso no termina dentro de la espera maxima, el
+     * resultado lleva una {@link TimeoutException}.
+     *
+     * @param key llave canonica
+     * @param call llamada a ejecutar
+     * @return resultado e indicador de ejecucion en este hilo
+     */
+    public Flight<V> execute(K key, Callable<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            log.debug("Llamada {} agrupada con la que esta en curso para {}", name, key);
+            return await(existing);
+        }
+        executions.increment();
+        try {
+            V value = call.call();
+            flight.complete(value);
+            return new Flight<>(value, null, true);
+        } catch (Exception e) {
+            flight.completeExceptionally(e);
+            return new Flight<>(null, e, true);
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Ejecuta la llamada en el executor solo si no hay otra en curso para la
+     * misma llave. Las llamadas sincronas que lleguen mientras tanto esperan su
+     * resultado.
+     *
+     * @param key llave canonica
+     * @param executor executor de la llamada
+     * @param call llamada a ejecutar
+     * @return true cuando la llamada se programo
+     */
+    public boolean executeAsync(K key, Executor executor, Callable<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, flight) != null) {
+            coalesced.increment();
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    flight.complete(call.call());
+                } catch (Exception e) {
+                    flight.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(key, flight);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, flight);
+            flight.cancel(false);
+            return false;
+        }
+        executions.increment();
+        return true;
+    }
+
+    /**
+     * Devuelve los contadores acumulados.
+     *
+     * @return contadores del agrupador
+     */
+    public Stats stats() {
+        return new Stats(name, executions.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    private Flight<V> await(CompletableFuture<V> flight) {
+        try {
+            V value = maxWaitMillis > 0 ? flight.get(maxWaitMillis, TimeUnit.MILLISECONDS) : flight.get();
+            return new Flight<>(value, null, false);
+        } catch (TimeoutException e) {
+            log.warn("Llamada {} agrupada sin respuesta despues de {} ms", name, maxWaitMillis);
+            return new Flight<>(null, new TimeoutException("Llamada " + name + " agrupada sin respuesta despues de "
+                    + maxWaitMillis + " ms"), false);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            Exception exception = cause instanceof Exception ex ? ex : new IllegalStateException(cause);
+            return new Flight<>(null, exception, false);
+        } catch (CancellationException e) {
+            return new Flight<>(null, e, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Flight<>(null, e, false);
+        }
+    }
+
+    /**
+     * Resultado de una llamada agrupada.
+     *
+     * @param value resultado de la llamada
+     * @param exception excepcion de la llamada o de la espera
+     * @param leader true cuando este hilo ejecuto la llamada
+     * @param <V> tipo de resultado
+     */
+    public record Flight<V>(V value, Exception exception, boolean leader) {
+    }
+
+    /**
+     * Contadores de un agrupador.
+     *
+     * @param name nombre del agrupador
+     * @param executions llamadas ejecutadas
+     * @param coalesced llamadas que compartieron una ejecucion en curso
+     * @param inFlight llamadas en curso
+     */
+    public record Stats(String name, long executions, long coalesced, int inFlight) {
+    }
+}
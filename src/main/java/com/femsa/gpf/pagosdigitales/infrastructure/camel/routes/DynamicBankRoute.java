@@ -3,10 +3,8 @@ package com.femsa.gpf.pagosdigitales.infrastructure.camel.routes;
 import org.apache.camel.builder.RouteBuilder;
 import org.springframework.stereotype.Component;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
 import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService;
 
 /**
  * Ruta Camel dinamica para consultar bancos por proveedor.
@@ -14,26 +12,18 @@ import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderSer
 @Component
 public class DynamicBankRoute extends RouteBuilder {
 
-    private final GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService;
-    private final ProviderHeaderService providerHeaderService;
-    private final GatewayWebServiceConfigService gatewayWebServiceConfigService;
+    private final GatewayConfigSnapshotService gatewayConfigSnapshotService;
     private final ExternalServiceHttpProperties externalServiceHttpProperties;
 
     /**
      * Crea la ruta con las propiedades de proveedores de bancos.
      *
-     * @param gatewayWebServiceDefinitionService servicio de definiciones por BD
-     * @param providerHeaderService servicio de headers por proveedor
-     * @param gatewayWebServiceConfigService servicio de configuracion de endpoints por BD
+     * @param gatewayConfigSnapshotService servicio de configuracion versionada de pasarela
      * @param externalServiceHttpProperties propiedades de timeout HTTP externo
      */
-    public DynamicBankRoute(GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService,
-            ProviderHeaderService providerHeaderService,
-            GatewayWebServiceConfigService gatewayWebServiceConfigService,
+    public DynamicBankRoute(GatewayConfigSnapshotService gatewayConfigSnapshotService,
             ExternalServiceHttpProperties externalServiceHttpProperties) {
-        this.gatewayWebServiceDefinitionService = gatewayWebServiceDefinitionService;
-        this.providerHeaderService = providerHeaderService;
-        this.gatewayWebServiceConfigService = gatewayWebServiceConfigService;
+        this.gatewayConfigSnapshotService = gatewayConfigSnapshotService;
         this.externalServiceHttpProperties = externalServiceHttpProperties;
     }
 
@@ -47,39 +37,30 @@ public class DynamicBankRoute extends RouteBuilder {
                 .routeId("dynamic-getbanks-route")
                 .process(exchange -> {
 
-                    Integer providerCode = exchange.getIn().getHeader("payment_provider_code", Integer.class);
                     String wsKey = "getbanks";
-
-                    var wsCfg = gatewayWebServiceConfigService.getActiveConfig(providerCode, wsKey)
-                            .orElseThrow(() -> new IllegalArgumentException(
-                                    "No hay configuracion activa en IN_PASARELA_WS para CODIGO_BILLETERA: "
-                                            + providerCode + ", WS_KEY: " + wsKey));
+                    var plan = gatewayConfigSnapshotService.resolvePlan(exchange, wsKey);
+                    Integer providerCode = plan.providerCode();
 
                     String country = exchange.getIn().getHeader("country_code", String.class);
                     String now = exchange.getIn().getHeader("now", String.class);
 
-                    StringBuilder url = new StringBuilder(wsCfg.uri());
-                    var queryParams = gatewayWebServiceDefinitionService.getQueryParams(
-                            providerCode,
-                            wsKey,
+                    StringBuilder url = new StringBuilder(plan.uri());
+                    int queryParams = plan.queryTemplate().appendTo(url,
                             java.util.Map.of(
                                     "country_code", country == null ? "" : country,
                                     "now", now == null ? "" : now));
-                    if (queryParams.isEmpty()) {
+                    if (queryParams == 0) {
                         throw new IllegalArgumentException(
                                 "No hay parametros QUERY configurados en IN_PASARELA_WS_DEFS para CODIGO_BILLETERA: "
                                         + providerCode + ", WS_KEY: " + wsKey);
                     }
-                    url.append(url.indexOf("?") >= 0 ? "&" : "?");
-                    queryParams.forEach((k, v) -> url.append(k).append("=").append(v).append("&"));
-                    url.deleteCharAt(url.length() - 1);
 
                     String resolvedUrl = url.toString();
                     exchange.setProperty("url", resolvedUrl);
-                    exchange.setProperty("httpMethod", wsCfg.method());
+                    exchange.setProperty("httpMethod", plan.method());
                     exchange.setProperty("endpointSuffix", externalServiceHttpProperties.buildEndpointSuffix(resolvedUrl));
 
-                    var providerHeaders = providerHeaderService.getHeadersByProviderCode(providerCode);
+                    var providerHeaders = plan.headers();
                     if (providerHeaders.isEmpty()) {
                         throw new IllegalArgumentException(
                                 "No hay headers configurados para CODIGO_BILLETERA: " + providerCode);
@@ -4,9 +4,8 @@ import org.apache.camel.builder.RouteBuilder;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
 import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService;
 
 /**
  * Ruta Camel dinamica para pagos en linea directos.
@@ -15,25 +14,21 @@ import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderSer
 public class DynamicDirectOnlinePaymentRoute extends RouteBuilder {
 
     private final ObjectMapper objectMapper;
-    private final ProviderHeaderService providerHeaderService;
-    private final GatewayWebServiceConfigService gatewayWebServiceConfigService;
+    private final GatewayConfigSnapshotService gatewayConfigSnapshotService;
     private final ExternalServiceHttpProperties externalServiceHttpProperties;
 
     /**
      * Crea la ruta con configuracion y serializador.
      *
      * @param objectMapper serializador de payloads
-     * @param providerHeaderService servicio de headers por proveedor
-     * @param gatewayWebServiceConfigService servicio de configuracion de endpoints por BD
+     * @param gatewayConfigSnapshotService servicio de configuracion versionada de pasarela
      * @param externalServiceHttpProperties propiedades de timeout HTTP externo
      */
     public DynamicDirectOnlinePaymentRoute(ObjectMapper objectMapper,
-            ProviderHeaderService providerHeaderService,
-            GatewayWebServiceConfigService gatewayWebServiceConfigService,
+            GatewayConfigSnapshotService gatewayConfigSnapshotService,
             ExternalServiceHttpProperties externalServiceHttpProperties) {
         this.objectMapper = objectMapper;
-        this.providerHeaderService = providerHeaderService;
-        this.gatewayWebServiceConfigService = gatewayWebServiceConfigService;
+        this.gatewayConfigSnapshotService = gatewayConfigSnapshotService;
         this.externalServiceHttpProperties = externalServiceHttpProperties;
     }
 
@@ -45,20 +40,16 @@ public class DynamicDirectOnlinePaymentRoute extends RouteBuilder {
         from("direct:direct-online-payment-requests")
                 .routeId("dynamic-direct-online-payment-requests-route")
                 .process(exchange -> {
-                    Integer providerCode = exchange.getIn().getHeader("payment_provider_code", Integer.class);
                     String wsKey = "direct-online-payment-requests";
+                    var plan = gatewayConfigSnapshotService.resolvePlan(exchange, wsKey);
+                    Integer providerCode = plan.providerCode();
 
-                    var cfg = gatewayWebServiceConfigService.getActiveConfig(providerCode, wsKey)
-                            .orElseThrow(() -> new IllegalArgumentException(
-                                    "No hay configuracion activa en IN_PASARELA_WS para CODIGO_BILLETERA: "
-                                            + providerCode + ", WS_KEY: " + wsKey));
-
-                    String url = cfg.uri();
+                    String url = plan.uri();
                     exchange.setProperty("url", url);
-                    exchange.setProperty("httpMethod", cfg.method());
+                    exchange.setProperty("httpMethod", plan.method());
                     exchange.setProperty("endpointSuffix", externalServiceHttpProperties.buildEndpointSuffix(url));
 
-                    var providerHeaders = providerHeaderService.getHeadersByProviderCode(providerCode);
+                    var providerHeaders = plan.headers();
                     if (providerHeaders.isEmpty()) {
                         throw new IllegalArgumentException(
                                 "No hay headers configurados para CODIGO_BILLETERA: " + providerCode);
@@ -70,7 +61,7 @@ public class DynamicDirectOnlinePaymentRoute extends RouteBuilder {
                         exchange.getIn().setBody(objectMapper.writeValueAsString(body));
                     }
 
-                    log.info("Request enviado a endpoint externo {}: {}", cfg.uri(), exchange.getIn().getBody());
+                    log.info("Request enviado a endpoint externo {}: {}", plan.uri(), exchange.getIn().getBody());
                 })
                 .setHeader("CamelHttpMethod", exchangeProperty("httpMethod"))
                 .toD("${exchangeProperty.url}${exchangeProperty.endpointSuffix}");
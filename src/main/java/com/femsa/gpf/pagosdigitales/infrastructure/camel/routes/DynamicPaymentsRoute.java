@@ -3,10 +3,8 @@ package com.femsa.gpf.pagosdigitales.infrastructure.camel.routes;
 import org.apache.camel.builder.RouteBuilder;
 import org.springframework.stereotype.Component;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
 import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService;
 
 /**
  * Ruta Camel dinamica para la consulta de pagos por proveedor.
@@ -14,26 +12,18 @@ import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderSer
 @Component
 public class DynamicPaymentsRoute extends RouteBuilder {
 
-    private final GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService;
-    private final ProviderHeaderService providerHeaderService;
-    private final GatewayWebServiceConfigService gatewayWebServiceConfigService;
+    private final GatewayConfigSnapshotService gatewayConfigSnapshotService;
     private final ExternalServiceHttpProperties externalServiceHttpProperties;
 
     /**
      * Crea la ruta con las propiedades de proveedores de pagos.
      *
-     * @param gatewayWebServiceDefinitionService servicio de definiciones por BD
-     * @param providerHeaderService servicio de headers por proveedor
-     * @param gatewayWebServiceConfigService servicio de configuracion de endpoints por BD
+     * @param gatewayConfigSnapshotService servicio de configuracion versionada de pasarela
      * @param externalServiceHttpProperties propiedades de timeout HTTP externo
      */
-    public DynamicPaymentsRoute(GatewayWebServiceDefinitionService gatewayWebServiceDefinitionService,
-            ProviderHeaderService providerHeaderService,
-            GatewayWebServiceConfigService gatewayWebServiceConfigService,
+    public DynamicPaymentsRoute(GatewayConfigSnapshotService gatewayConfigSnapshotService,
             ExternalServiceHttpProperties externalServiceHttpProperties) {
-        this.gatewayWebServiceDefinitionService = gatewayWebServiceDefinitionService;
-        this.providerHeaderService = providerHeaderService;
-        this.gatewayWebServiceConfigService = gatewayWebServiceConfigService;
+        this.gatewayConfigSnapshotService = gatewayConfigSnapshotService;
         this.externalServiceHttpProperties = externalServiceHttpProperties;
     }
 
@@ -45,40 +35,31 @@ public class DynamicPaymentsRoute extends RouteBuilder {
         from("direct:payments")
                 .routeId("dynamic-payments-route")
                 .process(exchange -> {
-                    Integer providerCode = exchange.getIn().getHeader("payment_provider_code", Integer.class);
                     String wsKey = "payments";
-
-                    var wsCfg = gatewayWebServiceConfigService.getActiveConfig(providerCode, wsKey)
-                            .orElseThrow(() -> new IllegalArgumentException(
-                                    "No hay configuracion activa en IN_PASARELA_WS para CODIGO_BILLETERA: "
-                                            + providerCode + ", WS_KEY: " + wsKey));
+                    var plan = gatewayConfigSnapshotService.resolvePlan(exchange, wsKey);
+                    Integer providerCode = plan.providerCode();
 
                     String operationId = exchange.getIn().getHeader("operation_id", String.class);
                     String requestDatetime = exchange.getIn().getHeader("request_datetime", String.class);
 
-                    StringBuilder url = new StringBuilder(wsCfg.uri());
-                    var queryParams = gatewayWebServiceDefinitionService.getQueryParams(
-                            providerCode,
-                            wsKey,
+                    StringBuilder url = new StringBuilder(plan.uri());
+                    int queryParams = plan.queryTemplate().appendTo(url,
                             java.util.Map.of(
                                     "operation_id", operationId == null ? "" : operationId,
                                     "request_datetime", requestDatetime == null ? "" : requestDatetime,
                                     "now", requestDatetime == null ? "" : requestDatetime));
-                    if (queryParams.isEmpty()) {
+                    if (queryParams == 0) {
                         throw new IllegalArgumentException(
                                 "No hay parametros QUERY configurados en IN_PASARELA_WS_DEFS para CODIGO_BILLETERA: "
                                         + providerCode + ", WS_KEY: " + wsKey);
                     }
-                    url.append(url.indexOf("?") >= 0 ? "&" : "?");
-                    queryParams.forEach((k, v) -> url.append(k).append("=").append(v).append("&"));
-                    url.deleteCharAt(url.length() - 1);
 
                     String resolvedUrl = url.toString();
                     exchange.setProperty("url", resolvedUrl);
-                    exchange.setProperty("httpMethod", wsCfg.method());
+                    exchange.setProperty("httpMethod", plan.method());
                     exchange.setProperty("endpointSuffix", externalServiceHttpProperties.buildEndpointSuffix(resolvedUrl));
 
-                    var providerHeaders = providerHeaderService.getHeadersByProviderCode(providerCode);
+                    var providerHeaders = plan.headers();
                     if (providerHeaders.isEmpty()) {
                         throw new IllegalArgumentException(
                                 "No hay headers configurados para CODIGO_BILLETERA: " + providerCode);
@@ -0,0 +1,62 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Propiedades de ejecucion de consultas JDBC.
+ */
+@Validated
+@ConfigurationProperties(prefix = "integration.database")
+public class DatabaseExecutionProperties {
+
+    private static final int DEFAULT_QUERY_TIMEOUT_SECONDS = 30;
+    private static final long DEFAULT_SLOW_QUERY_THRESHOLD_MS = 500L;
+
+    private int queryTimeoutSeconds = DEFAULT_QUERY_TIMEOUT_SECONDS;
+    private long slowQueryThresholdMs = DEFAULT_SLOW_QUERY_THRESHOLD_MS;
+
+    /**
+     * Obtiene el timeout por defecto de las consultas.
+     *
+     * @return timeout en segundos
+     */
+    public int getQueryTimeoutSeconds() {
+        return queryTimeoutSeconds;
+    }
+
+    /**
+     * Define el timeout por defecto de las consultas.
+     *
+     * @param queryTimeoutSeconds timeout en segundos
+     * @throws IllegalArgumentException cuando el valor es cero o negativo
+     */
+    public void setQueryTimeoutSeconds(int queryTimeoutSeconds) {
+        if (queryTimeoutSeconds <= 0) {
+            throw new IllegalArgumentException("integration.database.query-timeout-seconds debe ser mayor a cero");
+        }
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+    }
+
+    /**
+     * Obtiene el umbral a partir del cual una consulta se registra como lenta.
+     *
+     * @return umbral en ms
+     */
+    public long getSlowQueryThresholdMs() {
+        return slowQueryThresholdMs;
+    }
+
+    /**
+     * Define el umbral a partir del cual una consulta se registra como lenta.
+     *
+     * @param slowQueryThresholdMs umbral en ms
+     * @throws IllegalArgumentException cuando el valor es negativo
+     */
+    public void setSlowQueryThresholdMs(long slowQueryThresholdMs) {
+        if (slowQueryThresholdMs < 0) {
+            throw new IllegalArgumentException("integration.database.slow-query-threshold-ms no puede ser negativo");
+        }
+        this.slowQueryThresholdMs = slowQueryThresholdMs;
+    }
+}
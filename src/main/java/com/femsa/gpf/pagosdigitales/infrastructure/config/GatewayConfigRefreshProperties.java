@@ -0,0 +1,105 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Propiedades de refresco de la configuracion de pasarela.
+ */
+@Validated
+@ConfigurationProperties(prefix = "gateway.config.refresh")
+public class GatewayConfigRefreshProperties {
+
+    private static final long DEFAULT_POLL_INTERVAL_MS = 5000L;
+    private static final long DEFAULT_FULL_REFRESH_MINUTES = 360L;
+    private static final long DEFAULT_JITTER_MS = 30000L;
+
+    private boolean changePollEnabled = true;
+    private long pollIntervalMs = DEFAULT_POLL_INTERVAL_MS;
+    private long fullRefreshMinutes = DEFAULT_FULL_REFRESH_MINUTES;
+    private long jitterMs = DEFAULT_JITTER_MS;
+
+    /**
+     * Indica si se consulta la bitacora de cambios.
+     *
+     * @return true cuando la consulta esta habilitada
+     */
+    public boolean isChangePollEnabled() {
+        return changePollEnabled;
+    }
+
+    /**
+     * Habilita o deshabilita la consulta de la bitacora de cambios.
+     *
+     * @param changePollEnabled true para habilitar
+     */
+    public void setChangePollEnabled(boolean changePollEnabled) {
+        this.changePollEnabled = changePollEnabled;
+    }
+
+    /**
+     * Obtiene el intervalo de consulta de la bitacora de cambios.
+     *
+     * @return intervalo en ms
+     */
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    /**
+     * Define el intervalo de consulta de la bitacora de cambios.
+     *
+     * @param pollIntervalMs intervalo en ms
+     * @throws IllegalArgumentException cuando el valor es cero o negativo
+     */
+    public void setPollIntervalMs(long pollIntervalMs) {
+        if (pollIntervalMs <= 0) {
+            throw new IllegalArgumentException("gateway.config.refresh.poll-interval-ms debe ser mayor a cero");
+        }
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * Obtiene el intervalo de recarga completa de respaldo.
+     *
+     * @return intervalo en minutos
+     */
+    public long getFullRefreshMinutes() {
+        return fullRefreshMinutes;
+    }
+
+    /**
+     * Define el intervalo de recarga completa de respaldo.
+     *
+     * @param fullRefreshMinutes intervalo en minutos
+     * @throws IllegalArgumentException cuando el valor es cero o negativo
+     */
+    public void setFullRefreshMinutes(long fullRefreshMinutes) {
+        if (fullRefreshMinutes <= 0) {
+            throw new IllegalArgumentException("gateway.config.refresh.full-refresh-minutes debe ser mayor a cero");
+        }
+        this.fullRefreshMinutes = fullRefreshMinutes;
+    }
+
+    /**
+     * Obtiene el desfase aleatorio maximo aplicado antes de cada recarga.
+     *
+     * @return desfase en ms
+     */
+    public long getJitterMs() {
+        return jitterMs;
+    }
+
+    /**
+     * Define el desfase aleatorio maximo aplicado antes de cada recarga.
+     *
+     * @param jitterMs desfase en ms
+     * @throws IllegalArgumentException cuando el valor es negativo
+     */
+    public void setJitterMs(long jitterMs) {
+        if (jitterMs < 0) {
+            throw new IllegalArgumentException("gateway.config.refresh.jitter-ms no puede ser negativo");
+        }
+        this.jitterMs = jitterMs;
+    }
+}
@@ -4,11 +4,14 @@ import java.util.concurrent.ThreadPoolExecutor;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
- * Configuracion de ejecucion asincrona para auditoria de logs.
+ * Configuracion de ejecucion asincrona para auditoria de logs. Cada tarea
+ * hereda el contexto de observacion del request que la genera, de modo que la
+ * escritura de auditoria queda en la misma traza.
  */
 @Configuration
 @EnableAsync
@@ -28,6 +31,7 @@ public class LoggingAsyncConfig {
         executor.setQueueCapacity(1000);
         executor.setWaitForTasksToCompleteOnShutdown(false);
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
         executor.initialize();
         return executor;
     }
@@ -0,0 +1,66 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Configuracion del header {@code Server-Timing}. El filtro solo se registra
+ * sobre {@code /api/*} cuando la funcionalidad esta habilitada; deshabilitada,
+ * ningun hilo tiene cronometro y las mediciones por etapa no leen el reloj.
+ */
+@Configuration
+public class ServerTimingConfig {
+
+    /**
+     * Registra el filtro que abre y cierra el cronometro de cada request.
+     *
+     * @param enabled true para emitir el header
+     * @param auditEnabled true para guardar el desglose en la auditoria interna
+     * @return registro del filtro
+     */
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${server-timing.enabled:false}") boolean enabled,
+            @Value("${server-timing.audit-enabled:false}") boolean auditEnabled) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(auditEnabled));
+        registration.addUrlPatterns("/api/*");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    /**
+     * Filtro que mantiene el cronometro del request en el hilo que lo atiende.
+     */
+    public static class ServerTimingFilter extends OncePerRequestFilter {
+
+        private final boolean auditEnabled;
+
+        ServerTimingFilter(boolean auditEnabled) {
+            this.auditEnabled = auditEnabled;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                FilterChain filterChain) throws ServletException, IOException {
+            RequestStopwatch.begin(auditEnabled);
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                RequestStopwatch.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuracion del executor para precargas largas en segundo plano, como el
+ * indice de pagos recientes. Spring lo detiene al cerrar el contexto.
+ */
+@Configuration
+public class WarmUpAsyncConfig {
+
+    /**
+     * Define el executor de precargas en segundo plano.
+     *
+     * @return executor de precargas
+     */
+    @Bean(name = "warmUpTaskExecutor")
+    public ThreadPoolTaskExecutor warmUpTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("warmup-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
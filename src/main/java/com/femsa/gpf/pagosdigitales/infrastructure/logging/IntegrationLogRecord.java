@@ -36,4 +36,9 @@ public class IntegrationLogRecord {
     private LocalDateTime cpDate1;
     private LocalDateTime cpDate2;
     private LocalDateTime cpDate3;
+    /**
+     * Desglose de tiempos por etapa del request. Se persiste en cp_var3 del
+     * log interno.
+     */
+    private String serverTiming;
 }
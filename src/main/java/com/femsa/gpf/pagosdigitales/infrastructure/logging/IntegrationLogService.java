@@ -27,25 +27,29 @@ public class IntegrationLogService {
         System.setProperty("oracle.jdbc.timezoneAsRegion", "false");
     }
 
-    private static final String INSERT_APP_LOG = """
-            INSERT INTO TUKUNAFUNC.IN_LOGS_APP_PAG_DIGIT (
-                request, response, usuario, fecha_registro, mensaje, origen, pais, canal,
-                codigo_prov_pago, nombre_farmacia, folio, farmacia, cadena, pos, url, metodo,
-                cp_var1, cp_var2, cp_var3, cp_number1, cp_number2, cp_number3, cp_date1, cp_date2, cp_date3
-            ) VALUES (
-                ?, ?, ?, SYSDATE, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
-            )
-            """;
+    private static final DatabaseExecutor.NamedQuery INSERT_APP_LOG = DatabaseExecutor.NamedQuery.of(
+            "log-insert-app",
+            """
+                INSERT INTO TUKUNAFUNC.IN_LOGS_APP_PAG_DIGIT (
+                    request, response, usuario, fecha_registro, mensaje, origen, pais, canal,
+                    codigo_prov_pago, nombre_farmacia, folio, farmacia, cadena, pos, url, metodo,
+                    cp_var1, cp_var2, cp_var3, cp_number1, cp_number2, cp_number3, cp_date1, cp_date2, cp_date3
+                ) VALUES (
+                    ?, ?, ?, SYSDATE, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
+                )
+                """);
 
-    private static final String INSERT_EXT_LOG = """
-            INSERT INTO TUKUNAFUNC.IN_LOGS_WS_EXT (
-                request, response, usuario, fecha_registro, mensaje, origen, pais, canal,
-                codigo_prov_pago, nombre_farmacia, folio, farmacia, cadena, pos, url, metodo,
-                cp_var1, cp_var2, cp_var3, cp_number1, cp_number2, cp_number3, cp_date1, cp_date2, cp_date3
-            ) VALUES (
-                ?, ?, ?, SYSDATE, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
-            )
-            """;
+    private static final DatabaseExecutor.NamedQuery INSERT_EXT_LOG = DatabaseExecutor.NamedQuery.of(
+            "log-insert-external",
+            """
+                INSERT INTO TUKUNAFUNC.IN_LOGS_WS_EXT (
+                    request, response, usuario, fecha_registro, mensaje, origen, pais, canal,
+                    codigo_prov_pago, nombre_farmacia, folio, farmacia, cadena, pos, url, metodo,
+                    cp_var1, cp_var2, cp_var3, cp_number1, cp_number2, cp_number3, cp_date1, cp_date2, cp_date3
+                ) VALUES (
+                    ?, ?, ?, SYSDATE, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
+                )
+                """);
 
     private final ObjectMapper objectMapper;
     private final DatabaseExecutor databaseExecutor;
@@ -81,41 +85,41 @@ public class IntegrationLogService {
         insert(INSERT_EXT_LOG, record, "IN_LOGS_WS_EXT", true);
     }
 
-    private void insert(String sql, IntegrationLogRecord record, String tableName, boolean externalLog) {
+    private void insert(DatabaseExecutor.NamedQuery query, IntegrationLogRecord record, String tableName,
+            boolean externalLog) {
         if (record == null) {
             return;
         }
         DerivedLogValues derivedValues = deriveLogValues(record);
 
         try {
-            databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-                try (PreparedStatement ps = connection.prepareStatement(sql)) {
-                    ps.setString(1, toJson(record.getRequestPayload()));
-                    ps.setString(2, toJson(record.getResponsePayload()));
-                    ps.setString(3, trim(record.getUsuario(), 100, "SYSTEM"));
-                    ps.setString(4, trim(record.getMensaje(), 2000, null));
-                    ps.setString(5, trim(record.getOrigen(), 100, null));
-                    ps.setString(6, trim(record.getPais(), 100, null));
-                    ps.setString(7, trim(record.getCanal(), 100, null));
-                    ps.setString(8, trim(record.getCodigoProvPago(), 50, null));
-                    ps.setString(9, trim(record.getNombreFarmacia(), 100, null));
-                    ps.setString(10, trim(derivedValues.folio(), 100, null));
-                    setInteger(ps, 11, record.getFarmacia());
-                    setInteger(ps, 12, record.getCadena());
-                    setInteger(ps, 13, record.getPos());
-                    ps.setString(14, trim(record.getUrl(), 300, null));
-                    ps.setString(15, trim(record.getMetodo(), 20, null));
-                    ps.setString(16, trim(record.getCpVar1(), 1500, null));
-                    ps.setString(17, trim(derivedValues.operationId(), 1500, null));
-                    ps.setString(18, trim(externalLog ? null : record.getCpVar3(), 1500, null));
-                    setInteger(ps, 19, record.getCpNumber1());
-                    setInteger(ps, 20, record.getCpNumber2());
-                    setInteger(ps, 21, record.getCpNumber3());
-                    setDate(ps, 22, record.getCpDate1());
-                    setDate(ps, 23, record.getCpDate2());
-                    setDate(ps, 24, record.getCpDate3());
-                    ps.executeUpdate();
-                }
+            databaseExecutor.execute(query, ps -> {
+                ps.setString(1, toJson(record.getRequestPayload()));
+                ps.setString(2, toJson(record.getResponsePayload()));
+                ps.setString(3, trim(record.getUsuario(), 100, "SYSTEM"));
+                ps.setString(4, trim(record.getMensaje(), 2000, null));
+                ps.setString(5, trim(record.getOrigen(), 100, null));
+                ps.setString(6, trim(record.getPais(), 100, null));
+                ps.setString(7, trim(record.getCanal(), 100, null));
+                ps.setString(8, trim(record.getCodigoProvPago(), 50, null));
+                ps.setString(9, trim(record.getNombreFarmacia(), 100, null));
+                ps.setString(10, trim(derivedValues.folio(), 100, null));
+                setInteger(ps, 11, record.getFarmacia());
+                setInteger(ps, 12, record.getCadena());
+                setInteger(ps, 13, record.getPos());
+                ps.setString(14, trim(record.getUrl(), 300, null));
+                ps.setString(15, trim(record.getMetodo(), 20, null));
+                ps.setString(16, trim(record.getCpVar1(), 1500, null));
+                ps.setString(17, trim(derivedValues.operationId(), 1500, null));
+                ps.setString(18, trim(externalLog ? null : firstNonBlank(record.getCpVar3(), record.getServerTiming()),
+                        1500, null));
+                setInteger(ps, 19, record.getCpNumber1());
+                setInteger(ps, 20, record.getCpNumber2());
+                setInteger(ps, 21, record.getCpNumber3());
+                setDate(ps, 22, record.getCpDate1());
+                setDate(ps, 23, record.getCpDate2());
+                setDate(ps, 24, record.getCpDate3());
+                return ps.executeUpdate();
             });
         } catch (Exception e) {
             log.error("No fue posible guardar log en {}: {}", tableName, e.getMessage());
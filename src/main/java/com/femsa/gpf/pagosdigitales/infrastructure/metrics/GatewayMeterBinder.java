@@ -0,0 +1,161 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.metrics;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.stereotype.Component;
+
+import com.femsa.gpf.pagosdigitales.application.service.BoundedSafetypayNotificationStore;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.CacheStats;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.PaymentsStatusCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.ProviderBanksCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RefreshableCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.SingleFlight;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationJournal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publica como metricas los contadores que ya llevan los agrupadores de
+ * llamadas, el store de notificaciones SafetyPay, la bitacora fast-ack y los
+ * catalogos de configuracion en memoria. Los valores se leen en cada scrape.
+ */
+@Component
+public class GatewayMeterBinder implements MeterBinder {
+
+    private final ProviderBanksCache providerBanksCache;
+    private final PaymentsStatusCache paymentsStatusCache;
+    private final BoundedSafetypayNotificationStore notificationStore;
+    private final SafetypayConfirmationJournal confirmationJournal;
+    private final List<RefreshableCache> caches;
+
+    /**
+     * Crea el binder con los componentes observados.
+     *
+     * @param providerBanksCache cache de getbanks
+     * @param paymentsStatusCache cache de payments
+     * @param notificationStore store en memoria de notificaciones SafetyPay
+     * @param confirmationJournal bitacora de confirmaciones SafetyPay
+     * @param caches caches de configuracion recargables
+     */
+    public GatewayMeterBinder(ProviderBanksCache providerBanksCache, PaymentsStatusCache paymentsStatusCache,
+            BoundedSafetypayNotificationStore notificationStore, SafetypayConfirmationJournal confirmationJournal,
+            List<RefreshableCache> caches) {
+        this.providerBanksCache = providerBanksCache;
+        this.paymentsStatusCache = paymentsStatusCache;
+        this.notificationStore = notificationStore;
+        this.confirmationJournal = confirmationJournal;
+        this.caches = caches;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindSingleFlight(registry, "getbanks", providerBanksCache, ProviderBanksCache::coalescingStats);
+        bindSingleFlight(registry, "payments", paymentsStatusCache, PaymentsStatusCache::coalescingStats);
+
+        Gauge.builder("pagosdigitales.safetypay.notifications.size", notificationStore,
+                        store -> store.stats().size())
+                .description("Notificaciones SafetyPay en memoria")
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.safetypay.notifications.hits", notificationStore,
+                        store -> store.stats().hits())
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.safetypay.notifications.misses", notificationStore,
+                        store -> store.stats().misses())
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.safetypay.notifications.evictions", notificationStore,
+                        store -> store.stats().evictions() + store.stats().expirations())
+                .description("Notificaciones descartadas por capacidad o TTL")
+                .register(registry);
+
+        Gauge.builder("pagosdigitales.safetypay.journal.pending", confirmationJournal,
+                        journal -> journal.stats().pending())
+                .description("Confirmaciones fast-ack pendientes de aplicar")
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.safetypay.journal.applied", confirmationJournal,
+                        journal -> journal.stats().applied())
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.safetypay.journal.failed.batches", confirmationJournal,
+                        journal -> journal.stats().failedBatches())
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.safetypay.journal.rejected", confirmationJournal,
+                        journal -> journal.stats().rejected())
+                .description("Confirmaciones fast-ack movidas al archivo de rechazadas")
+                .register(registry);
+
+        for (RefreshableCache cache : caches) {
+            for (CacheStats stats : cache.cacheStats()) {
+                bindCache(registry, stats.name(), cache);
+            }
+        }
+    }
+
+    private static void bindCache(MeterRegistry registry, String name, RefreshableCache cache) {
+        Gauge.builder("pagosdigitales.cache.entries", cache, c -> cacheStat(c, name, CacheStats::entries))
+                .description("Registros cargados en el catalogo")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("pagosdigitales.cache.size", cache, c -> cacheStat(c, name, CacheStats::approxBytes))
+                .description("Tamano serializado aproximado del catalogo")
+                .baseUnit("bytes")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("pagosdigitales.cache.refresh.duration", cache,
+                        c -> cacheStat(c, name, CacheStats::lastRefreshMs))
+                .description("Duracion de la ultima carga publicada")
+                .baseUnit("milliseconds")
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("pagosdigitales.cache.refresh.last", cache, c -> cacheStat(c, name,
+                        stats -> stats.lastRefreshAt() == null ? Double.NaN : stats.lastRefreshAt().getEpochSecond()))
+                .description("Instante de la ultima carga publicada en segundos epoch")
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.cache.refreshes", cache,
+                        c -> cacheStat(c, name, CacheStats::refreshes))
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.cache.refresh.failures", cache,
+                        c -> cacheStat(c, name, CacheStats::refreshFailures))
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.cache.misses", cache,
+                        c -> cacheStat(c, name, CacheStats::lookupMisses))
+                .description("Busquedas sin resultado en el catalogo")
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    private static double cacheStat(RefreshableCache cache, String name, ToDoubleFunction<CacheStats> value) {
+        for (CacheStats stats : cache.cacheStats()) {
+            if (stats.name().equals(name)) {
+                return value.applyAsDouble(stats);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Los meters guardan referencias debiles a su estado; se usa el bean como
+     * estado para que el valor no se pierda tras un GC.
+     */
+    private static <T> void bindSingleFlight(MeterRegistry registry, String name, T owner,
+            Function<T, SingleFlight.Stats> stats) {
+        FunctionCounter.builder("pagosdigitales.singleflight.executions", owner, o -> stats.apply(o).executions())
+                .description("Llamadas a proveedor ejecutadas")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("pagosdigitales.singleflight.coalesced", owner, o -> stats.apply(o).coalesced())
+                .description("Llamadas que compartieron una ejecucion en curso")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("pagosdigitales.singleflight.in.flight", owner, o -> stats.apply(o).inFlight())
+                .description("Llamadas a proveedor en curso")
+                .tag("name", name)
+                .register(registry);
+    }
+}
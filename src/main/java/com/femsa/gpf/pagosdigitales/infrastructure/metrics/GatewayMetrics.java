@@ -0,0 +1,101 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Metricas Micrometer de llamadas a proveedores y errores por endpoint. Se
+ * registran en el hilo del request, antes de la auditoria asincrona, porque el
+ * pool de auditoria descarta registros cuando se satura.
+ */
+@Component
+public class GatewayMetrics {
+
+    static final String PROVIDER_CALLS = "pagosdigitales.provider.calls";
+    static final String API_ERRORS = "pagosdigitales.api.errors";
+
+    private static final Pattern CATEGORY = Pattern.compile("[A-Z][A-Z_]{0,39}");
+    private static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry registry;
+
+    /**
+     * Crea el registro de metricas.
+     *
+     * @param registry registro Micrometer de la aplicacion
+     */
+    public GatewayMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registra la duracion de una llamada a proveedor. Sin tiempo medido la
+     * llamada no llego a ejecutarse y no se registra.
+     *
+     * @param provider nombre del proveedor
+     * @param wsKey clave del servicio del proveedor
+     * @param message mensaje de auditoria (OK, ERROR_PROVEEDOR, ERROR_TIMEOUT, ERROR_TECNICO, ERROR_CAMEL)
+     * @param elapsedMs tiempo de la llamada en ms
+     */
+    public void recordProviderCall(String provider, String wsKey, String message, Integer elapsedMs) {
+        if (elapsedMs == null) {
+            return;
+        }
+        Timer.builder(PROVIDER_CALLS)
+                .description("Llamadas a proveedores externos")
+                .tag("provider", provider == null ? UNKNOWN : provider)
+                .tag("ws_key", wsKey == null ? UNKNOWN : wsKey)
+                .tag("outcome", outcome(message))
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(1))
+                .register(registry)
+                .record(elapsedMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cuenta una respuesta con error de un endpoint. Los mensajes que empiezan
+     * con OK no se cuentan; los mensajes libres se agrupan por status.
+     *
+     * @param endpoint nombre del endpoint (cp_var1 de auditoria)
+     * @param message mensaje de auditoria
+     * @param status status HTTP devuelto
+     */
+    public void recordResponse(String endpoint, String message, int status) {
+        if (message != null && message.startsWith("OK")) {
+            return;
+        }
+        Counter.builder(API_ERRORS)
+                .description("Respuestas con error por endpoint y categoria")
+                .tag("endpoint", endpoint == null ? UNKNOWN : endpoint)
+                .tag("category", category(message, status))
+                .register(registry)
+                .increment();
+    }
+
+    static String outcome(String message) {
+        if (message == null) {
+            return "camel_error";
+        }
+        return switch (message) {
+            case "OK" -> "ok";
+            case "ERROR_PROVEEDOR" -> "provider_error";
+            case "ERROR_TIMEOUT" -> "timeout";
+            default -> "camel_error";
+        };
+    }
+
+    static String category(String message, int status) {
+        if (message != null && CATEGORY.matcher(message).matches()) {
+            return message;
+        }
+        return status >= 500 ? "ERROR_INTERNO" : "REQUEST_INVALIDO";
+    }
+}
@@ -0,0 +1,53 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Observaciones propias de la pasarela. Cada observacion genera un span hijo
+ * del request en curso cuando las trazas estan habilitadas y un timer con el
+ * mismo nombre.
+ */
+public final class GatewayObservations {
+
+    /**
+     * Observacion de cada consulta con nombre de {@code DatabaseExecutor}.
+     */
+    public static final String DB_QUERY = "pagosdigitales.db.query";
+
+    /**
+     * Observacion de cada paso de mapeo entre el contrato interno y el proveedor.
+     */
+    public static final String MAPPING = "pagosdigitales.mapping";
+
+    private GatewayObservations() {
+    }
+
+    /**
+     * Crea la observacion de una consulta JDBC.
+     *
+     * @param registry registro de observaciones
+     * @param queryName nombre de la consulta
+     * @return observacion sin iniciar
+     */
+    public static Observation dbQuery(ObservationRegistry registry, String queryName) {
+        return Observation.createNotStarted(DB_QUERY, registry)
+                .contextualName("db " + queryName)
+                .lowCardinalityKeyValue("db.query", queryName);
+    }
+
+    /**
+     * Crea la observacion de un paso de mapeo.
+     *
+     * @param registry registro de observaciones
+     * @param step paso de mapeo
+     * @param provider proveedor del mapeo o {@code all} para respuestas consolidadas
+     * @return observacion sin iniciar
+     */
+    public static Observation mapping(ObservationRegistry registry, String step, String provider) {
+        return Observation.createNotStarted(MAPPING, registry)
+                .contextualName("map " + step)
+                .lowCardinalityKeyValue("step", step)
+                .lowCardinalityKeyValue("provider", provider == null ? "unknown" : provider);
+    }
+}
@@ -1,20 +1,19 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import lombok.extern.log4j.Log4j2;
 
 /**
@@ -24,33 +23,35 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class BanksCatalogService {
 
-    private static final String SELECT_ACTIVE_BANKS_BY_CHAIN = "SELECT CODIGO_ESTABLECIMIENTO AS CODIGO, CODIGO_BILLETERA_DIGITAL, MINIMO, MAXIMO, "
-            + "NVL(CADENA_FYB, 'N') CADENA_FYB, NVL(CADENA_SANA, 'N') CADENA_SANA, "
-            + "NVL(CADENA_OKI, 'N') CADENA_OKI, NVL(CADENA_FR, 'N') CADENA_FR "
-            + "FROM TUKUNAFUNC.AD_TIPO_PAGO "
-            + "WHERE NVL(ACTIVO, 'N') = 'S'";
-
-    private static final String SELECT_ACTIVE_CHANNEL_BANKS = "SELECT "
-            + "A.DESCRIPCION AS CANAL, "
-            + "A.ACTIVO AS ESTADO, "
-            + "C.CODIGO_ESTABLECIMIENTO AS ID_BANCO, "
-            + "C.CODIGO_BILLETERA_DIGITAL AS ID_PROVEEDOR_PAGO "
-            + "FROM TUKUNAFUNC.AD_CANAL A, "
-            + "TUKUNAFUNC.AD_CANAL_TIPO_PAGO B, "
-            + "TUKUNAFUNC.AD_TIPO_PAGO C "
-            + "WHERE A.CODIGO = B.CODIGO_CANAL "
-            + "AND B.CODIGO_TIPOPAGO = C.CODIGO "
-            + "AND A.ACTIVO = 'S'";
+    private static final DatabaseExecutor.NamedQuery SELECT_ACTIVE_BANKS_BY_CHAIN = DatabaseExecutor.NamedQuery.of(
+            "banks-by-chain",
+            "SELECT CODIGO_ESTABLECIMIENTO AS CODIGO, CODIGO_BILLETERA_DIGITAL, MINIMO, MAXIMO, "
+                    + "NVL(CADENA_FYB, 'N') CADENA_FYB, NVL(CADENA_SANA, 'N') CADENA_SANA, "
+                    + "NVL(CADENA_OKI, 'N') CADENA_OKI, NVL(CADENA_FR, 'N') CADENA_FR "
+                    + "FROM TUKUNAFUNC.AD_TIPO_PAGO "
+                    + "WHERE NVL(ACTIVO, 'N') = 'S'")
+            .withFetchSize(500);
+
+    private static final DatabaseExecutor.NamedQuery SELECT_ACTIVE_CHANNEL_BANKS = DatabaseExecutor.NamedQuery.of(
+            "banks-by-channel",
+            "SELECT "
+                    + "A.DESCRIPCION AS CANAL, "
+                    + "A.ACTIVO AS ESTADO, "
+                    + "C.CODIGO_ESTABLECIMIENTO AS ID_BANCO, "
+                    + "C.CODIGO_BILLETERA_DIGITAL AS ID_PROVEEDOR_PAGO "
+                    + "FROM TUKUNAFUNC.AD_CANAL A, "
+                    + "TUKUNAFUNC.AD_CANAL_TIPO_PAGO B, "
+                    + "TUKUNAFUNC.AD_TIPO_PAGO C "
+                    + "WHERE A.CODIGO = B.CODIGO_CANAL "
+                    + "AND B.CODIGO_TIPOPAGO = C.CODIGO "
+                    + "AND A.ACTIVO = 'S'")
+            .withFetchSize(1000);
 
     private final DatabaseExecutor databaseExecutor;
     private final Integer codGeoFyb;
     private final Integer codGeoSana;
     private final Integer codGeoOki;
     private final Integer codGeoFr;
-    private volatile Map<String, Set<String>> allowedBanksByProviderAndChain = Map.of();
-    private volatile Map<String, Set<String>> allowedBanksByProviderAndChannel = Map.of();
-    private volatile Map<String, BigDecimal> minimumsByProviderAndBank = Map.of();
-    private volatile Map<String, BigDecimal> maximumsByProviderAndBank = Map.of();
 
     /**
      * Crea el servicio con configuracion de BD y codigos de cadena.
@@ -74,206 +75,329 @@ public class BanksCatalogService {
     }
 
     /**
-     * Inicializa la cache de bancos al arranque.
+     * Carga el catalogo de bancos por cadena y canal desde BD y precalcula los
+     * bancos permitidos de cada combinacion proveedor/cadena/canal.
+     *
+     * @return catalogo inmutable de bancos
+     * @throws Exception si falla la consulta
      */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
+    public BankCatalog loadCatalog() throws Exception {
+        CatalogBuilder builder = new CatalogBuilder();
+        loadChainCatalogFromDb(builder);
+        int channelCombinations = loadAllowedBanksByChannelFromDb(builder);
+        log.info("Catalogo AD_CANAL/AD_CANAL_TIPO_PAGO/AD_TIPO_PAGO cargado. Combinaciones provider-canal: {}",
+                channelCombinations);
+        long started = System.nanoTime();
+        BankCatalog catalog = builder.build();
+        log.info("Indice de bancos precalculado en {} ms. Bancos: {}, combinaciones proveedor-cadena-canal: {}, "
+                + "memoria aprox: {} bytes", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                catalog.bankCount(), catalog.combinationCount(), catalog.indexBytes());
+        return catalog;
     }
 
-    /**
-     * Refresca la cache de AD_TIPO_PAGO cada 6 horas.
-     */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
-        try {
-            this.allowedBanksByProviderAndChain = Map.copyOf(loadAllowedBanksByChainFromDb());
-            this.allowedBanksByProviderAndChannel = Map.copyOf(loadAllowedBanksByChannelFromDb());
-            this.minimumsByProviderAndBank = Map.copyOf(loadMinimumsFromDb());
-            this.maximumsByProviderAndBank = Map.copyOf(loadMaximumsFromDb());
-            log.info("Cache AD_CANAL/AD_CANAL_TIPO_PAGO/AD_TIPO_PAGO actualizada. Combinaciones provider-canal: {}",
-                    allowedBanksByProviderAndChannel.size());
-        } catch (Exception e) {
-            log.error(
-                    "No fue posible refrescar cache AD_CANAL/AD_CANAL_TIPO_PAGO/AD_TIPO_PAGO. Se conserva cache anterior.",
-                    e);
-        }
+    private void loadChainCatalogFromDb(CatalogBuilder builder) throws Exception {
+        databaseExecutor.forEachRow(SELECT_ACTIVE_BANKS_BY_CHAIN, rs -> {
+            String bankCode = rs.getString("CODIGO");
+            Integer providerCode = rs.getInt("CODIGO_BILLETERA_DIGITAL");
+            if (bankCode == null || bankCode.isBlank()) {
+                return;
+            }
+            String normalizedBankCode = bankCode.trim();
+            if ("S".equalsIgnoreCase(rs.getString("CADENA_FYB"))) {
+                builder.addBankByChain(providerCode, codGeoFyb, normalizedBankCode);
+            }
+            if ("S".equalsIgnoreCase(rs.getString("CADENA_SANA"))) {
+                builder.addBankByChain(providerCode, codGeoSana, normalizedBankCode);
+            }
+            if ("S".equalsIgnoreCase(rs.getString("CADENA_OKI"))) {
+                builder.addBankByChain(providerCode, codGeoOki, normalizedBankCode);
+            }
+            if ("S".equalsIgnoreCase(rs.getString("CADENA_FR"))) {
+                builder.addBankByChain(providerCode, codGeoFr, normalizedBankCode);
+            }
+            builder.addLimits(providerCode, normalizedBankCode, rs.getBigDecimal("MINIMO"),
+                    rs.getBigDecimal("MAXIMO"));
+        });
     }
 
-    /**
-     * Obtiene los codigos de banco activos por proveedor, cadena y canal.
-     *
-     * @param paymentProviderCode codigo de proveedor de pago
-     * @param chain cadena solicitada
-     * @param channelPos canal del request
-     * @return conjunto de codigos de banco permitidos
-     */
-    public Set<String> findAllowedBankCodes(Integer paymentProviderCode, Integer chain, String channelPos) {
-        if (paymentProviderCode == null || chain == null || channelPos == null || channelPos.isBlank()) {
-            return Set.of();
-        }
-        Set<String> byChain = allowedBanksByProviderAndChain.getOrDefault(keyByChain(paymentProviderCode, chain), Set.of());
-        Set<String> byChannel = allowedBanksByProviderAndChannel.getOrDefault(keyByChannel(paymentProviderCode, channelPos),
-                Set.of());
-        if (byChain.isEmpty() || byChannel.isEmpty()) {
-            return Set.of();
-        }
-        Set<String> intersection = new HashSet<>(byChain);
-        intersection.retainAll(byChannel);
-        return Set.copyOf(intersection);
+    private int loadAllowedBanksByChannelFromDb(CatalogBuilder builder) throws Exception {
+        Set<String> combinations = new HashSet<>();
+        databaseExecutor.forEachRow(SELECT_ACTIVE_CHANNEL_BANKS, rs -> {
+            String channel = rs.getString("CANAL");
+            String bankCode = rs.getString("ID_BANCO");
+            Integer providerCode = rs.getInt("ID_PROVEEDOR_PAGO");
+            if (channel == null || channel.isBlank() || bankCode == null || bankCode.isBlank()) {
+                return;
+            }
+            if (builder.addBankByChannel(providerCode, channel, bankCode.trim())) {
+                combinations.add(providerCode + "|" + normalizeChannel(channel));
+            }
+        });
+        return combinations.size();
     }
 
-    /**
-     * Obtiene el monto minimo configurado para proveedor y banco.
-     *
-     * @param paymentProviderCode codigo del proveedor
-     * @param bankCode codigo de banco o tipo de pago
-     * @return monto minimo configurado si existe
-     */
-    public Optional<BigDecimal> findMinimum(Integer paymentProviderCode, String bankCode) {
-        if (paymentProviderCode == null || bankCode == null || bankCode.isBlank()) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable(minimumsByProviderAndBank.get(keyByBank(paymentProviderCode, bankCode)));
+    private static String normalizeChannel(String channel) {
+        return channel.trim().toUpperCase(Locale.ROOT);
     }
 
     /**
-     * Obtiene el monto maximo configurado para proveedor y banco.
-     *
-     * @param paymentProviderCode codigo del proveedor
-     * @param bankCode codigo de banco o tipo de pago
-     * @return monto maximo configurado si existe
+     * Acumula filas de BD asignando un id entero a cada codigo de banco.
      */
-    public Optional<BigDecimal> findMaximum(Integer paymentProviderCode, String bankCode) {
-        if (paymentProviderCode == null || bankCode == null || bankCode.isBlank()) {
-            return Optional.empty();
+    private static final class CatalogBuilder {
+
+        private final Map<String, Integer> bankIds = new HashMap<>();
+        private final Map<Integer, ProviderBuilder> providers = new HashMap<>();
+
+        private void addBankByChain(Integer providerCode, Integer chain, String bankCode) {
+            if (providerCode == null || chain == null) {
+                return;
+            }
+            provider(providerCode).byChain.computeIfAbsent(chain, value -> new BitSet()).set(bankId(bankCode));
         }
-        return Optional.ofNullable(maximumsByProviderAndBank.get(keyByBank(paymentProviderCode, bankCode)));
-    }
 
-    private Map<String, Set<String>> loadAllowedBanksByChainFromDb() throws Exception {
-        Map<String, Set<String>> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_BANKS_BY_CHAIN);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String bankCode = rs.getString("CODIGO");
-                    Integer providerCode = rs.getInt("CODIGO_BILLETERA_DIGITAL");
-                    if (bankCode == null || bankCode.isBlank()) {
-                        continue;
-                    }
-                    String normalizedBankCode = bankCode.trim();
-                    if ("S".equalsIgnoreCase(rs.getString("CADENA_FYB"))) {
-                        addBankByChain(temp, providerCode, codGeoFyb, normalizedBankCode);
-                    }
-                    if ("S".equalsIgnoreCase(rs.getString("CADENA_SANA"))) {
-                        addBankByChain(temp, providerCode, codGeoSana, normalizedBankCode);
-                    }
-                    if ("S".equalsIgnoreCase(rs.getString("CADENA_OKI"))) {
-                        addBankByChain(temp, providerCode, codGeoOki, normalizedBankCode);
-                    }
-                    if ("S".equalsIgnoreCase(rs.getString("CADENA_FR"))) {
-                        addBankByChain(temp, providerCode, codGeoFr, normalizedBankCode);
-                    }
-                }
+        private boolean addBankByChannel(Integer providerCode, String channel, String bankCode) {
+            if (providerCode == null) {
+                return false;
             }
-        });
-        return immutableCopy(temp);
-    }
+            provider(providerCode).byChannel.computeIfAbsent(normalizeChannel(channel), value -> new BitSet())
+                    .set(bankId(bankCode));
+            return true;
+        }
 
-    private Map<String, Set<String>> loadAllowedBanksByChannelFromDb() throws Exception {
-        Map<String, Set<String>> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_CHANNEL_BANKS);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String channel = rs.getString("CANAL");
-                    String bankCode = rs.getString("ID_BANCO");
-                    Integer providerCode = rs.getInt("ID_PROVEEDOR_PAGO");
-                    if (channel == null || channel.isBlank() || bankCode == null || bankCode.isBlank()) {
-                        continue;
-                    }
-                    addBankByChannel(temp, providerCode, channel, bankCode.trim());
-                }
+        private void addLimits(Integer providerCode, String bankCode, BigDecimal minimum, BigDecimal maximum) {
+            if (providerCode == null || (minimum == null && maximum == null)) {
+                return;
             }
-        });
-        return immutableCopy(temp);
-    }
+            ProviderBuilder provider = provider(providerCode);
+            int bankId = bankId(bankCode);
+            if (minimum != null) {
+                provider.minimums.put(bankId, minimum);
+            }
+            if (maximum != null) {
+                provider.maximums.put(bankId, maximum);
+            }
+        }
 
-    private Map<String, BigDecimal> loadMinimumsFromDb() throws Exception {
-        Map<String, BigDecimal> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_BANKS_BY_CHAIN);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String bankCode = rs.getString("CODIGO");
-                    Integer providerCode = rs.getInt("CODIGO_BILLETERA_DIGITAL");
-                    BigDecimal minimum = rs.getBigDecimal("MINIMO");
-                    if (providerCode == null || bankCode == null || bankCode.isBlank() || minimum == null) {
-                        continue;
-                    }
-                    temp.put(keyByBank(providerCode, bankCode), minimum);
-                }
+        private ProviderBuilder provider(Integer providerCode) {
+            return providers.computeIfAbsent(providerCode, value -> new ProviderBuilder());
+        }
+
+        private int bankId(String bankCode) {
+            Integer existing = bankIds.get(bankCode);
+            if (existing != null) {
+                return existing;
             }
-        });
-        return temp;
+            int id = bankIds.size();
+            bankIds.put(bankCode, id);
+            return id;
+        }
+
+        private BankCatalog build() {
+            Map<String, Integer> ids = Map.copyOf(bankIds);
+            Map<Integer, ProviderBanks> compiled = new HashMap<>();
+            providers.forEach((providerCode, provider) -> compiled.put(providerCode, provider.build(ids)));
+            return new BankCatalog(ids, Map.copyOf(compiled));
+        }
     }
 
-    private Map<String, BigDecimal> loadMaximumsFromDb() throws Exception {
-        Map<String, BigDecimal> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_ACTIVE_BANKS_BY_CHAIN);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    String bankCode = rs.getString("CODIGO");
-                    Integer providerCode = rs.getInt("CODIGO_BILLETERA_DIGITAL");
-                    BigDecimal maximum = rs.getBigDecimal("MAXIMO");
-                    if (providerCode == null || bankCode == null || bankCode.isBlank() || maximum == null) {
-                        continue;
+    private static final class ProviderBuilder {
+
+        private final Map<Integer, BitSet> byChain = new HashMap<>();
+        private final Map<String, BitSet> byChannel = new HashMap<>();
+        private final Map<Integer, BigDecimal> minimums = new HashMap<>();
+        private final Map<Integer, BigDecimal> maximums = new HashMap<>();
+
+        private ProviderBanks build(Map<String, Integer> bankIds) {
+            Map<Integer, Map<String, AllowedBanks>> allowed = new HashMap<>();
+            byChain.forEach((chain, chainBanks) -> {
+                Map<String, AllowedBanks> byChainChannel = new HashMap<>();
+                byChannel.forEach((channel, channelBanks) -> {
+                    BitSet intersection = (BitSet) chainBanks.clone();
+                    intersection.and(channelBanks);
+                    if (!intersection.isEmpty()) {
+                        byChainChannel.put(channel, new AllowedBanks(bankIds, intersection));
                     }
-                    temp.put(keyByBank(providerCode, bankCode), maximum);
+                });
+                if (!byChainChannel.isEmpty()) {
+                    allowed.put(chain, Map.copyOf(byChainChannel));
                 }
+            });
+            return new ProviderBanks(Map.copyOf(allowed), toArray(minimums, bankIds.size()),
+                    toArray(maximums, bankIds.size()));
+        }
+
+        private static BigDecimal[] toArray(Map<Integer, BigDecimal> values, int bankCount) {
+            if (values.isEmpty()) {
+                return null;
             }
-        });
-        return temp;
+            BigDecimal[] array = new BigDecimal[bankCount];
+            values.forEach((bankId, value) -> array[bankId] = value);
+            return array;
+        }
     }
 
-    private Map<String, Set<String>> immutableCopy(Map<String, Set<String>> source) {
-        Map<String, Set<String>> immutable = new HashMap<>();
-        source.forEach((k, v) -> immutable.put(k, Set.copyOf(v)));
-        return immutable;
-    }
+    /**
+     * Bancos permitidos por cadena y canal ya intersectados y montos de un
+     * proveedor indexados por id de banco.
+     */
+    private record ProviderBanks(Map<Integer, Map<String, AllowedBanks>> allowed,
+            BigDecimal[] minimums, BigDecimal[] maximums) implements Serializable {
 
-    private void addBankByChain(Map<String, Set<String>> target, Integer providerCode, Integer chain, String bankCode) {
-        if (providerCode == null || chain == null || bankCode == null || bankCode.isBlank()) {
-            return;
+        private static BigDecimal limit(BigDecimal[] limits, int bankId) {
+            return limits == null || bankId >= limits.length ? null : limits[bankId];
         }
-        String key = keyByChain(providerCode, chain);
-        target.computeIfAbsent(key, value -> new HashSet<>()).add(bankCode);
     }
 
-    private void addBankByChannel(Map<String, Set<String>> target, Integer providerCode, String channel, String bankCode) {
-        if (providerCode == null || channel == null || channel.isBlank() || bankCode == null || bankCode.isBlank()) {
-            return;
+    /**
+     * Catalogo inmutable de bancos permitidos y montos por proveedor. Cada
+     * codigo de banco tiene un id entero y los bancos permitidos de cada
+     * proveedor/cadena/canal son un BitSet calculado al cargar el catalogo.
+     */
+    public static final class BankCatalog implements Serializable {
+
+        private static final long serialVersionUID = 3L;
+
+        private final Map<String, Integer> bankIds;
+        private final Map<Integer, ProviderBanks> providers;
+
+        private BankCatalog(Map<String, Integer> bankIds, Map<Integer, ProviderBanks> providers) {
+            this.bankIds = bankIds;
+            this.providers = providers;
         }
-        String key = keyByChannel(providerCode, channel);
-        target.computeIfAbsent(key, value -> new HashSet<>()).add(bankCode);
-    }
 
-    private String keyByChannel(Integer paymentProviderCode, String channel) {
-        return paymentProviderCode + "|" + normalizeChannel(channel);
-    }
+        /**
+         * Crea un catalogo sin bancos.
+         *
+         * @return catalogo vacio
+         */
+        public static BankCatalog empty() {
+            return new BankCatalog(Map.of(), Map.of());
+        }
 
-    private String keyByChain(Integer paymentProviderCode, Integer chain) {
-        return paymentProviderCode + "|" + chain;
-    }
+        /**
+         * Obtiene los bancos activos por proveedor, cadena y canal.
+         *
+         * @param paymentProviderCode codigo de proveedor de pago
+         * @param chain cadena solicitada
+         * @param channelPos canal del request
+         * @return bancos permitidos; vacio si falta algun dato
+         */
+        public AllowedBanks findAllowedBanks(Integer paymentProviderCode, Integer chain, String channelPos) {
+            if (paymentProviderCode == null || chain == null || channelPos == null || channelPos.isBlank()) {
+                return AllowedBanks.NONE;
+            }
+            ProviderBanks provider = providers.get(paymentProviderCode);
+            Map<String, AllowedBanks> byChannel = provider == null ? null : provider.allowed().get(chain);
+            AllowedBanks allowed = byChannel == null ? null : byChannel.get(normalizeChannel(channelPos));
+            return allowed == null ? AllowedBanks.NONE : allowed;
+        }
 
-    private String keyByBank(Integer paymentProviderCode, String bankCode) {
-        return paymentProviderCode + "|" + bankCode.trim();
-    }
+        /**
+         * Obtiene el monto minimo configurado para proveedor y banco.
+         *
+         * @param paymentProviderCode codigo del proveedor
+         * @param bankCode codigo de banco o tipo de pago
+         * @return monto minimo configurado si existe
+         */
+        public Optional<BigDecimal> findMinimum(Integer paymentProviderCode, String bankCode) {
+            return findLimit(paymentProviderCode, bankCode, true);
+        }
 
-    private String normalizeChannel(String channel) {
-        return channel.trim().toUpperCase(Locale.ROOT);
+        /**
+         * Obtiene el monto maximo configurado para proveedor y banco.
+         *
+         * @param paymentProviderCode codigo del proveedor
+         * @param bankCode codigo de banco o tipo de pago
+         * @return monto maximo configurado si existe
+         */
+        public Optional<BigDecimal> findMaximum(Integer paymentProviderCode, String bankCode) {
+            return findLimit(paymentProviderCode, bankCode, false);
+        }
+
+        /**
+         * Cantidad de codigos de banco distintos en el catalogo.
+         *
+         * @return bancos indexados
+         */
+        public int bankCount() {
+            return bankIds.size();
+        }
+
+        /**
+         * Cantidad de combinaciones proveedor/cadena/canal con bancos permitidos.
+         *
+         * @return combinaciones precalculadas
+         */
+        public int combinationCount() {
+            return providers.values().stream()
+                    .mapToInt(provider -> provider.allowed().values().stream().mapToInt(Map::size).sum())
+                    .sum();
+        }
+
+        /**
+         * Memoria aproximada de los BitSet precalculados.
+         *
+         * @return bytes de los BitSet
+         */
+        public long indexBytes() {
+            return providers.values().stream()
+                    .flatMap(provider -> provider.allowed().values().stream())
+                    .flatMap(byChannel -> byChannel.values().stream())
+                    .mapToLong(allowed -> allowed.banks.size() / Byte.SIZE)
+                    .sum();
+        }
+
+        private Optional<BigDecimal> findLimit(Integer paymentProviderCode, String bankCode, boolean minimum) {
+            if (paymentProviderCode == null || bankCode == null || bankCode.isBlank()) {
+                return Optional.empty();
+            }
+            ProviderBanks provider = providers.get(paymentProviderCode);
+            Integer bankId = bankIds.get(bankCode.trim());
+            if (provider == null || bankId == null) {
+                return Optional.empty();
+            }
+            BigDecimal[] limits = minimum ? provider.minimums() : provider.maximums();
+            return Optional.ofNullable(ProviderBanks.limit(limits, bankId));
+        }
     }
 
+    /**
+     * Bancos permitidos para un proveedor, cadena y canal.
+     */
+    public static final class AllowedBanks implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private static final AllowedBanks NONE = new AllowedBanks(Map.of(), new BitSet());
+
+        private final Map<String, Integer> bankIds;
+        private final BitSet banks;
+
+        private AllowedBanks(Map<String, Integer> bankIds, BitSet banks) {
+            this.bankIds = bankIds;
+            this.banks = banks;
+        }
+
+        /**
+         * Indica si el banco esta permitido por cadena y canal.
+         *
+         * @param bankCode codigo de banco del proveedor
+         * @return true cuando el banco esta permitido
+         */
+        public boolean contains(String bankCode) {
+            if (bankCode == null) {
+                return false;
+            }
+            Integer bankId = bankIds.get(bankCode.trim());
+            return bankId != null && banks.get(bankId);
+        }
+
+        /**
+         * Indica si no hay bancos permitidos.
+         *
+         * @return true cuando ningun banco esta permitido
+         */
+        public boolean isEmpty() {
+            return banks.isEmpty();
+        }
+    }
 }
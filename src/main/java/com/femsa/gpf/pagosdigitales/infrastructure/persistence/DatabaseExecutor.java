@@ -1,26 +1,48 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
 import org.springframework.stereotype.Component;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayObservations;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+
+import io.micrometer.observation.ObservationRegistry;
+
+import lombok.extern.log4j.Log4j2;
+
 /**
- * Componente centralizado para administrar conexiones JDBC.
+ * Componente centralizado para administrar conexiones JDBC y ejecutar consultas
+ * con nombre, fetch size y timeout. Cada consulta se registra como observacion
+ * {@code pagosdigitales.db.query}, que da la latencia por consulta en metricas
+ * y trazas del request.
  */
+@Log4j2
 @Component
 public class DatabaseExecutor {
 
     private final DataSource dataSource;
+    private final DatabaseExecutionProperties properties;
+    private final ObservationRegistry observationRegistry;
 
     /**
-     * Crea el ejecutor con el datasource de la aplicacion.
+     * Crea el ejecutor con el datasource, las propiedades y el registro de observaciones.
      *
      * @param dataSource datasource JDBC
+     * @param properties propiedades de timeout y consultas lentas
+     * @param observationRegistry registro de observaciones para trazas
      */
-    public DatabaseExecutor(DataSource dataSource) {
+    public DatabaseExecutor(DataSource dataSource, DatabaseExecutionProperties properties,
+            ObservationRegistry observationRegistry) {
         this.dataSource = dataSource;
+        this.properties = properties;
+        this.observationRegistry = observationRegistry;
     }
 
     /**
@@ -50,6 +72,121 @@ public class DatabaseExecutor {
         });
     }
 
+    /**
+     * Ejecuta una consulta con nombre en una conexion propia.
+     *
+     * @param <T> tipo de retorno
+     * @param query consulta con nombre
+     * @param callback logica a ejecutar con el statement preparado
+     * @return resultado de la operacion
+     * @throws Exception cuando ocurre un error JDBC o de negocio
+     */
+    public <T> T execute(NamedQuery query, StatementCallback<T> callback) throws Exception {
+        return withConnection((ConnectionCallback<T>) connection -> execute(connection, query, callback));
+    }
+
+    /**
+     * Ejecuta una consulta con nombre sobre una conexion ya abierta.
+     *
+     * @param <T> tipo de retorno
+     * @param connection conexion abierta
+     * @param query consulta con nombre
+     * @param callback logica a ejecutar con el statement preparado
+     * @return resultado de la operacion
+     * @throws Exception cuando ocurre un error JDBC o de negocio
+     */
+    public <T> T execute(Connection connection, NamedQuery query, StatementCallback<T> callback) throws Exception {
+        return GatewayObservations.dbQuery(observationRegistry, query.name())
+                .observeChecked(() -> executeStatement(connection, query, callback));
+    }
+
+    private <T> T executeStatement(Connection connection, NamedQuery query, StatementCallback<T> callback)
+            throws Exception {
+        long startedAt = System.nanoTime();
+        boolean failed = true;
+        try (PreparedStatement ps = connection.prepareStatement(query.sql())) {
+            if (query.fetchSize() > 0) {
+                ps.setFetchSize(query.fetchSize());
+            }
+            ps.setQueryTimeout(query.timeoutSeconds() > 0 ? query.timeoutSeconds() : properties.getQueryTimeoutSeconds());
+            T result = callback.execute(ps);
+            failed = false;
+            return result;
+        } finally {
+            long elapsedNanos = System.nanoTime() - startedAt;
+            logIfSlow(query, elapsedNanos, failed);
+            RequestStopwatch.add(RequestStopwatch.Stage.DB, elapsedNanos);
+        }
+    }
+
+    /**
+     * Ejecuta una consulta con nombre y procesa cada fila del resultado.
+     *
+     * @param query consulta con nombre
+     * @param rowCallback logica por fila
+     * @throws Exception cuando ocurre un error JDBC o de negocio
+     */
+    public void forEachRow(NamedQuery query, RowCallback rowCallback) throws Exception {
+        execute(query, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rowCallback.accept(rs);
+                }
+            }
+            return null;
+        });
+    }
+
+    private void logIfSlow(NamedQuery query, long elapsedNanos, boolean failed) {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMs >= properties.getSlowQueryThresholdMs()) {
+            log.warn("Consulta lenta {}: {} ms (umbral {} ms){}", query.name(), elapsedMs,
+                    properties.getSlowQueryThresholdMs(), failed ? " con error" : "");
+        }
+    }
+
+    /**
+     * Consulta SQL identificada por nombre con su fetch size y timeout.
+     *
+     * @param name nombre usado en metricas y log de consultas lentas
+     * @param sql sentencia SQL
+     * @param fetchSize filas por ida a BD; 0 usa el valor del driver
+     * @param timeoutSeconds timeout de la consulta; 0 usa el valor por defecto
+     */
+    public record NamedQuery(String name, String sql, int fetchSize, int timeoutSeconds) {
+
+        /**
+         * Crea una consulta con fetch size y timeout por defecto.
+         *
+         * @param name nombre de la consulta
+         * @param sql sentencia SQL
+         * @return consulta con nombre
+         */
+        public static NamedQuery of(String name, String sql) {
+            return new NamedQuery(name, sql, 0, 0);
+        }
+
+        /**
+         * Crea una copia con el fetch size indicado.
+         *
+         * @param rows filas por ida a BD
+         * @return consulta con nombre
+         */
+        public NamedQuery withFetchSize(int rows) {
+            return new NamedQuery(name, sql, rows, timeoutSeconds);
+        }
+
+        /**
+         * Crea una copia con el timeout indicado.
+         *
+         * @param seconds timeout en segundos
+         * @return consulta con nombre
+         */
+        public NamedQuery withTimeoutSeconds(int seconds) {
+            return new NamedQuery(name, sql, fetchSize, seconds);
+        }
+    }
+
     @FunctionalInterface
     public interface ConnectionCallback<T> {
         T execute(Connection connection) throws Exception;
@@ -59,4 +196,14 @@ public class DatabaseExecutor {
     public interface ConnectionConsumer {
         void execute(Connection connection) throws Exception;
     }
+
+    @FunctionalInterface
+    public interface StatementCallback<T> {
+        T execute(PreparedStatement statement) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface RowCallback {
+        void accept(ResultSet resultSet) throws Exception;
+    }
 }
@@ -1,21 +1,21 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
-import java.sql.PreparedStatement;
+import java.io.Serializable;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInfo;
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInnerDetail;
 
-import jakarta.annotation.PostConstruct;
 import lombok.extern.log4j.Log4j2;
 
 /**
@@ -25,13 +25,15 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class ErrorMappingCatalogService {
 
-    private static final String SELECT_ERROR_MAPPINGS = "SELECT HTTP_STATUS, ERROR_CATEGORY, "
-            + "INNER_DETAILS_FIELD_MESSAGE, INNER_DETAILS_FIELD_MESSAGE_ES, CURRENT_ERROR_CODE, "
-            + "CURRENT_ERROR_MESSAGE, CURRENT_ERROR_MESSAGE_ES "
-            + "FROM TUKUNAFUNC.AD_MAPEO_ERRORES";
+    private static final DatabaseExecutor.NamedQuery SELECT_ERROR_MAPPINGS = DatabaseExecutor.NamedQuery.of(
+            "error-mappings",
+            "SELECT HTTP_STATUS, ERROR_CATEGORY, "
+                    + "INNER_DETAILS_FIELD_MESSAGE, INNER_DETAILS_FIELD_MESSAGE_ES, CURRENT_ERROR_CODE, "
+                    + "CURRENT_ERROR_MESSAGE, CURRENT_ERROR_MESSAGE_ES "
+                    + "FROM TUKUNAFUNC.AD_MAPEO_ERRORES")
+            .withFetchSize(500);
 
     private final DatabaseExecutor databaseExecutor;
-    private volatile ErrorCatalog catalog = ErrorCatalog.empty();
 
     /**
      * Crea el servicio con configuracion de conexion.
@@ -43,152 +45,28 @@ public class ErrorMappingCatalogService {
     }
 
     /**
-     * Inicializa cache al arranque.
-     */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
-    }
-
-    /**
-     * Refresca la cache del catalogo cada 6 horas.
-     */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
-        try {
-            List<ErrorMappingEntry> loaded = loadMappingsFromDb();
-            this.catalog = ErrorCatalog.of(loaded);
-            log.info("Cache de AD_MAPEO_ERRORES actualizada. Registros cargados: {}", loaded.size());
-        } catch (Exception e) {
-            log.error("No fue posible refrescar cache AD_MAPEO_ERRORES. Se conserva cache anterior.", e);
-        }
-    }
-
-    /**
-     * Aplica el catalogo de mapeo a un error de proveedor.
-     * Prioriza mensaje en espanol; si no existe, usa mensaje en ingles.
-     *
-     * @param providerError error recibido del proveedor
-     * @return error normalizado con mapeo aplicado
-     */
-    public ErrorInfo mapProviderError(ErrorInfo providerError) {
-        if (providerError == null) {
-            return null;
-        }
-
-        ErrorMappingEntry topLevelEntry = resolveTopLevelMapping(providerError);
-        ErrorInfo mapped = new ErrorInfo();
-        mapped.setHttp_code(topLevelEntry != null && topLevelEntry.httpStatus() != null
-                ? topLevelEntry.httpStatus()
-                : providerError.getHttp_code());
-        mapped.setCode(resolveCode(providerError.getCode(), topLevelEntry));
-        mapped.setCategory(resolvePreferredValue(
-                topLevelEntry == null ? null : topLevelEntry.errorCategory(),
-                providerError.getCategory()));
-        mapped.setMessage(resolvePreferredValue(
-                topLevelEntry == null ? null : topLevelEntry.currentErrorMessageEs(),
-                topLevelEntry == null ? null : topLevelEntry.currentErrorMessageEn(),
-                providerError.getMessage()));
-        mapped.setInformation_link(providerError.getInformation_link());
-        mapped.setInner_details(mapInnerDetails(providerError.getInner_details(), mapped.getCategory()));
-        return mapped;
-    }
-
-    /**
-     * Construye un error normalizado a partir del codigo actual configurado en catalogo.
+     * Carga el catalogo de mapeo de errores desde BD.
      *
-     * @param currentErrorCode codigo actual de error
-     * @return error normalizado si existe en catalogo
+     * @return catalogo inmutable de errores
+     * @throws Exception si falla la consulta
      */
-    public ErrorInfo buildErrorByCurrentCode(long currentErrorCode) {
-        ErrorMappingEntry entry = catalog.findByCode(currentErrorCode);
-        if (entry == null) {
-            return null;
-        }
-
-        ErrorInfo error = new ErrorInfo();
-        error.setHttp_code(entry.httpStatus());
-        error.setCode(String.valueOf(entry.currentErrorCode()));
-        error.setCategory(entry.errorCategory());
-        error.setMessage(resolvePreferredValue(entry.currentErrorMessageEs(), entry.currentErrorMessageEn()));
-        error.setInformation_link(null);
-        error.setInner_details(buildDefaultInnerDetails(entry));
-        return error;
-    }
-
-    private List<ErrorInnerDetail> buildDefaultInnerDetails(ErrorMappingEntry entry) {
-        String fieldMessage = resolvePreferredValue(entry.innerDetailsMessageEs(), entry.innerDetailsMessageEn());
-        if (fieldMessage == null) {
-            return Collections.emptyList();
-        }
-
-        ErrorInnerDetail detail = new ErrorInnerDetail();
-        detail.setInner_code(entry.currentErrorCode() == null ? null : String.valueOf(entry.currentErrorCode()));
-        detail.setField(null);
-        detail.setField_value(null);
-        detail.setField_message(fieldMessage);
-        return List.of(detail);
-    }
-
-    private List<ErrorInnerDetail> mapInnerDetails(List<ErrorInnerDetail> details, String category) {
-        if (details == null) {
-            return null;
-        }
-
-        List<ErrorInnerDetail> mapped = new ArrayList<>(details.size());
-        for (ErrorInnerDetail detail : details) {
-            if (detail == null) {
-                mapped.add(null);
-                continue;
-            }
-            ErrorMappingEntry entry = catalog.findByInnerMessage(category, detail.getField_message());
-            ErrorInnerDetail mappedDetail = new ErrorInnerDetail();
-            mappedDetail.setInner_code(detail.getInner_code());
-            mappedDetail.setField(detail.getField());
-            mappedDetail.setField_value(detail.getField_value());
-            mappedDetail.setField_message(resolvePreferredValue(
-                    entry == null ? null : entry.innerDetailsMessageEs(),
-                    entry == null ? null : entry.innerDetailsMessageEn(),
-                    detail.getField_message()));
-            mapped.add(mappedDetail);
-        }
-        return mapped;
-    }
-
-    private ErrorMappingEntry resolveTopLevelMapping(ErrorInfo providerError) {
-        Long code = parseCode(providerError.getCode());
-        if (code != null) {
-            ErrorMappingEntry byCode = catalog.findByCode(code);
-            if (byCode != null) {
-                return byCode;
-            }
-        }
-        return catalog.findByCurrentMessage(providerError.getCategory(), providerError.getMessage());
-    }
-
-    private String resolveCode(String originalCode, ErrorMappingEntry topLevelEntry) {
-        if (topLevelEntry == null || topLevelEntry.currentErrorCode() == null) {
-            return originalCode;
-        }
-        return String.valueOf(topLevelEntry.currentErrorCode());
+    public ErrorCatalog loadCatalog() throws Exception {
+        List<ErrorMappingEntry> loaded = loadMappingsFromDb();
+        log.info("Catalogo AD_MAPEO_ERRORES cargado. Registros cargados: {}", loaded.size());
+        return ErrorCatalog.of(loaded);
     }
 
     private List<ErrorMappingEntry> loadMappingsFromDb() throws Exception {
         List<ErrorMappingEntry> entries = new ArrayList<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_ERROR_MAPPINGS);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    entries.add(new ErrorMappingEntry(
-                            readInteger(rs, "HTTP_STATUS"),
-                            trimToNull(rs.getString("ERROR_CATEGORY")),
-                            trimToNull(rs.getString("INNER_DETAILS_FIELD_MESSAGE")),
-                            trimToNull(rs.getString("INNER_DETAILS_FIELD_MESSAGE_ES")),
-                            readLong(rs, "CURRENT_ERROR_CODE"),
-                            trimToNull(rs.getString("CURRENT_ERROR_MESSAGE")),
-                            trimToNull(rs.getString("CURRENT_ERROR_MESSAGE_ES"))));
-                }
-            }
+        databaseExecutor.forEachRow(SELECT_ERROR_MAPPINGS, rs -> {
+            entries.add(new ErrorMappingEntry(
+                    readInteger(rs, "HTTP_STATUS"),
+                    trimToNull(rs.getString("ERROR_CATEGORY")),
+                    trimToNull(rs.getString("INNER_DETAILS_FIELD_MESSAGE")),
+                    trimToNull(rs.getString("INNER_DETAILS_FIELD_MESSAGE_ES")),
+                    readLong(rs, "CURRENT_ERROR_CODE"),
+                    trimToNull(rs.getString("CURRENT_ERROR_MESSAGE")),
+                    trimToNull(rs.getString("CURRENT_ERROR_MESSAGE_ES"))));
         });
         return entries;
     }
@@ -203,9 +81,9 @@ public class ErrorMappingCatalogService {
         return value == null ? null : value.longValue();
     }
 
-    private Long parseCode(String code) {
+    private static Long parseCode(String code) {
         String sanitized = trimToNull(code);
-        if (sanitized == null || !sanitized.matches("\\d+")) {
+        if (sanitized == null || !isDigits(sanitized)) {
             return null;
         }
         try {
@@ -215,7 +93,17 @@ public class ErrorMappingCatalogService {
         }
     }
 
-    private String resolvePreferredValue(String... candidates) {
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String resolvePreferredValue(String... candidates) {
         if (candidates == null) {
             return null;
         }
@@ -233,7 +121,21 @@ public class ErrorMappingCatalogService {
         if (value == null) {
             return null;
         }
-        return value.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(value.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                pendingSpace = true;
+                continue;
+            }
+            if (pendingSpace) {
+                normalized.append(' ');
+                pendingSpace = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
     }
 
     private static String trimToNull(String value) {
@@ -262,16 +164,27 @@ public class ErrorMappingCatalogService {
             String innerDetailsMessageEs,
             Long currentErrorCode,
             String currentErrorMessageEn,
-            String currentErrorMessageEs) {
+            String currentErrorMessageEs) implements Serializable {
     }
 
-    private static final class ErrorCatalog {
+    /**
+     * Catalogo inmutable de mapeo de errores indexado por codigo y mensaje.
+     * La resolucion de nivel superior de cada error de proveedor (http_code,
+     * code, category y mensaje normalizado) se guarda en un LRU mientras el
+     * catalogo este vigente; un refresco crea un catalogo nuevo sin ella. Los
+     * campos propios de cada request se copian en cada llamada.
+     */
+    public static final class ErrorCatalog implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private static final int MAX_MEMO_ENTRIES = 1024;
 
         private final Map<Long, ErrorMappingEntry> byCode;
         private final Map<String, ErrorMappingEntry> byCurrentMessageByCategory;
         private final Map<String, ErrorMappingEntry> byCurrentMessage;
         private final Map<String, ErrorMappingEntry> byInnerMessageByCategory;
         private final Map<String, ErrorMappingEntry> byInnerMessage;
+        private final transient Map<ProviderErrorKey, TopLevelMapping> mappedErrors = newMemo();
 
         private ErrorCatalog(Map<Long, ErrorMappingEntry> byCode,
                 Map<String, ErrorMappingEntry> byCurrentMessageByCategory,
@@ -285,11 +198,38 @@ public class ErrorMappingCatalogService {
             this.byInnerMessage = byInnerMessage;
         }
 
-        static ErrorCatalog empty() {
+        /**
+         * Crea un catalogo sin mapeos.
+         *
+         * @return catalogo vacio
+         */
+        public static ErrorCatalog empty() {
             return new ErrorCatalog(Map.of(), Map.of(), Map.of(), Map.of(), Map.of());
         }
 
-        static ErrorCatalog of(List<ErrorMappingEntry> entries) {
+        /**
+         * Cantidad de registros del catalogo. Un registro puede estar en
+         * varios indices; se cuenta una vez.
+         *
+         * @return registros cargados
+         */
+        public int size() {
+            Set<ErrorMappingEntry> entries = Collections.newSetFromMap(new IdentityHashMap<>());
+            entries.addAll(byCode.values());
+            entries.addAll(byCurrentMessageByCategory.values());
+            entries.addAll(byCurrentMessage.values());
+            entries.addAll(byInnerMessageByCategory.values());
+            entries.addAll(byInnerMessage.values());
+            return entries.size();
+        }
+
+        /**
+         * Crea el catalogo indexando los registros recibidos.
+         *
+         * @param entries registros de mapeo
+         * @return catalogo inmutable
+         */
+        public static ErrorCatalog of(List<ErrorMappingEntry> entries) {
             Map<Long, ErrorMappingEntry> byCode = new LinkedHashMap<>();
             Map<String, ErrorMappingEntry> byCurrentMessageByCategory = new LinkedHashMap<>();
             Map<String, ErrorMappingEntry> byCurrentMessage = new LinkedHashMap<>();
@@ -327,6 +267,142 @@ public class ErrorMappingCatalogService {
                     Collections.unmodifiableMap(byInnerMessage));
         }
 
+        /**
+         * Aplica el catalogo de mapeo a un error de proveedor.
+         * Prioriza mensaje en espanol; si no existe, usa mensaje en ingles.
+         *
+         * @param providerError error recibido del proveedor
+         * @return error normalizado con mapeo aplicado
+         */
+        public ErrorInfo mapProviderError(ErrorInfo providerError) {
+            if (providerError == null) {
+                return null;
+            }
+            ProviderErrorKey key = ProviderErrorKey.of(providerError);
+            TopLevelMapping topLevel = mappedErrors.get(key);
+            if (topLevel == null) {
+                topLevel = mapTopLevel(providerError);
+                mappedErrors.put(key, topLevel);
+            }
+            ErrorInfo mapped = new ErrorInfo();
+            mapped.setHttp_code(topLevel.httpCode());
+            mapped.setCode(topLevel.code());
+            mapped.setCategory(topLevel.category());
+            mapped.setMessage(resolvePreferredValue(topLevel.message(), providerError.getMessage()));
+            mapped.setInformation_link(providerError.getInformation_link());
+            mapped.setInner_details(mapInnerDetails(providerError.getInner_details(), mapped.getCategory()));
+            return mapped;
+        }
+
+        private TopLevelMapping mapTopLevel(ErrorInfo providerError) {
+            ErrorMappingEntry topLevelEntry = resolveTopLevelMapping(providerError);
+            return new TopLevelMapping(
+                    topLevelEntry != null && topLevelEntry.httpStatus() != null
+                            ? topLevelEntry.httpStatus()
+                            : providerError.getHttp_code(),
+                    resolveCode(providerError.getCode(), topLevelEntry),
+                    resolvePreferredValue(
+                            topLevelEntry == null ? null : topLevelEntry.errorCategory(),
+                            providerError.getCategory()),
+                    topLevelEntry == null
+                            ? null
+                            : resolvePreferredValue(topLevelEntry.currentErrorMessageEs(),
+                                    topLevelEntry.currentErrorMessageEn()));
+        }
+
+        private static Map<ProviderErrorKey, TopLevelMapping> newMemo() {
+            return Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ProviderErrorKey, TopLevelMapping> eldest) {
+                    return size() > MAX_MEMO_ENTRIES;
+                }
+            });
+        }
+
+        /**
+         * Construye un error normalizado a partir del codigo actual configurado en catalogo.
+         *
+         * @param currentErrorCode codigo actual de error
+         * @return error normalizado si existe en catalogo
+         */
+        public ErrorInfo buildErrorByCurrentCode(long currentErrorCode) {
+            ErrorMappingEntry entry = findByCode(currentErrorCode);
+            if (entry == null) {
+                return null;
+            }
+
+            ErrorInfo error = new ErrorInfo();
+            error.setHttp_code(entry.httpStatus());
+            error.setCode(String.valueOf(entry.currentErrorCode()));
+            error.setCategory(entry.errorCategory());
+            error.setMessage(resolvePreferredValue(entry.currentErrorMessageEs(), entry.currentErrorMessageEn()));
+            error.setInformation_link(null);
+            error.setInner_details(buildDefaultInnerDetails(entry));
+            return error;
+        }
+
+        private Object readResolve() {
+            return new ErrorCatalog(byCode, byCurrentMessageByCategory, byCurrentMessage, byInnerMessageByCategory,
+                    byInnerMessage);
+        }
+
+        private List<ErrorInnerDetail> buildDefaultInnerDetails(ErrorMappingEntry entry) {
+            String fieldMessage = resolvePreferredValue(entry.innerDetailsMessageEs(), entry.innerDetailsMessageEn());
+            if (fieldMessage == null) {
+                return Collections.emptyList();
+            }
+
+            ErrorInnerDetail detail = new ErrorInnerDetail();
+            detail.setInner_code(entry.currentErrorCode() == null ? null : String.valueOf(entry.currentErrorCode()));
+            detail.setField(null);
+            detail.setField_value(null);
+            detail.setField_message(fieldMessage);
+            return List.of(detail);
+        }
+
+        private List<ErrorInnerDetail> mapInnerDetails(List<ErrorInnerDetail> details, String category) {
+            if (details == null) {
+                return null;
+            }
+
+            List<ErrorInnerDetail> mapped = new ArrayList<>(details.size());
+            for (ErrorInnerDetail detail : details) {
+                if (detail == null) {
+                    mapped.add(null);
+                    continue;
+                }
+                ErrorMappingEntry entry = findByInnerMessage(category, detail.getField_message());
+                ErrorInnerDetail mappedDetail = new ErrorInnerDetail();
+                mappedDetail.setInner_code(detail.getInner_code());
+                mappedDetail.setField(detail.getField());
+                mappedDetail.setField_value(detail.getField_value());
+                mappedDetail.setField_message(resolvePreferredValue(
+                        entry == null ? null : entry.innerDetailsMessageEs(),
+                        entry == null ? null : entry.innerDetailsMessageEn(),
+                        detail.getField_message()));
+                mapped.add(mappedDetail);
+            }
+            return mapped;
+        }
+
+        private ErrorMappingEntry resolveTopLevelMapping(ErrorInfo providerError) {
+            Long code = parseCode(providerError.getCode());
+            if (code != null) {
+                ErrorMappingEntry byCode = findByCode(code);
+                if (byCode != null) {
+                    return byCode;
+                }
+            }
+            return findByCurrentMessage(providerError.getCategory(), providerError.getMessage());
+        }
+
+        private String resolveCode(String originalCode, ErrorMappingEntry topLevelEntry) {
+            if (topLevelEntry == null || topLevelEntry.currentErrorCode() == null) {
+                return originalCode;
+            }
+            return String.valueOf(topLevelEntry.currentErrorCode());
+        }
+
         ErrorMappingEntry findByCode(Long code) {
             if (code == null) {
                 return null;
@@ -364,4 +440,25 @@ public class ErrorMappingCatalogService {
             return byInnerMessage.get(messageKey);
         }
     }
+
+    /**
+     * Campos de un error de proveedor que determinan el mapeo de nivel
+     * superior. Los valores propios del request (link de informacion y detalle
+     * interno) quedan fuera para que una tormenta de errores con valores
+     * distintos reutilice la misma entrada.
+     */
+    private record ProviderErrorKey(Integer httpCode, String code, String category, String message) {
+
+        private static ProviderErrorKey of(ErrorInfo error) {
+            return new ProviderErrorKey(error.getHttp_code(), error.getCode(), trimToNull(error.getCategory()),
+                    normalizeText(error.getMessage()));
+        }
+    }
+
+    /**
+     * Resultado del mapeo de nivel superior; {@code message} es null cuando no
+     * hay mensaje configurado y se conserva el del proveedor.
+     */
+    private record TopLevelMapping(Integer httpCode, String code, String category, String message) {
+    }
 }
@@ -0,0 +1,84 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Lee la bitacora de cambios de configuracion de pasarela (IN_PASARELA_CAMBIOS).
+ * Cada alta o modificacion en las tablas de configuracion registra una fila con
+ * la tabla afectada.
+ */
+@Service
+public class GatewayConfigChangeLogService {
+
+    private static final DatabaseExecutor.NamedQuery SELECT_LATEST_CHANGE = DatabaseExecutor.NamedQuery.of(
+            "gateway-config-latest-change",
+            "SELECT NVL(MAX(ID_CAMBIO), 0) FROM TUKUNAFUNC.IN_PASARELA_CAMBIOS")
+            .withTimeoutSeconds(5);
+
+    private static final DatabaseExecutor.NamedQuery SELECT_CHANGES_SINCE = DatabaseExecutor.NamedQuery.of(
+            "gateway-config-changes-since",
+            "SELECT ID_CAMBIO, TABLA "
+                    + "FROM TUKUNAFUNC.IN_PASARELA_CAMBIOS "
+                    + "WHERE ID_CAMBIO > ? "
+                    + "ORDER BY ID_CAMBIO")
+            .withFetchSize(100)
+            .withTimeoutSeconds(5);
+
+    private final DatabaseExecutor databaseExecutor;
+
+    /**
+     * Crea el servicio con configuracion de conexion.
+     *
+     * @param databaseExecutor ejecutor global de conexiones JDBC
+     */
+    public GatewayConfigChangeLogService(DatabaseExecutor databaseExecutor) {
+        this.databaseExecutor = databaseExecutor;
+    }
+
+    /**
+     * Obtiene el ultimo cambio registrado.
+     *
+     * @return id del ultimo cambio o 0 si no hay cambios
+     * @throws Exception cuando ocurre un error JDBC
+     */
+    public long findLatestChangeId() throws Exception {
+        return databaseExecutor.execute(SELECT_LATEST_CHANGE, ps -> {
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        });
+    }
+
+    /**
+     * Obtiene los cambios registrados despues del id indicado en orden de registro.
+     *
+     * @param changeId ultimo cambio ya procesado
+     * @return cambios posteriores
+     * @throws Exception cuando ocurre un error JDBC
+     */
+    public List<ConfigChange> findChangesSince(long changeId) throws Exception {
+        return databaseExecutor.execute(SELECT_CHANGES_SINCE, ps -> {
+            ps.setLong(1, changeId);
+            List<ConfigChange> changes = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new ConfigChange(rs.getLong("ID_CAMBIO"), rs.getString("TABLA")));
+                }
+            }
+            return changes;
+        });
+    }
+
+    /**
+     * Cambio registrado en la bitacora.
+     *
+     * @param id id del cambio
+     * @param table tabla de configuracion afectada
+     */
+    public record ConfigChange(long id, String table) {
+    }
+}
@@ -1,18 +1,17 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.Serializable;
 import java.sql.SQLSyntaxErrorException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import lombok.extern.log4j.Log4j2;
 
 /**
@@ -22,15 +21,20 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class GatewayWebServiceConfigService {
 
-    private static final String SELECT_WS_CONFIG_URL = "SELECT CODIGO_BILLETERA, WS_KEY, ENABLED, "
-            + "TIPO_CONEXION, METODO_HTTP, TIPO_REQUEST, URL AS SERVICE_URI "
-            + "FROM TUKUNAFUNC.IN_PASARELA_WS";
-    private static final String SELECT_WS_CONFIG_URI = "SELECT CODIGO_BILLETERA, WS_KEY, ENABLED, "
-            + "TIPO_CONEXION, METODO_HTTP, TIPO_REQUEST, URI AS SERVICE_URI "
-            + "FROM TUKUNAFUNC.IN_PASARELA_WS";
+    private static final DatabaseExecutor.NamedQuery SELECT_WS_CONFIG_URL = DatabaseExecutor.NamedQuery.of(
+            "gateway-ws-config",
+            "SELECT CODIGO_BILLETERA, WS_KEY, ENABLED, "
+                    + "TIPO_CONEXION, METODO_HTTP, TIPO_REQUEST, URL AS SERVICE_URI "
+                    + "FROM TUKUNAFUNC.IN_PASARELA_WS")
+            .withFetchSize(500);
+    private static final DatabaseExecutor.NamedQuery SELECT_WS_CONFIG_URI = DatabaseExecutor.NamedQuery.of(
+            "gateway-ws-config-uri",
+            "SELECT CODIGO_BILLETERA, WS_KEY, ENABLED, "
+                    + "TIPO_CONEXION, METODO_HTTP, TIPO_REQUEST, URI AS SERVICE_URI "
+                    + "FROM TUKUNAFUNC.IN_PASARELA_WS")
+            .withFetchSize(500);
 
     private final DatabaseExecutor databaseExecutor;
-    private volatile Map<Integer, Map<String, WebServiceConfig>> configByProvider = Map.of();
 
     /**
      * Crea el servicio con configuracion de conexion.
@@ -42,64 +46,15 @@ public class GatewayWebServiceConfigService {
     }
 
     /**
-     * Inicializa cache al arranque.
-     */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
-    }
-
-    /**
-     * Refresca la cache de configuracion cada 6 horas.
-     */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
-        try {
-            Map<Integer, Map<String, WebServiceConfig>> loaded = loadConfigFromDb();
-            this.configByProvider = Map.copyOf(loaded);
-            log.info("Cache de IN_PASARELA_WS actualizada. Proveedores con servicios: {}", loaded.size());
-        } catch (Exception e) {
-            log.error("No fue posible refrescar cache IN_PASARELA_WS. Se conserva cache anterior.", e);
-        }
-    }
-
-    /**
-     * Obtiene la configuracion activa de un servicio por proveedor y ws_key.
+     * Carga el catalogo de web services por proveedor desde BD.
      *
-     * @param providerCode codigo de billetera
-     * @param wsKey identificador del web service
-     * @return configuracion activa si existe
+     * @return catalogo inmutable de web services
+     * @throws Exception si falla la consulta
      */
-    public Optional<WebServiceConfig> getActiveConfig(Integer providerCode, String wsKey) {
-        if (providerCode == null || wsKey == null || wsKey.isBlank()) {
-            return Optional.empty();
-        }
-        Map<String, WebServiceConfig> byWsKey = configByProvider.get(providerCode);
-        if (byWsKey == null) {
-            return Optional.empty();
-        }
-        WebServiceConfig config = byWsKey.get(normalizeWsKey(wsKey));
-        if (config == null || !config.enabled()) {
-            return Optional.empty();
-        }
-        if (!"REST".equalsIgnoreCase(config.connectionType())) {
-            return Optional.empty();
-        }
-        if (config.method() == null || config.method().isBlank() || config.uri() == null || config.uri().isBlank()) {
-            return Optional.empty();
-        }
-        return Optional.of(config);
-    }
-
-    /**
-     * Indica si el servicio esta activo para un proveedor.
-     *
-     * @param providerCode codigo de billetera
-     * @param wsKey identificador del web service
-     * @return true si existe configuracion activa
-     */
-    public boolean isActive(Integer providerCode, String wsKey) {
-        return getActiveConfig(providerCode, wsKey).isPresent();
+    public WebServiceCatalog loadCatalog() throws Exception {
+        Map<Integer, Map<String, WebServiceConfig>> loaded = loadConfigFromDb();
+        log.info("Catalogo IN_PASARELA_WS cargado. Proveedores con servicios: {}", loaded.size());
+        return new WebServiceCatalog(Map.copyOf(loaded));
     }
 
     private Map<Integer, Map<String, WebServiceConfig>> loadConfigFromDb() throws Exception {
@@ -114,31 +69,27 @@ public class GatewayWebServiceConfigService {
         }
     }
 
-    private Map<Integer, Map<String, WebServiceConfig>> loadConfigFromDb(String sql) throws Exception {
+    private Map<Integer, Map<String, WebServiceConfig>> loadConfigFromDb(DatabaseExecutor.NamedQuery query)
+            throws Exception {
         Map<Integer, Map<String, WebServiceConfig>> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(sql);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int providerCode = rs.getInt("CODIGO_BILLETERA");
-                    if (rs.wasNull()) {
-                        continue;
-                    }
-                    String wsKey = normalizeWsKey(rs.getString("WS_KEY"));
-                    if (wsKey.isBlank()) {
-                        continue;
-                    }
-                    WebServiceConfig config = new WebServiceConfig(
-                            providerCode,
-                            wsKey,
-                            "S".equalsIgnoreCase(trimToEmpty(rs.getString("ENABLED"))),
-                            trimToEmpty(rs.getString("TIPO_CONEXION")),
-                            trimToEmpty(rs.getString("METODO_HTTP")).toUpperCase(Locale.ROOT),
-                            trimToEmpty(rs.getString("TIPO_REQUEST")),
-                            trimToEmpty(rs.getString("SERVICE_URI")));
-                    temp.computeIfAbsent(providerCode, value -> new LinkedHashMap<>()).put(wsKey, config);
-                }
+        databaseExecutor.forEachRow(query, rs -> {
+            int providerCode = rs.getInt("CODIGO_BILLETERA");
+            if (rs.wasNull()) {
+                return;
+            }
+            String wsKey = normalizeWsKey(rs.getString("WS_KEY"));
+            if (wsKey.isBlank()) {
+                return;
             }
+            WebServiceConfig config = new WebServiceConfig(
+                    providerCode,
+                    wsKey,
+                    "S".equalsIgnoreCase(trimToEmpty(rs.getString("ENABLED"))),
+                    trimToEmpty(rs.getString("TIPO_CONEXION")),
+                    trimToEmpty(rs.getString("METODO_HTTP")).toUpperCase(Locale.ROOT),
+                    trimToEmpty(rs.getString("TIPO_REQUEST")),
+                    trimToEmpty(rs.getString("SERVICE_URI")));
+            temp.computeIfAbsent(providerCode, value -> new LinkedHashMap<>()).put(wsKey, config);
         });
         Map<Integer, Map<String, WebServiceConfig>> immutable = new HashMap<>();
         temp.forEach((provider, byWsKey) -> immutable.put(provider, Map.copyOf(byWsKey)));
@@ -157,11 +108,11 @@ public class GatewayWebServiceConfigService {
         return false;
     }
 
-    private String normalizeWsKey(String wsKey) {
+    private static String normalizeWsKey(String wsKey) {
         return trimToEmpty(wsKey).toLowerCase(Locale.ROOT);
     }
 
-    private String trimToEmpty(String value) {
+    private static String trimToEmpty(String value) {
         return value == null ? "" : value.trim();
     }
 
@@ -183,6 +134,90 @@ public class GatewayWebServiceConfigService {
             String connectionType,
             String method,
             String requestType,
-            String uri) {
+            String uri) implements Serializable {
+    }
+
+    /**
+     * Catalogo inmutable de web services por proveedor y ws_key.
+     */
+    public static final class WebServiceCatalog implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<Integer, Map<String, WebServiceConfig>> configByProvider;
+
+        private WebServiceCatalog(Map<Integer, Map<String, WebServiceConfig>> configByProvider) {
+            this.configByProvider = configByProvider;
+        }
+
+        /**
+         * Crea un catalogo sin web services.
+         *
+         * @return catalogo vacio
+         */
+        public static WebServiceCatalog empty() {
+            return new WebServiceCatalog(Map.of());
+        }
+
+        /**
+         * Cantidad de registros del catalogo.
+         *
+         * @return registros cargados
+         */
+        public int size() {
+            return configByProvider.values().stream().mapToInt(Map::size).sum();
+        }
+
+        /**
+         * Obtiene la configuracion activa de un servicio por proveedor y ws_key.
+         *
+         * @param providerCode codigo de billetera
+         * @param wsKey identificador del web service
+         * @return configuracion activa si existe
+         */
+        public Optional<WebServiceConfig> getActiveConfig(Integer providerCode, String wsKey) {
+            if (providerCode == null || wsKey == null || wsKey.isBlank()) {
+                return Optional.empty();
+            }
+            Map<String, WebServiceConfig> byWsKey = configByProvider.get(providerCode);
+            if (byWsKey == null) {
+                return Optional.empty();
+            }
+            WebServiceConfig config = byWsKey.get(normalizeWsKey(wsKey));
+            if (config == null || !config.enabled()) {
+                return Optional.empty();
+            }
+            if (!"REST".equalsIgnoreCase(config.connectionType())) {
+                return Optional.empty();
+            }
+            if (config.method() == null || config.method().isBlank() || config.uri() == null
+                    || config.uri().isBlank()) {
+                return Optional.empty();
+            }
+            return Optional.of(config);
+        }
+
+        /**
+         * Indica si el servicio esta activo para un proveedor.
+         *
+         * @param providerCode codigo de billetera
+         * @param wsKey identificador del web service
+         * @return true si existe configuracion activa
+         */
+        public boolean isActive(Integer providerCode, String wsKey) {
+            return getActiveConfig(providerCode, wsKey).isPresent();
+        }
+
+        /**
+         * Obtiene todas las configuraciones activas del catalogo.
+         *
+         * @return configuraciones activas por proveedor y ws_key
+         */
+        public List<WebServiceConfig> getActiveConfigs() {
+            List<WebServiceConfig> active = new ArrayList<>();
+            configByProvider.forEach((providerCode, byWsKey) -> byWsKey.keySet()
+                    .forEach(wsKey -> getActiveConfig(providerCode, wsKey).ifPresent(active::add)));
+            return active;
+        }
     }
 }
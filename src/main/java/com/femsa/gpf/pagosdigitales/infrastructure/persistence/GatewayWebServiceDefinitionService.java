@@ -1,7 +1,7 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
@@ -9,13 +9,12 @@ import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import lombok.extern.log4j.Log4j2;
 
 /**
@@ -25,17 +24,19 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class GatewayWebServiceDefinitionService {
 
-    private static final String SELECT_WS_DEFS = "SELECT WS.CODIGO_BILLETERA, WS.WS_KEY, D.DEFAULT_CLAVE, "
-            + "D.DEFAULT_VALOR_TEXTO, D.DEFAULT_VALOR_NUM, D.DEFAULT_VALOR_FECHA, D.TIPO_DEF, "
-            + "D.DEFAULT_VALOR_SISTEMA "
-            + "FROM TUKUNAFUNC.IN_PASARELA_WS_DEFS D "
-            + "JOIN TUKUNAFUNC.IN_PASARELA_WS WS ON WS.ID_WS = D.ID_WS "
-            + "ORDER BY WS.CODIGO_BILLETERA, WS.WS_KEY, D.ID_DEFAULT";
+    private static final DatabaseExecutor.NamedQuery SELECT_WS_DEFS = DatabaseExecutor.NamedQuery.of(
+            "gateway-ws-defs",
+            "SELECT WS.CODIGO_BILLETERA, WS.WS_KEY, D.DEFAULT_CLAVE, "
+                    + "D.DEFAULT_VALOR_TEXTO, D.DEFAULT_VALOR_NUM, D.DEFAULT_VALOR_FECHA, D.TIPO_DEF, "
+                    + "D.DEFAULT_VALOR_SISTEMA "
+                    + "FROM TUKUNAFUNC.IN_PASARELA_WS_DEFS D "
+                    + "JOIN TUKUNAFUNC.IN_PASARELA_WS WS ON WS.ID_WS = D.ID_WS "
+                    + "ORDER BY WS.CODIGO_BILLETERA, WS.WS_KEY, D.ID_DEFAULT")
+            .withFetchSize(500);
     private static final DateTimeFormatter DATE_TIME_FORMAT =
             DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
     private final DatabaseExecutor databaseExecutor;
-    private volatile Map<Integer, Map<String, Map<String, WsDefinition>>> definitionsByProvider = Map.of();
 
     /**
      * Crea el servicio con configuracion de conexion.
@@ -47,125 +48,42 @@ public class GatewayWebServiceDefinitionService {
     }
 
     /**
-     * Inicializa cache al arranque.
-     */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
-    }
-
-    /**
-     * Refresca la cache de definiciones cada 6 horas.
-     */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
-        try {
-            Map<Integer, Map<String, Map<String, WsDefinition>>> loaded = loadDefinitionsFromDb();
-            this.definitionsByProvider = toUnmodifiableMap(loaded);
-            log.info("Cache de IN_PASARELA_WS_DEFS actualizada. Proveedores con defs: {}", loaded.size());
-        } catch (Exception e) {
-            log.error("No fue posible refrescar cache IN_PASARELA_WS_DEFS. Se conserva cache anterior.", e);
-        }
-    }
-
-    /**
-     * Resuelve parametros de query para un proveedor y ws_key.
-     *
-     * @param providerCode codigo de billetera
-     * @param wsKey identificador del web service
-     * @param runtimeValues valores del request para placeholders de sistema
-     * @return query params resueltos en orden de definicion
-     */
-    public Map<String, String> getQueryParams(Integer providerCode, String wsKey, Map<String, Object> runtimeValues) {
-        return resolveDefinitions(providerCode, wsKey, "QUERY", runtimeValues).entrySet().stream()
-                .collect(LinkedHashMap::new,
-                        (map, entry) -> map.put(entry.getKey(), entry.getValue() == null ? "" : entry.getValue().toString()),
-                        LinkedHashMap::putAll);
-    }
-
-    /**
-     * Resuelve defaults de payload para un proveedor y ws_key.
+     * Carga el catalogo de definiciones por proveedor desde BD.
      *
-     * @param providerCode codigo de billetera
-     * @param wsKey identificador del web service
-     * @param runtimeValues valores del request para placeholders de sistema
-     * @return defaults resueltos en orden de definicion
+     * @return catalogo inmutable de definiciones
+     * @throws Exception si falla la consulta
      */
-    public Map<String, Object> getDefaults(Integer providerCode, String wsKey, Map<String, Object> runtimeValues) {
-        return resolveDefinitions(providerCode, wsKey, "DEFAULTS", runtimeValues);
+    public DefinitionCatalog loadCatalog() throws Exception {
+        Map<Integer, Map<String, Map<String, WsDefinition>>> loaded = loadDefinitionsFromDb();
+        log.info("Catalogo IN_PASARELA_WS_DEFS cargado. Proveedores con defs: {}", loaded.size());
+        return new DefinitionCatalog(toUnmodifiableMap(loaded));
     }
 
-    private Map<String, Object> resolveDefinitions(Integer providerCode, String wsKey, String type,
-            Map<String, Object> runtimeValues) {
-        if (providerCode == null || wsKey == null || wsKey.isBlank() || type == null || type.isBlank()) {
-            return Map.of();
-        }
-        Map<String, Map<String, WsDefinition>> byWsKey = definitionsByProvider.get(providerCode);
-        if (byWsKey == null) {
-            return Map.of();
-        }
-        Map<String, WsDefinition> byDefinition = byWsKey.get(normalizeWsKey(wsKey));
-        if (byDefinition == null || byDefinition.isEmpty()) {
-            return Map.of();
-        }
-
-        Map<String, Object> resolved = new LinkedHashMap<>();
-        byDefinition.values().forEach(definition -> {
-            if (!type.equalsIgnoreCase(definition.type())) {
+    private Map<Integer, Map<String, Map<String, WsDefinition>>> loadDefinitionsFromDb() throws Exception {
+        Map<Integer, Map<String, Map<String, WsDefinition>>> temp = new HashMap<>();
+        databaseExecutor.forEachRow(SELECT_WS_DEFS, rs -> {
+            int providerCode = rs.getInt("CODIGO_BILLETERA");
+            if (rs.wasNull()) {
                 return;
             }
-            Object value = resolveValue(definition, runtimeValues);
-            if (value != null) {
-                resolved.put(definition.key(), value);
-            }
-        });
-        return toUnmodifiableMap(resolved);
-    }
-
-    private Object resolveValue(WsDefinition definition, Map<String, Object> runtimeValues) {
-        if (definition.systemValue() != null && !definition.systemValue().isBlank()) {
-            String key = definition.systemValue().trim();
-            Object runtime = runtimeValues == null ? null : runtimeValues.get(key);
-            if (runtime != null) {
-                return runtime;
-            }
-            if ("now".equalsIgnoreCase(key)) {
-                return LocalDateTime.now().format(DATE_TIME_FORMAT);
+            String wsKey = normalizeWsKey(rs.getString("WS_KEY"));
+            String defaultKey = trimToEmpty(rs.getString("DEFAULT_CLAVE"));
+            if (wsKey.isBlank() || defaultKey.isBlank()) {
+                return;
             }
-        }
-        return definition.defaultValue();
-    }
-
-    private Map<Integer, Map<String, Map<String, WsDefinition>>> loadDefinitionsFromDb() throws Exception {
-        Map<Integer, Map<String, Map<String, WsDefinition>>> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_WS_DEFS);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int providerCode = rs.getInt("CODIGO_BILLETERA");
-                    if (rs.wasNull()) {
-                        continue;
-                    }
-                    String wsKey = normalizeWsKey(rs.getString("WS_KEY"));
-                    String defaultKey = trimToEmpty(rs.getString("DEFAULT_CLAVE"));
-                    if (wsKey.isBlank() || defaultKey.isBlank()) {
-                        continue;
-                    }
-                    String type = trimToEmpty(rs.getString("TIPO_DEF")).toUpperCase(Locale.ROOT);
-                    if (type.isBlank()) {
-                        continue;
-                    }
-                    Object defaultValue = readDefaultValue(rs);
-                    WsDefinition definition = new WsDefinition(
-                            defaultKey,
-                            defaultValue,
-                            type,
-                            trimToEmpty(rs.getString("DEFAULT_VALOR_SISTEMA")));
-                    temp.computeIfAbsent(providerCode, value -> new LinkedHashMap<>())
-                            .computeIfAbsent(wsKey, value -> new LinkedHashMap<>())
-                            .put(defaultKey, definition);
-                }
+            String type = trimToEmpty(rs.getString("TIPO_DEF")).toUpperCase(Locale.ROOT);
+            if (type.isBlank()) {
+                return;
             }
+            Object defaultValue = readDefaultValue(rs);
+            WsDefinition definition = new WsDefinition(
+                    defaultKey,
+                    defaultValue,
+                    type,
+                    trimToEmpty(rs.getString("DEFAULT_VALOR_SISTEMA")));
+            temp.computeIfAbsent(providerCode, value -> new LinkedHashMap<>())
+                    .computeIfAbsent(wsKey, value -> new LinkedHashMap<>())
+                    .put(defaultKey, definition);
         });
 
         Map<Integer, Map<String, Map<String, WsDefinition>>> immutable = new HashMap<>();
@@ -193,15 +111,15 @@ public class GatewayWebServiceDefinitionService {
         return null;
     }
 
-    private String normalizeWsKey(String wsKey) {
+    private static String normalizeWsKey(String wsKey) {
         return trimToEmpty(wsKey).toLowerCase(Locale.ROOT);
     }
 
-    private String trimToEmpty(String value) {
+    private static String trimToEmpty(String value) {
         return value == null ? "" : value.trim();
     }
 
-    private <K, V> Map<K, V> toUnmodifiableMap(Map<K, V> source) {
+    private static <K, V> Map<K, V> toUnmodifiableMap(Map<K, V> source) {
         return Collections.unmodifiableMap(new LinkedHashMap<>(source));
     }
 
@@ -217,6 +135,84 @@ public class GatewayWebServiceDefinitionService {
             String key,
             Object defaultValue,
             String type,
-            String systemValue) {
+            String systemValue) implements Serializable {
+
+        /**
+         * Resuelve el valor de la definicion. Un valor de sistema presente en el
+         * request tiene prioridad; "now" sin valor usa la fecha actual.
+         *
+         * @param runtimeValues valores del request para placeholders de sistema
+         * @return valor resuelto o null si no hay valor
+         */
+        public Object resolveValue(Map<String, Object> runtimeValues) {
+            if (systemValue != null && !systemValue.isBlank()) {
+                String key = systemValue.trim();
+                Object runtime = runtimeValues == null ? null : runtimeValues.get(key);
+                if (runtime != null) {
+                    return runtime;
+                }
+                if ("now".equalsIgnoreCase(key)) {
+                    return LocalDateTime.now().format(DATE_TIME_FORMAT);
+                }
+            }
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Catalogo inmutable de definiciones por proveedor y ws_key.
+     */
+    public static final class DefinitionCatalog implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<Integer, Map<String, Map<String, WsDefinition>>> definitionsByProvider;
+
+        private DefinitionCatalog(Map<Integer, Map<String, Map<String, WsDefinition>>> definitionsByProvider) {
+            this.definitionsByProvider = definitionsByProvider;
+        }
+
+        /**
+         * Crea un catalogo sin definiciones.
+         *
+         * @return catalogo vacio
+         */
+        public static DefinitionCatalog empty() {
+            return new DefinitionCatalog(Map.of());
+        }
+
+        /**
+         * Cantidad de registros del catalogo.
+         *
+         * @return registros cargados
+         */
+        public int size() {
+            return definitionsByProvider.values().stream()
+                    .flatMap(byWsKey -> byWsKey.values().stream())
+                    .mapToInt(Map::size)
+                    .sum();
+        }
+
+        /**
+         * Obtiene las definiciones de un tipo para un proveedor y ws_key.
+         *
+         * @param providerCode codigo de billetera
+         * @param wsKey identificador del web service
+         * @param type tipo de definicion (QUERY o DEFAULTS)
+         * @return definiciones en orden de definicion
+         */
+        public List<WsDefinition> getDefinitions(Integer providerCode, String wsKey, String type) {
+            if (providerCode == null || wsKey == null || wsKey.isBlank() || type == null || type.isBlank()) {
+                return List.of();
+            }
+            Map<String, Map<String, WsDefinition>> byWsKey = definitionsByProvider.get(providerCode);
+            Map<String, WsDefinition> byDefinition = byWsKey == null ? null : byWsKey.get(normalizeWsKey(wsKey));
+            if (byDefinition == null) {
+                return List.of();
+            }
+            return byDefinition.values().stream()
+                    .filter(definition -> type.equalsIgnoreCase(definition.type()))
+                    .toList();
+        }
     }
 }
@@ -0,0 +1,217 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
+
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.femsa.gpf.pagosdigitales.application.service.BoundedSafetypayNotificationStore;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationRecord;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationStore;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Store de idempotencia de notificaciones SafetyPay compartido entre nodos en
+ * TUKUNAFUNC.IN_SAFETYPAY_NOTIFICACIONES. El store en memoria acotado actua
+ * como cache cercana para responder duplicados sin consultar BD; deshabilitado
+ * solo se usa la cache cercana.
+ */
+@Log4j2
+@Primary
+@Service
+public class JdbcSafetypayNotificationStore implements SafetypayNotificationStore {
+
+    private static final DatabaseExecutor.NamedQuery SELECT_NOTIFICATION = DatabaseExecutor.NamedQuery.of(
+            "safetypay-notification-select",
+            """
+                SELECT NOMBRE_PROVEEDOR, COD_ESTADO_PAGO, MONTO, MONEDA, FECHA_RECEPCION
+                FROM TUKUNAFUNC.IN_SAFETYPAY_NOTIFICACIONES
+                WHERE ID_INTERNO_VENTA = ?
+                  AND NO_REFERENCIA = ?
+                  AND NO_REFERENCIA_PAGO = ?
+                """)
+            .withTimeoutSeconds(5);
+
+    private static final DatabaseExecutor.NamedQuery INSERT_IF_ABSENT = DatabaseExecutor.NamedQuery.of(
+            "safetypay-notification-insert-if-absent",
+            """
+                MERGE INTO TUKUNAFUNC.IN_SAFETYPAY_NOTIFICACIONES N
+                USING (SELECT ? AS ID_INTERNO_VENTA, ? AS NO_REFERENCIA, ? AS NO_REFERENCIA_PAGO FROM DUAL) S
+                ON (N.ID_INTERNO_VENTA = S.ID_INTERNO_VENTA
+                    AND N.NO_REFERENCIA = S.NO_REFERENCIA
+                    AND N.NO_REFERENCIA_PAGO = S.NO_REFERENCIA_PAGO)
+                WHEN NOT MATCHED THEN INSERT (ID_INTERNO_VENTA, NO_REFERENCIA, NO_REFERENCIA_PAGO, NOMBRE_PROVEEDOR,
+                    COD_ESTADO_PAGO, MONTO, MONEDA, FIRMA, PAYLOAD, FECHA_RECEPCION)
+                    VALUES (S.ID_INTERNO_VENTA, S.NO_REFERENCIA, S.NO_REFERENCIA_PAGO, ?, ?, ?, ?, ?, ?, ?)
+                """)
+            .withTimeoutSeconds(10);
+
+    private final DatabaseExecutor databaseExecutor;
+    private final BoundedSafetypayNotificationStore nearCache;
+    private final boolean enabled;
+
+    /**
+     * Crea el store con su configuracion.
+     *
+     * @param databaseExecutor ejecutor global de conexiones JDBC
+     * @param nearCache store en memoria usado como cache cercana
+     * @param enabled habilita la idempotencia en BD
+     */
+    public JdbcSafetypayNotificationStore(DatabaseExecutor databaseExecutor,
+            BoundedSafetypayNotificationStore nearCache,
+            @Value("${safetypay.notifications.store.jdbc.enabled:false}") boolean enabled) {
+        this.databaseExecutor = databaseExecutor;
+        this.nearCache = nearCache;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Busca una notificacion en la cache cercana y luego en BD.
+     *
+     * @param merchantSalesId id de venta del comercio
+     * @param referenceNo referencia del comercio
+     * @param paymentReferenceNo referencia de pago
+     * @return registro si existe
+     */
+    @Override
+    public Optional<SafetypayNotificationRecord> find(String merchantSalesId, String referenceNo,
+            String paymentReferenceNo) {
+        Optional<SafetypayNotificationRecord> cached = nearCache.find(merchantSalesId, referenceNo,
+                paymentReferenceNo);
+        if (cached.isPresent() || !enabled) {
+            return cached;
+        }
+        Optional<SafetypayNotificationRecord> stored;
+        try {
+            stored = databaseExecutor.execute(SELECT_NOTIFICATION, ps -> {
+                ps.setString(1, merchantSalesId);
+                ps.setString(2, referenceNo);
+                ps.setString(3, paymentReferenceNo);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(toRecord(merchantSalesId, referenceNo, paymentReferenceNo, rs));
+                }
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("No fue posible consultar notificacion SafetyPay en BD", e);
+        }
+        stored.ifPresent(nearCache::save);
+        return stored;
+    }
+
+    /**
+     * Busca una notificacion solo en la cache cercana.
+     *
+     * @param merchantSalesId id de venta del comercio
+     * @param referenceNo referencia del comercio
+     * @param paymentReferenceNo referencia de pago
+     * @return registro si esta en memoria
+     */
+    @Override
+    public Optional<SafetypayNotificationRecord> findCached(String merchantSalesId, String referenceNo,
+            String paymentReferenceNo) {
+        return nearCache.find(merchantSalesId, referenceNo, paymentReferenceNo);
+    }
+
+    /**
+     * Guarda la notificacion solo en la cache cercana; la insercion en BD la
+     * hace quien aplica la bitacora fast-ack.
+     *
+     * @param record registro de notificacion
+     */
+    @Override
+    public void saveCached(SafetypayNotificationRecord record) {
+        nearCache.save(record);
+    }
+
+    /**
+     * Guarda una notificacion si no existe.
+     *
+     * @param record registro de notificacion
+     */
+    @Override
+    public void save(SafetypayNotificationRecord record) {
+        saveIfAbsent(record);
+    }
+
+    /**
+     * Inserta la notificacion en una sola sentencia si su llave natural no
+     * existe en BD. Otro nodo que inserte la misma llave a la vez gana.
+     *
+     * @param record registro de notificacion
+     * @return true cuando este nodo registro la notificacion
+     */
+    @Override
+    public boolean saveIfAbsent(SafetypayNotificationRecord record) {
+        if (!enabled) {
+            return nearCache.saveIfAbsent(record);
+        }
+        boolean inserted;
+        try {
+            inserted = databaseExecutor.execute(INSERT_IF_ABSENT, ps -> {
+                bind(ps, record);
+                return ps.executeUpdate() > 0;
+            });
+        } catch (SQLIntegrityConstraintViolationException e) {
+            inserted = false;
+        } catch (Exception e) {
+            throw new IllegalStateException("No fue posible registrar notificacion SafetyPay en BD", e);
+        }
+        if (!inserted) {
+            log.info("Notificacion SafetyPay ya registrada por otro nodo: {} {} {}", record.getMerchantSalesId(),
+                    record.getReferenceNo(), record.getPaymentReferenceNo());
+        }
+        nearCache.save(record);
+        return inserted;
+    }
+
+    private static void bind(PreparedStatement ps, SafetypayNotificationRecord record) throws Exception {
+        ps.setString(1, record.getMerchantSalesId());
+        ps.setString(2, record.getReferenceNo());
+        ps.setString(3, record.getPaymentReferenceNo());
+        ps.setString(4, record.getProviderName());
+        ps.setString(5, record.getStatus());
+        ps.setString(6, record.getAmount());
+        ps.setString(7, record.getCurrencyId());
+        ps.setString(8, record.getSignature());
+        if (record.getRawPayload() == null) {
+            ps.setNull(9, Types.CLOB);
+        } else {
+            ps.setCharacterStream(9, new StringReader(record.getRawPayload()), record.getRawPayload().length());
+        }
+        OffsetDateTime receivedAt = record.getReceivedAt() == null
+                ? OffsetDateTime.now(ZoneOffset.UTC)
+                : record.getReceivedAt();
+        ps.setTimestamp(10, Timestamp.from(receivedAt.toInstant()));
+    }
+
+    private static SafetypayNotificationRecord toRecord(String merchantSalesId, String referenceNo,
+            String paymentReferenceNo, ResultSet rs) throws Exception {
+        SafetypayNotificationRecord record = new SafetypayNotificationRecord();
+        record.setMerchantSalesId(merchantSalesId);
+        record.setReferenceNo(referenceNo);
+        record.setPaymentReferenceNo(paymentReferenceNo);
+        record.setOrderNo(merchantSalesId);
+        record.setProviderName(rs.getString("NOMBRE_PROVEEDOR"));
+        record.setStatus(rs.getString("COD_ESTADO_PAGO"));
+        record.setAmount(rs.getString("MONTO"));
+        record.setCurrencyId(rs.getString("MONEDA"));
+        Timestamp receivedAt = rs.getTimestamp("FECHA_RECEPCION");
+        if (receivedAt != null) {
+            record.setReceivedAt(receivedAt.toInstant().atOffset(ZoneOffset.UTC));
+        }
+        return record;
+    }
+}
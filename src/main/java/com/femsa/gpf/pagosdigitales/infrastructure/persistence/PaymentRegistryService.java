@@ -4,10 +4,12 @@ import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.stereotype.Service;
@@ -15,6 +17,7 @@ import org.springframework.stereotype.Service;
 import com.femsa.gpf.pagosdigitales.api.dto.MerchantEvent;
 import com.femsa.gpf.pagosdigitales.api.dto.MerchantEventsRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationRequest;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.RecentPaymentsIndex.Presence;
 
 import lombok.extern.log4j.Log4j2;
 
@@ -25,81 +28,96 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class PaymentRegistryService {
 
-    private static final String INSERT_MERCHANT_EVENT = """
-            INSERT INTO TUKUNAFUNC.IN_REGISTRO_PAGOS (
-                CADENA, FARMACIA, NOMBRE_FARMACIA, POS,
-                FECHA_REGISTRO, CANAL, CODIGO_PROV_PAGO,
-                FOLIO, ID_OPERACION_EXTERNO, ID_INTERNO_VENTA,
-                CP_VAR1, CP_NUMBER1
-            ) VALUES (
-                ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
-            )
-            """;
-
-    private static final String SELECT_CONFIRMATION_TARGET = """
-            SELECT CODIGO
-            FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
-            WHERE ID_INTERNO_VENTA = ?
-              AND ID_OPERACION_EXTERNO = ?
-            """;
-
-    private static final String UPDATE_CONFIRMATION = """
-            UPDATE TUKUNAFUNC.IN_REGISTRO_PAGOS
-            SET FECHA_AUTORIZACION_PROV = ?,
-                NO_REFERENCIA = ?,
-                NO_REFERENCIA_PAGO = ?,
-                MONTO = ?,
-                MONEDA = ?,
-                COD_ESTADO_PAGO = ?,
-                FIRMA = ?,
-                CP_VAR1 = ?,
-                CP_NUMBER1 = ?
-            WHERE ID_INTERNO_VENTA = ?
-              AND ID_OPERACION_EXTERNO = ?
-            """;
-
-    private static final String SELECT_OPERATION_CONFLICT = """
-            SELECT ID_OPERACION_EXTERNO
-            FROM (
-                SELECT ID_OPERACION_EXTERNO
-                FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
-                WHERE ID_OPERACION_EXTERNO = ?
-            )
-            WHERE ROWNUM = 1
-            """;
-
-    private static final String SELECT_FOLIO_EXISTS = """
-            SELECT ID_INTERNO_VENTA
-            FROM (
-                SELECT ID_INTERNO_VENTA
-                FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
-                WHERE NVL(ID_INTERNO_VENTA, ' ') = NVL(?, ' ')
-                  AND NVL(FARMACIA, -1) = NVL(?, -1)
-            )
-            WHERE ROWNUM = 1
-            """;
-
-    private static final String SELECT_EVENT_PAIR_EXISTS = """
-            SELECT 1
-            FROM (
-                SELECT 1
+    private static final DatabaseExecutor.NamedQuery INSERT_MERCHANT_EVENT = DatabaseExecutor.NamedQuery.of(
+            "registry-insert-merchant-event",
+            """
+                INSERT INTO TUKUNAFUNC.IN_REGISTRO_PAGOS (
+                    CADENA, FARMACIA, NOMBRE_FARMACIA, POS,
+                    FECHA_REGISTRO, CANAL, CODIGO_PROV_PAGO,
+                    FOLIO, ID_OPERACION_EXTERNO, ID_INTERNO_VENTA,
+                    CP_VAR1, CP_NUMBER1
+                ) VALUES (
+                    ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?
+                )
+                """);
+
+    private static final DatabaseExecutor.NamedQuery SELECT_CONFIRMATION_TARGET = DatabaseExecutor.NamedQuery.of(
+            "registry-confirmation-target",
+            """
+                SELECT CODIGO
                 FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
                 WHERE ID_INTERNO_VENTA = ?
                   AND ID_OPERACION_EXTERNO = ?
-                  AND NVL(FARMACIA, -1) = NVL(?, -1)
-            )
-            WHERE ROWNUM = 1
-            """;
+                """);
+
+    private static final DatabaseExecutor.NamedQuery UPDATE_CONFIRMATION = DatabaseExecutor.NamedQuery.of(
+            "registry-update-confirmation",
+            """
+                UPDATE TUKUNAFUNC.IN_REGISTRO_PAGOS
+                SET FECHA_AUTORIZACION_PROV = ?,
+                    NO_REFERENCIA = ?,
+                    NO_REFERENCIA_PAGO = ?,
+                    MONTO = ?,
+                    MONEDA = ?,
+                    COD_ESTADO_PAGO = ?,
+                    FIRMA = ?,
+                    CP_VAR1 = ?,
+                    CP_NUMBER1 = ?
+                WHERE ID_INTERNO_VENTA = ?
+                  AND ID_OPERACION_EXTERNO = ?
+                """);
+
+    private static final DatabaseExecutor.NamedQuery SELECT_OPERATION_CONFLICT = DatabaseExecutor.NamedQuery.of(
+            "registry-operation-conflict",
+            """
+                SELECT ID_OPERACION_EXTERNO
+                FROM (
+                    SELECT ID_OPERACION_EXTERNO
+                    FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
+                    WHERE ID_OPERACION_EXTERNO = ?
+                )
+                WHERE ROWNUM = 1
+                """);
+
+    private static final DatabaseExecutor.NamedQuery SELECT_FOLIO_EXISTS = DatabaseExecutor.NamedQuery.of(
+            "registry-folio-exists",
+            """
+                SELECT ID_INTERNO_VENTA
+                FROM (
+                    SELECT ID_INTERNO_VENTA
+                    FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
+                    WHERE NVL(ID_INTERNO_VENTA, ' ') = NVL(?, ' ')
+                      AND NVL(FARMACIA, -1) = NVL(?, -1)
+                )
+                WHERE ROWNUM = 1
+                """);
+
+    private static final DatabaseExecutor.NamedQuery SELECT_EVENT_PAIR_EXISTS = DatabaseExecutor.NamedQuery.of(
+            "registry-event-exists",
+            """
+                SELECT 1
+                FROM (
+                    SELECT 1
+                    FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
+                    WHERE ID_INTERNO_VENTA = ?
+                      AND ID_OPERACION_EXTERNO = ?
+                      AND NVL(FARMACIA, -1) = NVL(?, -1)
+                )
+                WHERE ROWNUM = 1
+                """);
 
     private final DatabaseExecutor databaseExecutor;
+    private final RecentPaymentsIndex recentPaymentsIndex;
 
     /**
      * Crea el servicio con configuracion de conexion.
      *
      * @param databaseExecutor ejecutor global de conexiones JDBC
+     * @param recentPaymentsIndex indice en memoria de pagos recientes
      */
-    public PaymentRegistryService(DatabaseExecutor databaseExecutor) {
+    public PaymentRegistryService(DatabaseExecutor databaseExecutor, RecentPaymentsIndex recentPaymentsIndex) {
         this.databaseExecutor = databaseExecutor;
+        this.recentPaymentsIndex = recentPaymentsIndex;
     }
 
     /**
@@ -118,27 +136,26 @@ public class PaymentRegistryService {
 
         String cpVar1 = errorNumberDescription(errorNumber);
         try {
-            databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-                try (PreparedStatement ps = connection.prepareStatement(INSERT_MERCHANT_EVENT)) {
-                    for (MerchantEvent event : events) {
-                        ps.setObject(1, req.getChain());
-                        ps.setObject(2, req.getStore());
-                        ps.setString(3, req.getStore_name());
-                        ps.setObject(4, req.getPos());
-                        setDate(ps, 5, parseDateTime(event.getCreation_datetime()));
-                        ps.setString(6, req.getChannel_POS());
-                        ps.setString(7,
-                                req.getPayment_provider_code() == null ? null : req.getPayment_provider_code().toString());
-                        ps.setString(8, event.getMerchant_sales_id());
-                        ps.setString(9, event.getOperation_id());
-                        ps.setString(10, event.getMerchant_sales_id());
-                        ps.setString(11, cpVar1);
-                        ps.setObject(12, errorNumber, java.sql.Types.NUMERIC);
-                        ps.addBatch();
-                    }
-                    ps.executeBatch();
+            databaseExecutor.execute(INSERT_MERCHANT_EVENT, ps -> {
+                for (MerchantEvent event : events) {
+                    ps.setObject(1, req.getChain());
+                    ps.setObject(2, req.getStore());
+                    ps.setString(3, req.getStore_name());
+                    ps.setObject(4, req.getPos());
+                    setDate(ps, 5, parseDateTime(event.getCreation_datetime()));
+                    ps.setString(6, req.getChannel_POS());
+                    ps.setString(7,
+                            req.getPayment_provider_code() == null ? null : req.getPayment_provider_code().toString());
+                    ps.setString(8, event.getMerchant_sales_id());
+                    ps.setString(9, event.getOperation_id());
+                    ps.setString(10, event.getMerchant_sales_id());
+                    ps.setString(11, cpVar1);
+                    ps.setObject(12, errorNumber, java.sql.Types.NUMERIC);
+                    ps.addBatch();
                 }
+                return ps.executeBatch();
             });
+            recentPaymentsIndex.recordRegistered(req.getStore(), events);
         } catch (Exception e) {
             log.error("No fue posible insertar registros de merchant-events en IN_REGISTRO_PAGOS: {}", e.getMessage());
         }
@@ -155,23 +172,35 @@ public class PaymentRegistryService {
             return null;
         }
 
+        List<MerchantEvent> uncertain = new ArrayList<>();
+        for (MerchantEvent event : req.getMerchant_events()) {
+            if (event == null || isBlank(event.getOperation_id())) {
+                continue;
+            }
+            Presence presence = recentPaymentsIndex.findOperation(event.getOperation_id());
+            if (presence == Presence.PRESENT) {
+                return "operation_id " + event.getOperation_id() + " ya existe en IN_REGISTRO_PAGOS";
+            }
+            if (presence == Presence.UNKNOWN) {
+                uncertain.add(event);
+            }
+        }
+        if (uncertain.isEmpty()) {
+            return null;
+        }
+
         try {
-            return databaseExecutor.withConnection(connection -> {
-                try (PreparedStatement ps = connection.prepareStatement(SELECT_OPERATION_CONFLICT)) {
-                    for (MerchantEvent event : req.getMerchant_events()) {
-                        if (event == null || isBlank(event.getOperation_id())) {
-                            continue;
-                        }
-                        ps.setString(1, event.getOperation_id());
-                        try (ResultSet rs = ps.executeQuery()) {
-                            if (rs.next()) {
-                                return "operation_id " + event.getOperation_id()
-                                        + " ya existe en IN_REGISTRO_PAGOS";
-                            }
+            return databaseExecutor.execute(SELECT_OPERATION_CONFLICT, ps -> {
+                for (MerchantEvent event : uncertain) {
+                    ps.setString(1, event.getOperation_id());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            return "operation_id " + event.getOperation_id()
+                                    + " ya existe en IN_REGISTRO_PAGOS";
                         }
                     }
-                    return null;
                 }
+                return null;
             });
         } catch (Exception e) {
             log.error("No fue posible validar ownership de operation_id en IN_REGISTRO_PAGOS: {}", e.getMessage());
@@ -190,24 +219,36 @@ public class PaymentRegistryService {
             return null;
         }
 
+        List<MerchantEvent> uncertain = new ArrayList<>();
+        for (MerchantEvent event : req.getMerchant_events()) {
+            if (event == null || isBlank(event.getMerchant_sales_id())) {
+                continue;
+            }
+            Presence presence = recentPaymentsIndex.findFolio(event.getMerchant_sales_id(), req.getStore());
+            if (presence == Presence.PRESENT) {
+                return "folio " + event.getMerchant_sales_id() + " ya existe para la farmacia " + req.getStore();
+            }
+            if (presence == Presence.UNKNOWN) {
+                uncertain.add(event);
+            }
+        }
+        if (uncertain.isEmpty()) {
+            return null;
+        }
+
         try {
-            return databaseExecutor.withConnection(connection -> {
-                try (PreparedStatement ps = connection.prepareStatement(SELECT_FOLIO_EXISTS)) {
-                    for (MerchantEvent event : req.getMerchant_events()) {
-                        if (event == null || isBlank(event.getMerchant_sales_id())) {
-                            continue;
-                        }
-                        ps.setString(1, event.getMerchant_sales_id());
-                        ps.setObject(2, req.getStore());
-                        try (ResultSet rs = ps.executeQuery()) {
-                            if (rs.next()) {
-                                return "folio " + event.getMerchant_sales_id()
-                                        + " ya existe para la farmacia " + req.getStore();
-                            }
+            return databaseExecutor.execute(SELECT_FOLIO_EXISTS, ps -> {
+                for (MerchantEvent event : uncertain) {
+                    ps.setString(1, event.getMerchant_sales_id());
+                    ps.setObject(2, req.getStore());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) {
+                            return "folio " + event.getMerchant_sales_id()
+                                    + " ya existe para la farmacia " + req.getStore();
                         }
                     }
-                    return null;
                 }
+                return null;
             });
         } catch (Exception e) {
             log.error("No fue posible validar unicidad de folio en IN_REGISTRO_PAGOS: {}", e.getMessage());
@@ -226,26 +267,10 @@ public class PaymentRegistryService {
             return false;
         }
 
-        String idInternoVenta = req.getMerchantSalesId();
-        String idOperacionExterno = req.getReferenceNo();
-        String cpVar1 = errorNumberDescription(errorNumber);
-
         try {
-            return databaseExecutor.withConnection(connection -> {
-                try (PreparedStatement ps = connection.prepareStatement(UPDATE_CONFIRMATION)) {
-                    setDate(ps, 1, parseDateTime(req.getRequestDateTime()));
-                    ps.setString(2, req.getReferenceNo());
-                    ps.setString(3, req.getPaymentReferenceNo());
-                    setAmount(ps, 4, req.getAmount());
-                    ps.setString(5, req.getCurrencyId());
-                    ps.setString(6, req.getStatus());
-                    ps.setString(7, req.getSignature());
-                    ps.setString(8, cpVar1);
-                    ps.setObject(9, errorNumber, java.sql.Types.NUMERIC);
-                    ps.setString(10, idInternoVenta);
-                    ps.setString(11, idOperacionExterno);
-                    return ps.executeUpdate() > 0;
-                }
+            return databaseExecutor.execute(UPDATE_CONFIRMATION, ps -> {
+                bindConfirmation(ps, req, errorNumber);
+                return ps.executeUpdate() > 0;
             });
         } catch (Exception e) {
             log.error("No fue posible actualizar confirmacion SafetyPay en IN_REGISTRO_PAGOS: {}", e.getMessage());
@@ -253,6 +278,93 @@ public class PaymentRegistryService {
         }
     }
 
+    /**
+     * Valida que una confirmacion SafetyPay se pueda enlazar a la actualizacion
+     * de IN_REGISTRO_PAGOS sin errores de formato.
+     *
+     * @param req request de confirmacion SafetyPay
+     * @return motivo del rechazo o null cuando la confirmacion se puede aplicar
+     */
+    public String validateConfirmationUpdate(SafetypayConfirmationRequest req) {
+        if (req == null || isBlank(req.getMerchantSalesId()) || isBlank(req.getReferenceNo())) {
+            return "MerchantSalesID y ReferenceNo son obligatorios";
+        }
+        if (!isBlank(req.getAmount())) {
+            try {
+                new BigDecimal(req.getAmount().trim());
+            } catch (NumberFormatException e) {
+                return "Amount " + req.getAmount() + " no es numerico";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Aplica confirmaciones SafetyPay en un solo batch JDBC y una sola
+     * transaccion. Si falla no se aplica ninguna y la excepcion se propaga para
+     * reintentar el batch completo.
+     *
+     * @param updates confirmaciones en orden de llegada
+     * @return registros actualizados
+     * @throws Exception cuando el batch no se pudo aplicar
+     */
+    public int applySafetypayConfirmations(List<ConfirmationUpdate> updates) throws Exception {
+        if (updates == null || updates.isEmpty()) {
+            return 0;
+        }
+        return databaseExecutor.withConnection(connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int[] counts = databaseExecutor.execute(connection, UPDATE_CONFIRMATION, ps -> {
+                    for (ConfirmationUpdate update : updates) {
+                        SafetypayConfirmationRequest req = update.request();
+                        if (req == null || isBlank(req.getMerchantSalesId()) || isBlank(req.getReferenceNo())) {
+                            continue;
+                        }
+                        bindConfirmation(ps, req, update.errorNumber());
+                        ps.addBatch();
+                    }
+                    return ps.executeBatch();
+                });
+                connection.commit();
+                int updated = 0;
+                for (int count : counts) {
+                    updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+                }
+                return updated;
+            } catch (Exception e) {
+                rollback(connection);
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private void bindConfirmation(PreparedStatement ps, SafetypayConfirmationRequest req, int errorNumber)
+            throws Exception {
+        setDate(ps, 1, parseDateTime(req.getRequestDateTime()));
+        ps.setString(2, req.getReferenceNo());
+        ps.setString(3, req.getPaymentReferenceNo());
+        setAmount(ps, 4, req.getAmount());
+        ps.setString(5, req.getCurrencyId());
+        ps.setString(6, req.getStatus());
+        ps.setString(7, req.getSignature());
+        ps.setString(8, errorNumberDescription(errorNumber));
+        ps.setObject(9, errorNumber, java.sql.Types.NUMERIC);
+        ps.setString(10, req.getMerchantSalesId());
+        ps.setString(11, req.getReferenceNo());
+    }
+
+    private void rollback(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (Exception e) {
+            log.warn("No fue posible hacer rollback de confirmaciones SafetyPay: {}", e.getMessage());
+        }
+    }
+
     /**
      * Verifica si todos los eventos del request ya fueron registrados por la llave
      * ID_INTERNO_VENTA + ID_OPERACION_EXTERNO + FARMACIA.
@@ -264,24 +376,36 @@ public class PaymentRegistryService {
         if (req == null || req.getMerchant_events() == null || req.getMerchant_events().isEmpty()) {
             return false;
         }
+        List<MerchantEvent> uncertain = new ArrayList<>();
+        for (MerchantEvent event : req.getMerchant_events()) {
+            if (event == null || isBlank(event.getMerchant_sales_id()) || isBlank(event.getOperation_id())) {
+                return false;
+            }
+            Presence presence = recentPaymentsIndex.findEvent(event.getMerchant_sales_id(), event.getOperation_id(),
+                    req.getStore());
+            if (presence == Presence.ABSENT) {
+                return false;
+            }
+            if (presence == Presence.UNKNOWN) {
+                uncertain.add(event);
+            }
+        }
+        if (uncertain.isEmpty()) {
+            return true;
+        }
         try {
-            return databaseExecutor.withConnection(connection -> {
-                try (PreparedStatement ps = connection.prepareStatement(SELECT_EVENT_PAIR_EXISTS)) {
-                    for (MerchantEvent event : req.getMerchant_events()) {
-                        if (event == null || isBlank(event.getMerchant_sales_id()) || isBlank(event.getOperation_id())) {
+            return databaseExecutor.execute(SELECT_EVENT_PAIR_EXISTS, ps -> {
+                for (MerchantEvent event : uncertain) {
+                    ps.setString(1, event.getMerchant_sales_id());
+                    ps.setString(2, event.getOperation_id());
+                    ps.setObject(3, req.getStore());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (!rs.next()) {
                             return false;
                         }
-                        ps.setString(1, event.getMerchant_sales_id());
-                        ps.setString(2, event.getOperation_id());
-                        ps.setObject(3, req.getStore());
-                        try (ResultSet rs = ps.executeQuery()) {
-                            if (!rs.next()) {
-                                return false;
-                            }
-                        }
                     }
-                    return true;
                 }
+                return true;
             });
         } catch (Exception e) {
             log.error("No fue posible validar idempotencia de merchant-events en IN_REGISTRO_PAGOS: {}", e.getMessage());
@@ -289,6 +413,21 @@ public class PaymentRegistryService {
         }
     }
 
+    /**
+     * Indica, sin consultar BD, si el indice de pagos recientes descarta el
+     * registro objetivo de una confirmation.
+     *
+     * @param req request de confirmation
+     * @return true cuando faltan las llaves o el indice sabe que el registro no existe
+     */
+    public boolean isConfirmationTargetAbsent(SafetypayConfirmationRequest req) {
+        if (req == null || isBlank(req.getMerchantSalesId()) || isBlank(req.getReferenceNo())) {
+            return true;
+        }
+        return recentPaymentsIndex.findConfirmationTarget(req.getMerchantSalesId(), req.getReferenceNo())
+                == Presence.ABSENT;
+    }
+
     /**
      * Verifica si existe registro objetivo para confirmation.
      *
@@ -299,27 +438,24 @@ public class PaymentRegistryService {
         if (req == null || isBlank(req.getMerchantSalesId()) || isBlank(req.getReferenceNo())) {
             return false;
         }
+        Presence presence = recentPaymentsIndex.findConfirmationTarget(req.getMerchantSalesId(), req.getReferenceNo());
+        if (presence != Presence.UNKNOWN) {
+            return presence == Presence.PRESENT;
+        }
         try {
-            return databaseExecutor.withConnection(
-                    (DatabaseExecutor.ConnectionCallback<Boolean>) connection -> existsTargetRecord(connection,
-                            req.getMerchantSalesId(), req.getReferenceNo()));
+            return databaseExecutor.execute(SELECT_CONFIRMATION_TARGET, ps -> {
+                ps.setString(1, req.getMerchantSalesId());
+                ps.setString(2, req.getReferenceNo());
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next();
+                }
+            });
         } catch (Exception e) {
             log.error("No fue posible validar existencia para confirmation en IN_REGISTRO_PAGOS: {}", e.getMessage());
             return false;
         }
     }
 
-    private boolean existsTargetRecord(Connection connection, String idInternoVenta, String idOperacionExterno)
-            throws Exception {
-        try (PreparedStatement ps = connection.prepareStatement(SELECT_CONFIRMATION_TARGET)) {
-            ps.setString(1, idInternoVenta);
-            ps.setString(2, idOperacionExterno);
-            try (ResultSet rs = ps.executeQuery()) {
-                return rs.next();
-            }
-        }
-    }
-
     private void setDate(PreparedStatement ps, int index, LocalDateTime dateTime) throws Exception {
         if (dateTime == null) {
             ps.setNull(index, java.sql.Types.DATE);
@@ -368,4 +504,12 @@ public class PaymentRegistryService {
         };
     }
 
+    /**
+     * Confirmacion SafetyPay pendiente de aplicar en IN_REGISTRO_PAGOS.
+     *
+     * @param request request de confirmacion
+     * @param errorNumber codigo de error respondido a SafetyPay
+     */
+    public record ConfirmationUpdate(SafetypayConfirmationRequest request, int errorNumber) {
+    }
 }
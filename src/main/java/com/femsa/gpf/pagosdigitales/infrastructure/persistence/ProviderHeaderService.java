@@ -1,15 +1,12 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import lombok.extern.log4j.Log4j2;
 
 /**
@@ -19,11 +16,13 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class ProviderHeaderService {
 
-    private static final String SELECT_HEADERS = "SELECT CODIGO_BILLETERA, HEADER_NOMBRE, HEADER_VALOR "
-            + "FROM TUKUNAFUNC.IN_PASARELA_HEADERS";
+    private static final DatabaseExecutor.NamedQuery SELECT_HEADERS = DatabaseExecutor.NamedQuery.of(
+            "provider-headers",
+            "SELECT CODIGO_BILLETERA, HEADER_NOMBRE, HEADER_VALOR "
+                    + "FROM TUKUNAFUNC.IN_PASARELA_HEADERS")
+            .withFetchSize(500);
 
     private final DatabaseExecutor databaseExecutor;
-    private volatile Map<Integer, Map<String, String>> headersByProviderCode = Map.of();
 
     /**
      * Crea el servicio con configuracion de conexion.
@@ -35,62 +34,79 @@ public class ProviderHeaderService {
     }
 
     /**
-     * Inicializa cache al arranque.
-     */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
-    }
-
-    /**
-     * Refresca la cache de headers cada 6 horas.
-     */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
-        try {
-            Map<Integer, Map<String, String>> loaded = loadHeadersFromDb();
-            this.headersByProviderCode = Map.copyOf(loaded);
-            log.info("Cache de IN_PASARELA_HEADERS actualizada. Proveedores con headers: {}", loaded.size());
-        } catch (Exception e) {
-            log.error("No fue posible refrescar cache IN_PASARELA_HEADERS. Se conserva cache anterior.", e);
-        }
-    }
-
-    /**
-     * Obtiene headers por codigo de proveedor.
+     * Carga el catalogo de headers por proveedor desde BD.
      *
-     * @param providerCode codigo de billetera
-     * @return mapa inmutable de headers configurados
+     * @return catalogo inmutable de headers
+     * @throws Exception si falla la consulta
      */
-    public Map<String, String> getHeadersByProviderCode(Integer providerCode) {
-        if (providerCode == null) {
-            return Map.of();
-        }
-        return headersByProviderCode.getOrDefault(providerCode, Map.of());
+    public HeaderCatalog loadCatalog() throws Exception {
+        Map<Integer, Map<String, String>> loaded = loadHeadersFromDb();
+        log.info("Catalogo IN_PASARELA_HEADERS cargado. Proveedores con headers: {}", loaded.size());
+        return new HeaderCatalog(Map.copyOf(loaded));
     }
 
     private Map<Integer, Map<String, String>> loadHeadersFromDb() throws Exception {
         Map<Integer, Map<String, String>> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_HEADERS);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int providerCodeValue = rs.getInt("CODIGO_BILLETERA");
-                    if (rs.wasNull()) {
-                        continue;
-                    }
-                    String headerName = rs.getString("HEADER_NOMBRE");
-                    String headerValue = rs.getString("HEADER_VALOR");
-                    if (headerName == null || headerName.isBlank() || headerValue == null || headerValue.isBlank()) {
-                        continue;
-                    }
-                    temp.computeIfAbsent(providerCodeValue, value -> new LinkedHashMap<>())
-                            .put(headerName.trim(), headerValue.trim());
-                }
+        databaseExecutor.forEachRow(SELECT_HEADERS, rs -> {
+            int providerCodeValue = rs.getInt("CODIGO_BILLETERA");
+            if (rs.wasNull()) {
+                return;
             }
+            String headerName = rs.getString("HEADER_NOMBRE");
+            String headerValue = rs.getString("HEADER_VALOR");
+            if (headerName == null || headerName.isBlank() || headerValue == null || headerValue.isBlank()) {
+                return;
+            }
+            temp.computeIfAbsent(providerCodeValue, value -> new LinkedHashMap<>())
+                    .put(headerName.trim(), headerValue.trim());
         });
         Map<Integer, Map<String, String>> immutable = new HashMap<>();
         temp.forEach((provider, headers) -> immutable.put(provider, Map.copyOf(headers)));
         return immutable;
     }
+
+    /**
+     * Catalogo inmutable de headers por codigo de billetera.
+     */
+    public static final class HeaderCatalog implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<Integer, Map<String, String>> headersByProviderCode;
+
+        private HeaderCatalog(Map<Integer, Map<String, String>> headersByProviderCode) {
+            this.headersByProviderCode = headersByProviderCode;
+        }
+
+        /**
+         * Crea un catalogo sin headers.
+         *
+         * @return catalogo vacio
+         */
+        public static HeaderCatalog empty() {
+            return new HeaderCatalog(Map.of());
+        }
+
+        /**
+         * Cantidad de registros del catalogo.
+         *
+         * @return registros cargados
+         */
+        public int size() {
+            return headersByProviderCode.values().stream().mapToInt(Map::size).sum();
+        }
+
+        /**
+         * Obtiene headers por codigo de proveedor.
+         *
+         * @param providerCode codigo de billetera
+         * @return mapa inmutable de headers configurados
+         */
+        public Map<String, String> getHeadersByProviderCode(Integer providerCode) {
+            if (providerCode == null) {
+                return Map.of();
+            }
+            return headersByProviderCode.getOrDefault(providerCode, Map.of());
+        }
+    }
 }
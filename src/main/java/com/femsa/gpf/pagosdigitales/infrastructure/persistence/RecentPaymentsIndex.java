@@ -0,0 +1,389 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import com.femsa.gpf.pagosdigitales.api.dto.MerchantEvent;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Indice en memoria de pagos registrados recientemente en IN_REGISTRO_PAGOS.
+ * Responde PRESENT sin ir a BD cuando la llave esta en la ventana reciente y
+ * ABSENT solo cuando el filtro Bloom lo garantiza; en otro caso UNKNOWN.
+ * Al superar el maximo o salir de la ventana se descartan primero los pagos
+ * con FECHA_REGISTRO mas antigua, sin depender del orden de carga.
+ */
+@Log4j2
+@Component
+public class RecentPaymentsIndex {
+
+    private static final DatabaseExecutor.NamedQuery SELECT_RECENT_KEYS = DatabaseExecutor.NamedQuery.of(
+            "recent-payments-window",
+            """
+                SELECT ID_INTERNO_VENTA, ID_OPERACION_EXTERNO, FARMACIA, FECHA_REGISTRO
+                FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
+                WHERE FECHA_REGISTRO >= ?
+                """)
+            .withFetchSize(1000)
+            .withTimeoutSeconds(300);
+
+    private static final DatabaseExecutor.NamedQuery SELECT_ALL_KEYS = DatabaseExecutor.NamedQuery.of(
+            "recent-payments-all-keys",
+            """
+                SELECT ID_INTERNO_VENTA, ID_OPERACION_EXTERNO, FARMACIA, FECHA_REGISTRO
+                FROM TUKUNAFUNC.IN_REGISTRO_PAGOS
+                """)
+            .withFetchSize(5000)
+            .withTimeoutSeconds(1800);
+
+    private static final char OPERATION = 'O';
+    private static final char FOLIO = 'F';
+    private static final char PAIR = 'P';
+    private static final char TRIPLE = 'T';
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * Resultado de una consulta al indice.
+     */
+    public enum Presence {
+        PRESENT,
+        ABSENT,
+        UNKNOWN
+    }
+
+    private final DatabaseExecutor databaseExecutor;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxEntries;
+    private final boolean trustNegatives;
+    private final BloomFilter bloomFilter;
+    private final Map<String, Long> recentKeys = new ConcurrentHashMap<>();
+    private final PriorityBlockingQueue<IndexedPayment> byRegisteredAt = new PriorityBlockingQueue<>(1024,
+            Comparator.comparingLong(IndexedPayment::registeredAt).thenComparingLong(IndexedPayment::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger indexedPayments = new AtomicInteger();
+    private volatile boolean warmedUp;
+
+    /**
+     * Crea el indice con su configuracion.
+     *
+     * @param databaseExecutor ejecutor global de conexiones JDBC
+     * @param enabled habilita el indice
+     * @param windowHours horas de pagos recientes retenidos en memoria
+     * @param maxEntries maximo de pagos retenidos en memoria
+     * @param trustNegatives permite responder ABSENT con el filtro Bloom
+     * @param bloomExpectedKeys llaves esperadas para dimensionar el filtro Bloom
+     * @param bloomFalsePositiveRate tasa de falsos positivos del filtro Bloom
+     */
+    public RecentPaymentsIndex(DatabaseExecutor databaseExecutor,
+            @Value("${payments.recent-index.enabled:true}") boolean enabled,
+            @Value("${payments.recent-index.window-hours:6}") long windowHours,
+            @Value("${payments.recent-index.max-entries:200000}") int maxEntries,
+            @Value("${payments.recent-index.trust-negatives:false}") boolean trustNegatives,
+            @Value("${payments.recent-index.bloom-expected-keys:5000000}") long bloomExpectedKeys,
+            @Value("${payments.recent-index.bloom-false-positive-rate:0.01}") double bloomFalsePositiveRate) {
+        if (windowHours <= 0) {
+            throw new IllegalArgumentException("payments.recent-index.window-hours debe ser mayor a 0");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("payments.recent-index.max-entries debe ser mayor a 0");
+        }
+        this.databaseExecutor = databaseExecutor;
+        this.enabled = enabled;
+        this.windowMillis = Duration.ofHours(windowHours).toMillis();
+        this.maxEntries = maxEntries;
+        this.trustNegatives = enabled && trustNegatives;
+        this.bloomFilter = this.trustNegatives ? new BloomFilter(bloomExpectedKeys, bloomFalsePositiveRate) : null;
+    }
+
+    /**
+     * Precarga el indice desde BD con el executor de precargas cuando la
+     * aplicacion ya atiende trafico, para no bloquear el arranque.
+     */
+    @Async("warmUpTaskExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void initIndex() {
+        if (!enabled) {
+            log.info("Indice de pagos recientes deshabilitado.");
+            return;
+        }
+        warmUp();
+    }
+
+    /**
+     * Carga las llaves de IN_REGISTRO_PAGOS. Con trust-negatives se recorre la
+     * tabla completa para alimentar el filtro Bloom; sin el, solo la ventana reciente.
+     */
+    public void warmUp() {
+        long startedAt = System.currentTimeMillis();
+        long windowStart = startedAt - windowMillis;
+        try {
+            int loaded = databaseExecutor.execute(trustNegatives ? SELECT_ALL_KEYS : SELECT_RECENT_KEYS, ps -> {
+                if (!trustNegatives) {
+                    ps.setTimestamp(1, new Timestamp(windowStart));
+                }
+                int count = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String folio = rs.getString("ID_INTERNO_VENTA");
+                        String operationId = rs.getString("ID_OPERACION_EXTERNO");
+                        Integer store = rs.getObject("FARMACIA") == null ? null : rs.getInt("FARMACIA");
+                        Timestamp registeredAt = rs.getTimestamp("FECHA_REGISTRO");
+                        IndexedPayment payment = new IndexedPayment(folio, operationId, store,
+                                registeredAt == null ? 0L : registeredAt.getTime(), sequence.incrementAndGet());
+                        addToBloom(payment);
+                        if (payment.registeredAt() >= windowStart) {
+                            addRecent(payment);
+                        }
+                        count++;
+                    }
+                }
+                return count;
+            });
+            warmedUp = true;
+            log.info("Indice de pagos recientes precargado. Registros: {} Recientes: {} Tiempo: {} ms",
+                    loaded, indexedPayments.get(), System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("No fue posible precargar indice de pagos recientes. Se consultara BD: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Registra en el indice los eventos insertados en IN_REGISTRO_PAGOS.
+     *
+     * @param store farmacia del request
+     * @param events eventos insertados
+     */
+    public void recordRegistered(Integer store, List<MerchantEvent> events) {
+        if (!enabled || events == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (MerchantEvent event : events) {
+            if (event == null) {
+                continue;
+            }
+            IndexedPayment payment = new IndexedPayment(event.getMerchant_sales_id(), event.getOperation_id(),
+                    store, now, sequence.incrementAndGet());
+            addToBloom(payment);
+            addRecent(payment);
+        }
+    }
+
+    /**
+     * Consulta si existe algun registro con el operation_id indicado.
+     *
+     * @param operationId ID_OPERACION_EXTERNO
+     * @return presencia de la llave
+     */
+    public Presence findOperation(String operationId) {
+        return find(key(OPERATION, operationId, null, null));
+    }
+
+    /**
+     * Consulta si existe algun registro con folio y farmacia indicados.
+     *
+     * @param folio ID_INTERNO_VENTA
+     * @param store FARMACIA
+     * @return presencia de la llave
+     */
+    public Presence findFolio(String folio, Integer store) {
+        return find(key(FOLIO, folio, null, store));
+    }
+
+    /**
+     * Consulta si existe algun registro con folio y operation_id indicados.
+     *
+     * @param folio ID_INTERNO_VENTA
+     * @param operationId ID_OPERACION_EXTERNO
+     * @return presencia de la llave
+     */
+    public Presence findConfirmationTarget(String folio, String operationId) {
+        return find(key(PAIR, folio, operationId, null));
+    }
+
+    /**
+     * Consulta si existe el registro con folio, operation_id y farmacia indicados.
+     *
+     * @param folio ID_INTERNO_VENTA
+     * @param operationId ID_OPERACION_EXTERNO
+     * @param store FARMACIA
+     * @return presencia de la llave
+     */
+    public Presence findEvent(String folio, String operationId, Integer store) {
+        return find(key(TRIPLE, folio, operationId, store));
+    }
+
+    /**
+     * Obtiene el numero de pagos retenidos en la ventana reciente.
+     *
+     * @return pagos indexados
+     */
+    public int size() {
+        return indexedPayments.get();
+    }
+
+    private Presence find(String key) {
+        if (!enabled || key == null) {
+            return Presence.UNKNOWN;
+        }
+        Long registeredAt = recentKeys.get(key);
+        if (registeredAt != null && registeredAt >= System.currentTimeMillis() - windowMillis) {
+            return Presence.PRESENT;
+        }
+        if (trustNegatives && warmedUp && !bloomFilter.mightContain(key)) {
+            return Presence.ABSENT;
+        }
+        return Presence.UNKNOWN;
+    }
+
+    private void addToBloom(IndexedPayment payment) {
+        if (bloomFilter == null) {
+            return;
+        }
+        for (String key : payment.keys()) {
+            if (key != null) {
+                bloomFilter.put(key);
+            }
+        }
+    }
+
+    private void addRecent(IndexedPayment payment) {
+        for (String key : payment.keys()) {
+            if (key != null) {
+                recentKeys.merge(key, payment.registeredAt(), Math::max);
+            }
+        }
+        byRegisteredAt.add(payment);
+        indexedPayments.incrementAndGet();
+        evict(System.currentTimeMillis() - windowMillis);
+    }
+
+    private void evict(long windowStart) {
+        synchronized (byRegisteredAt) {
+            IndexedPayment oldest;
+            while ((oldest = byRegisteredAt.peek()) != null
+                    && (indexedPayments.get() > maxEntries || oldest.registeredAt() < windowStart)) {
+                oldest = byRegisteredAt.poll();
+                indexedPayments.decrementAndGet();
+                for (String key : oldest.keys()) {
+                    if (key != null) {
+                        recentKeys.remove(key, oldest.registeredAt());
+                    }
+                }
+            }
+        }
+    }
+
+    private static String key(char type, String first, String second, Integer store) {
+        if (first == null || first.isBlank()) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(48).append(type).append(first);
+        if (type == PAIR || type == TRIPLE) {
+            if (second == null || second.isBlank()) {
+                return null;
+            }
+            key.append(SEPARATOR).append(second);
+        }
+        if (type == FOLIO || type == TRIPLE) {
+            key.append(SEPARATOR).append(store == null ? -1 : store);
+        }
+        return key.toString();
+    }
+
+    private record IndexedPayment(String folio, String operationId, Integer store, long registeredAt,
+            long sequence) {
+
+        private String[] keys() {
+            return new String[] {
+                key(OPERATION, operationId, null, null),
+                key(FOLIO, folio, null, store),
+                key(PAIR, folio, operationId, null),
+                key(TRIPLE, folio, operationId, store)
+            };
+        }
+    }
+
+    private static final class BloomFilter {
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashFunctions;
+
+        private BloomFilter(long expectedKeys, double falsePositiveRate) {
+            if (expectedKeys <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+                throw new IllegalArgumentException("Configuracion invalida de filtro Bloom para pagos recientes");
+            }
+            long optimalBits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+            this.hashFunctions = Math.max(1, (int) Math.round((double) bitCount / expectedKeys * Math.log(2)));
+        }
+
+        private void put(String key) {
+            long hash1 = hash(key);
+            long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        private boolean mightContain(String key) {
+            long hash1 = hash(key);
+            long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < hashFunctions; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String key) {
+            long hash = 0xCBF29CE484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001B3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long value) {
+            long hash = value;
+            hash ^= hash >>> 33;
+            hash *= 0xFF51AFD7ED558CCDL;
+            hash ^= hash >>> 33;
+            hash *= 0xC4CEB9FE1A85EC53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
+    }
+}
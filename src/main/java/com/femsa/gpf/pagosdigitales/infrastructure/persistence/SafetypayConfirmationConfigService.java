@@ -1,35 +1,47 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.Serializable;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
+import com.femsa.gpf.pagosdigitales.domain.service.SignatureService.SignatureMode;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.CacheStats;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.CacheStatsRecorder;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RefreshableCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.IpAllowList;
+
 import lombok.extern.log4j.Log4j2;
 
 /**
  * Servicio para resolver configuracion de confirmation de SafetyPay desde BD.
+ * Cada refresco compila un indice por api key, el proveedor por defecto y las
+ * listas de IPs permitidas, de modo que cada webhook se resuelve en O(1).
+ * La refresca {@code GatewayConfigSnapshotService} al detectar cambios de
+ * IN_SAFETYPAY_CFG en la bitacora y en cada recarga completa.
  */
 @Log4j2
 @Service
-public class SafetypayConfirmationConfigService {
+public class SafetypayConfirmationConfigService implements RefreshableCache {
 
-    private static final String SELECT_CONFIRMATION_CONFIG = "SELECT C.CODIGO_BILLETERA, "
-            + "C.NOMBRE_PROVEEDOR, C.ENABLED, C.API_KEY, C.SECRET, C.SIGNATURE_MODE, C.ALLOWED_IPS "
-            + "FROM TUKUNAFUNC.IN_SAFETYPAY_CFG C "
-            + "WHERE C.ACTIVO = 'S' "
-            + "ORDER BY C.CODIGO_BILLETERA";
+    private static final DatabaseExecutor.NamedQuery SELECT_CONFIRMATION_CONFIG = DatabaseExecutor.NamedQuery.of(
+            "safetypay-confirmation-config",
+            "SELECT C.CODIGO_BILLETERA, "
+                    + "C.NOMBRE_PROVEEDOR, C.ENABLED, C.API_KEY, C.SECRET, C.SIGNATURE_MODE, C.ALLOWED_IPS "
+                    + "FROM TUKUNAFUNC.IN_SAFETYPAY_CFG C "
+                    + "WHERE C.ACTIVO = 'S' "
+                    + "ORDER BY C.CODIGO_BILLETERA");
 
     private final DatabaseExecutor databaseExecutor;
-    private volatile Map<String, ProviderConfig> providers = Map.of();
+    private final CacheStatsRecorder stats = new CacheStatsRecorder("safetypay-config");
+    private volatile ProviderIndex index = ProviderIndex.EMPTY;
 
     /**
      * Crea el servicio con configuracion de conexion.
@@ -41,23 +53,49 @@ public class SafetypayConfirmationConfigService {
     }
 
     /**
-     * Inicializa cache al arranque.
+     * Recarga la configuracion de confirmation conservando la anterior si falla.
      */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
+    @Override
+    public void refreshCache() {
+        reload();
     }
 
     /**
-     * Refresca la cache cada 6 horas.
+     * Recarga de inmediato la configuracion de confirmation.
+     *
+     * @param name nombre del catalogo
+     * @return true cuando la carga se publico
      */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
+    @Override
+    public boolean refreshCatalog(String name) {
+        return reload();
+    }
+
+    /**
+     * Devuelve las estadisticas de la configuracion de confirmation. Las
+     * busquedas sin resultado son api keys sin proveedor asociado.
+     *
+     * @return estadisticas del catalogo
+     */
+    @Override
+    public List<CacheStats> cacheStats() {
+        return List.of(stats.stats(0L));
+    }
+
+    private boolean reload() {
+        long startedAt = System.nanoTime();
         try {
-            this.providers = Map.copyOf(loadFromDb());
-            log.info("Cache de confirmation SafetyPay actualizada. Proveedores: {}", providers.size());
+            ProviderIndex loaded = ProviderIndex.of(loadFromDb());
+            this.index = loaded;
+            stats.recordRefresh(Instant.now(), System.nanoTime() - startedAt, loaded.providers().size(),
+                    CacheStatsRecorder.approxBytes(loaded.providers()));
+            log.info("Cache de confirmation SafetyPay actualizada. Proveedores: {}, api keys: {}",
+                    loaded.providers().size(), loaded.byApiKey().size());
+            return true;
         } catch (Exception e) {
+            stats.recordFailure();
             log.error("No fue posible refrescar cache de confirmation SafetyPay. Se conserva cache anterior.", e);
+            return false;
         }
     }
 
@@ -67,7 +105,7 @@ public class SafetypayConfirmationConfigService {
      * @return true cuando existe configuracion activa
      */
     public boolean isEnabled() {
-        return providers.values().stream().anyMatch(ProviderConfig::enabled);
+        return index.enabled();
     }
 
     /**
@@ -77,50 +115,48 @@ public class SafetypayConfirmationConfigService {
      * @return proveedor resuelto
      */
     public Optional<ProviderConfig> resolveProvider(String apiKey) {
-        if (providers.isEmpty()) {
-            return Optional.empty();
-        }
+        ProviderIndex current = index;
         if (apiKey != null && !apiKey.isBlank()) {
-            Optional<ProviderConfig> byApiKey = providers.values().stream()
-                    .filter(ProviderConfig::enabled)
-                    .filter(p -> apiKey.equals(p.apiKey()))
-                    .findFirst();
-            if (byApiKey.isPresent()) {
-                return byApiKey;
+            ProviderConfig byApiKey = current.byApiKey().get(apiKey);
+            if (byApiKey != null) {
+                return Optional.of(byApiKey);
             }
         }
-        ProviderConfig paysafe = providers.get("paysafe");
-        if (paysafe != null && paysafe.enabled()) {
-            return Optional.of(paysafe);
-        }
-        return providers.values().stream().filter(ProviderConfig::enabled).findFirst();
+        stats.recordMiss();
+        return Optional.ofNullable(current.defaultProvider());
     }
 
     private Map<String, ProviderConfig> loadFromDb() throws Exception {
         Map<String, ProviderConfig> resolved = new LinkedHashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_CONFIRMATION_CONFIG);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    Integer providerCode = rs.getInt("CODIGO_BILLETERA");
-                    if (rs.wasNull()) {
-                        continue;
-                    }
-                    String providerName = normalizeProviderName(rs.getString("NOMBRE_PROVEEDOR"));
-                    if (providerName.isBlank()) {
-                        providerName = String.valueOf(providerCode);
-                    }
-                    String signatureMode = trimToEmpty(rs.getString("SIGNATURE_MODE"));
-                    resolved.put(providerName, new ProviderConfig(
-                            providerCode,
-                            providerName,
-                            "S".equalsIgnoreCase(trimToEmpty(rs.getString("ENABLED"))),
-                            trimToEmpty(rs.getString("API_KEY")),
-                            trimToEmpty(rs.getString("SECRET")),
-                            signatureMode.isBlank() ? "SHA256" : signatureMode,
-                            parseIps(trimToEmpty(rs.getString("ALLOWED_IPS")))));
-                }
+        databaseExecutor.forEachRow(SELECT_CONFIRMATION_CONFIG, rs -> {
+            Integer providerCode = rs.getInt("CODIGO_BILLETERA");
+            if (rs.wasNull()) {
+                return;
+            }
+            String providerName = normalizeProviderName(rs.getString("NOMBRE_PROVEEDOR"));
+            if (providerName.isBlank()) {
+                providerName = String.valueOf(providerCode);
+            }
+            String configuredMode = trimToEmpty(rs.getString("SIGNATURE_MODE"));
+            SignatureMode signatureMode = SignatureMode.parse(configuredMode);
+            if (signatureMode == null) {
+                log.warn("SIGNATURE_MODE {} no soportado para proveedor {}. Se usa SHA256.", configuredMode,
+                        providerName);
+                signatureMode = SignatureMode.SHA256;
+            }
+            ProviderConfig config = new ProviderConfig(
+                    providerCode,
+                    providerName,
+                    "S".equalsIgnoreCase(trimToEmpty(rs.getString("ENABLED"))),
+                    trimToEmpty(rs.getString("API_KEY")),
+                    trimToEmpty(rs.getString("SECRET")),
+                    signatureMode.name(),
+                    parseIps(trimToEmpty(rs.getString("ALLOWED_IPS"))));
+            if (!config.allowedIpMatcher().invalidEntries().isEmpty()) {
+                log.warn("ALLOWED_IPS invalidas ignoradas para proveedor {}: {}", providerName,
+                        config.allowedIpMatcher().invalidEntries());
             }
+            resolved.put(providerName, config);
         });
         return resolved;
     }
@@ -167,8 +203,9 @@ public class SafetypayConfirmationConfigService {
      * @param enabled indica si esta activo
      * @param apiKey api key esperada
      * @param secret secreto de firma
-     * @param signatureMode modo de firma
-     * @param allowedIps lista de ips permitidas
+     * @param signatureMode modo de firma normalizado (SHA256 o HMAC_SHA256)
+     * @param allowedIps lista de ips o rangos CIDR permitidos
+     * @param allowedIpMatcher lista de ips compilada
      */
     public record ProviderConfig(
             Integer providerCode,
@@ -177,7 +214,73 @@ public class SafetypayConfirmationConfigService {
             String apiKey,
             String secret,
             String signatureMode,
-            List<String> allowedIps) {
+            List<String> allowedIps,
+            IpAllowList allowedIpMatcher) implements Serializable {
+
+        /**
+         * Compila la lista de ips cuando no se informa el matcher.
+         */
+        public ProviderConfig {
+            if (allowedIpMatcher == null) {
+                allowedIpMatcher = IpAllowList.compile(allowedIps);
+            }
+        }
+
+        /**
+         * Crea la configuracion compilando la lista de ips permitidas.
+         *
+         * @param providerCode codigo de proveedor
+         * @param providerName nombre normalizado
+         * @param enabled indica si esta activo
+         * @param apiKey api key esperada
+         * @param secret secreto de firma
+         * @param signatureMode modo de firma
+         * @param allowedIps lista de ips o rangos CIDR permitidos
+         */
+        public ProviderConfig(Integer providerCode, String providerName, boolean enabled, String apiKey,
+                String secret, String signatureMode, List<String> allowedIps) {
+            this(providerCode, providerName, enabled, apiKey, secret, signatureMode, allowedIps,
+                    IpAllowList.compile(allowedIps));
+        }
+    }
+
+    /**
+     * Indice inmutable de proveedores armado en cada refresco.
+     *
+     * @param providers proveedores por nombre normalizado
+     * @param byApiKey proveedores activos por api key
+     * @param defaultProvider paysafe o primer proveedor activo
+     * @param enabled true cuando existe al menos un proveedor activo
+     */
+    private record ProviderIndex(
+            Map<String, ProviderConfig> providers,
+            Map<String, ProviderConfig> byApiKey,
+            ProviderConfig defaultProvider,
+            boolean enabled) {
+
+        private static final ProviderIndex EMPTY = new ProviderIndex(Map.of(), Map.of(), null, false);
+
+        private static ProviderIndex of(Map<String, ProviderConfig> providers) {
+            Map<String, ProviderConfig> byApiKey = new HashMap<>();
+            ProviderConfig firstEnabled = null;
+            for (ProviderConfig provider : providers.values()) {
+                if (!provider.enabled()) {
+                    continue;
+                }
+                if (firstEnabled == null) {
+                    firstEnabled = provider;
+                }
+                if (provider.apiKey() != null && !provider.apiKey().isBlank()
+                        && byApiKey.putIfAbsent(provider.apiKey(), provider) != null) {
+                    log.warn("API_KEY repetida en confirmation SafetyPay; se conserva {} y se ignora {}",
+                            byApiKey.get(provider.apiKey()).providerName(), provider.providerName());
+                }
+            }
+            ProviderConfig paysafe = providers.get("paysafe");
+            ProviderConfig defaultProvider = paysafe != null && paysafe.enabled() ? paysafe : firstEnabled;
+            return new ProviderIndex(Map.copyOf(providers), Map.copyOf(byApiKey), defaultProvider,
+                    firstEnabled != null);
+        }
     }
 
 }
@@ -0,0 +1,651 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLNonTransientException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationRequest;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationRecord;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationStore;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService.ConfirmationUpdate;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Bitacora local de confirmaciones SafetyPay pendientes de aplicar en
+ * IN_REGISTRO_PAGOS. Con fast-ack habilitado el webhook agrega la
+ * actualizacion y la notificacion de idempotencia al archivo con fsync y
+ * responde sin consultar BD; un hilo aplica las pendientes en batches JDBC,
+ * registra las notificaciones y guarda el offset aplicado. Al arrancar se
+ * reaplica todo lo posterior a ese offset, por lo que cada actualizacion se
+ * aplica al menos una vez. Solo acepta confirmaciones aplicables; si un batch falla
+ * se aplica una por una y las que fallan por datos se mueven al archivo
+ * {@code <journal-path>.rejected} para no bloquear a las siguientes.
+ */
+@Log4j2
+@Component
+public class SafetypayConfirmationJournal {
+
+    private static final int MAGIC = 0x5350434A;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final PaymentRegistryService paymentRegistryService;
+    private final SafetypayNotificationStore notificationStore;
+    private final boolean enabled;
+    private final Path path;
+    private final Path checkpointPath;
+    private final Path rejectedPath;
+    private final int batchSize;
+    private final int maxPending;
+    private final long flushIntervalMs;
+    private final Deque<Pending> pending = new ArrayDeque<>();
+    private volatile boolean available;
+    private FileChannel channel;
+    private long writeOffset;
+    private long appended;
+    private long applied;
+    private long failedBatches;
+    private long rejected;
+    private ScheduledExecutorService worker;
+
+    /**
+     * Crea la bitacora con su configuracion.
+     *
+     * @param paymentRegistryService servicio de registro de pagos
+     * @param notificationStore store de idempotencia de notificaciones
+     * @param enabled habilita fast-ack del webhook
+     * @param path ruta del archivo de bitacora en un volumen persistente; obligatoria si esta habilitado
+     * @param batchSize maximo de actualizaciones por batch JDBC
+     * @param maxPending maximo de actualizaciones pendientes antes de volver al modo sincrono
+     * @param flushIntervalMs milisegundos entre ciclos del hilo aplicador
+     */
+    public SafetypayConfirmationJournal(PaymentRegistryService paymentRegistryService,
+            SafetypayNotificationStore notificationStore,
+            @Value("${safetypay.confirmation.fast-ack.enabled:false}") boolean enabled,
+            @Value("${safetypay.confirmation.fast-ack.journal-path:}") String path,
+            @Value("${safetypay.confirmation.fast-ack.batch-size:200}") int batchSize,
+            @Value("${safetypay.confirmation.fast-ack.max-pending:50000}") int maxPending,
+            @Value("${safetypay.confirmation.fast-ack.flush-interval-ms:250}") long flushIntervalMs) {
+        if (enabled && (path == null || path.isBlank())) {
+            throw new IllegalArgumentException("safetypay.confirmation.fast-ack.journal-path es obligatorio "
+                    + "cuando safetypay.confirmation.fast-ack.enabled=true");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("safetypay.confirmation.fast-ack.batch-size debe ser mayor a 0");
+        }
+        if (maxPending <= 0) {
+            throw new IllegalArgumentException("safetypay.confirmation.fast-ack.max-pending debe ser mayor a 0");
+        }
+        if (flushIntervalMs <= 0) {
+            throw new IllegalArgumentException("safetypay.confirmation.fast-ack.flush-interval-ms debe ser mayor a 0");
+        }
+        this.paymentRegistryService = paymentRegistryService;
+        this.notificationStore = notificationStore;
+        this.enabled = enabled;
+        this.path = enabled ? Path.of(path.trim()) : null;
+        this.checkpointPath = enabled ? Path.of(path.trim() + ".offset") : null;
+        this.rejectedPath = enabled ? Path.of(path.trim() + ".rejected") : null;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Abre la bitacora, recupera las pendientes y arranca el hilo aplicador. Si
+     * el archivo no se puede abrir el webhook sigue en modo sincrono.
+     */
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                recover();
+            }
+            available = true;
+        } catch (Exception e) {
+            log.error("No fue posible abrir bitacora de confirmaciones SafetyPay en {}. Se usa modo sincrono.",
+                    path, e);
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "safetypay-confirmation-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::drainSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el hilo aplicador y cierra el archivo. Las pendientes se
+     * reaplican en el siguiente arranque.
+     */
+    @PreDestroy
+    public void stop() {
+        available = false;
+        if (worker != null) {
+            worker.shutdown();
+            try {
+                worker.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            closeChannel();
+            if (!pending.isEmpty()) {
+                log.warn("{} confirmaciones SafetyPay quedan pendientes en {} para el siguiente arranque",
+                        pending.size(), path);
+            }
+        }
+    }
+
+    /**
+     * Indica si fast-ack esta activo y la bitacora acepta confirmaciones.
+     *
+     * @return true cuando la bitacora esta abierta
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Agrega una confirmacion autenticada (ErrorNumber 0) a la bitacora con
+     * fsync para aplicarla despues. Solo acepta confirmaciones que se pueden
+     * enlazar a la actualizacion de IN_REGISTRO_PAGOS.
+     *
+     * @param req request de confirmacion
+     * @param notification notificacion nueva por registrar al aplicar o null si ya estaba registrada
+     * @return false cuando fast-ack no esta disponible o la confirmacion no es
+     *         aceptada y el llamador debe actualizar en linea
+     */
+    public boolean append(SafetypayConfirmationRequest req, SafetypayNotificationRecord notification) {
+        if (!available || req == null) {
+            return false;
+        }
+        String invalid = paymentRegistryService.validateConfirmationUpdate(req);
+        if (invalid != null) {
+            log.warn("Confirmacion SafetyPay {} no se agrega a bitacora: {}", req.getMerchantSalesId(), invalid);
+            return false;
+        }
+        byte[] payload;
+        try {
+            payload = encode(req, notification);
+        } catch (IOException e) {
+            log.warn("Confirmacion SafetyPay {} no se pudo serializar en bitacora: {}", req.getMerchantSalesId(),
+                    e.getMessage());
+            return false;
+        }
+        if (payload.length > MAX_RECORD_BYTES) {
+            return false;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + payload.length);
+        record.putInt(payload.length).put(payload).putLong(checksum(payload, payload.length)).flip();
+        synchronized (this) {
+            if (!available) {
+                return false;
+            }
+            if (pending.size() >= maxPending) {
+                log.warn("Bitacora de confirmaciones SafetyPay llena ({} pendientes). Se actualiza en linea.",
+                        pending.size());
+                return false;
+            }
+            try {
+                long position = writeOffset;
+                while (record.hasRemaining()) {
+                    position += channel.write(record, position);
+                }
+                channel.force(false);
+                writeOffset = position;
+            } catch (IOException e) {
+                log.error("No fue posible escribir en bitacora de confirmaciones SafetyPay {}: {}", path,
+                        e.getMessage());
+                return false;
+            }
+            pending.addLast(new Pending(new ConfirmationUpdate(copyOf(req), 0), notification, writeOffset));
+            appended++;
+        }
+        return true;
+    }
+
+    /**
+     * Aplica las pendientes en batches hasta vaciar la cola. Si un batch falla
+     * se aplica una por una: las que fallan por datos se mueven al archivo de
+     * rechazadas y una falla transitoria detiene el ciclo. Cuando no queda nada
+     * pendiente trunca el archivo. Lo invoca un solo hilo.
+     *
+     * @throws Exception cuando una actualizacion falla de forma transitoria; se reintenta en el siguiente ciclo
+     */
+    public void drain() throws Exception {
+        while (true) {
+            List<Pending> batch = new ArrayList<>(batchSize);
+            synchronized (this) {
+                Iterator<Pending> iterator = pending.iterator();
+                while (batch.size() < batchSize && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                if (batch.isEmpty()) {
+                    compact();
+                    return;
+                }
+            }
+            List<ConfirmationUpdate> updates = new ArrayList<>(batch.size());
+            for (Pending entry : batch) {
+                updates.add(entry.update());
+            }
+            long startedAt = System.nanoTime();
+            int updated;
+            try {
+                updated = paymentRegistryService.applySafetypayConfirmations(updates);
+            } catch (Exception e) {
+                synchronized (this) {
+                    failedBatches++;
+                }
+                log.warn("Batch de {} confirmaciones SafetyPay fallido. Se aplican una por una: {}", batch.size(),
+                        e.getMessage());
+                applyOneByOne(batch);
+                continue;
+            }
+            if (updated < updates.size()) {
+                log.warn("{} de {} confirmaciones SafetyPay aplicadas sin registro en IN_REGISTRO_PAGOS",
+                        updates.size() - updated, updates.size());
+            }
+            registerNotifications(batch);
+            complete(batch.size(), batch.get(batch.size() - 1).endOffset(), 0);
+            log.debug("{} confirmaciones SafetyPay aplicadas desde bitacora en {} ms", batch.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+    }
+
+    /**
+     * Devuelve los contadores de la bitacora.
+     *
+     * @return pendientes, agregadas, aplicadas, batches fallidos y rechazadas
+     */
+    public synchronized Stats stats() {
+        return new Stats(available, pending.size(), appended, applied, failedBatches, rejected);
+    }
+
+    /**
+     * Aplica cada actualizacion del batch en su propia transaccion. Avanza el
+     * offset hasta la ultima aplicada o rechazada antes de propagar una falla
+     * transitoria.
+     */
+    private void applyOneByOne(List<Pending> batch) throws Exception {
+        int done = 0;
+        int rejectedNow = 0;
+        try {
+            for (Pending entry : batch) {
+                try {
+                    paymentRegistryService.applySafetypayConfirmations(List.of(entry.update()));
+                } catch (Exception e) {
+                    if (isTransient(e)) {
+                        throw e;
+                    }
+                    reject(entry.update(), e);
+                    rejectedNow++;
+                    done++;
+                    continue;
+                }
+                registerNotifications(List.of(entry));
+                done++;
+            }
+        } finally {
+            if (done > 0) {
+                complete(done, batch.get(done - 1).endOffset(), rejectedNow);
+            }
+        }
+    }
+
+    /**
+     * Registra en el store de idempotencia las notificaciones nuevas de
+     * actualizaciones ya aplicadas. Una falla transitoria se propaga para
+     * reaplicar el batch; cualquier otra solo se registra en log.
+     */
+    private void registerNotifications(List<Pending> entries) throws Exception {
+        for (Pending entry : entries) {
+            SafetypayNotificationRecord notification = entry.notification();
+            if (notification == null) {
+                continue;
+            }
+            try {
+                notificationStore.saveIfAbsent(notification);
+            } catch (Exception e) {
+                if (isTransient(e)) {
+                    throw e;
+                }
+                log.error("No fue posible registrar notificacion SafetyPay {} desde bitacora: {}",
+                        notification.getMerchantSalesId(), e.getMessage());
+            }
+        }
+    }
+
+    private synchronized void complete(int count, long endOffset, int rejectedCount) throws IOException {
+        for (int i = 0; i < count; i++) {
+            pending.pollFirst();
+        }
+        applied += count - rejectedCount;
+        rejected += rejectedCount;
+        writeCheckpoint(endOffset);
+    }
+
+    /**
+     * Deja la actualizacion en el archivo de rechazadas para revision manual.
+     * Si el archivo no se puede escribir queda al menos en el log.
+     */
+    private void reject(ConfirmationUpdate update, Exception cause) {
+        SafetypayConfirmationRequest req = update.request();
+        String line = String.join("\t", Instant.now().toString(), String.valueOf(update.errorNumber()),
+                field(req.getMerchantSalesId()), field(req.getReferenceNo()), field(req.getPaymentReferenceNo()),
+                field(req.getRequestDateTime()), field(req.getAmount()), field(req.getCurrencyId()),
+                field(req.getStatus()), field(req.getSignature()), field(String.valueOf(cause.getMessage())))
+                + System.lineSeparator();
+        try {
+            Files.writeString(rejectedPath, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+            log.error("Confirmacion SafetyPay {} rechazada al aplicar desde bitacora y movida a {}: {}",
+                    req.getMerchantSalesId(), rejectedPath, cause.getMessage());
+        } catch (IOException e) {
+            log.error("Confirmacion SafetyPay rechazada al aplicar desde bitacora y no escrita en {}: {}",
+                    rejectedPath, line.trim(), e);
+        }
+    }
+
+    /**
+     * Una falla es transitoria cuando puede resolverse al reintentar: errores
+     * de conexion o de la BD que no son de datos ni de sintaxis. Las excepciones
+     * sin causa JDBC vienen del enlace de parametros y no cambian al reintentar.
+     */
+    private static boolean isTransient(Exception e) {
+        Throwable current = e;
+        while (current != null && !(current instanceof SQLException)) {
+            current = current.getCause();
+        }
+        if (!(current instanceof SQLException sql)) {
+            return false;
+        }
+        if (sql instanceof SQLNonTransientException && !(sql instanceof SQLNonTransientConnectionException)) {
+            return false;
+        }
+        String state = sql.getSQLState();
+        return state == null || !(state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private static String field(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\r', ' ').replace('\n', ' ');
+    }
+
+    private void drainSafely() {
+        try {
+            drain();
+        } catch (Exception e) {
+            log.warn("No fue posible aplicar confirmaciones SafetyPay pendientes. Se reintenta en {} ms: {}",
+                    flushIntervalMs, e.getMessage());
+        }
+    }
+
+    /**
+     * Abre el archivo y carga en memoria los registros posteriores al offset
+     * aplicado. Un registro incompleto o con checksum invalido al final se
+     * descarta junto con todo lo que le sigue.
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size < HEADER_BYTES) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+            channel.truncate(0);
+            while (header.hasRemaining()) {
+                channel.write(header, HEADER_BYTES - header.remaining());
+            }
+            channel.force(true);
+            writeOffset = HEADER_BYTES;
+            writeCheckpoint(HEADER_BYTES);
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            closeChannel();
+            throw new IOException("Archivo de bitacora " + path + " no reconocido");
+        }
+        long position = readCheckpoint();
+        if (position < HEADER_BYTES || position > size) {
+            position = HEADER_BYTES;
+        }
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        while (position + RECORD_OVERHEAD <= size) {
+            length.clear();
+            readFully(length, position);
+            int payloadLength = length.flip().getInt();
+            if (payloadLength <= 0 || payloadLength > MAX_RECORD_BYTES
+                    || position + RECORD_OVERHEAD + payloadLength > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(payloadLength + Long.BYTES);
+            readFully(body, position + Integer.BYTES);
+            body.flip();
+            byte[] payload = new byte[payloadLength];
+            body.get(payload);
+            if (body.getLong() != checksum(payload, payloadLength)) {
+                break;
+            }
+            position += RECORD_OVERHEAD + payloadLength;
+            pending.addLast(decode(payload, position));
+        }
+        if (position < size) {
+            log.warn("Bitacora de confirmaciones SafetyPay {} con {} bytes incompletos al final. Se descartan.",
+                    path, size - position);
+            channel.truncate(position);
+            channel.force(true);
+        }
+        writeOffset = Math.max(position, HEADER_BYTES);
+        log.info("Bitacora de confirmaciones SafetyPay abierta en {}. Pendientes por reaplicar: {}", path,
+                pending.size());
+    }
+
+    /**
+     * Trunca el archivo cuando todas las actualizaciones fueron aplicadas. El
+     * offset se reinicia antes de truncar para que una caida intermedia solo
+     * provoque reaplicar actualizaciones ya aplicadas.
+     */
+    private void compact() throws IOException {
+        if (channel == null || writeOffset == HEADER_BYTES) {
+            return;
+        }
+        writeCheckpoint(HEADER_BYTES);
+        channel.truncate(HEADER_BYTES);
+        channel.force(true);
+        writeOffset = HEADER_BYTES;
+    }
+
+    private void writeCheckpoint(long offset) throws IOException {
+        Path temp = Files.createTempFile(checkpointPath.toAbsolutePath().getParent(),
+                checkpointPath.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, ByteBuffer.allocate(Long.BYTES).putLong(offset).array());
+            Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private long readCheckpoint() {
+        try {
+            byte[] bytes = Files.readAllBytes(checkpointPath);
+            return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : HEADER_BYTES;
+        } catch (IOException e) {
+            return HEADER_BYTES;
+        }
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        long offset = position;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, offset);
+            if (read < 0) {
+                throw new IOException("Fin de archivo inesperado en " + path);
+            }
+            offset += read;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("No fue posible cerrar bitacora de confirmaciones SafetyPay {}: {}", path, e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * Serializa la actualizacion y, al final, la notificacion opcional. Los
+     * registros escritos antes de incluir la notificacion terminan en la firma.
+     */
+    private static byte[] encode(SafetypayConfirmationRequest req, SafetypayNotificationRecord notification)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0);
+            writeNullable(out, req.getMerchantSalesId());
+            writeNullable(out, req.getReferenceNo());
+            writeNullable(out, req.getPaymentReferenceNo());
+            writeNullable(out, req.getRequestDateTime());
+            writeNullable(out, req.getAmount());
+            writeNullable(out, req.getCurrencyId());
+            writeNullable(out, req.getStatus());
+            writeNullable(out, req.getSignature());
+            out.writeBoolean(notification != null);
+            if (notification != null) {
+                writeNullable(out, notification.getProviderName());
+                writeNullable(out, notification.getOrderNo());
+                writeNullable(out, notification.getRawPayload());
+                out.writeLong(notification.getReceivedAt() == null
+                        ? -1L
+                        : notification.getReceivedAt().toInstant().toEpochMilli());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Pending decode(byte[] payload, long endOffset) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int errorNumber = in.readInt();
+            SafetypayConfirmationRequest req = new SafetypayConfirmationRequest();
+            req.setMerchantSalesId(readNullable(in));
+            req.setReferenceNo(readNullable(in));
+            req.setPaymentReferenceNo(readNullable(in));
+            req.setRequestDateTime(readNullable(in));
+            req.setAmount(readNullable(in));
+            req.setCurrencyId(readNullable(in));
+            req.setStatus(readNullable(in));
+            req.setSignature(readNullable(in));
+            SafetypayNotificationRecord notification = null;
+            if (in.available() > 0 && in.readBoolean()) {
+                notification = new SafetypayNotificationRecord();
+                notification.setMerchantSalesId(req.getMerchantSalesId());
+                notification.setReferenceNo(req.getReferenceNo());
+                notification.setPaymentReferenceNo(req.getPaymentReferenceNo());
+                notification.setStatus(req.getStatus());
+                notification.setAmount(req.getAmount());
+                notification.setCurrencyId(req.getCurrencyId());
+                notification.setSignature(req.getSignature());
+                notification.setProviderName(readNullable(in));
+                notification.setOrderNo(readNullable(in));
+                notification.setRawPayload(readNullable(in));
+                long receivedAt = in.readLong();
+                if (receivedAt >= 0) {
+                    notification.setReceivedAt(Instant.ofEpochMilli(receivedAt).atOffset(ZoneOffset.UTC));
+                }
+            }
+            return new Pending(new ConfirmationUpdate(req, errorNumber), notification, endOffset);
+        }
+    }
+
+    private static SafetypayConfirmationRequest copyOf(SafetypayConfirmationRequest req) {
+        SafetypayConfirmationRequest copy = new SafetypayConfirmationRequest();
+        copy.setMerchantSalesId(req.getMerchantSalesId());
+        copy.setReferenceNo(req.getReferenceNo());
+        copy.setPaymentReferenceNo(req.getPaymentReferenceNo());
+        copy.setRequestDateTime(req.getRequestDateTime());
+        copy.setAmount(req.getAmount());
+        copy.setCurrencyId(req.getCurrencyId());
+        copy.setStatus(req.getStatus());
+        copy.setSignature(req.getSignature());
+        return copy;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static long checksum(byte[] payload, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, length);
+        return crc.getValue();
+    }
+
+    /**
+     * Contadores de la bitacora.
+     *
+     * @param available true cuando fast-ack esta activo
+     * @param pending actualizaciones pendientes de aplicar
+     * @param appended actualizaciones agregadas desde el arranque
+     * @param applied actualizaciones aplicadas desde el arranque
+     * @param failedBatches batches JDBC fallidos desde el arranque
+     * @param rejected actualizaciones movidas al archivo de rechazadas desde el arranque
+     */
+    public record Stats(boolean available, int pending, long appended, long applied, long failedBatches,
+            long rejected) {
+    }
+
+    private record Pending(ConfirmationUpdate update, SafetypayNotificationRecord notification, long endOffset) {
+    }
+}
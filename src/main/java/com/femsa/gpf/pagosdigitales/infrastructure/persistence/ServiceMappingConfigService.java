@@ -1,7 +1,6 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -11,10 +10,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import lombok.extern.log4j.Log4j2;
 
 /**
@@ -24,10 +21,13 @@ import lombok.extern.log4j.Log4j2;
 @Service
 public class ServiceMappingConfigService {
 
-    private static final String SELECT_SERVICE_MAPPINGS = "SELECT ID_MAPEO_SERVICIO, CODIGO_BILLETERA, "
-            + "APP_SERVICE_KEY, APP_OPERATION, DIRECCION, SECCION_APP, ATRIBUTO_APP, "
-            + "SECCION_EXT, ATRIBUTO_EXT, ORDEN_APLICACION, ACTIVO "
-            + "FROM TUKUNAFUNC.AD_MAPEO_SERVICIOS";
+    private static final DatabaseExecutor.NamedQuery SELECT_SERVICE_MAPPINGS = DatabaseExecutor.NamedQuery.of(
+            "service-mappings",
+            "SELECT ID_MAPEO_SERVICIO, CODIGO_BILLETERA, "
+                    + "APP_SERVICE_KEY, APP_OPERATION, DIRECCION, SECCION_APP, ATRIBUTO_APP, "
+                    + "SECCION_EXT, ATRIBUTO_EXT, ORDEN_APLICACION, ACTIVO "
+                    + "FROM TUKUNAFUNC.AD_MAPEO_SERVICIOS")
+            .withFetchSize(1000);
     private static final String DEFAULT_OPERATION = "DEFAULT";
     private static final String DIRECTION_REQUEST = "REQUEST";
     private static final String DIRECTION_RESPONSE = "RESPONSE";
@@ -35,7 +35,6 @@ public class ServiceMappingConfigService {
     private static final String SECTION_BODY = "BODY";
 
     private final DatabaseExecutor databaseExecutor;
-    private volatile Map<Integer, Map<String, Map<String, Map<String, List<ServiceMapping>>>>> mappingsByProvider = Map.of();
 
     /**
      * Crea el servicio con configuracion de conexion.
@@ -47,154 +46,56 @@ public class ServiceMappingConfigService {
     }
 
     /**
-     * Inicializa cache al arranque.
-     */
-    @PostConstruct
-    public void initCache() {
-        refreshCache();
-    }
-
-    /**
-     * Refresca la cache de mapeos cada 6 horas.
-     */
-    @Scheduled(cron = "0 0 */6 * * *")
-    public void refreshCache() {
-        try {
-            var loaded = loadMappingsFromDb();
-            this.mappingsByProvider = toImmutable(loaded);
-            log.info("Cache de AD_MAPEO_SERVICIOS actualizada. Proveedores con mapeos: {}", loaded.size());
-        } catch (Exception e) {
-            log.error("No fue posible refrescar cache AD_MAPEO_SERVICIOS. Se conserva cache anterior.", e);
-        }
-    }
-
-    /**
-     * Obtiene mapeos de request en seccion BODY para un servicio.
-     * La clave de salida es atributo externo y el valor es atributo app.
-     *
-     * @param providerCode codigo de billetera
-     * @param wsKey identificador del servicio
-     * @param providerName nombre del proveedor para resolver operacion
-     * @return mapa ordenado de atributo externo -> atributo app
-     */
-    public Map<String, String> getRequestBodyMappings(Integer providerCode, String wsKey, String providerName) {
-        List<ServiceMapping> entries = resolve(providerCode, wsKey, providerName, DIRECTION_REQUEST);
-        Map<String, String> result = new LinkedHashMap<>();
-        entries.stream()
-                .filter(entry -> SECTION_BODY.equals(entry.appSection()) && SECTION_BODY.equals(entry.externalSection()))
-                .forEach(entry -> result.put(entry.externalAttribute(), entry.appAttribute()));
-        return Collections.unmodifiableMap(result);
-    }
-
-    /**
-     * Obtiene mapeos de response en seccion BODY para un servicio.
-     * La clave de salida es atributo app y el valor es atributo externo.
-     *
-     * @param providerCode codigo de billetera
-     * @param wsKey identificador del servicio
-     * @param providerName nombre del proveedor para resolver operacion
-     * @return mapa ordenado de atributo app -> atributo externo
-     */
-    public Map<String, String> getResponseBodyMappings(Integer providerCode, String wsKey, String providerName) {
-        List<ServiceMapping> entries = resolve(providerCode, wsKey, providerName, DIRECTION_RESPONSE);
-        Map<String, String> result = new LinkedHashMap<>();
-        entries.stream()
-                .filter(entry -> SECTION_BODY.equals(entry.appSection()) && SECTION_BODY.equals(entry.externalSection()))
-                .forEach(entry -> result.put(entry.appAttribute(), entry.externalAttribute()));
-        return Collections.unmodifiableMap(result);
-    }
-
-    /**
-     * Obtiene el path del objeto de error para un servicio.
-     * Busca primero el atributo app "error"; si no existe usa el primer mapeo de ERROR.
+     * Carga el catalogo de mapeos por proveedor desde BD.
      *
-     * @param providerCode codigo de billetera
-     * @param wsKey identificador del servicio
-     * @param providerName nombre del proveedor para resolver operacion
-     * @return path de error; por defecto retorna "error"
+     * @return catalogo inmutable de mapeos
+     * @throws Exception si falla la consulta
      */
-    public String getErrorPath(Integer providerCode, String wsKey, String providerName) {
-        List<ServiceMapping> entries = resolve(providerCode, wsKey, providerName, DIRECTION_ERROR);
-        if (entries.isEmpty()) {
-            return "error";
-        }
-        for (ServiceMapping entry : entries) {
-            if ("error".equalsIgnoreCase(entry.appAttribute())
-                    && SECTION_BODY.equals(entry.appSection())
-                    && SECTION_BODY.equals(entry.externalSection())
-                    && !entry.externalAttribute().isBlank()) {
-                return entry.externalAttribute();
-            }
-        }
-        ServiceMapping first = entries.get(0);
-        return first.externalAttribute().isBlank() ? "error" : first.externalAttribute();
-    }
-
-    private List<ServiceMapping> resolve(Integer providerCode, String wsKey, String providerName, String direction) {
-        if (providerCode == null || wsKey == null || wsKey.isBlank()) {
-            return List.of();
-        }
-        var byService = mappingsByProvider.get(providerCode);
-        if (byService == null) {
-            return List.of();
-        }
-        var byOperation = byService.get(normalizeWsKey(wsKey));
-        if (byOperation == null) {
-            return List.of();
-        }
-        String operationKey = normalizeOperation(providerName);
-        List<ServiceMapping> specific = byOperation.getOrDefault(operationKey, Map.of())
-                .getOrDefault(direction, List.of());
-        if (!specific.isEmpty()) {
-            return specific;
-        }
-        return byOperation.getOrDefault(DEFAULT_OPERATION, Map.of()).getOrDefault(direction, List.of());
+    public MappingCatalog loadCatalog() throws Exception {
+        var loaded = loadMappingsFromDb();
+        log.info("Catalogo AD_MAPEO_SERVICIOS cargado. Proveedores con mapeos: {}", loaded.size());
+        return new MappingCatalog(toImmutable(loaded));
     }
 
     private Map<Integer, Map<String, Map<String, Map<String, List<ServiceMapping>>>>> loadMappingsFromDb()
             throws Exception {
         Map<Integer, Map<String, Map<String, Map<String, List<ServiceMapping>>>>> temp = new HashMap<>();
-        databaseExecutor.withConnection((DatabaseExecutor.ConnectionConsumer) connection -> {
-            try (PreparedStatement ps = connection.prepareStatement(SELECT_SERVICE_MAPPINGS);
-                    ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int providerCode = rs.getInt("CODIGO_BILLETERA");
-                    if (rs.wasNull()) {
-                        continue;
-                    }
-                    if (!"S".equalsIgnoreCase(trimToEmpty(rs.getString("ACTIVO")))) {
-                        continue;
-                    }
+        databaseExecutor.forEachRow(SELECT_SERVICE_MAPPINGS, rs -> {
+            int providerCode = rs.getInt("CODIGO_BILLETERA");
+            if (rs.wasNull()) {
+                return;
+            }
+            if (!"S".equalsIgnoreCase(trimToEmpty(rs.getString("ACTIVO")))) {
+                return;
+            }
 
-                    String wsKey = normalizeWsKey(rs.getString("APP_SERVICE_KEY"));
-                    String operation = normalizeOperation(rs.getString("APP_OPERATION"));
-                    String direction = trimToEmpty(rs.getString("DIRECCION")).toUpperCase(Locale.ROOT);
-                    String appSection = trimToEmpty(rs.getString("SECCION_APP")).toUpperCase(Locale.ROOT);
-                    String appAttribute = trimToEmpty(rs.getString("ATRIBUTO_APP"));
-                    String externalSection = trimToEmpty(rs.getString("SECCION_EXT")).toUpperCase(Locale.ROOT);
-                    String externalAttribute = trimToEmpty(rs.getString("ATRIBUTO_EXT"));
-                    int order = rs.getInt("ORDEN_APLICACION");
-                    long id = rs.getLong("ID_MAPEO_SERVICIO");
+            String wsKey = normalizeWsKey(rs.getString("APP_SERVICE_KEY"));
+            String operation = normalizeOperation(rs.getString("APP_OPERATION"));
+            String direction = trimToEmpty(rs.getString("DIRECCION")).toUpperCase(Locale.ROOT);
+            String appSection = trimToEmpty(rs.getString("SECCION_APP")).toUpperCase(Locale.ROOT);
+            String appAttribute = trimToEmpty(rs.getString("ATRIBUTO_APP"));
+            String externalSection = trimToEmpty(rs.getString("SECCION_EXT")).toUpperCase(Locale.ROOT);
+            String externalAttribute = trimToEmpty(rs.getString("ATRIBUTO_EXT"));
+            int order = rs.getInt("ORDEN_APLICACION");
+            long id = rs.getLong("ID_MAPEO_SERVICIO");
 
-                    if (wsKey.isBlank() || direction.isBlank() || appAttribute.isBlank() || externalAttribute.isBlank()) {
-                        continue;
-                    }
+            if (wsKey.isBlank() || direction.isBlank() || appAttribute.isBlank() || externalAttribute.isBlank()) {
+                return;
+            }
 
-                    ServiceMapping mapping = new ServiceMapping(
-                            id,
-                            order,
-                            appSection,
-                            appAttribute,
-                            externalSection,
-                            externalAttribute);
+            ServiceMapping mapping = new ServiceMapping(
+                    id,
+                    order,
+                    appSection,
+                    appAttribute,
+                    externalSection,
+                    externalAttribute);
 
-                    temp.computeIfAbsent(providerCode, value -> new LinkedHashMap<>())
-                            .computeIfAbsent(wsKey, value -> new LinkedHashMap<>())
-                            .computeIfAbsent(operation, value -> new LinkedHashMap<>())
-                            .computeIfAbsent(direction, value -> new ArrayList<>())
-                            .add(mapping);
-                }
-            }
+            temp.computeIfAbsent(providerCode, value -> new LinkedHashMap<>())
+                    .computeIfAbsent(wsKey, value -> new LinkedHashMap<>())
+                    .computeIfAbsent(operation, value -> new LinkedHashMap<>())
+                    .computeIfAbsent(direction, value -> new ArrayList<>())
+                    .add(mapping);
         });
 
         for (Map<String, Map<String, Map<String, List<ServiceMapping>>>> byService : temp.values()) {
@@ -231,11 +132,11 @@ public class ServiceMappingConfigService {
         return Collections.unmodifiableMap(immutableProviders);
     }
 
-    private String normalizeWsKey(String wsKey) {
+    private static String normalizeWsKey(String wsKey) {
         return trimToEmpty(wsKey).toLowerCase(Locale.ROOT);
     }
 
-    private String normalizeOperation(String providerName) {
+    private static String normalizeOperation(String providerName) {
         String normalized = trimToEmpty(providerName).toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "");
         if (normalized.isBlank()) {
             return DEFAULT_OPERATION;
@@ -243,7 +144,7 @@ public class ServiceMappingConfigService {
         return normalized;
     }
 
-    private String trimToEmpty(String value) {
+    private static String trimToEmpty(String value) {
         return value == null ? "" : value.trim();
     }
 
@@ -263,6 +164,130 @@ public class ServiceMappingConfigService {
             String appSection,
             String appAttribute,
             String externalSection,
-            String externalAttribute) {
+            String externalAttribute) implements Serializable {
+    }
+
+    /**
+     * Catalogo inmutable de mapeos por proveedor, ws_key, operacion y direccion.
+     */
+    public static final class MappingCatalog implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Map<Integer, Map<String, Map<String, Map<String, List<ServiceMapping>>>>> mappingsByProvider;
+
+        private MappingCatalog(
+                Map<Integer, Map<String, Map<String, Map<String, List<ServiceMapping>>>>> mappingsByProvider) {
+            this.mappingsByProvider = mappingsByProvider;
+        }
+
+        /**
+         * Crea un catalogo sin mapeos.
+         *
+         * @return catalogo vacio
+         */
+        public static MappingCatalog empty() {
+            return new MappingCatalog(Map.of());
+        }
+
+        /**
+         * Cantidad de registros del catalogo.
+         *
+         * @return registros cargados
+         */
+        public int size() {
+            return mappingsByProvider.values().stream()
+                    .flatMap(byWsKey -> byWsKey.values().stream())
+                    .flatMap(byOperation -> byOperation.values().stream())
+                    .flatMap(byDirection -> byDirection.values().stream())
+                    .mapToInt(List::size)
+                    .sum();
+        }
+
+        /**
+         * Obtiene mapeos de request en seccion BODY para un servicio.
+         * La clave de salida es atributo externo y el valor es atributo app.
+         *
+         * @param providerCode codigo de billetera
+         * @param wsKey identificador del servicio
+         * @param providerName nombre del proveedor para resolver operacion
+         * @return mapa ordenado de atributo externo -> atributo app
+         */
+        public Map<String, String> getRequestBodyMappings(Integer providerCode, String wsKey, String providerName) {
+            List<ServiceMapping> entries = resolve(providerCode, wsKey, providerName, DIRECTION_REQUEST);
+            Map<String, String> result = new LinkedHashMap<>();
+            entries.stream()
+                    .filter(entry -> SECTION_BODY.equals(entry.appSection())
+                            && SECTION_BODY.equals(entry.externalSection()))
+                    .forEach(entry -> result.put(entry.externalAttribute(), entry.appAttribute()));
+            return Collections.unmodifiableMap(result);
+        }
+
+        /**
+         * Obtiene mapeos de response en seccion BODY para un servicio.
+         * La clave de salida es atributo app y el valor es atributo externo.
+         *
+         * @param providerCode codigo de billetera
+         * @param wsKey identificador del servicio
+         * @param providerName nombre del proveedor para resolver operacion
+         * @return mapa ordenado de atributo app -> atributo externo
+         */
+        public Map<String, String> getResponseBodyMappings(Integer providerCode, String wsKey, String providerName) {
+            List<ServiceMapping> entries = resolve(providerCode, wsKey, providerName, DIRECTION_RESPONSE);
+            Map<String, String> result = new LinkedHashMap<>();
+            entries.stream()
+                    .filter(entry -> SECTION_BODY.equals(entry.appSection())
+                            && SECTION_BODY.equals(entry.externalSection()))
+                    .forEach(entry -> result.put(entry.appAttribute(), entry.externalAttribute()));
+            return Collections.unmodifiableMap(result);
+        }
+
+        /**
+         * Obtiene el path del objeto de error para un servicio.
+         * Busca primero el atributo app "error"; si no existe usa el primer mapeo de ERROR.
+         *
+         * @param providerCode codigo de billetera
+         * @param wsKey identificador del servicio
+         * @param providerName nombre del proveedor para resolver operacion
+         * @return path de error; por defecto retorna "error"
+         */
+        public String getErrorPath(Integer providerCode, String wsKey, String providerName) {
+            List<ServiceMapping> entries = resolve(providerCode, wsKey, providerName, DIRECTION_ERROR);
+            if (entries.isEmpty()) {
+                return "error";
+            }
+            for (ServiceMapping entry : entries) {
+                if ("error".equalsIgnoreCase(entry.appAttribute())
+                        && SECTION_BODY.equals(entry.appSection())
+                        && SECTION_BODY.equals(entry.externalSection())
+                        && !entry.externalAttribute().isBlank()) {
+                    return entry.externalAttribute();
+                }
+            }
+            ServiceMapping first = entries.get(0);
+            return first.externalAttribute().isBlank() ? "error" : first.externalAttribute();
+        }
+
+        private List<ServiceMapping> resolve(Integer providerCode, String wsKey, String providerName,
+                String direction) {
+            if (providerCode == null || wsKey == null || wsKey.isBlank()) {
+                return List.of();
+            }
+            var byService = mappingsByProvider.get(providerCode);
+            if (byService == null) {
+                return List.of();
+            }
+            var byOperation = byService.get(normalizeWsKey(wsKey));
+            if (byOperation == null) {
+                return List.of();
+            }
+            String operationKey = normalizeOperation(providerName);
+            List<ServiceMapping> specific = byOperation.getOrDefault(operationKey, Map.of())
+                    .getOrDefault(direction, List.of());
+            if (!specific.isEmpty()) {
+                return specific;
+            }
+            return byOperation.getOrDefault(DEFAULT_OPERATION, Map.of()).getOrDefault(direction, List.of());
+        }
     }
 }
@@ -0,0 +1,235 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.persistence;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.sql.ResultSet;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Cache compartida entre nodos de la respuesta de getbanks en
+ * TUKUNAFUNC.IN_PASARELA_BANCOS_CACHE. Un solo nodo a la vez refresca cada
+ * proveedor/pais tomando un lease sobre la fila.
+ */
+@Log4j2
+@Service
+public class SharedBanksCacheService {
+
+    private static final DatabaseExecutor.NamedQuery SELECT_ENTRY = DatabaseExecutor.NamedQuery.of(
+            "banks-l2-select",
+            """
+                SELECT VERSION, RESPUESTA,
+                       (CAST(SYSTIMESTAMP AS DATE) - CAST(FECHA_ACTUALIZACION AS DATE)) * 86400 AS EDAD_SEGUNDOS
+                FROM TUKUNAFUNC.IN_PASARELA_BANCOS_CACHE
+                WHERE CODIGO_BILLETERA = ?
+                  AND PAIS = ?
+                  AND RESPUESTA IS NOT NULL
+                """)
+            .withTimeoutSeconds(5);
+
+    private static final DatabaseExecutor.NamedQuery ACQUIRE_LEASE = DatabaseExecutor.NamedQuery.of(
+            "banks-l2-acquire-lease",
+            """
+                MERGE INTO TUKUNAFUNC.IN_PASARELA_BANCOS_CACHE C
+                USING (SELECT ? AS CODIGO_BILLETERA, ? AS PAIS FROM DUAL) S
+                ON (C.CODIGO_BILLETERA = S.CODIGO_BILLETERA AND C.PAIS = S.PAIS)
+                WHEN MATCHED THEN UPDATE SET
+                    C.NODO_LEASE = ?,
+                    C.LEASE_EXPIRA = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND')
+                    WHERE C.LEASE_EXPIRA IS NULL OR C.LEASE_EXPIRA < SYSTIMESTAMP OR C.NODO_LEASE = ?
+                WHEN NOT MATCHED THEN INSERT (CODIGO_BILLETERA, PAIS, VERSION, NODO_LEASE, LEASE_EXPIRA)
+                    VALUES (S.CODIGO_BILLETERA, S.PAIS, 0, ?, SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'))
+                """)
+            .withTimeoutSeconds(5);
+
+    private static final DatabaseExecutor.NamedQuery SAVE_ENTRY = DatabaseExecutor.NamedQuery.of(
+            "banks-l2-save",
+            """
+                UPDATE TUKUNAFUNC.IN_PASARELA_BANCOS_CACHE
+                SET RESPUESTA = ?,
+                    VERSION = VERSION + 1,
+                    FECHA_ACTUALIZACION = SYSTIMESTAMP,
+                    NODO_LEASE = NULL,
+                    LEASE_EXPIRA = NULL
+                WHERE CODIGO_BILLETERA = ?
+                  AND PAIS = ?
+                  AND NODO_LEASE = ?
+                """)
+            .withTimeoutSeconds(10);
+
+    private static final DatabaseExecutor.NamedQuery RELEASE_LEASE = DatabaseExecutor.NamedQuery.of(
+            "banks-l2-release-lease",
+            """
+                UPDATE TUKUNAFUNC.IN_PASARELA_BANCOS_CACHE
+                SET NODO_LEASE = NULL,
+                    LEASE_EXPIRA = NULL
+                WHERE CODIGO_BILLETERA = ?
+                  AND PAIS = ?
+                  AND NODO_LEASE = ?
+                """)
+            .withTimeoutSeconds(5);
+
+    private final DatabaseExecutor databaseExecutor;
+    private final boolean enabled;
+    private final int leaseSeconds;
+    private final String nodeId;
+
+    /**
+     * Crea el servicio con su configuracion.
+     *
+     * @param databaseExecutor ejecutor global de conexiones JDBC
+     * @param enabled habilita la cache compartida
+     * @param leaseSeconds segundos que un nodo retiene el refresco de una llave
+     * @param nodeId identificador del nodo; vacio usa host y pid
+     */
+    public SharedBanksCacheService(DatabaseExecutor databaseExecutor,
+            @Value("${banks.cache.l2.enabled:false}") boolean enabled,
+            @Value("${banks.cache.l2.lease-seconds:30}") int leaseSeconds,
+            @Value("${banks.cache.l2.node-id:}") String nodeId) {
+        if (leaseSeconds <= 0) {
+            throw new IllegalArgumentException("banks.cache.l2.lease-seconds debe ser mayor a 0");
+        }
+        this.databaseExecutor = databaseExecutor;
+        this.enabled = enabled;
+        this.leaseSeconds = leaseSeconds;
+        this.nodeId = nodeId == null || nodeId.isBlank()
+                ? ManagementFactory.getRuntimeMXBean().getName()
+                : nodeId.trim();
+    }
+
+    /**
+     * Indica si la cache compartida esta habilitada.
+     *
+     * @return true cuando esta habilitada
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Lee la ultima respuesta guardada por cualquier nodo.
+     *
+     * @param providerCode codigo de billetera
+     * @param countryCode codigo de pais normalizado
+     * @return respuesta compartida o vacio si no existe o la BD falla
+     */
+    public Optional<SharedEntry> find(Integer providerCode, String countryCode) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            return databaseExecutor.execute(SELECT_ENTRY, ps -> {
+                ps.setObject(1, providerCode);
+                ps.setString(2, countryCode);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return Optional.empty();
+                    }
+                    String payload = rs.getString("RESPUESTA");
+                    long ageMillis = Math.max(0L, Math.round(rs.getDouble("EDAD_SEGUNDOS") * 1000d));
+                    return Optional.of(new SharedEntry(rs.getLong("VERSION"), payload, ageMillis));
+                }
+            });
+        } catch (Exception e) {
+            log.warn("No fue posible leer cache compartida de bancos {} {}: {}", providerCode, countryCode,
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Intenta tomar el lease de refresco de una llave. El lease vence solo si el
+     * nodo que lo tomo no lo libera.
+     *
+     * @param providerCode codigo de billetera
+     * @param countryCode codigo de pais normalizado
+     * @return true cuando este nodo debe refrescar la llave
+     */
+    public boolean tryAcquireLease(Integer providerCode, String countryCode) {
+        if (!enabled) {
+            return false;
+        }
+        try {
+            return databaseExecutor.execute(ACQUIRE_LEASE, ps -> {
+                ps.setObject(1, providerCode);
+                ps.setString(2, countryCode);
+                ps.setString(3, nodeId);
+                ps.setInt(4, leaseSeconds);
+                ps.setString(5, nodeId);
+                ps.setString(6, nodeId);
+                ps.setInt(7, leaseSeconds);
+                return ps.executeUpdate() > 0;
+            });
+        } catch (Exception e) {
+            log.debug("Lease de cache compartida de bancos {} {} no obtenido: {}", providerCode, countryCode,
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Guarda la respuesta refrescada y libera el lease de este nodo.
+     *
+     * @param providerCode codigo de billetera
+     * @param countryCode codigo de pais normalizado
+     * @param payload respuesta cruda del proveedor
+     */
+    public void save(Integer providerCode, String countryCode, String payload) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int updated = databaseExecutor.execute(SAVE_ENTRY, ps -> {
+                ps.setCharacterStream(1, new StringReader(payload), payload.length());
+                ps.setObject(2, providerCode);
+                ps.setString(3, countryCode);
+                ps.setString(4, nodeId);
+                return ps.executeUpdate();
+            });
+            if (updated == 0) {
+                log.warn("Lease de cache compartida de bancos {} {} vencido antes de guardar", providerCode,
+                        countryCode);
+            }
+        } catch (Exception e) {
+            log.warn("No fue posible guardar cache compartida de bancos {} {}: {}", providerCode, countryCode,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Libera el lease de este nodo sin modificar la respuesta guardada.
+     *
+     * @param providerCode codigo de billetera
+     * @param countryCode codigo de pais normalizado
+     */
+    public void releaseLease(Integer providerCode, String countryCode) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            databaseExecutor.execute(RELEASE_LEASE, ps -> {
+                ps.setObject(1, providerCode);
+                ps.setString(2, countryCode);
+                ps.setString(3, nodeId);
+                return ps.executeUpdate();
+            });
+        } catch (Exception e) {
+            log.warn("No fue posible liberar lease de cache compartida de bancos {} {}: {}", providerCode,
+                    countryCode, e.getMessage());
+        }
+    }
+
+    /**
+     * Respuesta compartida de getbanks.
+     *
+     * @param version version de la respuesta, creciente por cada refresco
+     * @param payload respuesta cruda del proveedor
+     * @param ageMillis antiguedad segun el reloj de BD
+     */
+    public record SharedEntry(long version, String payload, long ageMillis) {
+    }
+}
@@ -1,7 +1,9 @@
 package com.femsa.gpf.pagosdigitales.infrastructure.util;
 
 /**
- * Utilidad para medir tiempo transcurrido de llamadas externas.
+ * Utilidad para medir tiempo transcurrido de llamadas externas. Las llamadas
+ * de {@link #execute(CheckedSupplier)} se suman a la etapa de proveedor del
+ * {@link RequestStopwatch} del request.
  */
 public final class ExternalCallTimer {
 
@@ -43,6 +45,8 @@ public final class ExternalCallTimer {
             return new TimedExecution<>(supplier.get(), timer.elapsedMillis(), null);
         } catch (Exception ex) {
             return new TimedExecution<>(null, timer.elapsedMillis(), ex);
+        } finally {
+            RequestStopwatch.record(RequestStopwatch.Stage.PROVIDER, timer.startNanos);
         }
     }
 
@@ -0,0 +1,200 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.util;
+
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lista de IPs permitidas compilada en un trie binario por prefijo. Acepta
+ * IPs exactas y rangos CIDR IPv4/IPv6; una IPv4 mapeada en IPv6 se evalua
+ * como IPv4. Nunca resuelve nombres por DNS.
+ */
+public final class IpAllowList implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final IpAllowList EMPTY = new IpAllowList(new Node(), new Node(), 0, List.of());
+
+    private final Node ipv4;
+    private final Node ipv6;
+    private final int size;
+    private final List<String> invalidEntries;
+
+    private IpAllowList(Node ipv4, Node ipv6, int size, List<String> invalidEntries) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.size = size;
+        this.invalidEntries = invalidEntries;
+    }
+
+    /**
+     * Compila las entradas configuradas. Las entradas invalidas se ignoran y
+     * quedan disponibles en {@link #invalidEntries()}.
+     *
+     * @param entries IPs o rangos CIDR, por ejemplo 10.0.0.0/8 o 2001:db8::/32
+     * @return lista compilada
+     */
+    public static IpAllowList compile(List<String> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return EMPTY;
+        }
+        Node ipv4 = new Node();
+        Node ipv6 = new Node();
+        List<String> invalid = new ArrayList<>();
+        for (String entry : entries) {
+            if (!add(ipv4, ipv6, entry == null ? "" : entry.trim())) {
+                invalid.add(entry);
+            }
+        }
+        return new IpAllowList(ipv4, ipv6, entries.size() - invalid.size(), List.copyOf(invalid));
+    }
+
+    /**
+     * Indica si la IP pertenece a alguna entrada de la lista.
+     *
+     * @param address IP literal del request
+     * @return true cuando la IP esta permitida
+     */
+    public boolean allows(String address) {
+        byte[] bytes = parseAddress(address == null ? "" : address.trim());
+        if (bytes == null) {
+            return false;
+        }
+        Node node = bytes.length == 4 ? ipv4 : ipv6;
+        for (int bit = 0; ; bit++) {
+            if (node.terminal) {
+                return true;
+            }
+            if (bit == bytes.length * 8) {
+                return false;
+            }
+            node = node.children[bitAt(bytes, bit)];
+            if (node == null) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Indica si la lista no tiene entradas validas.
+     *
+     * @return true cuando ninguna IP esta permitida
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Devuelve las entradas que no se pudieron interpretar.
+     *
+     * @return entradas invalidas
+     */
+    public List<String> invalidEntries() {
+        return invalidEntries;
+    }
+
+    private static boolean add(Node ipv4, Node ipv6, String entry) {
+        int slash = entry.indexOf('/');
+        byte[] bytes = parseAddress(slash < 0 ? entry : entry.substring(0, slash));
+        if (bytes == null) {
+            return false;
+        }
+        int maxPrefix = bytes.length * 8;
+        int prefix = maxPrefix;
+        if (slash >= 0) {
+            String value = entry.substring(slash + 1);
+            if (value.isEmpty() || value.length() > 3 || !value.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                return false;
+            }
+            prefix = Integer.parseInt(value);
+            if (entry.indexOf(':') >= 0 && bytes.length == 4) {
+                prefix -= 96;
+            }
+            if (prefix < 0 || prefix > maxPrefix) {
+                return false;
+            }
+        }
+        Node node = bytes.length == 4 ? ipv4 : ipv6;
+        for (int bit = 0; bit < prefix && !node.terminal; bit++) {
+            int branch = bitAt(bytes, bit);
+            if (node.children[branch] == null) {
+                node.children[branch] = new Node();
+            }
+            node = node.children[branch];
+        }
+        node.terminal = true;
+        return true;
+    }
+
+    /**
+     * Interpreta una IP literal sin consultar DNS.
+     */
+    private static byte[] parseAddress(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        if (value.indexOf(':') < 0) {
+            return parseIpv4(value);
+        }
+        String literal = value;
+        if (literal.startsWith("[") && literal.endsWith("]")) {
+            literal = literal.substring(1, literal.length() - 1);
+        }
+        int zone = literal.indexOf('%');
+        if (zone >= 0) {
+            literal = literal.substring(0, zone);
+        }
+        if (literal.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            boolean hex = (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+            if (!hex && c != ':' && c != '.') {
+                return null;
+            }
+        }
+        try {
+            return InetAddress.getByName(literal).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static byte[] parseIpv4(String value) {
+        byte[] bytes = new byte[4];
+        int octet = 0;
+        int current = -1;
+        for (int i = 0; i <= value.length(); i++) {
+            char c = i == value.length() ? '.' : value.charAt(i);
+            if (c == '.') {
+                if (current < 0 || octet == 4) {
+                    return null;
+                }
+                bytes[octet++] = (byte) current;
+                current = -1;
+            } else if (c >= '0' && c <= '9') {
+                current = current < 0 ? c - '0' : current * 10 + (c - '0');
+                if (current > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        return octet == 4 ? bytes : null;
+    }
+
+    private static int bitAt(byte[] bytes, int bit) {
+        return (bytes[bit >>> 3] >>> (7 - (bit & 7))) & 1;
+    }
+
+    private static final class Node implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Node[] children = new Node[2];
+        private boolean terminal;
+    }
+}
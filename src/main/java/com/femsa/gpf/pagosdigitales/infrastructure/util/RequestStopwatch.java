@@ -0,0 +1,150 @@
+package com.femsa.gpf.pagosdigitales.infrastructure.util;
+
+/**
+ * Cronometro por request que acumula el tiempo de cada etapa para el header
+ * {@code Server-Timing}. Solo existe mientras el filtro de Server-Timing esta
+ * activo; sin cronometro en el hilo cada registro es una lectura de
+ * {@link ThreadLocal} sin llamadas al reloj.
+ */
+public final class RequestStopwatch {
+
+    /**
+     * Nombre del header de respuesta.
+     */
+    public static final String HEADER = "Server-Timing";
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final ThreadLocal<RequestStopwatch> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt;
+    private final boolean audit;
+    private final long[] nanos = new long[STAGES.length];
+    private final int[] counts = new int[STAGES.length];
+
+    private RequestStopwatch(long startedAt, boolean audit) {
+        this.startedAt = startedAt;
+        this.audit = audit;
+    }
+
+    /**
+     * Etapas medidas de un request.
+     */
+    public enum Stage {
+        VALIDATION("validation"),
+        CONFIG("config"),
+        REQUEST_MAPPING("map-req"),
+        PROVIDER("provider"),
+        RESPONSE_MAPPING("map-resp"),
+        ERROR_MAPPING("map-error"),
+        DB("db");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * Nombre de la metrica en el header.
+         *
+         * @return nombre de la metrica
+         */
+        public String metricName() {
+            return metricName;
+        }
+    }
+
+    /**
+     * Inicia el cronometro del request en el hilo actual.
+     *
+     * @param audit true para exponer el desglose en la auditoria interna
+     */
+    public static void begin(boolean audit) {
+        CURRENT.set(new RequestStopwatch(System.nanoTime(), audit));
+    }
+
+    /**
+     * Descarta el cronometro del hilo actual.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Toma la marca de inicio de una etapa.
+     *
+     * @return instante actual en nanos o 0 si no hay cronometro activo
+     */
+    public static long mark() {
+        return CURRENT.get() == null ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Suma a una etapa el tiempo transcurrido desde una marca.
+     *
+     * @param stage etapa medida
+     * @param markedAt marca devuelta por {@link #mark()}
+     */
+    public static void record(Stage stage, long markedAt) {
+        RequestStopwatch current = CURRENT.get();
+        if (current != null && markedAt != 0L) {
+            current.accumulate(stage, System.nanoTime() - markedAt);
+        }
+    }
+
+    /**
+     * Suma a una etapa un tiempo ya medido.
+     *
+     * @param stage etapa medida
+     * @param elapsedNanos tiempo transcurrido en nanos
+     */
+    public static void add(Stage stage, long elapsedNanos) {
+        RequestStopwatch current = CURRENT.get();
+        if (current != null) {
+            current.accumulate(stage, elapsedNanos);
+        }
+    }
+
+    /**
+     * Valor del header {@code Server-Timing} con las etapas medidas y el total.
+     *
+     * @return valor del header o null si no hay cronometro activo
+     */
+    public static String headerValue() {
+        RequestStopwatch current = CURRENT.get();
+        return current == null ? null : current.format();
+    }
+
+    /**
+     * Desglose de tiempos para la auditoria interna.
+     *
+     * @return desglose o null si no hay cronometro activo o la auditoria esta deshabilitada
+     */
+    public static String auditValue() {
+        RequestStopwatch current = CURRENT.get();
+        return current == null || !current.audit ? null : current.format();
+    }
+
+    private void accumulate(Stage stage, long elapsedNanos) {
+        nanos[stage.ordinal()] += elapsedNanos;
+        counts[stage.ordinal()]++;
+    }
+
+    private String format() {
+        long total = System.nanoTime() - startedAt;
+        StringBuilder value = new StringBuilder(128);
+        for (Stage stage : STAGES) {
+            if (counts[stage.ordinal()] > 0) {
+                appendMetric(value, stage.metricName(), nanos[stage.ordinal()]);
+                value.append(", ");
+            }
+        }
+        appendMetric(value, "total", total);
+        return value.toString();
+    }
+
+    private static void appendMetric(StringBuilder value, String name, long elapsedNanos) {
+        long tenths = Math.max(0L, elapsedNanos) / 100_000L;
+        value.append(name).append(";dur=").append(tenths / 10).append('.').append(tenths % 10);
+    }
+}
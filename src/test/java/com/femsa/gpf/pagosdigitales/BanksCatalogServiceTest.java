@@ -5,74 +5,122 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
+import javax.sql.DataSource;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.Test;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
 
+import io.micrometer.observation.ObservationRegistry;
+
 class BanksCatalogServiceTest {
 
+    private static final String CHAIN_SQL = "SELECT CODIGO_ESTABLECIMIENTO AS CODIGO, CODIGO_BILLETERA_DIGITAL, MINIMO, MAXIMO, "
+            + "NVL(CADENA_FYB, 'N') CADENA_FYB, NVL(CADENA_SANA, 'N') CADENA_SANA, "
+            + "NVL(CADENA_OKI, 'N') CADENA_OKI, NVL(CADENA_FR, 'N') CADENA_FR "
+            + "FROM TUKUNAFUNC.AD_TIPO_PAGO "
+            + "WHERE NVL(ACTIVO, 'N') = 'S'";
+
+    private static final String CHANNEL_SQL = "SELECT "
+            + "A.DESCRIPCION AS CANAL, "
+            + "A.ACTIVO AS ESTADO, "
+            + "C.CODIGO_ESTABLECIMIENTO AS ID_BANCO, "
+            + "C.CODIGO_BILLETERA_DIGITAL AS ID_PROVEEDOR_PAGO "
+            + "FROM TUKUNAFUNC.AD_CANAL A, "
+            + "TUKUNAFUNC.AD_CANAL_TIPO_PAGO B, "
+            + "TUKUNAFUNC.AD_TIPO_PAGO C "
+            + "WHERE A.CODIGO = B.CODIGO_CANAL "
+            + "AND B.CODIGO_TIPOPAGO = C.CODIGO "
+            + "AND A.ACTIVO = 'S'";
+
     @Test
     void findMinimumReturnsConfiguredValueByProviderAndPaymentType() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement chainStatement = mock(PreparedStatement.class);
         PreparedStatement channelStatement = mock(PreparedStatement.class);
         ResultSet chainResultSet = mock(ResultSet.class);
         ResultSet channelResultSet = mock(ResultSet.class);
 
-        when(connection.prepareStatement("SELECT CODIGO_ESTABLECIMIENTO AS CODIGO, CODIGO_BILLETERA_DIGITAL, MINIMO, MAXIMO, "
-                + "NVL(CADENA_FYB, 'N') CADENA_FYB, NVL(CADENA_SANA, 'N') CADENA_SANA, "
-                + "NVL(CADENA_OKI, 'N') CADENA_OKI, NVL(CADENA_FR, 'N') CADENA_FR "
-                + "FROM TUKUNAFUNC.AD_TIPO_PAGO "
-                + "WHERE NVL(ACTIVO, 'N') = 'S'")).thenReturn(chainStatement);
-        when(connection.prepareStatement("SELECT "
-                + "A.DESCRIPCION AS CANAL, "
-                + "A.ACTIVO AS ESTADO, "
-                + "B.CODIGO_TIPOPAGO AS ID_BANCO, "
-                + "C.CODIGO_BILLETERA_DIGITAL AS ID_PROVEEDOR_PAGO "
-                + "FROM TUKUNAFUNC.AD_CANAL A, "
-                + "TUKUNAFUNC.AD_CANAL_TIPO_PAGO B, "
-                + "TUKUNAFUNC.AD_TIPO_PAGO C "
-                + "WHERE A.CODIGO = B.CODIGO_CANAL "
-                + "AND B.CODIGO_TIPOPAGO = C.CODIGO "
-                + "AND A.ACTIVO = 'S'")).thenReturn(channelStatement);
+        when(connection.prepareStatement(CHAIN_SQL)).thenReturn(chainStatement);
+        when(connection.prepareStatement(CHANNEL_SQL)).thenReturn(channelStatement);
 
         when(chainStatement.executeQuery()).thenReturn(chainResultSet);
         when(channelStatement.executeQuery()).thenReturn(channelResultSet);
 
-        when(chainResultSet.next()).thenReturn(true, true, false, true, true, false);
-        when(chainResultSet.getString("CODIGO")).thenReturn("0123", "0456", "0123", "0456");
-        when(chainResultSet.getInt("CODIGO_BILLETERA_DIGITAL")).thenReturn(235689, 235689, 235689, 235689);
-        when(chainResultSet.getBigDecimal("MINIMO"))
-                .thenReturn(new BigDecimal("25.00"), (BigDecimal) null, new BigDecimal("25.00"), (BigDecimal) null);
-        when(chainResultSet.getBigDecimal("MAXIMO"))
-                .thenReturn(new BigDecimal("200.00"), (BigDecimal) null, new BigDecimal("200.00"), (BigDecimal) null);
-        when(chainResultSet.getString("CADENA_FYB")).thenReturn("S", "N", "S", "N");
-        when(chainResultSet.getString("CADENA_SANA")).thenReturn("N", "N", "N", "N");
-        when(chainResultSet.getString("CADENA_OKI")).thenReturn("N", "N", "N", "N");
-        when(chainResultSet.getString("CADENA_FR")).thenReturn("N", "N", "N", "N");
-
-        when(channelResultSet.next()).thenReturn(false, false);
-
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(any(DatabaseExecutor.ConnectionConsumer.class));
-
-        BanksCatalogService service = new BanksCatalogService(databaseExecutor, 60, 61, 62, 63);
-        service.refreshCache();
-
-        assertThat(service.findMinimum(235689, "0123")).contains(new BigDecimal("25.00"));
-        assertThat(service.findMinimum(235689, "0456")).isEmpty();
-        assertThat(service.findMinimum(235689, "9999")).isEmpty();
-        assertThat(service.findMaximum(235689, "0123")).contains(new BigDecimal("200.00"));
-        assertThat(service.findMaximum(235689, "0456")).isEmpty();
+        when(chainResultSet.next()).thenReturn(true, true, false);
+        when(chainResultSet.getString("CODIGO")).thenReturn("0123", "0456");
+        when(chainResultSet.getInt("CODIGO_BILLETERA_DIGITAL")).thenReturn(235689, 235689);
+        when(chainResultSet.getBigDecimal("MINIMO")).thenReturn(new BigDecimal("25.00"), (BigDecimal) null);
+        when(chainResultSet.getBigDecimal("MAXIMO")).thenReturn(new BigDecimal("200.00"), (BigDecimal) null);
+        when(chainResultSet.getString("CADENA_FYB")).thenReturn("S", "N");
+        when(chainResultSet.getString("CADENA_SANA")).thenReturn("N", "N");
+        when(chainResultSet.getString("CADENA_OKI")).thenReturn("N", "N");
+        when(chainResultSet.getString("CADENA_FR")).thenReturn("N", "N");
+
+        when(channelResultSet.next()).thenReturn(false);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
+
+        BanksCatalogService.BankCatalog catalog =
+                new BanksCatalogService(databaseExecutor, 60, 61, 62, 63).loadCatalog();
+
+        assertThat(catalog.findMinimum(235689, "0123")).contains(new BigDecimal("25.00"));
+        assertThat(catalog.findMinimum(235689, "0456")).isEmpty();
+        assertThat(catalog.findMinimum(235689, "9999")).isEmpty();
+        assertThat(catalog.findMaximum(235689, "0123")).contains(new BigDecimal("200.00"));
+        assertThat(catalog.findMaximum(235689, "0456")).isEmpty();
+        verify(chainStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    void findAllowedBanksIntersectsChainAndChannel() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement chainStatement = mock(PreparedStatement.class);
+        PreparedStatement channelStatement = mock(PreparedStatement.class);
+        ResultSet chainResultSet = mock(ResultSet.class);
+        ResultSet channelResultSet = mock(ResultSet.class);
+
+        when(connection.prepareStatement(CHAIN_SQL)).thenReturn(chainStatement);
+        when(connection.prepareStatement(CHANNEL_SQL)).thenReturn(channelStatement);
+        when(chainStatement.executeQuery()).thenReturn(chainResultSet);
+        when(channelStatement.executeQuery()).thenReturn(channelResultSet);
+
+        when(chainResultSet.next()).thenReturn(true, true, false);
+        when(chainResultSet.getString("CODIGO")).thenReturn("0123", "0456");
+        when(chainResultSet.getInt("CODIGO_BILLETERA_DIGITAL")).thenReturn(235689, 235689);
+        when(chainResultSet.getString("CADENA_FYB")).thenReturn("S", "S");
+        when(chainResultSet.getString("CADENA_SANA")).thenReturn("N", "S");
+        when(chainResultSet.getString("CADENA_OKI")).thenReturn("N", "N");
+        when(chainResultSet.getString("CADENA_FR")).thenReturn("N", "N");
+
+        when(channelResultSet.next()).thenReturn(true, true, false);
+        when(channelResultSet.getString("CANAL")).thenReturn("pos", "APP");
+        when(channelResultSet.getString("ID_BANCO")).thenReturn("0123", "0456");
+        when(channelResultSet.getInt("ID_PROVEEDOR_PAGO")).thenReturn(235689, 235689);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
+        BanksCatalogService.BankCatalog catalog =
+                new BanksCatalogService(databaseExecutor, 60, 61, 62, 63).loadCatalog();
+
+        BanksCatalogService.AllowedBanks fybPos = catalog.findAllowedBanks(235689, 60, "POS");
+        assertThat(fybPos.contains(" 0123 ")).isTrue();
+        assertThat(fybPos.contains("0456")).isFalse();
+        assertThat(catalog.findAllowedBanks(235689, 61, "POS").isEmpty()).isTrue();
+        assertThat(catalog.findAllowedBanks(235689, 61, "APP").contains("0456")).isTrue();
+        assertThat(catalog.findAllowedBanks(999999, 60, "POS").contains("0123")).isFalse();
+        assertThat(catalog.combinationCount()).isEqualTo(3);
     }
 }
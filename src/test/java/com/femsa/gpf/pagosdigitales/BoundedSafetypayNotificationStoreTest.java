@@ -0,0 +1,52 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.application.service.BoundedSafetypayNotificationStore;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationRecord;
+
+class BoundedSafetypayNotificationStoreTest {
+
+    @Test
+    void findReturnsCompactRecordForSavedNotification() {
+        BoundedSafetypayNotificationStore store = new BoundedSafetypayNotificationStore(10, 1);
+
+        store.save(record("MS-1", "REF-1", "PAY-1"));
+
+        assertThat(store.find("MS-1", "REF-1", "PAY-1")).hasValueSatisfying(found -> {
+            assertThat(found.getMerchantSalesId()).isEqualTo("MS-1");
+            assertThat(found.getStatus()).isEqualTo("102");
+            assertThat(found.getReceivedAt()).isNotNull();
+            assertThat(found.getRawPayload()).isNull();
+        });
+        assertThat(store.find("MS-1", "REF-1", "PAY-2")).isEmpty();
+        assertThat(store.stats()).isEqualTo(new BoundedSafetypayNotificationStore.Stats(1, 1, 1, 0, 0));
+    }
+
+    @Test
+    void saveEvictsOldestNotificationWhenFull() {
+        BoundedSafetypayNotificationStore store = new BoundedSafetypayNotificationStore(2, 1);
+
+        store.save(record("MS-1", "REF-1", "PAY-1"));
+        store.save(record("MS-2", "REF-2", "PAY-2"));
+        store.save(record("MS-3", "REF-3", "PAY-3"));
+
+        assertThat(store.find("MS-1", "REF-1", "PAY-1")).isEmpty();
+        assertThat(store.find("MS-3", "REF-3", "PAY-3")).isPresent();
+        assertThat(store.stats().size()).isEqualTo(2);
+        assertThat(store.stats().evictions()).isEqualTo(1);
+    }
+
+    private static SafetypayNotificationRecord record(String merchantSalesId, String referenceNo,
+            String paymentReferenceNo) {
+        SafetypayNotificationRecord record = new SafetypayNotificationRecord();
+        record.setMerchantSalesId(merchantSalesId);
+        record.setReferenceNo(referenceNo);
+        record.setPaymentReferenceNo(paymentReferenceNo);
+        record.setStatus("102");
+        record.setRawPayload("{\"MerchantSalesID\":\"" + merchantSalesId + "\"}");
+        return record;
+    }
+}
@@ -0,0 +1,75 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.femsa.gpf.pagosdigitales.api.controller.CacheAdminController;
+import com.femsa.gpf.pagosdigitales.api.dto.CacheRefreshResponse;
+import com.femsa.gpf.pagosdigitales.api.dto.CacheStatusResponse;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.CacheStats;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RefreshableCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
+
+class CacheAdminControllerTest {
+
+    private final RefreshableCache cache = mock(RefreshableCache.class);
+    private final IntegrationLogService integrationLogService = mock(IntegrationLogService.class);
+
+    @Test
+    void disabledReturnsNotFound() {
+        CacheAdminController controller = new CacheAdminController(List.of(cache), integrationLogService,
+                false, "");
+
+        assertThat(controller.status("secret").getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(controller.refresh("providers", "secret").getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(cache, never()).refreshCatalog(anyString());
+    }
+
+    @Test
+    void enabledRequiresAdminKey() {
+        assertThatThrownBy(() -> new CacheAdminController(List.of(cache), integrationLogService, true, " "))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsMissingOrWrongAdminKey() {
+        CacheAdminController controller = new CacheAdminController(List.of(cache), integrationLogService,
+                true, "secret");
+
+        assertThat(controller.status(null).getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        ResponseEntity<CacheRefreshResponse> refresh = controller.refresh("providers", "other");
+
+        assertThat(refresh.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(refresh.getBody().getError()).contains(CacheAdminController.ADMIN_KEY_HEADER);
+        verify(cache, never()).refreshCatalog(anyString());
+    }
+
+    @Test
+    void servesStatsAndRefreshWithAdminKey() {
+        CacheStats stats = new CacheStats("providers", 2, 100L, Instant.now(), 3L, 1L, 0L, 0L);
+        when(cache.cacheStats()).thenReturn(List.of(stats));
+        when(cache.refreshCatalog("providers")).thenReturn(true);
+        CacheAdminController controller = new CacheAdminController(List.of(cache), integrationLogService,
+                true, "secret");
+
+        ResponseEntity<CacheStatusResponse> status = controller.status("secret");
+        ResponseEntity<CacheRefreshResponse> refresh = controller.refresh("providers", "secret");
+
+        assertThat(status.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(status.getBody().getCaches()).hasSize(1);
+        assertThat(refresh.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(refresh.getBody().isRefreshed()).isTrue();
+    }
+}
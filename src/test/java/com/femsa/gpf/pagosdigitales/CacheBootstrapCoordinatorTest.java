@@ -0,0 +1,51 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.CacheBootstrapCoordinator;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RefreshableCache;
+
+class CacheBootstrapCoordinatorTest {
+
+    @Test
+    void warmUpLoadsCachesInParallelAndReportsLoadTimes() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+        RefreshableCache waitingCache = () -> {
+            bothStarted.countDown();
+            try {
+                if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                    overlapped.set(false);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Map<String, RefreshableCache> caches = new LinkedHashMap<>();
+        caches.put("banksCatalogService", waitingCache);
+        caches.put("providerHeaderService", waitingCache);
+
+        CacheBootstrapCoordinator coordinator = new CacheBootstrapCoordinator(caches, 2, 30);
+        coordinator.warmUp();
+
+        assertThat(overlapped).isTrue();
+        assertThat(coordinator.getLoadTimesMs()).containsOnlyKeys("banksCatalogService", "providerHeaderService");
+    }
+
+    @Test
+    void warmUpWithoutCachesKeepsEmptyLoadTimes() {
+        CacheBootstrapCoordinator coordinator = new CacheBootstrapCoordinator(Map.of(), 4, 30);
+
+        coordinator.warmUp();
+
+        assertThat(coordinator.getLoadTimesMs()).isEmpty();
+    }
+}
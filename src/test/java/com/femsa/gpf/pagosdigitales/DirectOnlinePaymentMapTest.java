@@ -1,48 +1,43 @@
 package com.femsa.gpf.pagosdigitales;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.anyMap;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+
 import org.junit.jupiter.api.Test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.femsa.gpf.pagosdigitales.api.dto.DirectOnlinePaymentRequest;
 import com.femsa.gpf.pagosdigitales.application.mapper.DirectOnlinePaymentMap;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.QueryTemplate;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayObservations;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.WsDefinition;
 
 class DirectOnlinePaymentMapTest {
 
     @Test
     void mapProviderRequestAddsDefaultsFromDbDefinitions() {
-        GatewayWebServiceDefinitionService definitionsService = mock(GatewayWebServiceDefinitionService.class);
-        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
         Map<String, String> requestMapping = new LinkedHashMap<>();
         requestMapping.put("sales_amount.value", "sales_amount.value");
-        when(serviceMappingConfigService.getRequestBodyMappings(
-                eq(235689),
-                eq("direct-online-payment-requests"),
-                eq("paysafe"))).thenReturn(requestMapping);
-
-        when(definitionsService.getDefaults(
-                eq(235689),
-                eq("direct-online-payment-requests"),
-                anyMap())).thenReturn(Map.of(
-                        "application_id", "7",
-                        "payment_ok_url", "https://www.safetypay.com/success.com",
-                        "payment_error_url", "https://www.safetypay.com/error.com"));
-
-        DirectOnlinePaymentMap mapper = new DirectOnlinePaymentMap(
-                new ObjectMapper(),
-                definitionsService,
-                serviceMappingConfigService);
+        RoutePlan plan = new RoutePlan(235689, "paysafe", "direct-online-payment-requests",
+                "https://sandbox.safetypay.com/express/ws/v.3.0/Post/DirectOnlinePaymentRequests", "POST",
+                Map.of(), QueryTemplate.compile(List.of()),
+                List.of(
+                        new WsDefinition("application_id", "7", "DEFAULTS", null),
+                        new WsDefinition("payment_ok_url", "https://www.safetypay.com/success.com", "DEFAULTS", null),
+                        new WsDefinition("payment_error_url", "https://www.safetypay.com/error.com", "DEFAULTS",
+                                null)),
+                requestMapping, Map.of(), null);
+        DirectOnlinePaymentMap mapper = new DirectOnlinePaymentMap(new ObjectMapper(), ObservationRegistry.NOOP);
 
         DirectOnlinePaymentRequest req = new DirectOnlinePaymentRequest();
         req.setPayment_provider_code(235689);
@@ -50,7 +45,7 @@ class DirectOnlinePaymentMapTest {
         salesAmount.setValue(new BigDecimal("50.00"));
         req.setSales_amount(salesAmount);
 
-        Map<String, Object> providerRequest = mapper.mapProviderRequest(req, "paysafe");
+        Map<String, Object> providerRequest = mapper.mapProviderRequest(plan, req);
 
         assertThat(providerRequest).containsEntry("application_id", "7");
         assertThat(providerRequest).containsEntry("payment_ok_url", "https://www.safetypay.com/success.com");
@@ -58,4 +53,32 @@ class DirectOnlinePaymentMapTest {
         assertThat(providerRequest).containsKey("request_datetime");
         assertThat(((Map<?, ?>) providerRequest.get("sales_amount")).get("value").toString()).isEqualTo("50.00");
     }
+
+    @Test
+    void mapProviderRequestIsObservedAsMappingStep() {
+        List<Observation.Context> stopped = new ArrayList<>();
+        ObservationRegistry registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        RoutePlan plan = new RoutePlan(235689, "paysafe", "direct-online-payment-requests",
+                "https://sandbox.safetypay.com/express/ws/v.3.0/Post/DirectOnlinePaymentRequests", "POST",
+                Map.of(), QueryTemplate.compile(List.of()), List.of(), Map.of(), Map.of(), null);
+        DirectOnlinePaymentMap mapper = new DirectOnlinePaymentMap(new ObjectMapper(), registry);
+
+        mapper.mapProviderRequest(plan, new DirectOnlinePaymentRequest());
+
+        assertThat(stopped).hasSize(1);
+        assertThat(stopped.get(0).getName()).isEqualTo(GatewayObservations.MAPPING);
+        assertThat(stopped.get(0).getContextualName()).isEqualTo("map direct-online-request");
+        assertThat(stopped.get(0).getLowCardinalityKeyValue("provider").getValue()).isEqualTo("paysafe");
+    }
 }
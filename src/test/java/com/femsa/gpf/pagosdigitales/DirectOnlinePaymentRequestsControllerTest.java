@@ -13,9 +13,13 @@ import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.net.SocketTimeoutException;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.apache.camel.ProducerTemplate;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.ResponseEntity;
@@ -27,31 +31,37 @@ import com.femsa.gpf.pagosdigitales.api.dto.DirectOnlinePaymentRequest;
 import com.femsa.gpf.pagosdigitales.api.dto.DirectOnlinePaymentResponse;
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInfo;
 import com.femsa.gpf.pagosdigitales.application.mapper.DirectOnlinePaymentMap;
-import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService;
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService.ProviderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshot;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogRecord;
 import com.femsa.gpf.pagosdigitales.infrastructure.logging.IntegrationLogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
-import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService.BankCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService.ErrorCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService.WebServiceCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService.WebServiceConfig;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.DefinitionCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService.HeaderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService.MappingCatalog;
 
 class DirectOnlinePaymentRequestsControllerTest {
 
     @Test
     void directOnlinePaymentRequestsReturnsMappedErrorWhenAmountIsBelowConfiguredMinimum() {
         ProducerTemplate camel = mock(ProducerTemplate.class);
-        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        ProviderCatalog providers = mock(ProviderCatalog.class);
         DirectOnlinePaymentMap directOnlinePaymentMap = mock(DirectOnlinePaymentMap.class);
-        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
-        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        MappingCatalog mappings = mock(MappingCatalog.class);
+        ErrorCatalog errors = mock(ErrorCatalog.class);
         IntegrationLogService integrationLogService = mock(IntegrationLogService.class);
-        GatewayWebServiceConfigService gatewayWebServiceConfigService = mock(GatewayWebServiceConfigService.class);
-        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
+        WebServiceCatalog webServices = mock(WebServiceCatalog.class);
+        BankCatalog banks = mock(BankCatalog.class);
 
-        when(providersPayService.getProviderNameByCode(235689)).thenReturn("paysafe");
-        when(gatewayWebServiceConfigService.isActive(235689, "direct-online-payment-requests")).thenReturn(true);
-        when(banksCatalogService.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
-        when(banksCatalogService.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
+        when(providers.getProviderNameByCode(235689)).thenReturn("paysafe");
+        when(webServices.getActiveConfigs()).thenReturn(List.of(activeConfig()));
+        when(banks.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
+        when(banks.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
 
         ErrorInfo mappedError = new ErrorInfo();
         mappedError.setHttp_code(400);
@@ -59,18 +69,15 @@ class DirectOnlinePaymentRequestsControllerTest {
         mappedError.setCategory("INVALID_REQUEST_ERROR");
         mappedError.setMessage("El monto no cumple el minimo.");
         mappedError.setInner_details(java.util.List.of());
-        when(errorMappingCatalogService.buildErrorByCurrentCode(1004L)).thenReturn(mappedError);
+        when(errors.buildErrorByCurrentCode(1004L)).thenReturn(mappedError);
 
         DirectOnlinePaymentRequestsController controller = new DirectOnlinePaymentRequestsController(
                 camel,
-                providersPayService,
+                snapshotService(providers, webServices, mappings, errors, banks),
                 directOnlinePaymentMap,
                 new ObjectMapper(),
-                serviceMappingConfigService,
-                errorMappingCatalogService,
                 integrationLogService,
-                gatewayWebServiceConfigService,
-                banksCatalogService);
+                new GatewayMetrics(new SimpleMeterRegistry()));
 
         DirectOnlinePaymentRequest request = buildRequest(new BigDecimal("10.00"));
 
@@ -88,39 +95,37 @@ class DirectOnlinePaymentRequestsControllerTest {
     @Test
     void directOnlinePaymentRequestsDelegatesToProviderWhenConfiguredMinimumIsMet() {
         ProducerTemplate camel = mock(ProducerTemplate.class);
-        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        ProviderCatalog providers = mock(ProviderCatalog.class);
         DirectOnlinePaymentMap directOnlinePaymentMap = mock(DirectOnlinePaymentMap.class);
-        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
-        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        MappingCatalog mappings = mock(MappingCatalog.class);
+        ErrorCatalog errors = mock(ErrorCatalog.class);
         IntegrationLogService integrationLogService = mock(IntegrationLogService.class);
-        GatewayWebServiceConfigService gatewayWebServiceConfigService = mock(GatewayWebServiceConfigService.class);
-        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
-
-        when(providersPayService.getProviderNameByCode(235689)).thenReturn("paysafe");
-        when(gatewayWebServiceConfigService.isActive(235689, "direct-online-payment-requests")).thenReturn(true);
-        when(banksCatalogService.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
-        when(banksCatalogService.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
-        when(directOnlinePaymentMap.mapProviderRequest(any(), eq("paysafe"))).thenReturn(Map.of("amount", 25));
+        WebServiceCatalog webServices = mock(WebServiceCatalog.class);
+        BankCatalog banks = mock(BankCatalog.class);
+
+        when(providers.getProviderNameByCode(235689)).thenReturn("paysafe");
+        when(webServices.getActiveConfigs()).thenReturn(List.of(activeConfig()));
+        when(banks.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
+        when(banks.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
+        when(directOnlinePaymentMap.mapProviderRequest(argThat(plan -> "paysafe".equals(plan.providerName())), any()))
+                .thenReturn(Map.of("amount", 25));
         when(camel.requestBodyAndHeaders(eq("direct:direct-online-payment-requests"), eq(Map.of("amount", 25)), anyMap()))
                 .thenReturn(Map.of("provider", "ok"));
-        when(serviceMappingConfigService.getErrorPath(235689, "direct-online-payment-requests", "paysafe"))
+        when(mappings.getErrorPath(235689, "direct-online-payment-requests", "paysafe"))
                 .thenReturn("error");
 
         DirectOnlinePaymentResponse providerResponse = new DirectOnlinePaymentResponse();
         providerResponse.setOperation_id("OP-1");
-        when(directOnlinePaymentMap.mapProviderResponse(any(), eq(Map.of("provider", "ok")), eq("paysafe")))
+        when(directOnlinePaymentMap.mapProviderResponse(any(), any(), eq(Map.of("provider", "ok"))))
                 .thenReturn(providerResponse);
 
         DirectOnlinePaymentRequestsController controller = new DirectOnlinePaymentRequestsController(
                 camel,
-                providersPayService,
+                snapshotService(providers, webServices, mappings, errors, banks),
                 directOnlinePaymentMap,
                 new ObjectMapper(),
-                serviceMappingConfigService,
-                errorMappingCatalogService,
                 integrationLogService,
-                gatewayWebServiceConfigService,
-                banksCatalogService);
+                new GatewayMetrics(new SimpleMeterRegistry()));
 
         DirectOnlinePaymentRequest request = buildRequest(new BigDecimal("25.00"));
 
@@ -134,43 +139,41 @@ class DirectOnlinePaymentRequestsControllerTest {
     @Test
     void directOnlinePaymentRequestsLogsRawProviderResponseWhenProviderReturnsMappedError() {
         ProducerTemplate camel = mock(ProducerTemplate.class);
-        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        ProviderCatalog providers = mock(ProviderCatalog.class);
         DirectOnlinePaymentMap directOnlinePaymentMap = mock(DirectOnlinePaymentMap.class);
-        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
-        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        MappingCatalog mappings = mock(MappingCatalog.class);
+        ErrorCatalog errors = mock(ErrorCatalog.class);
         IntegrationLogService integrationLogService = mock(IntegrationLogService.class);
-        GatewayWebServiceConfigService gatewayWebServiceConfigService = mock(GatewayWebServiceConfigService.class);
-        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
+        WebServiceCatalog webServices = mock(WebServiceCatalog.class);
+        BankCatalog banks = mock(BankCatalog.class);
 
         Map<String, Object> providerRequest = Map.of("amount", 25);
         Map<String, Object> rawProviderError = Map.of("error", Map.of("code", "EXT-1", "message", "declined"));
 
-        when(providersPayService.getProviderNameByCode(235689)).thenReturn("paysafe");
-        when(gatewayWebServiceConfigService.isActive(235689, "direct-online-payment-requests")).thenReturn(true);
-        when(banksCatalogService.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
-        when(banksCatalogService.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
-        when(directOnlinePaymentMap.mapProviderRequest(any(), eq("paysafe"))).thenReturn(providerRequest);
+        when(providers.getProviderNameByCode(235689)).thenReturn("paysafe");
+        when(webServices.getActiveConfigs()).thenReturn(List.of(activeConfig()));
+        when(banks.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
+        when(banks.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
+        when(directOnlinePaymentMap.mapProviderRequest(argThat(plan -> "paysafe".equals(plan.providerName())), any()))
+                .thenReturn(providerRequest);
         when(camel.requestBodyAndHeaders(eq("direct:direct-online-payment-requests"), eq(providerRequest), anyMap()))
                 .thenReturn(rawProviderError);
-        when(serviceMappingConfigService.getErrorPath(235689, "direct-online-payment-requests", "paysafe"))
+        when(mappings.getErrorPath(235689, "direct-online-payment-requests", "paysafe"))
                 .thenReturn("error");
 
         ErrorInfo mappedError = new ErrorInfo();
         mappedError.setHttp_code(409);
         mappedError.setCode("PD-409");
         mappedError.setMessage("Mapped provider error");
-        when(errorMappingCatalogService.mapProviderError(any())).thenReturn(mappedError);
+        when(errors.mapProviderError(any())).thenReturn(mappedError);
 
         DirectOnlinePaymentRequestsController controller = new DirectOnlinePaymentRequestsController(
                 camel,
-                providersPayService,
+                snapshotService(providers, webServices, mappings, errors, banks),
                 directOnlinePaymentMap,
                 new ObjectMapper(),
-                serviceMappingConfigService,
-                errorMappingCatalogService,
                 integrationLogService,
-                gatewayWebServiceConfigService,
-                banksCatalogService);
+                new GatewayMetrics(new SimpleMeterRegistry()));
 
         ResponseEntity<?> response = controller.directOnlinePaymentRequests(buildRequest(new BigDecimal("25.00")));
 
@@ -182,18 +185,18 @@ class DirectOnlinePaymentRequestsControllerTest {
     @Test
     void directOnlinePaymentRequestsReturnsMappedErrorWhenAmountExceedsConfiguredMaximum() {
         ProducerTemplate camel = mock(ProducerTemplate.class);
-        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        ProviderCatalog providers = mock(ProviderCatalog.class);
         DirectOnlinePaymentMap directOnlinePaymentMap = mock(DirectOnlinePaymentMap.class);
-        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
-        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        MappingCatalog mappings = mock(MappingCatalog.class);
+        ErrorCatalog errors = mock(ErrorCatalog.class);
         IntegrationLogService integrationLogService = mock(IntegrationLogService.class);
-        GatewayWebServiceConfigService gatewayWebServiceConfigService = mock(GatewayWebServiceConfigService.class);
-        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
+        WebServiceCatalog webServices = mock(WebServiceCatalog.class);
+        BankCatalog banks = mock(BankCatalog.class);
 
-        when(providersPayService.getProviderNameByCode(235689)).thenReturn("paysafe");
-        when(gatewayWebServiceConfigService.isActive(235689, "direct-online-payment-requests")).thenReturn(true);
-        when(banksCatalogService.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
-        when(banksCatalogService.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("50.00")));
+        when(providers.getProviderNameByCode(235689)).thenReturn("paysafe");
+        when(webServices.getActiveConfigs()).thenReturn(List.of(activeConfig()));
+        when(banks.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
+        when(banks.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("50.00")));
 
         ErrorInfo mappedError = new ErrorInfo();
         mappedError.setHttp_code(422);
@@ -201,18 +204,15 @@ class DirectOnlinePaymentRequestsControllerTest {
         mappedError.setCategory("ERROR_CATEGORY");
         mappedError.setMessage("El monto no cumple el maximo.");
         mappedError.setInner_details(java.util.List.of());
-        when(errorMappingCatalogService.buildErrorByCurrentCode(1005L)).thenReturn(mappedError);
+        when(errors.buildErrorByCurrentCode(1005L)).thenReturn(mappedError);
 
         DirectOnlinePaymentRequestsController controller = new DirectOnlinePaymentRequestsController(
                 camel,
-                providersPayService,
+                snapshotService(providers, webServices, mappings, errors, banks),
                 directOnlinePaymentMap,
                 new ObjectMapper(),
-                serviceMappingConfigService,
-                errorMappingCatalogService,
                 integrationLogService,
-                gatewayWebServiceConfigService,
-                banksCatalogService);
+                new GatewayMetrics(new SimpleMeterRegistry()));
 
         DirectOnlinePaymentRequest request = buildRequest(new BigDecimal("60.00"));
 
@@ -230,32 +230,30 @@ class DirectOnlinePaymentRequestsControllerTest {
     @Test
     void directOnlinePaymentRequestsReturnsGatewayTimeoutWhenProviderCallExpires() {
         ProducerTemplate camel = mock(ProducerTemplate.class);
-        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        ProviderCatalog providers = mock(ProviderCatalog.class);
         DirectOnlinePaymentMap directOnlinePaymentMap = mock(DirectOnlinePaymentMap.class);
-        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
-        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        MappingCatalog mappings = mock(MappingCatalog.class);
+        ErrorCatalog errors = mock(ErrorCatalog.class);
         IntegrationLogService integrationLogService = mock(IntegrationLogService.class);
-        GatewayWebServiceConfigService gatewayWebServiceConfigService = mock(GatewayWebServiceConfigService.class);
-        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
-
-        when(providersPayService.getProviderNameByCode(235689)).thenReturn("paysafe");
-        when(gatewayWebServiceConfigService.isActive(235689, "direct-online-payment-requests")).thenReturn(true);
-        when(banksCatalogService.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
-        when(banksCatalogService.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
-        when(directOnlinePaymentMap.mapProviderRequest(any(), eq("paysafe"))).thenReturn(Map.of("amount", 25));
+        WebServiceCatalog webServices = mock(WebServiceCatalog.class);
+        BankCatalog banks = mock(BankCatalog.class);
+
+        when(providers.getProviderNameByCode(235689)).thenReturn("paysafe");
+        when(webServices.getActiveConfigs()).thenReturn(List.of(activeConfig()));
+        when(banks.findMinimum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("20.00")));
+        when(banks.findMaximum(235689, "0123")).thenReturn(Optional.of(new BigDecimal("100.00")));
+        when(directOnlinePaymentMap.mapProviderRequest(argThat(plan -> "paysafe".equals(plan.providerName())), any()))
+                .thenReturn(Map.of("amount", 25));
         when(camel.requestBodyAndHeaders(eq("direct:direct-online-payment-requests"), eq(Map.of("amount", 25)), anyMap()))
                 .thenThrow(new RuntimeException(new SocketTimeoutException("Read timed out")));
 
         DirectOnlinePaymentRequestsController controller = new DirectOnlinePaymentRequestsController(
                 camel,
-                providersPayService,
+                snapshotService(providers, webServices, mappings, errors, banks),
                 directOnlinePaymentMap,
                 new ObjectMapper(),
-                serviceMappingConfigService,
-                errorMappingCatalogService,
                 integrationLogService,
-                gatewayWebServiceConfigService,
-                banksCatalogService);
+                new GatewayMetrics(new SimpleMeterRegistry()));
 
         ResponseEntity<?> response = controller.directOnlinePaymentRequests(buildRequest(new BigDecimal("25.00")));
 
@@ -267,6 +265,19 @@ class DirectOnlinePaymentRequestsControllerTest {
                 .isEqualTo("Se ha perdido la conexi\u00f3n con el proveedor de billetera de pago externo");
     }
 
+    private GatewayConfigSnapshotService snapshotService(ProviderCatalog providers, WebServiceCatalog webServices,
+            MappingCatalog mappings, ErrorCatalog errors, BankCatalog banks) {
+        GatewayConfigSnapshotService snapshotService = mock(GatewayConfigSnapshotService.class);
+        when(snapshotService.current()).thenReturn(new GatewayConfigSnapshot(1L, Instant.now(), providers,
+                webServices, HeaderCatalog.empty(), DefinitionCatalog.empty(), mappings, errors, banks));
+        return snapshotService;
+    }
+
+    private WebServiceConfig activeConfig() {
+        return new WebServiceConfig(235689, "direct-online-payment-requests", true, "REST", "POST", "JSON",
+                "https://sandbox.safetypay.com/express/ws/v.3.0/Post/DirectOnlinePaymentRequests");
+    }
+
     private DirectOnlinePaymentRequest buildRequest(BigDecimal amount) {
         DirectOnlinePaymentRequest request = new DirectOnlinePaymentRequest();
         request.setChain(1);
@@ -1,8 +1,6 @@
 package com.femsa.gpf.pagosdigitales;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -11,18 +9,23 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.List;
 
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Test;
 
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInfo;
 import com.femsa.gpf.pagosdigitales.api.dto.ErrorInnerDetail;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService;
 
+import io.micrometer.observation.ObservationRegistry;
+
 class ErrorMappingCatalogServiceTest {
 
     @Test
     void mapProviderErrorUsesSpanishAndFallsBackToEnglish() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -46,14 +49,12 @@ class ErrorMappingCatalogServiceTest {
         when(resultSet.getString("CURRENT_ERROR_MESSAGE_ES"))
                 .thenReturn("El monto de la transaccion es requerido.", (String) null);
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(any(DatabaseExecutor.ConnectionConsumer.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        ErrorMappingCatalogService service = new ErrorMappingCatalogService(databaseExecutor);
-        service.refreshCache();
+        ErrorMappingCatalogService.ErrorCatalog catalog =
+                new ErrorMappingCatalogService(databaseExecutor).loadCatalog();
 
         ErrorInfo inputSpanish = new ErrorInfo();
         inputSpanish.setHttp_code(400);
@@ -65,7 +66,7 @@ class ErrorMappingCatalogServiceTest {
         inputInner.setField_message("The country code is required.");
         inputSpanish.setInner_details(List.of(inputInner));
 
-        ErrorInfo mappedSpanish = service.mapProviderError(inputSpanish);
+        ErrorInfo mappedSpanish = catalog.mapProviderError(inputSpanish);
         assertThat(mappedSpanish.getHttp_code()).isEqualTo(400);
         assertThat(mappedSpanish.getCode()).isEqualTo("21517");
         assertThat(mappedSpanish.getCategory()).isEqualTo("INVALID_REQUEST_ERROR");
@@ -83,7 +84,7 @@ class ErrorMappingCatalogServiceTest {
         englishInner.setField_message("An error occurred when performing a SendEmail.");
         inputEnglish.setInner_details(List.of(englishInner));
 
-        ErrorInfo mappedEnglish = service.mapProviderError(inputEnglish);
+        ErrorInfo mappedEnglish = catalog.mapProviderError(inputEnglish);
         assertThat(mappedEnglish.getMessage()).isEqualTo("An error occurred when performing a SendEmail.");
         assertThat(mappedEnglish.getInner_details().get(0).getField_message())
                 .isEqualTo("An error occurred when performing a SendEmail.");
@@ -91,7 +92,7 @@ class ErrorMappingCatalogServiceTest {
 
     @Test
     void mapProviderErrorResolvesByCategoryAndMessageWhenCodeIsNotNumeric() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -111,14 +112,12 @@ class ErrorMappingCatalogServiceTest {
         when(resultSet.getString("CURRENT_ERROR_MESSAGE")).thenReturn("Token Expired");
         when(resultSet.getString("CURRENT_ERROR_MESSAGE_ES")).thenReturn("Token expirado.");
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(any(DatabaseExecutor.ConnectionConsumer.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        ErrorMappingCatalogService service = new ErrorMappingCatalogService(databaseExecutor);
-        service.refreshCache();
+        ErrorMappingCatalogService.ErrorCatalog catalog =
+                new ErrorMappingCatalogService(databaseExecutor).loadCatalog();
 
         ErrorInfo input = new ErrorInfo();
         input.setHttp_code(422);
@@ -127,7 +126,7 @@ class ErrorMappingCatalogServiceTest {
         input.setMessage("Token Expired");
         input.setInner_details(null);
 
-        ErrorInfo mapped = service.mapProviderError(input);
+        ErrorInfo mapped = catalog.mapProviderError(input);
         assertThat(mapped.getHttp_code()).isEqualTo(422);
         assertThat(mapped.getCode()).isEqualTo("21603");
         assertThat(mapped.getMessage()).isEqualTo("Token expirado.");
@@ -135,7 +134,7 @@ class ErrorMappingCatalogServiceTest {
 
     @Test
     void buildErrorByCurrentCodeReturnsMappedApiError() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -156,16 +155,14 @@ class ErrorMappingCatalogServiceTest {
         when(resultSet.getString("CURRENT_ERROR_MESSAGE")).thenReturn("Minimum amount not met.");
         when(resultSet.getString("CURRENT_ERROR_MESSAGE_ES")).thenReturn("El monto no cumple el minimo.");
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(any(DatabaseExecutor.ConnectionConsumer.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        ErrorMappingCatalogService service = new ErrorMappingCatalogService(databaseExecutor);
-        service.refreshCache();
+        ErrorMappingCatalogService.ErrorCatalog catalog =
+                new ErrorMappingCatalogService(databaseExecutor).loadCatalog();
 
-        ErrorInfo mapped = service.buildErrorByCurrentCode(1004L);
+        ErrorInfo mapped = catalog.buildErrorByCurrentCode(1004L);
 
         assertThat(mapped).isNotNull();
         assertThat(mapped.getHttp_code()).isEqualTo(400);
@@ -182,7 +179,7 @@ class ErrorMappingCatalogServiceTest {
 
     @Test
     void buildErrorByCurrentCodeReturnsMappedApiErrorForMaximumValidation() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -203,16 +200,14 @@ class ErrorMappingCatalogServiceTest {
         when(resultSet.getString("CURRENT_ERROR_MESSAGE")).thenReturn("Maximum amount exceeded.");
         when(resultSet.getString("CURRENT_ERROR_MESSAGE_ES")).thenReturn("El monto no cumple el maximo.");
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(any(DatabaseExecutor.ConnectionConsumer.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        ErrorMappingCatalogService service = new ErrorMappingCatalogService(databaseExecutor);
-        service.refreshCache();
+        ErrorMappingCatalogService.ErrorCatalog catalog =
+                new ErrorMappingCatalogService(databaseExecutor).loadCatalog();
 
-        ErrorInfo mapped = service.buildErrorByCurrentCode(1005L);
+        ErrorInfo mapped = catalog.buildErrorByCurrentCode(1005L);
 
         assertThat(mapped).isNotNull();
         assertThat(mapped.getHttp_code()).isEqualTo(422);
@@ -224,4 +219,64 @@ class ErrorMappingCatalogServiceTest {
         assertThat(mapped.getInner_details().get(0).getField_message())
                 .isEqualTo("El monto de la transaccion es mayor que el maximo permitido en todos los metodos de pago.");
     }
+
+    @Test
+    void mapProviderErrorReturnsIndependentCopiesOfMemoizedResult() {
+        ErrorMappingCatalogService.ErrorCatalog catalog = ErrorMappingCatalogService.ErrorCatalog.of(List.of(
+                new ErrorMappingCatalogService.ErrorMappingEntry(400, "INVALID_REQUEST_ERROR",
+                        "The country code is required.", "El codigo de pais es requerido.", 21517L,
+                        "Transaction amount is required.", "El monto de la transaccion es requerido.")));
+        ErrorInfo input = new ErrorInfo();
+        input.setCode("21517");
+        input.setMessage("Transaction amount is required.");
+        ErrorInnerDetail inner = new ErrorInnerDetail();
+        inner.setField_message("The country code is required.");
+        input.setInner_details(List.of(inner));
+
+        ErrorInfo first = catalog.mapProviderError(input);
+        first.setMessage("changed");
+        first.getInner_details().get(0).setField_message("changed");
+        ErrorInfo second = catalog.mapProviderError(input);
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getMessage()).isEqualTo("El monto de la transaccion es requerido.");
+        assertThat(second.getInner_details().get(0).getField_message()).isEqualTo("El codigo de pais es requerido.");
+    }
+
+    @Test
+    void mapProviderErrorReusesResolutionButKeepsPerRequestFields() {
+        ErrorMappingCatalogService.ErrorCatalog catalog = ErrorMappingCatalogService.ErrorCatalog.of(List.of(
+                new ErrorMappingCatalogService.ErrorMappingEntry(400, "INVALID_REQUEST_ERROR",
+                        "The country code is required.", "El codigo de pais es requerido.", null,
+                        "Transaction amount is required.", "El monto de la transaccion es requerido.")));
+
+        ErrorInfo first = catalog.mapProviderError(providerError("https://docs/1", "MX",
+                " Transaction amount is required."));
+        ErrorInfo second = catalog.mapProviderError(providerError("https://docs/2", "PE",
+                "transaction   AMOUNT is required."));
+        ErrorInfo unmapped = catalog.mapProviderError(providerError("https://docs/3", "CO", "Provider down"));
+
+        assertThat(second.getMessage()).isEqualTo("El monto de la transaccion es requerido.");
+        assertThat(second.getHttp_code()).isEqualTo(400);
+        assertThat(second.getInformation_link()).isEqualTo("https://docs/2");
+        assertThat(second.getInner_details().get(0).getField_value()).isEqualTo("PE");
+        assertThat(second.getInner_details().get(0).getField_message()).isEqualTo("El codigo de pais es requerido.");
+        assertThat(first.getInformation_link()).isEqualTo("https://docs/1");
+        assertThat(first.getInner_details().get(0).getField_value()).isEqualTo("MX");
+        assertThat(unmapped.getMessage()).isEqualTo("Provider down");
+    }
+
+    private static ErrorInfo providerError(String informationLink, String fieldValue, String message) {
+        ErrorInfo error = new ErrorInfo();
+        error.setHttp_code(422);
+        error.setCategory("INVALID_REQUEST_ERROR");
+        error.setMessage(message);
+        error.setInformation_link(informationLink);
+        ErrorInnerDetail inner = new ErrorInnerDetail();
+        inner.setField("country_code");
+        inner.setField_value(fieldValue);
+        inner.setField_message("The country code is required.");
+        error.setInner_details(List.of(inner));
+        return error;
+    }
 }
@@ -0,0 +1,229 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService;
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService.ProviderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.CacheStats;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshot;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotService;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotStore;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlanCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.GatewayConfigRefreshProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.BanksCatalogService.BankCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ErrorMappingCatalogService.ErrorCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayConfigChangeLogService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayConfigChangeLogService.ConfigChange;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService.WebServiceCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.DefinitionCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService.HeaderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService.MappingCatalog;
+
+class GatewayConfigSnapshotServiceTest {
+
+    @Test
+    void refreshCachePublishesNewVersionAndKeepsItWhenALaterLoadFails() throws Exception {
+        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        GatewayWebServiceConfigService webServiceConfigService = mock(GatewayWebServiceConfigService.class);
+        ProviderHeaderService providerHeaderService = mock(ProviderHeaderService.class);
+        GatewayWebServiceDefinitionService definitionService = mock(GatewayWebServiceDefinitionService.class);
+        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
+        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
+
+        ProviderCatalog providers = ProviderCatalog.of(Map.of("paysafe", 235689));
+        when(providersPayService.loadCatalog()).thenReturn(providers);
+        when(webServiceConfigService.loadCatalog()).thenReturn(WebServiceCatalog.empty());
+        when(providerHeaderService.loadCatalog()).thenReturn(HeaderCatalog.empty());
+        when(definitionService.loadCatalog()).thenReturn(DefinitionCatalog.empty());
+        when(serviceMappingConfigService.loadCatalog()).thenReturn(MappingCatalog.empty());
+        when(errorMappingCatalogService.loadCatalog()).thenReturn(ErrorCatalog.empty());
+        when(banksCatalogService.loadCatalog()).thenReturn(BankCatalog.empty());
+
+        GatewayConfigChangeLogService changeLogService = mock(GatewayConfigChangeLogService.class);
+        when(changeLogService.findLatestChangeId()).thenThrow(new SQLException("ORA-00942"));
+
+        GatewayConfigSnapshotService service = new GatewayConfigSnapshotService(providersPayService,
+                webServiceConfigService, providerHeaderService, definitionService, serviceMappingConfigService,
+                errorMappingCatalogService, banksCatalogService, mock(SafetypayConfirmationConfigService.class),
+                changeLogService, refreshProperties(),
+                new GatewayConfigSnapshotStore(false, ""), 2);
+
+        assertThat(service.current().version()).isZero();
+
+        service.refreshCache();
+        GatewayConfigSnapshot first = service.current();
+
+        assertThat(first.version()).isEqualTo(1L);
+        assertThat(first.providers().getProviderNameByCode(235689)).isEqualTo("paysafe");
+
+        when(providersPayService.loadCatalog()).thenReturn(ProviderCatalog.of(Map.of("pichincha", 100)));
+        when(banksCatalogService.loadCatalog()).thenThrow(new SQLException("ORA-03113"));
+        service.refreshCache();
+
+        assertThat(service.current()).isSameAs(first);
+        assertThat(service.current().providers().getProviderNameByCode(100)).isEqualTo("without-provider");
+    }
+
+    @Test
+    void pollChangesReloadsOnlyCatalogsOfChangedTables() throws Exception {
+        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        GatewayWebServiceConfigService webServiceConfigService = mock(GatewayWebServiceConfigService.class);
+        ProviderHeaderService providerHeaderService = mock(ProviderHeaderService.class);
+        GatewayWebServiceDefinitionService definitionService = mock(GatewayWebServiceDefinitionService.class);
+        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
+        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
+        GatewayConfigChangeLogService changeLogService = mock(GatewayConfigChangeLogService.class);
+
+        ProviderCatalog providers = ProviderCatalog.of(Map.of("paysafe", 235689));
+        HeaderCatalog firstHeaders = HeaderCatalog.empty();
+        HeaderCatalog secondHeaders = mock(HeaderCatalog.class);
+        when(providersPayService.loadCatalog()).thenReturn(providers);
+        when(webServiceConfigService.loadCatalog()).thenReturn(WebServiceCatalog.empty());
+        when(providerHeaderService.loadCatalog()).thenReturn(firstHeaders, secondHeaders);
+        when(definitionService.loadCatalog()).thenReturn(DefinitionCatalog.empty());
+        when(serviceMappingConfigService.loadCatalog()).thenReturn(MappingCatalog.empty());
+        when(errorMappingCatalogService.loadCatalog()).thenReturn(ErrorCatalog.empty());
+        when(banksCatalogService.loadCatalog()).thenReturn(BankCatalog.empty());
+        when(changeLogService.findLatestChangeId()).thenReturn(10L);
+        when(changeLogService.findChangesSince(10L))
+                .thenReturn(List.of(new ConfigChange(11L, "TUKUNAFUNC.IN_PASARELA_HEADERS")));
+        when(changeLogService.findChangesSince(11L)).thenReturn(List.of());
+
+        GatewayConfigSnapshotService service = new GatewayConfigSnapshotService(providersPayService,
+                webServiceConfigService, providerHeaderService, definitionService, serviceMappingConfigService,
+                errorMappingCatalogService, banksCatalogService, mock(SafetypayConfirmationConfigService.class),
+                changeLogService, refreshProperties(),
+                new GatewayConfigSnapshotStore(false, ""), 2);
+
+        service.refreshCache();
+        service.pollChanges();
+        service.pollChanges();
+
+        assertThat(service.current().version()).isEqualTo(2L);
+        assertThat(service.current().headers()).isSameAs(secondHeaders);
+        assertThat(service.current().providers()).isSameAs(providers);
+        verify(providerHeaderService, times(2)).loadCatalog();
+        verify(providersPayService, times(1)).loadCatalog();
+        verify(banksCatalogService, times(1)).loadCatalog();
+    }
+
+    @Test
+    void pollChangesRefreshesSafetypayConfigWithoutReloadingCatalogs() throws Exception {
+        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        GatewayWebServiceConfigService webServiceConfigService = mock(GatewayWebServiceConfigService.class);
+        ProviderHeaderService providerHeaderService = mock(ProviderHeaderService.class);
+        GatewayWebServiceDefinitionService definitionService = mock(GatewayWebServiceDefinitionService.class);
+        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
+        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
+        SafetypayConfirmationConfigService safetypayConfigService = mock(SafetypayConfirmationConfigService.class);
+        GatewayConfigChangeLogService changeLogService = mock(GatewayConfigChangeLogService.class);
+
+        when(providersPayService.loadCatalog()).thenReturn(ProviderCatalog.of(Map.of("paysafe", 235689)));
+        when(webServiceConfigService.loadCatalog()).thenReturn(WebServiceCatalog.empty());
+        when(providerHeaderService.loadCatalog()).thenReturn(HeaderCatalog.empty());
+        when(definitionService.loadCatalog()).thenReturn(DefinitionCatalog.empty());
+        when(serviceMappingConfigService.loadCatalog()).thenReturn(MappingCatalog.empty());
+        when(errorMappingCatalogService.loadCatalog()).thenReturn(ErrorCatalog.empty());
+        when(banksCatalogService.loadCatalog()).thenReturn(BankCatalog.empty());
+        when(changeLogService.findLatestChangeId()).thenReturn(10L);
+        when(changeLogService.findChangesSince(10L))
+                .thenReturn(List.of(new ConfigChange(11L, "TUKUNAFUNC.IN_SAFETYPAY_CFG")));
+        when(changeLogService.findChangesSince(11L)).thenReturn(List.of());
+
+        GatewayConfigSnapshotService service = new GatewayConfigSnapshotService(providersPayService,
+                webServiceConfigService, providerHeaderService, definitionService, serviceMappingConfigService,
+                errorMappingCatalogService, banksCatalogService, safetypayConfigService, changeLogService,
+                refreshProperties(), new GatewayConfigSnapshotStore(false, ""), 2);
+
+        service.refreshCache();
+        verify(safetypayConfigService, never()).refreshCache();
+        service.pollChanges();
+        service.pollChanges();
+
+        assertThat(service.current().version()).isEqualTo(1L);
+        verify(safetypayConfigService, times(1)).refreshCache();
+        verify(providersPayService, times(1)).loadCatalog();
+    }
+
+    @Test
+    void cacheStatsTrackLoadsFailuresAndRoutePlanMisses() throws Exception {
+        ProvidersPayService providersPayService = mock(ProvidersPayService.class);
+        GatewayWebServiceConfigService webServiceConfigService = mock(GatewayWebServiceConfigService.class);
+        ProviderHeaderService providerHeaderService = mock(ProviderHeaderService.class);
+        GatewayWebServiceDefinitionService definitionService = mock(GatewayWebServiceDefinitionService.class);
+        ServiceMappingConfigService serviceMappingConfigService = mock(ServiceMappingConfigService.class);
+        ErrorMappingCatalogService errorMappingCatalogService = mock(ErrorMappingCatalogService.class);
+        BanksCatalogService banksCatalogService = mock(BanksCatalogService.class);
+        GatewayConfigChangeLogService changeLogService = mock(GatewayConfigChangeLogService.class);
+
+        when(providersPayService.loadCatalog()).thenReturn(ProviderCatalog.of(Map.of("paysafe", 235689)),
+                ProviderCatalog.of(Map.of("paysafe", 235689, "pichincha", 100)));
+        when(webServiceConfigService.loadCatalog()).thenReturn(WebServiceCatalog.empty());
+        when(providerHeaderService.loadCatalog()).thenReturn(HeaderCatalog.empty());
+        when(definitionService.loadCatalog()).thenReturn(DefinitionCatalog.empty());
+        when(serviceMappingConfigService.loadCatalog()).thenReturn(MappingCatalog.empty());
+        when(errorMappingCatalogService.loadCatalog()).thenReturn(ErrorCatalog.empty());
+        when(banksCatalogService.loadCatalog()).thenReturn(BankCatalog.empty())
+                .thenThrow(new SQLException("ORA-03113"));
+        when(changeLogService.findLatestChangeId()).thenReturn(10L);
+
+        GatewayConfigSnapshotService service = new GatewayConfigSnapshotService(providersPayService,
+                webServiceConfigService, providerHeaderService, definitionService, serviceMappingConfigService,
+                errorMappingCatalogService, banksCatalogService, mock(SafetypayConfirmationConfigService.class),
+                changeLogService, refreshProperties(),
+                new GatewayConfigSnapshotStore(false, ""), 2);
+
+        service.refreshCache();
+        service.current().routePlans().find(235689, "getbanks");
+        service.current().routePlans().find(235689, "payments");
+        RoutePlanCatalog stale = service.current().routePlans();
+
+        assertThat(service.refreshCatalog("providers")).isTrue();
+        assertThat(service.refreshCatalog("banks")).isFalse();
+        service.current().routePlans().find(100, "getbanks");
+        stale.find(100, "payments");
+
+        Map<String, CacheStats> stats = new HashMap<>();
+        service.cacheStats().forEach(item -> stats.put(item.name(), item));
+
+        assertThat(stats).hasSize(8).containsKeys("providers", "web-services", "banks", "route-plans");
+        assertThat(stats.get("providers").entries()).isEqualTo(2);
+        assertThat(stats.get("providers").refreshes()).isEqualTo(2);
+        assertThat(stats.get("providers").approxBytes()).isPositive();
+        assertThat(stats.get("providers").lastRefreshAt()).isEqualTo(service.current().loadedAt());
+        assertThat(stats.get("headers").refreshes()).isEqualTo(1);
+        assertThat(stats.get("banks").refreshes()).isEqualTo(1);
+        assertThat(stats.get("banks").refreshFailures()).isEqualTo(1);
+        assertThat(stats.get("route-plans").refreshes()).isEqualTo(2);
+        assertThat(stats.get("route-plans").lookupMisses()).isEqualTo(4);
+        verify(providerHeaderService, times(1)).loadCatalog();
+    }
+
+    private static GatewayConfigRefreshProperties refreshProperties() {
+        GatewayConfigRefreshProperties properties = new GatewayConfigRefreshProperties();
+        properties.setJitterMs(0);
+        return properties;
+    }
+}
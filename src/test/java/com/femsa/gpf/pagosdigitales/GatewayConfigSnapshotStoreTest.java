@@ -0,0 +1,77 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.femsa.gpf.pagosdigitales.domain.service.ProvidersPayService.ProviderCatalog;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshot;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.GatewayConfigSnapshotStore;
+
+class GatewayConfigSnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void saveAndLoadRestoresSnapshot() {
+        Path file = tempDir.resolve("config/gateway-config.bin");
+        GatewayConfigSnapshotStore store = new GatewayConfigSnapshotStore(true, file.toString());
+        GatewayConfigSnapshot empty = GatewayConfigSnapshot.empty();
+        GatewayConfigSnapshot snapshot = new GatewayConfigSnapshot(7L, Instant.parse("2026-01-10T10:15:30Z"),
+                ProviderCatalog.of(Map.of("paysafe", 235689)), empty.webServices(), empty.headers(),
+                empty.definitions(), empty.mappings(), empty.errors(), empty.banks());
+
+        store.save(snapshot);
+        Optional<GatewayConfigSnapshot> restored = store.load();
+
+        assertThat(restored).isPresent();
+        assertThat(restored.get().version()).isEqualTo(7L);
+        assertThat(restored.get().loadedAt()).isEqualTo(snapshot.loadedAt());
+        assertThat(restored.get().providers().getProviderNameByCode(235689)).isEqualTo("paysafe");
+        assertThat(restored.get().providers().getProviderCodeByName("paysafe")).isEqualTo(235689);
+    }
+
+    @Test
+    void loadIgnoresMissingOrUnknownFile() throws Exception {
+        Path file = tempDir.resolve("gateway-config.bin");
+        GatewayConfigSnapshotStore store = new GatewayConfigSnapshotStore(true, file.toString());
+
+        assertThat(store.load()).isEmpty();
+
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        assertThat(store.load()).isEmpty();
+    }
+
+    @Test
+    void savedFileIsReadableOnlyByOwner() throws Exception {
+        assumeTrue(tempDir.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Path file = tempDir.resolve("config/gateway-config.bin");
+        GatewayConfigSnapshotStore store = new GatewayConfigSnapshotStore(true, file.toString());
+
+        store.save(GatewayConfigSnapshot.empty());
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file))).isEqualTo("rw-------");
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file.getParent())))
+                .isEqualTo("rwx------");
+    }
+
+    @Test
+    void storeWithoutPathIsDisabled() {
+        GatewayConfigSnapshotStore store = new GatewayConfigSnapshotStore(true, " ");
+
+        store.save(GatewayConfigSnapshot.empty());
+
+        assertThat(store.load()).isEmpty();
+    }
+}
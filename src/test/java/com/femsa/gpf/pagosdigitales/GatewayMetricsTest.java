@@ -0,0 +1,56 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.metrics.GatewayMetrics;
+
+class GatewayMetricsTest {
+
+    @Test
+    void recordProviderCallTagsOutcomeFromAuditMessage() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GatewayMetrics metrics = new GatewayMetrics(registry);
+
+        metrics.recordProviderCall("paysafe", "payments", "OK", 120);
+        metrics.recordProviderCall("paysafe", "payments", "OK", 80);
+        metrics.recordProviderCall("paysafe", "payments", "ERROR_TIMEOUT", 30000);
+        metrics.recordProviderCall("paysafe", "payments", "ERROR_CAMEL", 5);
+        metrics.recordProviderCall("paysafe", "payments", "ERROR_TECNICO", null);
+
+        Timer ok = registry.get("pagosdigitales.provider.calls")
+                .tags("provider", "paysafe", "ws_key", "payments", "outcome", "ok").timer();
+        assertThat(ok.count()).isEqualTo(2);
+        assertThat(ok.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(200);
+        assertThat(registry.get("pagosdigitales.provider.calls").tag("outcome", "timeout").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("pagosdigitales.provider.calls").tag("outcome", "camel_error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void recordResponseCountsErrorsWithBoundedCategories() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GatewayMetrics metrics = new GatewayMetrics(registry);
+
+        metrics.recordResponse("banks", "OK", 200);
+        metrics.recordResponse("banks", "OK_MULTI_PROVIDER", 200);
+        metrics.recordResponse("banks", "ERROR_PROVEEDOR", 400);
+        metrics.recordResponse("banks", "Proveedor no configurado", 400);
+        metrics.recordResponse("banks", "Error inesperado", 500);
+
+        assertThat(registry.find("pagosdigitales.api.errors").counters()).hasSize(3);
+        assertThat(registry.get("pagosdigitales.api.errors").tags("endpoint", "banks", "category", "ERROR_PROVEEDOR")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get("pagosdigitales.api.errors").tag("category", "REQUEST_INVALIDO").counter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("pagosdigitales.api.errors").tag("category", "ERROR_INTERNO").counter().count())
+                .isEqualTo(1);
+    }
+}
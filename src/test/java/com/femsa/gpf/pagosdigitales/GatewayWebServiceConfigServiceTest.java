@@ -1,7 +1,6 @@
 package com.femsa.gpf.pagosdigitales;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -9,16 +8,21 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Test;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceConfigService;
 
+import io.micrometer.observation.ObservationRegistry;
+
 class GatewayWebServiceConfigServiceTest {
 
     @Test
-    void refreshCacheLoadsActiveRestConfigByProviderAndWsKey() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+    void loadCatalogLoadsActiveRestConfigByProviderAndWsKey() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -39,23 +43,21 @@ class GatewayWebServiceConfigServiceTest {
         when(resultSet.getString("SERVICE_URI"))
                 .thenReturn("https://example.com/direct", "https://example.com/payments", "https://example.com/events");
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(org.mockito.ArgumentMatchers.any(DatabaseExecutor.ConnectionConsumer.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        GatewayWebServiceConfigService service = new GatewayWebServiceConfigService(databaseExecutor);
-        service.refreshCache();
+        GatewayWebServiceConfigService.WebServiceCatalog catalog =
+                new GatewayWebServiceConfigService(databaseExecutor).loadCatalog();
 
-        assertThat(service.isActive(235689, "direct-online-payment-requests")).isTrue();
-        assertThat(service.getActiveConfig(235689, "direct-online-payment-requests"))
+        assertThat(catalog.isActive(235689, "direct-online-payment-requests")).isTrue();
+        assertThat(catalog.getActiveConfig(235689, "direct-online-payment-requests"))
                 .isPresent()
                 .get()
                 .extracting(GatewayWebServiceConfigService.WebServiceConfig::method,
                         GatewayWebServiceConfigService.WebServiceConfig::uri)
                 .containsExactly("POST", "https://example.com/direct");
-        assertThat(service.isActive(235689, "payments")).isFalse();
-        assertThat(service.isActive(235689, "merchant-events")).isFalse();
+        assertThat(catalog.isActive(235689, "payments")).isFalse();
+        assertThat(catalog.isActive(235689, "merchant-events")).isFalse();
     }
 }
@@ -1,7 +1,6 @@
 package com.femsa.gpf.pagosdigitales;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -9,18 +8,26 @@ import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.util.List;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Test;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.QueryTemplate;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.RoutePlan;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService;
 
+import io.micrometer.observation.ObservationRegistry;
+
 class GatewayWebServiceDefinitionServiceTest {
 
     @Test
-    void refreshCacheLoadsDefaultsAndQueryDefinitions() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+    void loadCatalogLoadsDefaultsAndQueryDefinitions() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -48,27 +55,25 @@ class GatewayWebServiceDefinitionServiceTest {
                 .thenReturn(null, null, new BigDecimal("100"), new BigDecimal("7"), null);
         when(resultSet.getTimestamp("DEFAULT_VALOR_FECHA")).thenReturn(null, null, null, null, null);
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(org.mockito.ArgumentMatchers.any(DatabaseExecutor.ConnectionConsumer.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        GatewayWebServiceDefinitionService service = new GatewayWebServiceDefinitionService(databaseExecutor);
-        service.refreshCache();
+        GatewayWebServiceDefinitionService.DefinitionCatalog catalog =
+                new GatewayWebServiceDefinitionService(databaseExecutor).loadCatalog();
 
-        Map<String, String> query = service.getQueryParams(
-                235689,
-                "payments",
-                Map.of("operation_id", "OP-123", "now", "2026-02-27T12:00:00"));
-        assertThat(query).containsEntry("operation_id", "OP-123");
-        assertThat(query).containsEntry("request_datetime", "2026-02-27T12:00:00");
-        assertThat(query).containsEntry("limit", "100");
+        StringBuilder url = new StringBuilder("https://api.safetypay.com/payments");
+        QueryTemplate.compile(catalog.getDefinitions(235689, "payments", "QUERY"))
+                .appendTo(url, Map.of("operation_id", "OP-123", "now", "2026-02-27T12:00:00"));
+        assertThat(url).hasToString("https://api.safetypay.com/payments"
+                + "?operation_id=OP-123&request_datetime=2026-02-27T12%3A00%3A00&limit=100");
 
-        Map<String, Object> defaults = service.getDefaults(
-                235689,
-                "direct-online-payment-requests",
-                Map.of());
+        RoutePlan plan = new RoutePlan(235689, "paysafe", "direct-online-payment-requests",
+                "https://api.safetypay.com/direct-online-payment-requests", "POST", Map.of(),
+                QueryTemplate.compile(List.of()),
+                catalog.getDefinitions(235689, "direct-online-payment-requests", "DEFAULTS"),
+                Map.of(), Map.of(), null);
+        Map<String, Object> defaults = plan.resolveDefaults(Map.of());
         assertThat(defaults).containsEntry("application_id", "7");
         assertThat(defaults).containsEntry("payment_ok_url", "https://www.safetypay.com/success.com");
     }
@@ -0,0 +1,38 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.util.IpAllowList;
+
+class IpAllowListTest {
+
+    @Test
+    void allowsExactIpsAndIpv4Ranges() {
+        IpAllowList allowList = IpAllowList.compile(List.of("200.1.2.3", "10.20.0.0/16", "0.0.0.0/32"));
+
+        assertThat(allowList.allows("200.1.2.3")).isTrue();
+        assertThat(allowList.allows("200.1.2.4")).isFalse();
+        assertThat(allowList.allows("10.20.255.1")).isTrue();
+        assertThat(allowList.allows("10.21.0.1")).isFalse();
+        assertThat(allowList.allows("::ffff:10.20.1.1")).isTrue();
+        assertThat(allowList.allows("not-an-ip")).isFalse();
+        assertThat(allowList.allows(null)).isFalse();
+    }
+
+    @Test
+    void allowsIpv6RangesAndReportsInvalidEntries() {
+        IpAllowList allowList = IpAllowList.compile(List.of("2001:db8::/32", "fe80::1", "10.0.0.0/33", "host.local"));
+
+        assertThat(allowList.allows("2001:db8:ffff::7")).isTrue();
+        assertThat(allowList.allows("[2001:db9::1]")).isFalse();
+        assertThat(allowList.allows("fe80::1%eth0")).isTrue();
+        assertThat(allowList.allows("10.0.0.1")).isFalse();
+        assertThat(allowList.invalidEntries()).containsExactly("10.0.0.0/33", "host.local");
+        assertThat(allowList.isEmpty()).isFalse();
+        assertThat(IpAllowList.compile(List.of()).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,64 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.application.service.BoundedSafetypayNotificationStore;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationRecord;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.JdbcSafetypayNotificationStore;
+
+class JdbcSafetypayNotificationStoreTest {
+
+    @Test
+    void saveIfAbsentReportsNotificationAlreadyRegisteredByAnotherNode() throws Exception {
+        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        when(databaseExecutor.execute(any(DatabaseExecutor.NamedQuery.class), any())).thenReturn(false);
+        BoundedSafetypayNotificationStore nearCache = new BoundedSafetypayNotificationStore(10, 1);
+        JdbcSafetypayNotificationStore store = new JdbcSafetypayNotificationStore(databaseExecutor, nearCache, true);
+
+        boolean inserted = store.saveIfAbsent(record());
+
+        assertThat(inserted).isFalse();
+        assertThat(nearCache.find("MS-1", "REF-1", "PAY-1")).isPresent();
+    }
+
+    @Test
+    void findUsesNearCacheBeforeDatabase() throws Exception {
+        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        BoundedSafetypayNotificationStore nearCache = new BoundedSafetypayNotificationStore(10, 1);
+        nearCache.save(record());
+        JdbcSafetypayNotificationStore store = new JdbcSafetypayNotificationStore(databaseExecutor, nearCache, true);
+
+        assertThat(store.find("MS-1", "REF-1", "PAY-1")).isPresent();
+        verify(databaseExecutor, never()).execute(any(DatabaseExecutor.NamedQuery.class), any());
+    }
+
+    @Test
+    void disabledStoreUsesOnlyNearCache() throws Exception {
+        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+        JdbcSafetypayNotificationStore store = new JdbcSafetypayNotificationStore(databaseExecutor,
+                new BoundedSafetypayNotificationStore(10, 1), false);
+
+        assertThat(store.saveIfAbsent(record())).isTrue();
+        assertThat(store.saveIfAbsent(record())).isFalse();
+        assertThat(store.find("MS-1", "REF-1", "PAY-2")).isEmpty();
+        verify(databaseExecutor, never()).execute(any(DatabaseExecutor.NamedQuery.class), any());
+    }
+
+    private static SafetypayNotificationRecord record() {
+        SafetypayNotificationRecord record = new SafetypayNotificationRecord();
+        record.setMerchantSalesId("MS-1");
+        record.setReferenceNo("REF-1");
+        record.setPaymentReferenceNo("PAY-1");
+        record.setStatus("102");
+        record.setRawPayload("{}");
+        return record;
+    }
+}
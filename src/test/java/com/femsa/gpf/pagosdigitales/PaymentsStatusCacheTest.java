@@ -0,0 +1,84 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentOperation;
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentOperationActivity;
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentsRequest;
+import com.femsa.gpf.pagosdigitales.api.dto.PaymentsResponse;
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.PaymentsStatusCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
+
+class PaymentsStatusCacheTest {
+
+    @Test
+    void findReturnsTerminalResponseWithCurrentStoreData() {
+        PaymentsStatusCache cache = new PaymentsStatusCache(true, 3600, 0, 100, "102, 103",
+                new ExternalServiceHttpProperties());
+        PaymentsResponse response = response("101", "102");
+        response.setStore(148);
+
+        cache.put(235689, "OP-1", response);
+        PaymentsRequest req = new PaymentsRequest();
+        req.setPayment_provider_code(235689);
+        req.setStore(200);
+        req.setOperation_id("OP-1");
+
+        assertThat(cache.isTerminal(response)).isTrue();
+        assertThat(cache.find(235689, "OP-1", req)).hasValueSatisfying(cached -> {
+            assertThat(cached.getStore()).isEqualTo(200);
+            assertThat(cached.getRequest_id()).isEqualTo("REQ-1");
+            assertThat(cached.getPayment_operations()).hasSize(1);
+        });
+    }
+
+    @Test
+    void putSkipsPendingResponseWhenPendingTtlIsZero() {
+        PaymentsStatusCache cache = new PaymentsStatusCache(true, 3600, 0, 100, "102,103",
+                new ExternalServiceHttpProperties());
+        PaymentsResponse response = response("101");
+
+        cache.put(235689, "OP-2", response);
+
+        assertThat(cache.isTerminal(response)).isFalse();
+        assertThat(cache.find(235689, "OP-2", new PaymentsRequest())).isEmpty();
+    }
+
+    @Test
+    void cachedOperationsAreNotSharedWithTheLeaderOrOtherHits() {
+        PaymentsStatusCache cache = new PaymentsStatusCache(true, 3600, 0, 100, "102",
+                new ExternalServiceHttpProperties());
+        PaymentsResponse response = response("102");
+        PaymentsRequest req = new PaymentsRequest();
+
+        cache.put(235689, "OP-3", response);
+        response.getPayment_operations().get(0).setOperation_id("MUTATED-BY-LEADER");
+        PaymentsResponse firstHit = cache.find(235689, "OP-3", req).orElseThrow();
+        firstHit.getPayment_operations().get(0).getOperation_activities().get(0).setStatus_code("101");
+        firstHit.getPayment_operations().clear();
+        PaymentsResponse secondHit = cache.find(235689, "OP-3", req).orElseThrow();
+
+        assertThat(secondHit.getPayment_operations()).hasSize(1);
+        assertThat(secondHit.getPayment_operations().get(0).getOperation_id()).isEqualTo("OP");
+        assertThat(secondHit.getPayment_operations().get(0).getOperation_activities().get(0).getStatus_code())
+                .isEqualTo("102");
+    }
+
+    private static PaymentsResponse response(String... statuses) {
+        PaymentOperation operation = new PaymentOperation();
+        operation.setOperation_id("OP");
+        operation.setOperation_activities(java.util.Arrays.stream(statuses).map(status -> {
+            PaymentOperationActivity activity = new PaymentOperationActivity();
+            activity.setStatus_code(status);
+            return activity;
+        }).toList());
+        PaymentsResponse response = new PaymentsResponse();
+        response.setRequest_id("REQ-1");
+        response.setPayment_operations(List.of(operation));
+        return response;
+    }
+}
@@ -0,0 +1,154 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.ProviderBanksCache;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.ExternalServiceHttpProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SharedBanksCacheService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SharedBanksCacheService.SharedEntry;
+
+class ProviderBanksCacheTest {
+
+    @Test
+    void getServesCachedResponseUntilTtlExpires() {
+        ProviderBanksCache cache = new ProviderBanksCache(localOnly(), true, 60, 120, 10, 1,
+                new ExternalServiceHttpProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        ProviderBanksCache.Lookup first = cache.get(235689, "ec", () -> "{\"banks\":" + calls.incrementAndGet() + "}",
+                raw -> true);
+        ProviderBanksCache.Lookup second = cache.get(235689, "EC ", () -> "{\"banks\":" + calls.incrementAndGet() + "}",
+                raw -> true);
+
+        assertThat(first.providerCalled()).isTrue();
+        assertThat(second.providerCalled()).isFalse();
+        assertThat(second.execution().value()).isEqualTo("{\"banks\":1}");
+        assertThat(calls).hasValue(1);
+        cache.shutdown();
+    }
+
+    @Test
+    void getDoesNotStoreRejectedResponses() {
+        ProviderBanksCache cache = new ProviderBanksCache(localOnly(), true, 60, 120, 10, 1,
+                new ExternalServiceHttpProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get(235689, "EC", () -> "{\"error\":" + calls.incrementAndGet() + "}", raw -> false);
+        ProviderBanksCache.Lookup second = cache.get(235689, "EC", () -> "{\"error\":" + calls.incrementAndGet() + "}",
+                raw -> false);
+
+        assertThat(second.providerCalled()).isTrue();
+        assertThat(calls).hasValue(2);
+        cache.shutdown();
+    }
+
+    @Test
+    void fullCacheEvictsOldestKeyInsteadOfRejectingNewOnes() throws Exception {
+        ProviderBanksCache cache = new ProviderBanksCache(localOnly(), true, 60, 120, 2, 1,
+                new ExternalServiceHttpProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.get(235689, "EC", () -> "{\"banks\":" + calls.incrementAndGet() + "}", raw -> true);
+        Thread.sleep(5);
+        cache.get(235689, "PE", () -> "{\"banks\":" + calls.incrementAndGet() + "}", raw -> true);
+        Thread.sleep(5);
+        cache.get(235689, "CO", () -> "{\"banks\":" + calls.incrementAndGet() + "}", raw -> true);
+
+        ProviderBanksCache.Lookup newest = cache.get(235689, "CO", () -> "{\"banks\":0}", raw -> true);
+        ProviderBanksCache.Lookup kept = cache.get(235689, "PE", () -> "{\"banks\":0}", raw -> true);
+        ProviderBanksCache.Lookup evicted = cache.get(235689, "EC", () -> "{\"banks\":" + calls.incrementAndGet() + "}",
+                raw -> true);
+
+        assertThat(newest.providerCalled()).isFalse();
+        assertThat(newest.execution().value()).isEqualTo("{\"banks\":3}");
+        assertThat(kept.providerCalled()).isFalse();
+        assertThat(evicted.providerCalled()).isTrue();
+        assertThat(calls).hasValue(4);
+        cache.shutdown();
+    }
+
+    @Test
+    void concurrentMissesShareOneProviderCall() throws Exception {
+        ProviderBanksCache cache = new ProviderBanksCache(localOnly(), true, 60, 120, 10, 1,
+                new ExternalServiceHttpProperties());
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ProviderBanksCache.Lookup> leader = executor.submit(() -> cache.get(235689, "EC", () -> {
+                calls.incrementAndGet();
+                loaderStarted.countDown();
+                releaseLoader.await(5, TimeUnit.SECONDS);
+                return "{\"banks\":[]}";
+            }, raw -> true));
+            assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<ProviderBanksCache.Lookup> follower = executor.submit(() -> cache.get(235689, "EC", () -> {
+                calls.incrementAndGet();
+                return "{\"banks\":[1]}";
+            }, raw -> true));
+            releaseLoader.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS).providerCalled()).isTrue();
+            assertThat(follower.get(5, TimeUnit.SECONDS).execution().value()).isEqualTo("{\"banks\":[]}");
+            assertThat(calls).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    void localMissUsesFreshSharedEntryWithoutCallingProvider() {
+        SharedBanksCacheService sharedCache = mock(SharedBanksCacheService.class);
+        when(sharedCache.isEnabled()).thenReturn(true);
+        when(sharedCache.find(235689, "EC")).thenReturn(Optional.of(new SharedEntry(3L, "{\"banks\":[]}", 1000L)));
+        ProviderBanksCache cache = new ProviderBanksCache(sharedCache, true, 60, 120, 10, 1,
+                new ExternalServiceHttpProperties());
+        AtomicInteger calls = new AtomicInteger();
+
+        ProviderBanksCache.Lookup lookup = cache.get(235689, "EC", () -> "{\"banks\":" + calls.incrementAndGet() + "}",
+                raw -> true);
+
+        assertThat(lookup.providerCalled()).isFalse();
+        assertThat(lookup.execution().value()).isEqualTo("{\"banks\":[]}");
+        assertThat(calls).hasValue(0);
+        verify(sharedCache, never()).tryAcquireLease(235689, "EC");
+        cache.shutdown();
+    }
+
+    @Test
+    void leaseHolderCallsProviderAndSavesSharedEntry() {
+        SharedBanksCacheService sharedCache = mock(SharedBanksCacheService.class);
+        when(sharedCache.isEnabled()).thenReturn(true);
+        when(sharedCache.find(235689, "EC")).thenReturn(Optional.empty());
+        when(sharedCache.tryAcquireLease(235689, "EC")).thenReturn(true);
+        ProviderBanksCache cache = new ProviderBanksCache(sharedCache, true, 60, 120, 10, 1,
+                new ExternalServiceHttpProperties());
+
+        ProviderBanksCache.Lookup lookup = cache.get(235689, "EC", () -> "{\"banks\":[1]}", raw -> true);
+
+        assertThat(lookup.providerCalled()).isTrue();
+        verify(sharedCache).save(235689, "EC", "{\"banks\":[1]}");
+        verify(sharedCache, never()).releaseLease(235689, "EC");
+        cache.shutdown();
+    }
+
+    private static SharedBanksCacheService localOnly() {
+        return new SharedBanksCacheService(null, false, 30, "test-node");
+    }
+}
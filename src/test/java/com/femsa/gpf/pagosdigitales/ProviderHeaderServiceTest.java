@@ -1,7 +1,6 @@
 package com.femsa.gpf.pagosdigitales;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -10,16 +9,21 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Test;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ProviderHeaderService;
 
+import io.micrometer.observation.ObservationRegistry;
+
 class ProviderHeaderServiceTest {
 
     @Test
-    void refreshCacheLoadsHeadersByProviderCode() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+    void loadCatalogLoadsHeadersByProviderCode() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -33,19 +37,15 @@ class ProviderHeaderServiceTest {
         when(resultSet.getString("HEADER_NOMBRE")).thenReturn("X-Api-Key", "X-Version");
         when(resultSet.getString("HEADER_VALOR")).thenReturn("api-key-value", "20200803");
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(org.mockito.ArgumentMatchers.any(DatabaseExecutor.ConnectionConsumer.class));
-
-        ProviderHeaderService service = new ProviderHeaderService(databaseExecutor);
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        service.refreshCache();
+        ProviderHeaderService.HeaderCatalog catalog = new ProviderHeaderService(databaseExecutor).loadCatalog();
 
-        Map<String, String> headers = service.getHeadersByProviderCode(235689);
+        Map<String, String> headers = catalog.getHeadersByProviderCode(235689);
         assertThat(headers).containsEntry("X-Api-Key", "api-key-value");
         assertThat(headers).containsEntry("X-Version", "20200803");
-        assertThat(service.getHeadersByProviderCode(999999)).isEmpty();
+        assertThat(catalog.getHeadersByProviderCode(999999)).isEmpty();
     }
 }
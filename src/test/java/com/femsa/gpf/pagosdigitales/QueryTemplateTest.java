@@ -0,0 +1,46 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.QueryTemplate;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.GatewayWebServiceDefinitionService.WsDefinition;
+
+class QueryTemplateTest {
+
+    @Test
+    void appendToEncodesStaticPartsAndFillsRuntimeSlots() {
+        QueryTemplate template = QueryTemplate.compile(List.of(
+                new WsDefinition("language", "ES", "QUERY", null),
+                new WsDefinition("operation_id", "default-op", "QUERY", "operation_id"),
+                new WsDefinition("request_date_time", null, "QUERY", "now"),
+                new WsDefinition("filter", "a b&c", "QUERY", null),
+                new WsDefinition("ignored", null, "QUERY", null)));
+        StringBuilder url = new StringBuilder("https://sandbox.safetypay.com/express/ws/v.3.0/Get/Operations");
+
+        int appended = template.appendTo(url, Map.of(
+                "operation_id", "OP 1/2",
+                "now", "2026-01-10T10:15:30"));
+
+        assertThat(appended).isEqualTo(4);
+        assertThat(url.toString()).isEqualTo("https://sandbox.safetypay.com/express/ws/v.3.0/Get/Operations"
+                + "?language=ES&operation_id=OP%201%2F2&request_date_time=2026-01-10T10%3A15%3A30&filter=a%20b%26c");
+    }
+
+    @Test
+    void appendToUsesDefaultsAndExistingQuerySeparator() {
+        QueryTemplate template = QueryTemplate.compile(List.of(
+                new WsDefinition("country_code", "EC", "QUERY", "country_code")));
+        StringBuilder url = new StringBuilder("https://provider.example/banks?v=1");
+
+        int appended = template.appendTo(url, Map.of());
+
+        assertThat(appended).isEqualTo(1);
+        assertThat(url.toString()).isEqualTo("https://provider.example/banks?v=1&country_code=EC");
+        assertThat(QueryTemplate.compile(List.of()).isEmpty()).isTrue();
+    }
+}
@@ -0,0 +1,114 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.api.dto.MerchantEvent;
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.RecentPaymentsIndex;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.RecentPaymentsIndex.Presence;
+
+import io.micrometer.observation.ObservationRegistry;
+
+class RecentPaymentsIndexTest {
+
+    @Test
+    void recordedEventsArePresentAndOthersUnknown() {
+        RecentPaymentsIndex index = new RecentPaymentsIndex(mock(DatabaseExecutor.class),
+                true, 6, 1000, false, 1000, 0.01);
+
+        index.recordRegistered(101, List.of(event("FOLIO-1", "OP-1")));
+
+        assertThat(index.findOperation("OP-1")).isEqualTo(Presence.PRESENT);
+        assertThat(index.findFolio("FOLIO-1", 101)).isEqualTo(Presence.PRESENT);
+        assertThat(index.findConfirmationTarget("FOLIO-1", "OP-1")).isEqualTo(Presence.PRESENT);
+        assertThat(index.findEvent("FOLIO-1", "OP-1", 101)).isEqualTo(Presence.PRESENT);
+        assertThat(index.findFolio("FOLIO-1", 202)).isEqualTo(Presence.UNKNOWN);
+        assertThat(index.findOperation("OP-2")).isEqualTo(Presence.UNKNOWN);
+    }
+
+    @Test
+    void bloomFilterAnswersAbsentOnlyAfterWarmUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("ID_INTERNO_VENTA")).thenReturn("FOLIO-OLD");
+        when(resultSet.getString("ID_OPERACION_EXTERNO")).thenReturn("OP-OLD");
+        when(resultSet.getObject("FARMACIA")).thenReturn(101);
+        when(resultSet.getInt("FARMACIA")).thenReturn(101);
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
+        RecentPaymentsIndex index = new RecentPaymentsIndex(databaseExecutor, true, 6, 1000, true, 1000, 0.01);
+        assertThat(index.findOperation("OP-NEW")).isEqualTo(Presence.UNKNOWN);
+
+        index.warmUp();
+
+        assertThat(index.findOperation("OP-NEW")).isEqualTo(Presence.ABSENT);
+        assertThat(index.findOperation("OP-OLD")).isEqualTo(Presence.UNKNOWN);
+        assertThat(index.findFolio("FOLIO-OLD", 101)).isEqualTo(Presence.UNKNOWN);
+    }
+
+    @Test
+    void oldestPaymentsAreEvictedWhenMaxEntriesIsReached() {
+        RecentPaymentsIndex index = new RecentPaymentsIndex(mock(DatabaseExecutor.class),
+                true, 6, 1, false, 1000, 0.01);
+
+        index.recordRegistered(101, List.of(event("FOLIO-1", "OP-1"), event("FOLIO-2", "OP-2")));
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.findOperation("OP-1")).isEqualTo(Presence.UNKNOWN);
+        assertThat(index.findOperation("OP-2")).isEqualTo(Presence.PRESENT);
+    }
+
+    @Test
+    void paymentsWithOldestRegistrationAreEvictedFirstRegardlessOfLoadOrder() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        long now = System.currentTimeMillis();
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getString("ID_INTERNO_VENTA")).thenReturn("FOLIO-NEW", "FOLIO-OLD");
+        when(resultSet.getString("ID_OPERACION_EXTERNO")).thenReturn("OP-NEW", "OP-OLD");
+        when(resultSet.getTimestamp("FECHA_REGISTRO")).thenReturn(new Timestamp(now - 60_000L),
+                new Timestamp(now - 120_000L));
+        when(dataSource.getConnection()).thenReturn(connection);
+
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
+        RecentPaymentsIndex index = new RecentPaymentsIndex(databaseExecutor, true, 6, 1, false, 1000, 0.01);
+        index.warmUp();
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.findOperation("OP-NEW")).isEqualTo(Presence.PRESENT);
+        assertThat(index.findOperation("OP-OLD")).isEqualTo(Presence.UNKNOWN);
+    }
+
+    private MerchantEvent event(String folio, String operationId) {
+        MerchantEvent event = new MerchantEvent();
+        event.setMerchant_sales_id(folio);
+        event.setOperation_id(operationId);
+        return event;
+    }
+}
@@ -0,0 +1,57 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalCallTimer;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.RequestStopwatch.Stage;
+
+class RequestStopwatchTest {
+
+    @AfterEach
+    void clear() {
+        RequestStopwatch.end();
+    }
+
+    @Test
+    void withoutStopwatchNothingIsMeasured() {
+        assertThat(RequestStopwatch.mark()).isZero();
+        RequestStopwatch.add(Stage.DB, TimeUnit.MILLISECONDS.toNanos(5));
+        ExternalCallTimer.execute(() -> "ok");
+
+        assertThat(RequestStopwatch.headerValue()).isNull();
+        assertThat(RequestStopwatch.auditValue()).isNull();
+    }
+
+    @Test
+    void headerListsMeasuredStagesInOrderAndTotal() {
+        RequestStopwatch.begin(false);
+        RequestStopwatch.add(Stage.DB, TimeUnit.MICROSECONDS.toNanos(1_250));
+        RequestStopwatch.add(Stage.DB, TimeUnit.MICROSECONDS.toNanos(500));
+        RequestStopwatch.add(Stage.CONFIG, TimeUnit.MICROSECONDS.toNanos(300));
+        ExternalCallTimer.execute(() -> "ok");
+
+        String header = RequestStopwatch.headerValue();
+
+        assertThat(header).startsWith("config;dur=0.3, provider;dur=");
+        assertThat(header).contains(", db;dur=1.7, total;dur=");
+        assertThat(header).doesNotContain("validation", "map-req", "map-resp", "map-error");
+        assertThat(RequestStopwatch.auditValue()).isNull();
+    }
+
+    @Test
+    void auditValueListsMeasuredStagesWhenEnabled() {
+        RequestStopwatch.begin(true);
+        RequestStopwatch.add(Stage.ERROR_MAPPING, TimeUnit.MICROSECONDS.toNanos(100));
+
+        String auditValue = RequestStopwatch.auditValue();
+        RequestStopwatch.end();
+
+        assertThat(auditValue).startsWith("map-error;dur=0.1, total;dur=");
+    }
+}
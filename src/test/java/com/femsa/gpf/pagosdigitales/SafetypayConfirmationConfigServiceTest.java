@@ -0,0 +1,61 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService.ProviderConfig;
+
+import io.micrometer.observation.ObservationRegistry;
+
+class SafetypayConfirmationConfigServiceTest {
+
+    @Test
+    void refreshCacheIndexesProvidersByApiKeyAndDefaultsToPaysafe() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getInt("CODIGO_BILLETERA")).thenReturn(100, 235689);
+        when(resultSet.wasNull()).thenReturn(false, false);
+        when(resultSet.getString("NOMBRE_PROVEEDOR")).thenReturn("Pichincha", "SafetyPay");
+        when(resultSet.getString("ENABLED")).thenReturn("S", "S");
+        when(resultSet.getString("API_KEY")).thenReturn("key-pichincha", "key-paysafe");
+        when(resultSet.getString("SECRET")).thenReturn("s1", "s2");
+        when(resultSet.getString("SIGNATURE_MODE")).thenReturn("hmac-sha256", null);
+        when(resultSet.getString("ALLOWED_IPS")).thenReturn("[\"10.0.0.0/8\"]", "");
+
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
+        SafetypayConfirmationConfigService service = new SafetypayConfirmationConfigService(databaseExecutor);
+        assertThat(service.isEnabled()).isFalse();
+        assertThat(service.resolveProvider("key-pichincha")).isEmpty();
+
+        service.refreshCache();
+
+        assertThat(service.isEnabled()).isTrue();
+        ProviderConfig pichincha = service.resolveProvider("key-pichincha").orElseThrow();
+        assertThat(pichincha.providerName()).isEqualTo("pichincha");
+        assertThat(pichincha.signatureMode()).isEqualTo("HMAC_SHA256");
+        assertThat(pichincha.allowedIpMatcher().allows("10.1.2.3")).isTrue();
+        assertThat(service.resolveProvider("unknown").map(ProviderConfig::providerName)).contains("paysafe");
+        assertThat(service.resolveProvider(null).map(ProviderConfig::signatureMode)).contains("SHA256");
+    }
+}
@@ -0,0 +1,215 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.femsa.gpf.pagosdigitales.api.dto.SafetypayConfirmationRequest;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationRecord;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationStore;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService.ConfirmationUpdate;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationJournal;
+
+class SafetypayConfirmationJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pendingUpdatesAreReplayedAfterRestartAndAppliedInBatches() throws Exception {
+        Path file = tempDir.resolve("journal/safetypay-journal.bin");
+        SafetypayConfirmationJournal first = journal(mock(PaymentRegistryService.class), file);
+        first.start();
+        assertThat(first.append(request("V1"), null)).isTrue();
+        assertThat(first.append(request("V2"), null)).isTrue();
+        assertThat(first.append(request("V3"), null)).isTrue();
+        first.stop();
+        Files.write(file, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        PaymentRegistryService registry = mock(PaymentRegistryService.class);
+        SafetypayConfirmationJournal second = journal(registry, file);
+        second.start();
+        assertThat(second.stats().pending()).isEqualTo(3);
+
+        second.drain();
+
+        ArgumentCaptor<List<ConfirmationUpdate>> batches = ArgumentCaptor.forClass(List.class);
+        verify(registry, times(2)).applySafetypayConfirmations(batches.capture());
+        assertThat(batches.getAllValues().get(0)).extracting(update -> update.request().getMerchantSalesId())
+                .containsExactly("V1", "V2");
+        assertThat(batches.getAllValues().get(0).get(1).errorNumber()).isZero();
+        assertThat(batches.getAllValues().get(1)).extracting(update -> update.request().getAmount())
+                .containsExactly("50.00");
+        assertThat(second.stats().pending()).isZero();
+        assertThat(second.stats().applied()).isEqualTo(3);
+        second.stop();
+        assertThat(Files.size(file)).isEqualTo(Integer.BYTES * 2);
+
+        SafetypayConfirmationJournal third = journal(mock(PaymentRegistryService.class), file);
+        third.start();
+        assertThat(third.stats().pending()).isZero();
+        third.stop();
+    }
+
+    @Test
+    void failedBatchStaysPending() throws Exception {
+        PaymentRegistryService registry = mock(PaymentRegistryService.class);
+        doThrow(new SQLException("ORA-12170")).when(registry).applySafetypayConfirmations(anyList());
+        SafetypayConfirmationJournal journal = journal(registry, tempDir.resolve("safetypay-journal.bin"));
+        journal.start();
+        journal.append(request("V1"), null);
+
+        assertThatThrownBy(journal::drain).isInstanceOf(SQLException.class);
+
+        assertThat(journal.stats().pending()).isEqualTo(1);
+        assertThat(journal.stats().failedBatches()).isEqualTo(1);
+        journal.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void malformedRowIsMovedAsideAndDoesNotBlockTheRest() throws Exception {
+        PaymentRegistryService registry = mock(PaymentRegistryService.class);
+        doAnswer(invocation -> {
+            List<ConfirmationUpdate> updates = invocation.getArgument(0);
+            for (ConfirmationUpdate update : updates) {
+                new BigDecimal(update.request().getAmount());
+            }
+            return updates.size();
+        }).when(registry).applySafetypayConfirmations(anyList());
+        Path file = tempDir.resolve("safetypay-journal.bin");
+        SafetypayConfirmationJournal journal = journal(registry, file);
+        journal.start();
+        SafetypayConfirmationRequest malformed = request("V2");
+        malformed.setAmount("12,50");
+        journal.append(request("V1"), null);
+        journal.append(malformed, null);
+        journal.append(request("V3"), null);
+
+        journal.drain();
+
+        ArgumentCaptor<List<ConfirmationUpdate>> calls = ArgumentCaptor.forClass(List.class);
+        verify(registry, times(4)).applySafetypayConfirmations(calls.capture());
+        assertThat(calls.getAllValues()).extracting(List::size).containsExactly(2, 1, 1, 1);
+        assertThat(journal.stats().pending()).isZero();
+        assertThat(journal.stats().applied()).isEqualTo(2);
+        assertThat(journal.stats().failedBatches()).isEqualTo(1);
+        assertThat(journal.stats().rejected()).isEqualTo(1);
+        assertThat(Files.readString(tempDir.resolve("safetypay-journal.bin.rejected")))
+                .contains("V2", "12,50")
+                .doesNotContain("V1", "V3");
+        journal.stop();
+    }
+
+    @Test
+    void bindableConfirmationsAreAppended() {
+        PaymentRegistryService registry = mock(PaymentRegistryService.class);
+        SafetypayConfirmationRequest malformed = request("V3");
+        malformed.setAmount("abc");
+        when(registry.validateConfirmationUpdate(malformed)).thenReturn("Amount abc no es numerico");
+        SafetypayConfirmationJournal journal = journal(registry, tempDir.resolve("safetypay-journal.bin"));
+        journal.start();
+
+        assertThat(journal.isAvailable()).isTrue();
+        assertThat(journal.append(malformed, null)).isFalse();
+        assertThat(journal.append(request("V4"), null)).isTrue();
+        assertThat(journal.stats().pending()).isEqualTo(1);
+        journal.stop();
+    }
+
+    @Test
+    void notificationIsReplayedAndRegisteredAfterTheUpdate() throws Exception {
+        Path file = tempDir.resolve("safetypay-journal.bin");
+        SafetypayConfirmationJournal first = journal(mock(PaymentRegistryService.class), file);
+        first.start();
+        SafetypayNotificationRecord notification = new SafetypayNotificationRecord();
+        notification.setProviderName("paysafe");
+        notification.setOrderNo("V1");
+        notification.setRawPayload("{\"MerchantSalesID\":\"V1\"}");
+        notification.setReceivedAt(OffsetDateTime.parse("2026-01-10T10:15:30Z"));
+        assertThat(first.append(request("V1"), notification)).isTrue();
+        assertThat(first.append(request("V2"), null)).isTrue();
+        first.stop();
+
+        PaymentRegistryService registry = mock(PaymentRegistryService.class);
+        SafetypayNotificationStore notificationStore = mock(SafetypayNotificationStore.class);
+        SafetypayConfirmationJournal second = journal(registry, notificationStore, file);
+        second.start();
+        second.drain();
+
+        ArgumentCaptor<SafetypayNotificationRecord> stored = ArgumentCaptor.forClass(SafetypayNotificationRecord.class);
+        InOrder order = inOrder(registry, notificationStore);
+        order.verify(registry).applySafetypayConfirmations(anyList());
+        order.verify(notificationStore).saveIfAbsent(stored.capture());
+        verify(notificationStore, times(1)).saveIfAbsent(any());
+        assertThat(stored.getValue().getMerchantSalesId()).isEqualTo("V1");
+        assertThat(stored.getValue().getProviderName()).isEqualTo("paysafe");
+        assertThat(stored.getValue().getAmount()).isEqualTo("50.00");
+        assertThat(stored.getValue().getRawPayload()).contains("V1");
+        assertThat(stored.getValue().getReceivedAt()).isEqualTo(notification.getReceivedAt());
+        second.stop();
+    }
+
+    @Test
+    void disabledJournalRejectsAppend() {
+        SafetypayConfirmationJournal journal = new SafetypayConfirmationJournal(mock(PaymentRegistryService.class),
+                mock(SafetypayNotificationStore.class), false, "", 10, 10, 1000);
+        journal.start();
+
+        assertThat(journal.append(request("V1"), null)).isFalse();
+    }
+
+    @Test
+    void enabledJournalRequiresExplicitPath() {
+        assertThatThrownBy(() -> new SafetypayConfirmationJournal(mock(PaymentRegistryService.class),
+                mock(SafetypayNotificationStore.class), true, " ", 10, 10, 1000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("journal-path");
+    }
+
+    private static SafetypayConfirmationJournal journal(PaymentRegistryService registry, Path file) {
+        return journal(registry, mock(SafetypayNotificationStore.class), file);
+    }
+
+    private static SafetypayConfirmationJournal journal(PaymentRegistryService registry,
+            SafetypayNotificationStore notificationStore, Path file) {
+        return new SafetypayConfirmationJournal(registry, notificationStore, true, file.toString(), 2, 100,
+                3_600_000L);
+    }
+
+    private static SafetypayConfirmationRequest request(String merchantSalesId) {
+        SafetypayConfirmationRequest req = new SafetypayConfirmationRequest();
+        req.setMerchantSalesId(merchantSalesId);
+        req.setReferenceNo("Ref-" + merchantSalesId);
+        req.setPaymentReferenceNo("606973");
+        req.setRequestDateTime("2020-10-20T12:27:27");
+        req.setAmount("50.00");
+        req.setCurrencyId("USD");
+        req.setStatus("102");
+        req.setSignature(null);
+        return req;
+    }
+}
@@ -0,0 +1,117 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femsa.gpf.pagosdigitales.api.dto.SafetypayReconciliationResponse;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayConfirmationService;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayNotificationStore;
+import com.femsa.gpf.pagosdigitales.application.service.SafetypayReconciliationService;
+import com.femsa.gpf.pagosdigitales.domain.service.SignatureService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.PaymentRegistryService.ConfirmationUpdate;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService;
+import com.femsa.gpf.pagosdigitales.infrastructure.persistence.SafetypayConfirmationConfigService.ProviderConfig;
+
+class SafetypayReconciliationServiceTest {
+
+    private static final ProviderConfig PROVIDER = new ProviderConfig(235689, "paysafe", true, "test-api-key",
+            "test-secret", "SHA256", List.of());
+
+    private final SignatureService signatureService = new SignatureService();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importFileAppliesValidRowsInChunks() throws Exception {
+        SafetypayConfirmationConfigService configService = mock(SafetypayConfirmationConfigService.class);
+        when(configService.resolveProvider("test-api-key")).thenReturn(Optional.of(PROVIDER));
+        PaymentRegistryService registry = mock(PaymentRegistryService.class);
+        when(registry.applySafetypayConfirmations(anyList())).thenAnswer(invocation ->
+                ((List<?>) invocation.getArgument(0)).size());
+        SafetypayReconciliationService service = new SafetypayReconciliationService(configService,
+                new SafetypayConfirmationService(configService, signatureService,
+                        mock(SafetypayNotificationStore.class), new ObjectMapper()),
+                registry, 2, 2, 512);
+
+        String csv = "\uFEFFReferenceNo,RequestDateTime,MerchantSalesID,CreationDateTime,Amount,CurrencyID,"
+                + "PaymentReferenceNo,Status,Signature\r\n"
+                + row("V1", sign("V1")) + "\r\n"
+                + row("V2", sign("V2")) + "\n"
+                + row("V3", "BAD") + "\n"
+                + "\n"
+                + "Ref-V4,2020-10-20T12:27:27,V4\n"
+                + "\"Ref-V5\"" + row("V5", sign("V5")).substring("Ref-V5".length()) + "\n"
+                + "x".repeat(600) + "\n";
+        SafetypayReconciliationResponse response = service.importFile(service.resolveProvider("test-api-key"),
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getError()).isNull();
+        assertThat(response.getRows()).isEqualTo(6);
+        assertThat(response.getApplied()).isEqualTo(3);
+        assertThat(response.getUpdated()).isEqualTo(3);
+        assertThat(response.getInvalid_signature()).isEqualTo(1);
+        assertThat(response.getMalformed()).isEqualTo(2);
+        assertThat(response.getChunks()).isEqualTo(2);
+        ArgumentCaptor<List<ConfirmationUpdate>> batches = ArgumentCaptor.forClass(List.class);
+        verify(registry, times(2)).applySafetypayConfirmations(batches.capture());
+        assertThat(batches.getAllValues().get(0)).extracting(update -> update.request().getMerchantSalesId())
+                .containsExactly("V1", "V2");
+        assertThat(batches.getAllValues().get(1)).extracting(update -> update.request().getMerchantSalesId())
+                .containsExactly("V5");
+        service.shutdown();
+    }
+
+    @Test
+    void importFileRejectsHeaderWithoutRequiredColumns() throws Exception {
+        SafetypayReconciliationService service = new SafetypayReconciliationService(
+                mock(SafetypayConfirmationConfigService.class), mock(SafetypayConfirmationService.class),
+                mock(PaymentRegistryService.class), 10, 1, 512);
+
+        SafetypayReconciliationResponse response = service.importFile(PROVIDER,
+                new ByteArrayInputStream("MerchantSalesID,Amount\nV1,10.00\n".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(response.getError()).isEqualTo("Encabezado sin columna RequestDateTime");
+        assertThat(response.getRows()).isZero();
+        service.shutdown();
+    }
+
+    @Test
+    void ipAllowListOfProviderAppliesToReconciliation() {
+        SafetypayConfirmationConfigService configService = mock(SafetypayConfirmationConfigService.class);
+        SafetypayReconciliationService service = new SafetypayReconciliationService(configService,
+                new SafetypayConfirmationService(configService, signatureService,
+                        mock(SafetypayNotificationStore.class), new ObjectMapper()),
+                mock(PaymentRegistryService.class), 10, 1, 512);
+        ProviderConfig restricted = new ProviderConfig(235689, "paysafe", true, "test-api-key", "test-secret",
+                "SHA256", List.of("10.20.0.0/16"));
+
+        assertThat(service.isIpAllowed(restricted, "10.20.3.4")).isTrue();
+        assertThat(service.isIpAllowed(restricted, "192.168.1.10")).isFalse();
+        assertThat(service.isIpAllowed(restricted, null)).isFalse();
+        assertThat(service.isIpAllowed(PROVIDER, "192.168.1.10")).isTrue();
+        service.shutdown();
+    }
+
+    private static String row(String merchantSalesId, String signature) {
+        return "Ref-" + merchantSalesId + ",2020-10-20T12:27:27," + merchantSalesId
+                + ",2020-10-20T12:27:27,50.00,USD,606973,102," + signature;
+    }
+
+    private String sign(String merchantSalesId) {
+        return signatureService.sha256Hex("2020-10-20T12:27:27" + merchantSalesId + "Ref-" + merchantSalesId
+                + "2020-10-20T12:27:2750.00USD606973102test-secret");
+    }
+}
@@ -1,7 +1,6 @@
 package com.femsa.gpf.pagosdigitales;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -10,16 +9,21 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.junit.jupiter.api.Test;
 
+import com.femsa.gpf.pagosdigitales.infrastructure.config.DatabaseExecutionProperties;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.DatabaseExecutor;
 import com.femsa.gpf.pagosdigitales.infrastructure.persistence.ServiceMappingConfigService;
 
+import io.micrometer.observation.ObservationRegistry;
+
 class ServiceMappingConfigServiceTest {
 
     @Test
-    void refreshCacheLoadsMappingsAndResolvesProviderSpecificAndDefault() throws Exception {
-        DatabaseExecutor databaseExecutor = mock(DatabaseExecutor.class);
+    void loadCatalogLoadsMappingsAndResolvesProviderSpecificAndDefault() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
         Connection connection = mock(Connection.class);
         PreparedStatement statement = mock(PreparedStatement.class);
         ResultSet resultSet = mock(ResultSet.class);
@@ -43,24 +47,22 @@ class ServiceMappingConfigServiceTest {
         when(resultSet.getInt("ORDEN_APLICACION")).thenReturn(1, 2, 1, 1);
         when(resultSet.getLong("ID_MAPEO_SERVICIO")).thenReturn(1L, 2L, 3L, 4L);
 
-        doAnswer(invocation -> {
-            DatabaseExecutor.ConnectionConsumer callback = invocation.getArgument(0);
-            callback.execute(connection);
-            return null;
-        }).when(databaseExecutor).withConnection(org.mockito.ArgumentMatchers.any(DatabaseExecutor.ConnectionConsumer.class));
+        when(dataSource.getConnection()).thenReturn(connection);
+        DatabaseExecutor databaseExecutor = new DatabaseExecutor(dataSource, new DatabaseExecutionProperties(),
+                ObservationRegistry.NOOP);
 
-        ServiceMappingConfigService service = new ServiceMappingConfigService(databaseExecutor);
-        service.refreshCache();
+        ServiceMappingConfigService.MappingCatalog catalog =
+                new ServiceMappingConfigService(databaseExecutor).loadCatalog();
 
-        Map<String, String> paysafe = service.getResponseBodyMappings(235689, "payments", "paysafe");
+        Map<String, String> paysafe = catalog.getResponseBodyMappings(235689, "payments", "paysafe");
         assertThat(paysafe).containsExactly(Map.entry("requestId", "request_id_paysafe"));
 
-        Map<String, String> fallback = service.getResponseBodyMappings(235689, "payments", "pichincha");
+        Map<String, String> fallback = catalog.getResponseBodyMappings(235689, "payments", "pichincha");
         assertThat(fallback).containsExactly(
                 Map.entry("requestId", "request_id"),
                 Map.entry("responseDatetime", "response_datetime"));
 
-        String errorPath = service.getErrorPath(235689, "payments", "pichincha");
+        String errorPath = catalog.getErrorPath(235689, "payments", "pichincha");
         assertThat(errorPath).isEqualTo("error.payload");
     }
 }
@@ -2,9 +2,16 @@ package com.femsa.gpf.pagosdigitales;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.junit.jupiter.api.Test;
 
 import com.femsa.gpf.pagosdigitales.domain.service.SignatureService;
+import com.femsa.gpf.pagosdigitales.domain.service.SignatureService.SignatureMode;
 
 class SignatureServiceTest {
 
@@ -21,4 +28,42 @@ class SignatureServiceTest {
         SignatureService service = new SignatureService();
         assertThat(service.isValid("ABC", "abc")).isTrue();
     }
+
+    @Test
+    void sha256HexMatchesKnownVector() {
+        SignatureService service = new SignatureService();
+        assertThat(service.sha256Hex("abc"))
+                .isEqualTo("BA7816BF8F01CFEA414140DE5DAE2223B00361A396177A9CB410FF61F20015AD");
+    }
+
+    @Test
+    void signSha256MatchesConcatenatedBase() {
+        SignatureService service = new SignatureService();
+        String signature = service.sign(SignatureMode.SHA256, "secreto",
+                "2020-10-20T12:27:27", "Prueba\u00f1", null, "\u20ac50.00", "\ud83d\ude00");
+
+        assertThat(signature).isEqualTo(service.sha256Hex(
+                "2020-10-20T12:27:27Prueba\u00f1\u20ac50.00\ud83d\ude00secreto"));
+    }
+
+    @Test
+    void signHmacSha256UsesSecretAsKey() throws Exception {
+        SignatureService service = new SignatureService();
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("secreto".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String expected = HexFormat.of().withUpperCase()
+                .formatHex(mac.doFinal("Ref1606973".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(service.sign(SignatureMode.HMAC_SHA256, "secreto", "Ref1", "606973")).isEqualTo(expected);
+        assertThat(service.sign(SignatureMode.HMAC_SHA256, "otro", "Ref1", "606973")).isNotEqualTo(expected);
+        assertThat(service.sign(SignatureMode.HMAC_SHA256, "secreto", "Ref1", "606973")).isEqualTo(expected);
+    }
+
+    @Test
+    void signatureModeParsesConfiguredValues() {
+        assertThat(SignatureMode.parse(null)).isEqualTo(SignatureMode.SHA256);
+        assertThat(SignatureMode.parse("sha-256")).isEqualTo(SignatureMode.SHA256);
+        assertThat(SignatureMode.parse("HMAC-SHA256")).isEqualTo(SignatureMode.HMAC_SHA256);
+        assertThat(SignatureMode.parse("MD5")).isNull();
+    }
 }
@@ -0,0 +1,96 @@
+package com.femsa.gpf.pagosdigitales;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.femsa.gpf.pagosdigitales.infrastructure.cache.SingleFlight;
+import com.femsa.gpf.pagosdigitales.infrastructure.util.ExternalServiceExceptionUtils;
+
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallsWithSameKeyShareOneExecution() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>("test");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SingleFlight.Flight<String>> leader = executor.submit(() -> flights.execute("OP-1", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "ok";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<SingleFlight.Flight<String>> follower = executor.submit(() -> flights.execute("OP-1", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }));
+            while (flights.stats().coalesced() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS).leader()).isTrue();
+            SingleFlight.Flight<String> shared = follower.get(5, TimeUnit.SECONDS);
+            assertThat(shared.leader()).isFalse();
+            assertThat(shared.value()).isEqualTo("ok");
+            assertThat(calls).hasValue(1);
+            assertThat(flights.stats()).isEqualTo(new SingleFlight.Stats("test", 1, 1, 0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void executeReturnsExceptionAndReleasesKey() {
+        SingleFlight<String, String> flights = new SingleFlight<>("test");
+
+        SingleFlight.Flight<String> failed = flights.execute("OP-1", () -> {
+            throw new IllegalStateException("timeout");
+        });
+        SingleFlight.Flight<String> next = flights.execute("OP-1", () -> "ok");
+
+        assertThat(failed.exception()).hasMessage("timeout");
+        assertThat(next.leader()).isTrue();
+        assertThat(next.value()).isEqualTo("ok");
+        assertThat(flights.stats().executions()).isEqualTo(2);
+    }
+
+    @Test
+    void followerStopsWaitingAfterMaxWaitWithTimeout() throws Exception {
+        SingleFlight<String, String> flights = new SingleFlight<>("test", 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SingleFlight.Flight<String>> leader = executor.submit(() -> flights.execute("OP-1", () -> {
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return "late";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            SingleFlight.Flight<String> follower = flights.execute("OP-1", () -> "other");
+
+            assertThat(follower.leader()).isFalse();
+            assertThat(follower.exception()).isInstanceOf(TimeoutException.class);
+            assertThat(ExternalServiceExceptionUtils.isTimeoutException(follower.exception())).isTrue();
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS).value()).isEqualTo("late");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}